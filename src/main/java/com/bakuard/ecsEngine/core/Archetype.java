@@ -3,58 +3,187 @@ package com.bakuard.ecsEngine.core;
 import com.bakuard.ecsEngine.core.utils.Array;
 import com.bakuard.ecsEngine.core.utils.Bits;
 import com.bakuard.ecsEngine.core.utils.IntArray;
-import com.bakuard.ecsEngine.core.utils.IntMap;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /*
  * Хранит сущности имеющий один и тотже набор компонентов. Коллекция из таких объектов используется для оптимизации
  * поиска сущностей с определенным набором компонентов и типом сущностей, а также для компактного хранения компонентов.
+ * Сущности и их компоненты хранятся в группах фиксированной емкости (см. Chunk). Индекс сущности в архетипе
+ * однозначно задает группу (Chunk.chunkIndex()) и индекс сущности в этой группе (Chunk.row()). Все группы, кроме
+ * последней, всегда заполнены полностью: при удалении сущности на её место переносится последняя сущность архетипа.
  */
 final class Archetype {
 
-    private final Array<Entity> ENTITIES;
-    private final IntMap<Array<Component>> COMPONENTS;
+    private final Array<Chunk> CHUNKS;
+    private final ComponentTypes TYPES;
+    private final ChunkPool POOL;
+    private final TickCounter TICKS;
+    private final int[] OBJECT_TYPES; //ID объектных типов компонентов в порядке их столбцов.
+    private final int[] STRUCT_TYPES; //ID структурных типов компонентов в порядке их столбцов.
+    private final int[] OBJECT_COLUMNS; //Индекс - ID типа компонентов, значение - индекс столбца или -1.
+    private final int[] STRUCT_COLUMNS; //Индекс - ID типа компонентов, значение - индекс столбца или -1.
+    private final int[] TICK_INDEXES; //Индекс - ID типа компонентов, значение - индекс такта изменений в группе или -1.
     private final Bits COMPONENT_TYPES;
     private final Bits FILTER_PARAM; //копия COMPONENT_TYPES передаваемая в фильтр сущностей.
     private final IntArray ENTITIES_TYPE; //Используется для оптимизации фильтрации сущностей по типам.
-
-    Archetype(Bits componentTypes) {
-        ENTITIES = new Array<>(Entity.class, 0);
-        COMPONENTS = new IntMap<>();
+    private final Array<Archetype> ADD_EDGES; //Кеш переходов при добавлении типа компонентов. Индекс - ID типа.
+    private final Array<Archetype> REMOVE_EDGES; //Кеш переходов при удалении типа компонентов. Индекс - ID типа.
+    private int length;
+
+    Archetype(Bits componentTypes, ComponentTypes types, ChunkPool pool, TickCounter ticks) {
+        CHUNKS = new Array<>(Chunk.class, 0);
+        TYPES = types;
+        POOL = pool;
+        TICKS = ticks;
         COMPONENT_TYPES = componentTypes;
         FILTER_PARAM = new Bits(componentTypes);
         ENTITIES_TYPE = new IntArray(0);
-
+        ADD_EDGES = new Array<>(Archetype.class, 0);
+        REMOVE_EDGES = new Array<>(Archetype.class, 0);
+
+        IntArray objectTypes = new IntArray(0);
+        IntArray structTypes = new IntArray(0);
+        OBJECT_COLUMNS = new int[componentTypes.getSize()];
+        STRUCT_COLUMNS = new int[componentTypes.getSize()];
+        TICK_INDEXES = new int[componentTypes.getSize()];
+        Arrays.fill(OBJECT_COLUMNS, -1);
+        Arrays.fill(STRUCT_COLUMNS, -1);
+        Arrays.fill(TICK_INDEXES, -1);
+        int numberTypes = 0;
         int componentTypeID = componentTypes.nextSetBit(0);
         while(componentTypeID != -1) {
-            COMPONENTS.put(componentTypeID, new Array<>(Component.class, 0));
+            TICK_INDEXES[componentTypeID] = numberTypes++;
+            if(types.isStruct(componentTypeID)) {
+                STRUCT_COLUMNS[componentTypeID] = structTypes.getLength();
+                structTypes.add(componentTypeID);
+            } else if(types.isObject(componentTypeID)) {
+                OBJECT_COLUMNS[componentTypeID] = objectTypes.getLength();
+                objectTypes.add(componentTypeID);
+            }
             componentTypeID = componentTypes.nextSetBit(componentTypeID + 1);
         }
+        OBJECT_TYPES = toArray(objectTypes);
+        STRUCT_TYPES = toArray(structTypes);
     }
 
+    /*
+     * Переносит все сущности архетипа other (имеющего тот же набор типов компонентов, но другого владельца) в конец
+     * данного архетипа. Сущности копируются блоками, максимально заполняя каждую группу данного архетипа. После
+     * вызова этого метода память архетипа other возвращается в пул.
+     */
     void merge(Archetype other, IntArray indexesByEntitiesID, Array<Archetype> archetypesByEntities) {
-        int numberEntitiesBeforeMerge = ENTITIES.getLength();
+        for(int i = 0; i < other.CHUNKS.getLength(); i++) {
+            Chunk from = other.CHUNKS.get(i);
+
+            int fromRow = 0;
+            while(fromRow < from.getLength()) {
+                Chunk to = getChunkForAdd();
+                int count = Math.min(Chunk.CAPACITY - to.getLength(), from.getLength() - fromRow);
+                to.appendRows(from, fromRow, count);
+                placeImmigrants(from, fromRow, count, indexesByEntitiesID, archetypesByEntities);
+                fromRow += count;
+            }
+        }
+
+        addEntitiesTypes(other);
+        other.free();
+    }
 
-        for(int i = 0; i < other.ENTITIES.getLength(); i++) {
-            Entity immigrant = other.ENTITIES.get(i);
-            int immigrantID = immigrant.getPersonalID();
-            int immigrantTypeID = immigrant.getTypeID();
+    /*
+     * Аналог merge() для слияния нескольких буферов (см. EntityComponentManager.flushBuffers()): резервирует в
+     * конце данного архетипа место для всех сущностей архетипа other, назначает перенесенным сущностям их итоговые
+     * индексы и добавляет в ranges диапазоны строк, которые ещё предстоит скопировать (см. MergeRange). Диапазоны
+     * не пересекаются и могут копироваться в разных потоках. Архетип other должен быть освобожден (см. free())
+     * только после копирования всех диапазонов.
+     */
+    void reserveMerge(Archetype other,
+                      IntArray indexesByEntitiesID,
+                      Array<Archetype> archetypesByEntities,
+                      Array<MergeRange> ranges) {
+        for(int i = 0; i < other.CHUNKS.getLength(); i++) {
+            Chunk from = other.CHUNKS.get(i);
+
+            int fromRow = 0;
+            while(fromRow < from.getLength()) {
+                Chunk to = getChunkForAdd();
+                int count = Math.min(Chunk.CAPACITY - to.getLength(), from.getLength() - fromRow);
+                ranges.add(new MergeRange(from, fromRow, to, to.reserveRows(count), count));
+                placeImmigrants(from, fromRow, count, indexesByEntitiesID, archetypesByEntities);
+                fromRow += count;
+            }
+        }
 
-            indexesByEntitiesID.setAndExpand(immigrantID, numberEntitiesBeforeMerge + i);
-            archetypesByEntities.setAndExpand(immigrantID, this);
+        addEntitiesTypes(other);
+    }
 
-            ENTITIES_TYPE.expandTo(immigrantTypeID + 1);
-            ENTITIES_TYPE.increment(immigrantTypeID);
+    /*
+     * Переносит все сущности данного архетипа в конец архетипа other того же владельца. Столбцы общих типов
+     * компонентов копируются блоками, остальные столбцы other для перенесенных сущностей будут равны null или нулю.
+     * Компоненты объектных типов, которых нет в other, должны быть заранее отвязаны. После вызова этого метода
+     * данный архетип пуст, а память его групп возвращена в пул.
+     */
+    void moveAllTo(Archetype other, IntArray indexesByEntitiesID, Array<Archetype> archetypesByEntities) {
+        for(int i = 0; i < CHUNKS.getLength(); i++) {
+            Chunk from = CHUNKS.get(i);
+
+            int fromRow = 0;
+            while(fromRow < from.getLength()) {
+                Chunk to = other.getChunkForAdd();
+                int count = Math.min(Chunk.CAPACITY - to.getLength(), from.getLength() - fromRow);
+                to.appendRowsFrom(from, fromRow, count);
+
+                Entity[] immigrants = from.getEntities();
+                for(int j = fromRow; j < fromRow + count; j++) {
+                    Entity immigrant = immigrants[j];
+                    indexesByEntitiesID.set(immigrant.getPersonalID(), other.length++);
+                    archetypesByEntities.set(immigrant.getPersonalID(), other);
+                }
+                fromRow += count;
+            }
+            from.release(POOL);
+        }
 
-            ENTITIES.add(immigrant);
+        other.ENTITIES_TYPE.expandTo(Math.max(ENTITIES_TYPE.getLength(), other.ENTITIES_TYPE.getLength()));
+        for(int i = 0; i < ENTITIES_TYPE.getLength(); i++) {
+            other.ENTITIES_TYPE.set(i, other.ENTITIES_TYPE.get(i) + ENTITIES_TYPE.get(i));
         }
 
-        COMPONENTS.forEach((IntMap.Node<Array<Component>> node) -> {
-            Array<Component> array = node.getValue();
-            Array<Component> otherArray = other.COMPONENTS.get(node.getKey());
-            array.addAll(otherArray);
-        });
+        CHUNKS.clear();
+        ENTITIES_TYPE.clear();
+        length = 0;
+    }
+
+    //Отвязывает от всех сущностей данного архетипа все компоненты указанного объектного типа.
+    void unbindAllComponentsOfType(int componentTypeID) {
+        int column = getObjectColumnIndex(componentTypeID);
+        for(int i = 0; i < CHUNKS.getLength(); i++) {
+            Chunk chunk = CHUNKS.get(i);
+            Component[] components = chunk.getComponentColumn(column);
+            for(int row = 0; row < chunk.getLength(); row++) {
+                Component.detachAll(components[row]);
+                components[row] = null;
+            }
+        }
+    }
+
+    /*
+     * Возвращает память всех групп сущностей архетипа в пул. Кеш переходов сохраняется: опустевший архетип
+     * остается пригодным для повторного использования, а переходы на удаленные архетипы сбрасывает
+     * Archetypes.dropEmpty().
+     */
+    void free() {
+        for(int i = 0; i < CHUNKS.getLength(); i++) CHUNKS.get(i).release(POOL);
+        CHUNKS.clear();
+        length = 0;
+        ENTITIES_TYPE.clear();
+    }
+
+    void clearEdges() {
+        ADD_EDGES.clear();
+        REMOVE_EDGES.clear();
     }
 
     Bits getCopyComponentTypes() {
@@ -62,113 +191,221 @@ final class Archetype {
     }
 
     void destructAllComponent(int entityIndex) {
-        COMPONENTS.forEach((IntMap.Node<Array<Component>> node) -> {
-            Component component = node.getValue().get(entityIndex);
+        Chunk chunk = CHUNKS.get(Chunk.chunkIndex(entityIndex));
+        int row = Chunk.row(entityIndex);
+        for(int i = 0; i < OBJECT_TYPES.length; i++) {
+            Component component = chunk.getComponentColumn(i)[row];
             while(component != null) {
                 component.destruct();
                 component = component.getNext();
             }
-        });
+        }
+    }
+
+    /*
+     * Удаляет все сущности данного архетипа: вызывает destruct() у всех компонентов объектных типов (по столбцам)
+     * и отвязывает их, после чего возвращает память всех групп в пул. Сам архетип остается пригодным для
+     * использования.
+     */
+    void removeAll() {
+        for(int i = 0; i < CHUNKS.getLength(); i++) {
+            Chunk chunk = CHUNKS.get(i);
+            for(int column = 0; column < OBJECT_TYPES.length; column++) {
+                Component[] components = chunk.getComponentColumn(column);
+                for(int row = 0; row < chunk.getLength(); row++) {
+                    Component component = components[row];
+                    while(component != null) {
+                        component.destruct();
+                        component = component.getNext();
+                    }
+                }
+                for(int row = 0; row < chunk.getLength(); row++) Component.detachAll(components[row]);
+            }
+            chunk.release(POOL);
+        }
+        CHUNKS.clear();
+        ENTITIES_TYPE.clear();
+        length = 0;
     }
 
     boolean containsComponentType(int componentTypeID) {
-        return COMPONENT_TYPES.get(componentTypeID);
+        return componentTypeID < COMPONENT_TYPES.getSize() && COMPONENT_TYPES.get(componentTypeID);
     }
 
     boolean containsComponentTypes(Bits componentTypes) {
         return COMPONENT_TYPES.equalsIgnoreSize(componentTypes);
     }
 
-    boolean hasMoreThanOneComponent(int entityIndex, int componentTypeID) {
-        Component head = COMPONENTS.get(componentTypeID).get(entityIndex);
-        return head != null && head.getNext() == null;
+    boolean containsObjectColumn(int componentTypeID) {
+        return getObjectColumnIndex(componentTypeID) != -1;
+    }
+
+    boolean containsStructColumn(int componentTypeID) {
+        return getStructColumnIndex(componentTypeID) != -1;
+    }
+
+    //Возвращает индекс столбца объектного типа компонентов в группах данного архетипа или -1.
+    int getObjectColumnIndex(int componentTypeID) {
+        return componentTypeID < OBJECT_COLUMNS.length ? OBJECT_COLUMNS[componentTypeID] : -1;
+    }
+
+    //Возвращает индекс столбца структурного типа компонентов в группах данного архетипа или -1.
+    int getStructColumnIndex(int componentTypeID) {
+        return componentTypeID < STRUCT_COLUMNS.length ? STRUCT_COLUMNS[componentTypeID] : -1;
+    }
+
+    //Возвращает индекс такта изменений типа компонентов в группах данного архетипа (см. Chunk) или -1.
+    int getTickIndex(int componentTypeID) {
+        return componentTypeID < TICK_INDEXES.length ? TICK_INDEXES[componentTypeID] : -1;
+    }
+
+    int getNumberComponentTypes() {
+        return COMPONENT_TYPES.cardinality();
+    }
+
+    long getCurrentTick() {
+        return TICKS.get();
+    }
+
+    int[] getObjectTypes() {
+        return OBJECT_TYPES;
+    }
+
+    int[] getStructTypes() {
+        return STRUCT_TYPES;
+    }
+
+    //Возвращает столбец структурного типа компонентов группы, в которой находится сущность с указанным индексом.
+    StructColumn getStructColumn(int entityIndex, int componentTypeID) {
+        return CHUNKS.get(Chunk.chunkIndex(entityIndex)).getStructColumnAt(getStructColumnIndex(componentTypeID));
+    }
+
+    Archetype getAddEdge(int componentTypeID) {
+        return componentTypeID < ADD_EDGES.getLength() ? ADD_EDGES.get(componentTypeID) : null;
+    }
+
+    void setAddEdge(int componentTypeID, Archetype archetype) {
+        ADD_EDGES.setAndExpand(componentTypeID, archetype);
+    }
+
+    Archetype getRemoveEdge(int componentTypeID) {
+        return componentTypeID < REMOVE_EDGES.getLength() ? REMOVE_EDGES.get(componentTypeID) : null;
+    }
+
+    void setRemoveEdge(int componentTypeID, Archetype archetype) {
+        REMOVE_EDGES.setAndExpand(componentTypeID, archetype);
     }
 
     void addComponent(int entityIndex, Component component) {
-        Array<Component> componentsArray = COMPONENTS.get(component.getTypeID());
-        Component head = componentsArray.get(entityIndex);
-        componentsArray.setAndExpand(entityIndex, Component.add(head, component));
+        Component[] column = getComponentColumn(entityIndex, component.getTypeID());
+        int row = Chunk.row(entityIndex);
+        column[row] = Component.add(column[row], component);
+        markChanged(entityIndex, component.getTypeID());
     }
 
     void removeComponent(int entityIndex, Component component) {
-        Array<Component> componentsArray = COMPONENTS.get(component.getTypeID());
-        Component head = componentsArray.get(entityIndex);
-        componentsArray.set(entityIndex, Component.remove(head, component));
+        Component[] column = getComponentColumn(entityIndex, component.getTypeID());
+        int row = Chunk.row(entityIndex);
+        column[row] = Component.remove(column[row], component);
+        markChanged(entityIndex, component.getTypeID());
+    }
+
+    //Отмечает компоненты указанного типа в группе сущности с указанным индексом как измененные на текущем такте.
+    void markChanged(int entityIndex, int componentTypeID) {
+        CHUNKS.get(Chunk.chunkIndex(entityIndex)).markChanged(componentTypeID);
     }
 
     void moveEntityTo(IntArray indexesByEntitiesID, Entity entity, Archetype other) {
         int entityPersonalID = entity.getPersonalID();
         int entityTypeID = entity.getTypeID();
-        final int entityIndex = indexesByEntitiesID.get(entityPersonalID);
+        int entityIndex = indexesByEntitiesID.get(entityPersonalID);
+        Chunk from = CHUNKS.get(Chunk.chunkIndex(entityIndex));
+        int fromRow = Chunk.row(entityIndex);
+
+        //Все компоненты, которых нет в данном архетипе, будут равны null или нулю.
+        Chunk to = other.getChunkForAdd();
+        int toRow = to.add(entity);
+        int otherIndex = other.length++;
+
+        for(int i = 0; i < OBJECT_TYPES.length; i++) {
+            int column = other.getObjectColumnIndex(OBJECT_TYPES[i]);
+            if(column != -1) to.getComponentColumn(column)[toRow] = from.getComponentColumn(i)[fromRow];
+        }
+        for(int i = 0; i < STRUCT_TYPES.length; i++) {
+            int column = other.getStructColumnIndex(STRUCT_TYPES[i]);
+            if(column != -1) from.getStructColumnAt(i).copyRows(fromRow, to.getStructColumnAt(column), toRow, 1);
+        }
 
-        ENTITIES.quickRemove(entityIndex);
-        if(entityIndex < ENTITIES.getLength())
-            indexesByEntitiesID.set(ENTITIES.get(entityIndex).getPersonalID(), entityIndex);
-        indexesByEntitiesID.setAndExpand(entityPersonalID, other.ENTITIES.getLength());
-        other.ENTITIES.add(entity);
+        removeAt(indexesByEntitiesID, entityIndex);
+        indexesByEntitiesID.setAndExpand(entityPersonalID, otherIndex);
 
         ENTITIES_TYPE.decrement(entityTypeID);
         other.ENTITIES_TYPE.expandTo(entityTypeID + 1);
         other.ENTITIES_TYPE.increment(entityTypeID);
-
-        COMPONENTS.forEach((IntMap.Node<Array<Component>> node) -> {
-            Component component = node.getValue().quickRemove(entityIndex);
-            Array<Component> componentsArray = other.COMPONENTS.get(component.getTypeID());
-            if(componentsArray != null) componentsArray.add(component);
-        });
     }
 
     void unbindAllComponents(final int entityIndex) {
-        COMPONENTS.forEach((IntMap.Node<Array<Component>> node) -> {
-            Component.detachAll(node.getValue().get(entityIndex));
-        });
+        Chunk chunk = CHUNKS.get(Chunk.chunkIndex(entityIndex));
+        int row = Chunk.row(entityIndex);
+        for(int i = 0; i < OBJECT_TYPES.length; i++) Component.detachAll(chunk.getComponentColumn(i)[row]);
     }
 
     void removeEntity(IntArray indexesByEntitiesID, Entity entity) {
-        final int entityIndex = indexesByEntitiesID.get(entity.getPersonalID());
-
-        ENTITIES.quickRemove(entityIndex);
-        if(entityIndex < ENTITIES.getLength())
-            indexesByEntitiesID.set(ENTITIES.get(entityIndex).getPersonalID(), entityIndex);
-
-        COMPONENTS.forEach((IntMap.Node<Array<Component>> node) -> {
-            Array<Component> componentsArray = node.getValue();
-            componentsArray.quickRemove(entityIndex);
-        });
-
+        removeAt(indexesByEntitiesID, indexesByEntitiesID.get(entity.getPersonalID()));
         ENTITIES_TYPE.decrement(entity.getTypeID());
     }
 
     void addEntity(IntArray indexesByEntitiesID, Entity entity) {
-        int entityPersonalID = entity.getPersonalID();
-
-        indexesByEntitiesID.setAndExpand(entityPersonalID, ENTITIES.getLength());
-        ENTITIES.add(entity);
+        getChunkForAdd().add(entity);
+        indexesByEntitiesID.setAndExpand(entity.getPersonalID(), length++);
 
         int entityTypeID = entity.getTypeID();
         ENTITIES_TYPE.expandTo(entityTypeID + 1);
         ENTITIES_TYPE.increment(entityTypeID);
     }
 
+    /*
+     * Аналог addEntity() для count сущностей из entities одного типа entityTypeID. Сущности добавляются
+     * диапазонами, каждый из которых заполняет очередную группу архетипа до конца.
+     */
+    void addEntities(IntArray indexesByEntitiesID, Entity[] entities, int count, int entityTypeID) {
+        int added = 0;
+        while(added < count) {
+            Chunk chunk = getChunkForAdd();
+            int rangeLength = Math.min(Chunk.CAPACITY - chunk.getLength(), count - added);
+            chunk.addAll(entities, added, rangeLength);
+            for(int i = added; i < added + rangeLength; i++) {
+                indexesByEntitiesID.setAndExpand(entities[i].getPersonalID(), length++);
+            }
+            added += rangeLength;
+        }
+
+        ENTITIES_TYPE.expandTo(entityTypeID + 1);
+        ENTITIES_TYPE.set(entityTypeID, ENTITIES_TYPE.get(entityTypeID) + count);
+    }
+
+    //Возвращает первый объектный тип компонентов, столбец которого пуст для указанной сущности, или -1.
+    int findMissingObjectType(int entityIndex) {
+        Chunk chunk = CHUNKS.get(Chunk.chunkIndex(entityIndex));
+        int row = Chunk.row(entityIndex);
+        for(int i = 0; i < OBJECT_TYPES.length; i++) {
+            if(chunk.getComponentColumn(i)[row] == null) return OBJECT_TYPES[i];
+        }
+        return -1;
+    }
+
     Component getComponent(int entityIndex, int componentTypeID, String label) {
-        Array<Component> componentsArray = COMPONENTS.get(componentTypeID);
-        return Component.findByLabel(componentsArray.get(entityIndex), label);
+        return Component.findByLabel(getComponent(entityIndex, componentTypeID), label);
     }
 
+    //Возвращает null, если тип componentTypeID не является объектным типом компонентов данного архетипа.
     Component getComponent(int entityIndex, int componentTypeID) {
-        Array<Component> componentsArray = COMPONENTS.get(componentTypeID);
-        return componentsArray.get(entityIndex);
+        Component[] column = getComponentColumn(entityIndex, componentTypeID);
+        return column != null ? column[Chunk.row(entityIndex)] : null;
     }
 
     Array<Component> getComponents(int entityIndex, int componentTypeID) {
-        Array<Component> componentsArray = COMPONENTS.get(componentTypeID);
-        Component head = componentsArray.get(entityIndex);
-        Array<Component> components = new Array<>(Component.class, 0);
-        while(head != null) {
-            components.add(head);
-            head = head.getNext();
-        }
-        return components;
+        return Component.toArray(getComponent(entityIndex, componentTypeID));
     }
 
     //Используется при вызове binarySearch() и binaryInsert() у объекта Array хранящего объекты Archetype
@@ -182,19 +419,63 @@ final class Archetype {
     }
 
     Iterator<Entity> getEntitiesIterator() {
-        return ENTITIES.iterator();
+        return new Iterator<>() {
+
+            private int entityIndex;
+
+            @Override
+            public boolean hasNext() {
+                return entityIndex < length;
+            }
+
+            @Override
+            public Entity next() {
+                if(entityIndex >= length) throw new NoSuchElementException();
+                return getEntity(entityIndex++);
+            }
+        };
     }
 
-    //Возвращаемый массив сущностей. Используется EntityComponentManager только для чтения.
-    Array<Entity> getEntities() {
-        return ENTITIES;
+    Entity getEntity(int entityIndex) {
+        return CHUNKS.get(Chunk.chunkIndex(entityIndex)).getEntities()[Chunk.row(entityIndex)];
+    }
+
+    //Возвращает кол-во сущностей в данном архетипе.
+    int getLength() {
+        return length;
+    }
+
+    int getNumberChunks() {
+        return CHUNKS.getLength();
+    }
+
+    Chunk getChunk(int chunkIndex) {
+        return CHUNKS.get(chunkIndex);
     }
 
     boolean isValid(final EntitiesFilter FILTER) {
         return isValidComponentTypes(FILTER) && isValidEntityType(FILTER);
     }
 
-    private boolean isValidEntityType(final EntitiesFilter FILTER) {
+    /*
+     * Проверяет набор типов компонентов указанной сущности данного архетипа с учетом её компонентов разреженных
+     * типов, которые не входят в набор типов компонентов архетипа (см. SparseComponents).
+     */
+    boolean isValidComponentTypes(final EntitiesFilter FILTER, SparseComponents sparse, Entity entity) {
+        return isValidComponentTypes(FILTER, sparse, entity, FILTER_PARAM);
+    }
+
+    //Аналог предыдущего метода использующий для передачи в фильтр объект param. Используется при переборе из разных потоков.
+    boolean isValidComponentTypes(final EntitiesFilter FILTER, SparseComponents sparse, Entity entity, Bits param) {
+        param.clearAll().or(COMPONENT_TYPES).expandTo(TYPES.getSparseTypesBound());
+        sparse.fillTypes(param, entity.getPersonalID());
+        return FILTER.isValidComponentTypes(param);
+    }
+
+    //Возвращает true, если архетип содержит хотя бы одну сущность, тип которой удовлетворяет фильтру.
+    boolean isValidEntityType(final EntitiesFilter FILTER) {
+        if(FILTER instanceof MaskFilter && ((MaskFilter) FILTER).isAnyEntityType()) return length > 0;
+
         boolean validEntityType = false;
         for(int i = 0, length = ENTITIES_TYPE.getLength(); i < length && !validEntityType; i++) {
             validEntityType = ENTITIES_TYPE.get(i) > 0 && FILTER.isValidEntityType(i);
@@ -202,8 +483,122 @@ final class Archetype {
         return validEntityType;
     }
 
-    private boolean isValidComponentTypes(final EntitiesFilter FILTER) {
+    //Возвращает true, если тип каждой сущности данного архетипа удовлетворяет фильтру.
+    boolean isValidAllEntityTypes(final EntitiesFilter FILTER) {
+        if(FILTER instanceof MaskFilter && ((MaskFilter) FILTER).isAnyEntityType()) return true;
+
+        boolean validEntityTypes = true;
+        for(int i = 0, length = ENTITIES_TYPE.getLength(); i < length && validEntityTypes; i++) {
+            validEntityTypes = ENTITIES_TYPE.get(i) == 0 || FILTER.isValidEntityType(i);
+        }
+        return validEntityTypes;
+    }
+
+    //Аналог isValidEntityType(EntitiesFilter) использующий закешированные запросом результаты проверки типов сущностей.
+    boolean isValidEntityType(Query query) {
+        boolean validEntityType = false;
+        for(int i = 0, length = ENTITIES_TYPE.getLength(); i < length && !validEntityType; i++) {
+            validEntityType = ENTITIES_TYPE.get(i) > 0 && query.isValidEntityType(i);
+        }
+        return validEntityType;
+    }
+
+    boolean isValidComponentTypes(final EntitiesFilter FILTER) {
+        //MaskFilter не изменяет переданный набор типов, поэтому копирование не требуется.
+        if(FILTER instanceof MaskFilter) return FILTER.isValidComponentTypes(COMPONENT_TYPES);
         return FILTER.isValidComponentTypes(FILTER_PARAM.copyState(COMPONENT_TYPES));
     }
 
+    private Component[] getComponentColumn(int entityIndex, int componentTypeID) {
+        int column = getObjectColumnIndex(componentTypeID);
+        return column != -1 ? CHUNKS.get(Chunk.chunkIndex(entityIndex)).getComponentColumn(column) : null;
+    }
+
+    //Возвращает последнюю группу архетипа, если в ней есть место, иначе - добавляет в архетип новую группу.
+    private Chunk getChunkForAdd() {
+        int chunksNumber = CHUNKS.getLength();
+        Chunk chunk = chunksNumber > 0 ? CHUNKS.get(chunksNumber - 1) : null;
+        if(chunk == null || chunk.isFull()) {
+            chunk = new Chunk(this, TYPES, POOL);
+            CHUNKS.add(chunk);
+        }
+        return chunk;
+    }
+
+    /*
+     * Удаляет сущность с указанным индексом, перенося на её место последнюю сущность архетипа. Если последняя
+     * группа архетипа становится пустой - её память возвращается в пул.
+     */
+    private void removeAt(IntArray indexesByEntitiesID, int entityIndex) {
+        int lastIndex = --length;
+        Chunk last = CHUNKS.get(Chunk.chunkIndex(lastIndex));
+        int lastRow = Chunk.row(lastIndex);
+
+        if(entityIndex != lastIndex) {
+            last.copyRows(lastRow, CHUNKS.get(Chunk.chunkIndex(entityIndex)), Chunk.row(entityIndex), 1);
+            indexesByEntitiesID.set(last.getEntities()[lastRow].getPersonalID(), entityIndex);
+        }
+
+        last.removeLast();
+        if(last.getLength() == 0) {
+            CHUNKS.quickRemove(CHUNKS.getLength() - 1);
+            last.release(POOL);
+        }
+    }
+
+    //Назначает count сущностям группы from другого владельца, начиная с fromRow, индексы в конце данного архетипа.
+    private void placeImmigrants(Chunk from,
+                                 int fromRow,
+                                 int count,
+                                 IntArray indexesByEntitiesID,
+                                 Array<Archetype> archetypesByEntities) {
+        Entity[] immigrants = from.getEntities();
+        for(int i = fromRow; i < fromRow + count; i++) {
+            Entity immigrant = immigrants[i];
+            indexesByEntitiesID.setAndExpand(immigrant.getPersonalID(), length++);
+            archetypesByEntities.setAndExpand(immigrant.getPersonalID(), this);
+        }
+    }
+
+    private void addEntitiesTypes(Archetype other) {
+        ENTITIES_TYPE.expandTo(Math.max(ENTITIES_TYPE.getLength(), other.ENTITIES_TYPE.getLength()));
+        for(int i = 0; i < other.ENTITIES_TYPE.getLength(); i++) {
+            ENTITIES_TYPE.set(i, ENTITIES_TYPE.get(i) + other.ENTITIES_TYPE.get(i));
+        }
+    }
+
+    private static int[] toArray(IntArray array) {
+        int[] result = new int[array.getLength()];
+        for(int i = 0; i < result.length; i++) result[i] = array.get(i);
+        return result;
+    }
+
+
+    /*
+     * Диапазон строк группы другого владельца, для которого в группе данного архетипа уже зарезервировано место
+     * (см. reserveMerge()).
+     */
+    static final class MergeRange {
+
+        private final Chunk FROM;
+        private final int FROM_ROW;
+        private final Chunk TO;
+        private final int TO_ROW;
+        private final int COUNT;
+
+        private MergeRange(Chunk from, int fromRow, Chunk to, int toRow, int count) {
+            FROM = from;
+            FROM_ROW = fromRow;
+            TO = to;
+            TO_ROW = toRow;
+            COUNT = count;
+        }
+
+        //Может одновременно вызываться из разных потоков для разных диапазонов.
+        void copy() {
+            FROM.copyRowsConcurrently(FROM_ROW, TO, TO_ROW, COUNT);
+        }
+
+    }
+
 }
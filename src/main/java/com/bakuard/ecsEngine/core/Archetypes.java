@@ -0,0 +1,207 @@
+package com.bakuard.ecsEngine.core;
+
+import com.bakuard.ecsEngine.core.utils.Array;
+import com.bakuard.ecsEngine.core.utils.Bits;
+
+/*
+ * Упорядоченный по наборам типов компонентов список архетипов одного владельца (EntityComponentManager или
+ * NewEntitiesBuffer). Помимо поиска архетипа по набору типов компонентов, отвечает за переходы между архетипами при
+ * добавлении или удалении одного типа компонентов: каждый найденный переход кешируется в обоих архетипах
+ * (см. Archetype#getAddEdge() и Archetype#getRemoveEdge()), поэтому после первого перехода повторный переход
+ * выполняется за одно обращение к массиву и не создает новых объектов.
+ */
+final class Archetypes {
+
+    private final Array<Archetype> ARCHETYPES;
+    private final Archetype EMPTY_ARCHETYPE; //Архетип хранящий все сущности без компонентов.
+    private final ComponentTypes TYPES;
+    private final ChunkPool POOL;
+    private final TickCounter TICKS;
+    private final Array<Query> QUERIES; //Запросы, которые уведомляются о создании и удалении архетипов.
+    private final Array<Array<Archetype>> BY_COMPONENT_TYPE; //Индекс - ID типа компонентов, значение - архетипы с ним.
+    private final Array<Archetype> NO_ARCHETYPES;
+    private int version; //Увеличивается при каждом удалении архетипов.
+
+    @SuppressWarnings("unchecked")
+    Archetypes(ComponentTypes types, ChunkPool pool, TickCounter ticks) {
+        TYPES = types;
+        POOL = pool;
+        TICKS = ticks;
+        QUERIES = new Array<>(Query.class, 0);
+        BY_COMPONENT_TYPE = new Array<>((Class<Array<Archetype>>) (Class<?>) Array.class, 0);
+        NO_ARCHETYPES = new Array<>(Archetype.class, 0);
+        ARCHETYPES = new Array<>(Archetype.class, 0);
+        EMPTY_ARCHETYPE = new Archetype(new Bits(), types, pool, ticks);
+        ARCHETYPES.add(EMPTY_ARCHETYPE);
+    }
+
+    Archetype getEmpty() {
+        return EMPTY_ARCHETYPE;
+    }
+
+    Archetype get(int index) {
+        return ARCHETYPES.get(index);
+    }
+
+    int getLength() {
+        return ARCHETYPES.getLength();
+    }
+
+    //Если версия не изменилась, все ранее полученные архетипы по-прежнему принадлежат данному списку.
+    int getVersion() {
+        return version;
+    }
+
+    /*
+     * Возвращает архетипы, среди которых следует искать архетипы удовлетворяющие фильтру, или null, если проверить
+     * нужно все архетипы. Для MaskFilter возвращает архетипы содержащие наиболее редкий из обязательных типов
+     * компонентов (разреженные типы не входят в набор типов архетипа и не учитываются). Возвращаемый массив
+     * нельзя изменять.
+     */
+    Array<Archetype> getCandidates(EntitiesFilter filter) {
+        if(!(filter instanceof MaskFilter)) return null;
+
+        Array<Archetype> candidates = null;
+        Bits all = ((MaskFilter) filter).getAllMask();
+        for(int type = all.nextSetBit(0); type != -1; type = all.nextSetBit(type + 1)) {
+            if(TYPES.isArchetypal(type)) {
+                Array<Archetype> archetypes = type < BY_COMPONENT_TYPE.getLength() ? BY_COMPONENT_TYPE.get(type) : null;
+                if(archetypes == null) return NO_ARCHETYPES;
+                if(candidates == null || archetypes.getLength() < candidates.getLength()) candidates = archetypes;
+            }
+        }
+        return candidates;
+    }
+
+    //Регистрирует запрос и добавляет в него все уже существующие архетипы удовлетворяющие его фильтру.
+    void addQuery(Query query) {
+        QUERIES.add(query);
+        matchQuery(query);
+    }
+
+    boolean removeQuery(Query query) {
+        int index = QUERIES.linearSearch(query);
+        if(index != -1) QUERIES.quickRemove(index);
+        return index != -1;
+    }
+
+    //Заново заполняет списки архетипов всех запросов. Вызывается при изменении правил отбора архетипов запросами.
+    void rematchQueries() {
+        for(int i = 0; i < QUERIES.getLength(); i++) {
+            Query query = QUERIES.get(i);
+            query.clearArchetypes();
+            matchQuery(query);
+        }
+    }
+
+    /*
+     * Удаляет все архетипы не содержащие сущностей (кроме архетипа для сущностей без компонентов). Кеш переходов
+     * всех оставшихся архетипов сбрасывается, так как он может ссылаться на удаленные архетипы. Удаленные архетипы
+     * исключаются из всех запросов. Возвращает кол-во удаленных архетипов.
+     */
+    int dropEmpty() {
+        int removed = 0;
+        for(int i = ARCHETYPES.getLength() - 1; i >= 0; i--) {
+            Archetype archetype = ARCHETYPES.get(i);
+            if(archetype != EMPTY_ARCHETYPE && archetype.getLength() == 0) {
+                ARCHETYPES.orderedRemove(i);
+                removeFromIndex(archetype);
+                for(int j = 0; j < QUERIES.getLength(); j++) QUERIES.get(j).remove(archetype);
+                archetype.free();
+                ++removed;
+            }
+        }
+
+        if(removed > 0) {
+            for(int i = 0; i < ARCHETYPES.getLength(); i++) ARCHETYPES.get(i).clearEdges();
+            ++version;
+        }
+        return removed;
+    }
+
+    /*
+     * Возвращает память всех архетипов в пул. Сами архетипы и кеш переходов между ними сохраняются, поэтому после
+     * вызова этого метода объект можно использовать повторно (см. NewEntitiesBuffer.reset()).
+     */
+    void freeAll() {
+        for(int i = 0; i < ARCHETYPES.getLength(); i++) ARCHETYPES.get(i).free();
+    }
+
+    /*
+     * Возвращает архетип, набор типов компонентов которого равен набору типов компонентов архетипа from
+     * дополненному типом componentTypeID. Если такого архетипа ещё нет - создает его.
+     */
+    Archetype getWith(Archetype from, int componentTypeID) {
+        Archetype to = from.getAddEdge(componentTypeID);
+        if(to == null) {
+            Bits mask = from.getCopyComponentTypes();
+            mask.expandTo(componentTypeID + 1).set(componentTypeID);
+            to = get(mask);
+
+            from.setAddEdge(componentTypeID, to);
+            to.setRemoveEdge(componentTypeID, from);
+        }
+        return to;
+    }
+
+    /*
+     * Возвращает архетип, набор типов компонентов которого равен набору типов компонентов архетипа from
+     * без типа componentTypeID. Если такого архетипа ещё нет - создает его.
+     */
+    Archetype getWithout(Archetype from, int componentTypeID) {
+        Archetype to = from.getRemoveEdge(componentTypeID);
+        if(to == null) {
+            Bits mask = from.getCopyComponentTypes().clear(componentTypeID);
+            to = get(mask);
+
+            from.setRemoveEdge(componentTypeID, to);
+            to.setAddEdge(componentTypeID, from);
+        }
+        return to;
+    }
+
+    /*
+     * Возвращает архетип с указанным набором типов компонентов. Если такого архетипа ещё нет - создает его.
+     * Созданный архетип будет хранить ссылку на переданный объект componentTypes.
+     */
+    Archetype get(final Bits componentTypes) {
+        int index = ARCHETYPES.binarySearch((Archetype a) -> a.compareComponentTypes(componentTypes));
+
+        Archetype archetype = null;
+        if(index != -1) {
+            archetype = ARCHETYPES.get(index);
+        } else {
+            archetype = new Archetype(componentTypes, TYPES, POOL, TICKS);
+            ARCHETYPES.binaryInsert(archetype, Archetype::compareTo);
+            addToIndex(archetype, componentTypes);
+            for(int i = 0; i < QUERIES.getLength(); i++) QUERIES.get(i).tryAdd(archetype);
+        }
+        return archetype;
+    }
+
+    private void matchQuery(Query query) {
+        Array<Archetype> candidates = getCandidates(query.getFilter());
+        if(candidates == null) candidates = ARCHETYPES;
+        for(int i = 0; i < candidates.getLength(); i++) query.tryAdd(candidates.get(i));
+    }
+
+    private void addToIndex(Archetype archetype, Bits componentTypes) {
+        for(int type = componentTypes.nextSetBit(0); type != -1; type = componentTypes.nextSetBit(type + 1)) {
+            Array<Archetype> archetypes = type < BY_COMPONENT_TYPE.getLength() ? BY_COMPONENT_TYPE.get(type) : null;
+            if(archetypes == null) {
+                archetypes = new Array<>(Archetype.class, 0);
+                BY_COMPONENT_TYPE.setAndExpand(type, archetypes);
+            }
+            archetypes.add(archetype);
+        }
+    }
+
+    private void removeFromIndex(Archetype archetype) {
+        Bits componentTypes = archetype.getCopyComponentTypes();
+        for(int type = componentTypes.nextSetBit(0); type != -1; type = componentTypes.nextSetBit(type + 1)) {
+            Array<Archetype> archetypes = BY_COMPONENT_TYPE.get(type);
+            archetypes.quickRemove(archetypes.linearSearch(archetype));
+        }
+    }
+
+}
@@ -0,0 +1,297 @@
+package com.bakuard.ecsEngine.core;
+
+/**
+ * Группа сущностей одного архетипа, то есть сущностей имеющих один и тот же набор типов компонентов. Сущности
+ * каждого архетипа хранятся в группах фиксированной емкости {@link #CAPACITY}: все группы архетипа, кроме последней,
+ * всегда заполнены полностью. Все столбцы компонентов группы (см. {@link #getStructColumn(int)},
+ * {@link #getComponent(int, int)}) индексируются одним и тем же индексом сущности и хранятся в отдельных
+ * непрерывных массивах, что позволяет обрабатывать данные сущностей последовательным проходом по массивам, а также
+ * обрабатывать разные группы сущностей независимо друг от друга.
+ * <br/><br/>
+ * Память пустых групп возвращается в общий для всех архетипов пул и переиспользуется новыми группами, поэтому
+ * рост архетипа никогда не копирует уже хранящиеся в нем данные. Объекты данного класса предоставляются методом
+ * {@link EntityComponentManager#forEachChunk(EntitiesFilter, java.util.function.Consumer)} и действительны только
+ * до первого изменения состава сущностей или их компонентов.
+ */
+public final class Chunk {
+
+    /**
+     * Максимальное кол-во сущностей в одной группе.
+     */
+    public static final int CAPACITY = 1 << 9;
+
+    static final int SHIFT = 9;
+    static final int MASK = CAPACITY - 1;
+
+    private final Archetype ARCHETYPE;
+    private final Entity[] ENTITIES;
+    private final Component[][] COMPONENTS; //Индекс - индекс столбца объектного типа компонентов в архетипе.
+    private final StructColumn[] STRUCTS; //Индекс - индекс столбца структурного типа компонентов в архетипе.
+    private final long[] CHANGE_TICKS; //Индекс - индекс такта изменений типа компонентов (см. Archetype#getTickIndex()).
+    private int length;
+
+    Chunk(Archetype archetype, ComponentTypes types, ChunkPool pool) {
+        ARCHETYPE = archetype;
+        ENTITIES = pool.takeEntities();
+
+        int[] objectTypes = archetype.getObjectTypes();
+        COMPONENTS = new Component[objectTypes.length][];
+        for(int i = 0; i < objectTypes.length; i++) COMPONENTS[i] = pool.takeComponents();
+
+        int[] structTypes = archetype.getStructTypes();
+        STRUCTS = new StructColumn[structTypes.length];
+        for(int i = 0; i < structTypes.length; i++) STRUCTS[i] = types.createStructColumn(structTypes[i], this, pool);
+
+        CHANGE_TICKS = new long[archetype.getNumberComponentTypes()];
+    }
+
+    //Возвращает порядковый номер группы в архетипе по индексу сущности в архетипе.
+    static int chunkIndex(int entityIndex) {
+        return entityIndex >>> SHIFT;
+    }
+
+    //Возвращает индекс сущности в группе по индексу сущности в архетипе.
+    static int row(int entityIndex) {
+        return entityIndex & MASK;
+    }
+
+    /**
+     * Возвращает кол-во сущностей в данной группе.
+     * @return кол-во сущностей в данной группе.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Возвращает сущность с указанным индексом.
+     * @param index индекс сущности в данной группе.
+     * @return сущность с указанным индексом.
+     * @throws ArrayIndexOutOfBoundsException если не соблюдается условие index >= 0 && index < {@link #getLength()}
+     */
+    public Entity getEntity(int index) {
+        checkIndex(index);
+        return ENTITIES[index];
+    }
+
+    /**
+     * Возвращает true, если сущности данной группы имеют компоненты указанного типа, иначе - false.
+     * @param componentTypeID идентификатор типа компонентов.
+     * @return true, если сущности данной группы имеют компоненты указанного типа, иначе - false.
+     */
+    public boolean containsComponentType(int componentTypeID) {
+        return ARCHETYPE.containsComponentType(componentTypeID);
+    }
+
+    /**
+     * Возвращает столбец значений указанного структурного типа компонентов (см. {@link Schema}) для всех
+     * сущностей данной группы или null, если сущности данной группы не имеют компонентов этого типа.
+     * @param componentTypeID идентификатор структурного типа компонентов.
+     * @return столбец значений указанного структурного типа компонентов или null.
+     */
+    public StructColumn getStructColumn(int componentTypeID) {
+        int column = ARCHETYPE.getStructColumnIndex(componentTypeID);
+        return column != -1 ? STRUCTS[column] : null;
+    }
+
+    /**
+     * Возвращает компонент указанного типа связанный с сущностью с указанным индексом. Если сущность связана сразу
+     * с несколькими компонентами указанного типа - вернется один из них. Если сущности данной группы не имеют
+     * компонентов указанного типа - возвращает null.
+     * @param componentTypeID идентификатор типа компонентов.
+     * @param index индекс сущности в данной группе.
+     * @return компонент указанного типа или null.
+     * @throws ArrayIndexOutOfBoundsException если не соблюдается условие index >= 0 && index < {@link #getLength()}
+     */
+    public Component getComponent(int componentTypeID, int index) {
+        checkIndex(index);
+        int column = ARCHETYPE.getObjectColumnIndex(componentTypeID);
+        return column != -1 ? COMPONENTS[column][index] : null;
+    }
+
+    /**
+     * Возвращает номер такта изменений (см. {@link EntityComponentManager#getChangeTick()}), на котором компоненты
+     * указанного типа в данной группе последний раз изменялись. Такт изменений хранится для группы в целом, а не
+     * для каждой сущности отдельно, и обновляется: <br/>
+     * 1. При добавлении в группу сущности (новой или перенесенной из другого архетипа) - для всех типов
+     *    компонентов группы. <br/>
+     * 2. При связывании и отвязывании компонентов объектного типа, не переносящих сущность в другой архетип. <br/>
+     * 3. При изменении полей компонентов структурного типа через методы {@link EntityComponentManager}, например
+     *    {@link EntityComponentManager#setInt(Entity, int, int, int)}. <br/>
+     * 4. При явном вызове {@link #markChanged(int)} или {@link EntityComponentManager#markChanged(Entity, int)}.
+     * <br/><br/>
+     * Изменения полей объектов {@link Component} и запись в столбцы структурных типов напрямую (см.
+     * {@link #getStructColumn(int)}) не отслеживаются - после них необходимо вызвать {@link #markChanged(int)}.
+     * @param componentTypeID идентификатор типа компонентов.
+     * @return номер такта изменений или -1, если в группе нет компонентов указанного типа.
+     */
+    public long getChangeTick(int componentTypeID) {
+        int index = ARCHETYPE.getTickIndex(componentTypeID);
+        return index != -1 ? CHANGE_TICKS[index] : -1;
+    }
+
+    /**
+     * Возвращает true, если компоненты указанного типа в данной группе изменялись на такте tick или позже (см.
+     * {@link #getChangeTick(int)}), иначе - false. Если в группе нет компонентов указанного типа, возвращает false.
+     * @param componentTypeID идентификатор типа компонентов.
+     * @param tick номер такта изменений.
+     * @return true, если компоненты указанного типа изменялись на такте tick или позже.
+     */
+    public boolean isChangedSince(int componentTypeID, long tick) {
+        int index = ARCHETYPE.getTickIndex(componentTypeID);
+        return index != -1 && CHANGE_TICKS[index] >= tick;
+    }
+
+    /**
+     * Отмечает компоненты указанного типа в данной группе как измененные на текущем такте изменений (см.
+     * {@link EntityComponentManager#getChangeTick()}).
+     * @param componentTypeID идентификатор типа компонентов.
+     * @throws IllegalArgumentException если в группе нет компонентов указанного типа.
+     */
+    public void markChanged(int componentTypeID) {
+        int index = ARCHETYPE.getTickIndex(componentTypeID);
+        if(index == -1) {
+            throw new IllegalArgumentException("Группа не содержит компонентов типа " + componentTypeID);
+        }
+        CHANGE_TICKS[index] = ARCHETYPE.getCurrentTick();
+    }
+
+    boolean isFull() {
+        return length == CAPACITY;
+    }
+
+    //Добавляет сущность в конец группы. Все компоненты сущности в группе будут равны null или нулю.
+    int add(Entity entity) {
+        int row = length++;
+        ENTITIES[row] = entity;
+        for(StructColumn column : STRUCTS) column.clearRow(row);
+        markAllChanged();
+        return row;
+    }
+
+    /*
+     * Добавляет в конец группы count сущностей из entities начиная с fromIndex. Все компоненты добавленных
+     * сущностей в группе будут равны null или нулю. Группа должна вмещать все добавляемые сущности.
+     */
+    void addAll(Entity[] entities, int fromIndex, int count) {
+        int row = length;
+        java.lang.System.arraycopy(entities, fromIndex, ENTITIES, row, count);
+        for(StructColumn column : STRUCTS) column.clearRows(row, count);
+        length += count;
+        markAllChanged();
+    }
+
+    //Удаляет последнюю сущность группы.
+    void removeLast() {
+        --length;
+        ENTITIES[length] = null;
+        for(Component[] column : COMPONENTS) column[length] = null;
+    }
+
+    /*
+     * Копирует count сущностей и всех их компонентов начиная с fromRow в группу to (того же архетипа) начиная с
+     * toRow. Кол-во сущностей группы to не изменяется.
+     */
+    void copyRows(int fromRow, Chunk to, int toRow, int count) {
+        java.lang.System.arraycopy(ENTITIES, fromRow, to.ENTITIES, toRow, count);
+        for(int i = 0; i < COMPONENTS.length; i++) {
+            java.lang.System.arraycopy(COMPONENTS[i], fromRow, to.COMPONENTS[i], toRow, count);
+        }
+        for(int i = 0; i < STRUCTS.length; i++) STRUCTS[i].copyRows(fromRow, to.STRUCTS[i], toRow, count);
+        //Перенесенные сущности могли измениться позже, чем сущности группы to.
+        for(int i = 0; i < CHANGE_TICKS.length; i++) to.CHANGE_TICKS[i] = Math.max(to.CHANGE_TICKS[i], CHANGE_TICKS[i]);
+    }
+
+    //Добавляет в конец данной группы count сущностей группы from (того же архетипа) начиная с fromRow.
+    void appendRows(Chunk from, int fromRow, int count) {
+        from.copyRows(fromRow, this, length, count);
+        length += count;
+        markAllChanged();
+    }
+
+    /*
+     * Резервирует в конце группы место для count сущностей и возвращает индекс первого из них. Зарезервированные
+     * строки заполняются методом copyRowsConcurrently().
+     */
+    int reserveRows(int count) {
+        int row = length;
+        length += count;
+        markAllChanged();
+        return row;
+    }
+
+    /*
+     * Аналог copyRows() для заполнения строк, зарезервированных методом reserveRows(). Может одновременно
+     * вызываться из разных потоков для непересекающихся строк группы to. Такты изменений группы to не изменяются,
+     * т.к. они уже обновлены при резервировании строк.
+     */
+    void copyRowsConcurrently(int fromRow, Chunk to, int toRow, int count) {
+        java.lang.System.arraycopy(ENTITIES, fromRow, to.ENTITIES, toRow, count);
+        for(int i = 0; i < COMPONENTS.length; i++) {
+            java.lang.System.arraycopy(COMPONENTS[i], fromRow, to.COMPONENTS[i], toRow, count);
+        }
+        for(int i = 0; i < STRUCTS.length; i++) STRUCTS[i].copyRowsConcurrently(fromRow, to.STRUCTS[i], toRow, count);
+    }
+
+    /*
+     * Добавляет в конец данной группы count сущностей группы from другого архетипа начиная с fromRow. Копируются
+     * только столбцы общих для обоих архетипов типов компонентов, остальные столбцы данной группы будут равны null
+     * или нулю.
+     */
+    void appendRowsFrom(Chunk from, int fromRow, int count) {
+        int toRow = length;
+        java.lang.System.arraycopy(from.ENTITIES, fromRow, ENTITIES, toRow, count);
+
+        int[] objectTypes = ARCHETYPE.getObjectTypes();
+        for(int i = 0; i < objectTypes.length; i++) {
+            int column = from.ARCHETYPE.getObjectColumnIndex(objectTypes[i]);
+            if(column != -1) java.lang.System.arraycopy(from.COMPONENTS[column], fromRow, COMPONENTS[i], toRow, count);
+        }
+
+        int[] structTypes = ARCHETYPE.getStructTypes();
+        for(int i = 0; i < structTypes.length; i++) {
+            int column = from.ARCHETYPE.getStructColumnIndex(structTypes[i]);
+            if(column != -1) {
+                from.STRUCTS[column].copyRows(fromRow, STRUCTS[i], toRow, count);
+            } else {
+                for(int row = toRow; row < toRow + count; row++) STRUCTS[i].clearRow(row);
+            }
+        }
+
+        length += count;
+        markAllChanged();
+    }
+
+    Entity[] getEntities() {
+        return ENTITIES;
+    }
+
+    Component[] getComponentColumn(int column) {
+        return COMPONENTS[column];
+    }
+
+    StructColumn getStructColumnAt(int column) {
+        return STRUCTS[column];
+    }
+
+    private void markAllChanged() {
+        java.util.Arrays.fill(CHANGE_TICKS, ARCHETYPE.getCurrentTick());
+    }
+
+    //Возвращает память группы в пул. После вызова этого метода группу нельзя использовать.
+    void release(ChunkPool pool) {
+        pool.give(ENTITIES);
+        for(Component[] column : COMPONENTS) pool.give(column);
+        for(StructColumn column : STRUCTS) column.release(pool);
+        length = 0;
+    }
+
+    private void checkIndex(int index) {
+        if(index < 0 || index >= length) {
+            throw new ArrayIndexOutOfBoundsException(
+                    "Для параметра index не соблюдается условие: " +
+                            "index >= 0 && index < length, где length=" + length + ", index=" + index);
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.bakuard.ecsEngine.core;
+
+import com.bakuard.ecsEngine.core.utils.Array;
+import com.bakuard.ecsEngine.core.utils.IntMap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/*
+ * Пул массивов фиксированной длины (Chunk.CAPACITY), из которых состоят группы сущностей (см. Chunk). Группа
+ * сущностей, ставшая пустой, возвращает свои массивы в пул, а новая группа сущностей любого архетипа берет их из
+ * пула. Поэтому пул один на EntityComponentManager и используется всеми его архетипами, в том числе архетипами
+ * буферов, которые могут работать в других потоках - все методы пула синхронизированы.
+ * Пул хранит не более MAX_POOLED массивов каждого вида, остальные отдаются сборщику мусора. Память вне кучи
+ * ограничивается суммарным размером MAX_POOLED_DIRECT_BYTES, т.к. размер одного буфера зависит от размера строки
+ * столбца. Не поместившиеся в пул буферы, как и буферы удаленные из пула методом clear(), освобождает сборщик
+ * мусора - пул не освобождает память вне кучи принудительно.
+ */
+final class ChunkPool {
+
+    private static final int MAX_POOLED = 256;
+    private static final long MAX_POOLED_DIRECT_BYTES = 16L * 1024 * 1024;
+
+    private final Array<Entity[]> ENTITIES;
+    private final Array<Component[]> COMPONENTS;
+    private final Array<int[]> INTS;
+    private final Array<long[]> LONGS;
+    private final Array<float[]> FLOATS;
+    private final Array<double[]> DOUBLES;
+    private final IntMap<Array<ByteBuffer>> DIRECT; //Ключ - размер строки в байтах (см. DirectStructColumn).
+    private long pooledDirectBytes;
+
+    ChunkPool() {
+        ENTITIES = new Array<>(Entity[].class, 0);
+        COMPONENTS = new Array<>(Component[].class, 0);
+        INTS = new Array<>(int[].class, 0);
+        LONGS = new Array<>(long[].class, 0);
+        FLOATS = new Array<>(float[].class, 0);
+        DOUBLES = new Array<>(double[].class, 0);
+        DIRECT = new IntMap<>();
+    }
+
+    synchronized Entity[] takeEntities() {
+        return ENTITIES.getLength() > 0 ? removeLast(ENTITIES) : new Entity[Chunk.CAPACITY];
+    }
+
+    synchronized void give(Entity[] entities) {
+        Arrays.fill(entities, null);
+        if(ENTITIES.getLength() < MAX_POOLED) ENTITIES.add(entities);
+    }
+
+    synchronized Component[] takeComponents() {
+        return COMPONENTS.getLength() > 0 ? removeLast(COMPONENTS) : new Component[Chunk.CAPACITY];
+    }
+
+    synchronized void give(Component[] components) {
+        Arrays.fill(components, null);
+        if(COMPONENTS.getLength() < MAX_POOLED) COMPONENTS.add(components);
+    }
+
+    synchronized int[] takeInts() {
+        return INTS.getLength() > 0 ? removeLast(INTS) : new int[Chunk.CAPACITY];
+    }
+
+    synchronized void give(int[] ints) {
+        if(INTS.getLength() < MAX_POOLED) INTS.add(ints);
+    }
+
+    synchronized long[] takeLongs() {
+        return LONGS.getLength() > 0 ? removeLast(LONGS) : new long[Chunk.CAPACITY];
+    }
+
+    synchronized void give(long[] longs) {
+        if(LONGS.getLength() < MAX_POOLED) LONGS.add(longs);
+    }
+
+    synchronized float[] takeFloats() {
+        return FLOATS.getLength() > 0 ? removeLast(FLOATS) : new float[Chunk.CAPACITY];
+    }
+
+    synchronized void give(float[] floats) {
+        if(FLOATS.getLength() < MAX_POOLED) FLOATS.add(floats);
+    }
+
+    synchronized double[] takeDoubles() {
+        return DOUBLES.getLength() > 0 ? removeLast(DOUBLES) : new double[Chunk.CAPACITY];
+    }
+
+    synchronized void give(double[] doubles) {
+        if(DOUBLES.getLength() < MAX_POOLED) DOUBLES.add(doubles);
+    }
+
+    synchronized ByteBuffer takeDirect(int rowSize) {
+        Array<ByteBuffer> buffers = DIRECT.get(rowSize);
+        if(buffers != null && buffers.getLength() > 0) {
+            ByteBuffer buffer = removeLast(buffers);
+            pooledDirectBytes -= buffer.capacity();
+            return buffer;
+        }
+        return ByteBuffer.allocateDirect(rowSize * Chunk.CAPACITY).order(ByteOrder.nativeOrder());
+    }
+
+    synchronized void giveDirect(ByteBuffer buffer, int rowSize) {
+        Array<ByteBuffer> buffers = DIRECT.get(rowSize);
+        if(buffers == null) {
+            buffers = new Array<>(ByteBuffer.class, 0);
+            DIRECT.put(rowSize, buffers);
+        }
+
+        if(pooledDirectBytes + buffer.capacity() <= MAX_POOLED_DIRECT_BYTES) {
+            buffers.add(buffer);
+            pooledDirectBytes += buffer.capacity();
+        }
+    }
+
+    //Удаляет из пула все хранящиеся в нем массивы, в том числе буферы вне кучи, отдавая их сборщику мусора.
+    synchronized void clear() {
+        ENTITIES.clear();
+        COMPONENTS.clear();
+        INTS.clear();
+        LONGS.clear();
+        FLOATS.clear();
+        DOUBLES.clear();
+        DIRECT.clear();
+        pooledDirectBytes = 0;
+    }
+
+
+    private <T> T removeLast(Array<T> array) {
+        return array.quickRemove(array.getLength() - 1);
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.bakuard.ecsEngine.core;
 
+import com.bakuard.ecsEngine.core.utils.Array;
+
 /**
  * Представляет собой базовый класс для всех компонентов. Компонент - это просто "мешок с данными". Компоненты
  * не должны содержать логику (исключением должен являться только наследуемый метод {@link #destruct()}. Это правило
@@ -59,6 +61,18 @@ public abstract class Component {
         }
     }
 
+    //Возвращает все компоненты списка в виде массива или null, если список пуст.
+    static Array<Component> toArray(Component head) {
+        if(head == null) return null;
+
+        Array<Component> components = new Array<>(Component.class, 0);
+        while(head != null) {
+            components.add(head);
+            head = head.next;
+        }
+        return components;
+    }
+
     static int getCountComponent(Component head) {
         int countComponent = 0;
         while(head != null) {
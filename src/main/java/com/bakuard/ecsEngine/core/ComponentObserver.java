@@ -0,0 +1,37 @@
+package com.bakuard.ecsEngine.core;
+
+import com.bakuard.ecsEngine.core.utils.Array;
+
+/**
+ * Наблюдатель за структурными изменениями сущностей по одному типу компонентов. Регистрируется методом
+ * {@link EntityComponentManager#addObserver(int, ComponentObserver)} и получает пакеты сущностей, которые за время
+ * прошедшее с предыдущей рассылки (см. {@link EntityComponentManager#notifyObservers()}) получили компонент
+ * наблюдаемого типа или лишились его. Позволяет обновлять внешние индексы (например, пространственные) пакетно, а не
+ * по одному вызову на каждое изменение.
+ * <br/><br/>
+ * Изменением считается только переход сущности от отсутствия компонентов наблюдаемого типа к их наличию и обратно:
+ * связывание второго компонента того же объектного типа или отвязывание одного из нескольких однотипных компонентов
+ * не считается изменением. Удаление сущности считается удалением у неё компонентов всех типов. Если за время между
+ * рассылками сущность получила компонент и лишилась его (или наоборот), она не попадет ни в один пакет.
+ */
+public interface ComponentObserver {
+
+    /**
+     * Вызывается при рассылке для сущностей лишившихся компонентов наблюдаемого типа. На момент вызова эти
+     * сущности могут быть уже удалены. Вызывается перед {@link #onAdded(int, Array)}.
+     * @param componentTypeID идентификатор наблюдаемого типа компонентов.
+     * @param entities сущности лишившиеся компонентов данного типа. Массив используется менеджером повторно и
+     *                 действителен только во время вызова.
+     */
+    public void onRemoved(int componentTypeID, Array<Entity> entities);
+
+    /**
+     * Вызывается при рассылке для сущностей получивших компонент наблюдаемого типа. На момент вызова эти
+     * сущности могут уже не иметь компонентов данного типа, если они лишились их в другом наблюдателе.
+     * @param componentTypeID идентификатор наблюдаемого типа компонентов.
+     * @param entities сущности получившие компонент данного типа. Массив используется менеджером повторно и
+     *                 действителен только во время вызова.
+     */
+    public void onAdded(int componentTypeID, Array<Entity> entities);
+
+}
@@ -0,0 +1,202 @@
+package com.bakuard.ecsEngine.core;
+
+import com.bakuard.ecsEngine.core.utils.Array;
+import com.bakuard.ecsEngine.core.utils.IntArray;
+import com.bakuard.ecsEngine.core.utils.SparseSet;
+
+/*
+ * Накапливает структурные изменения сущностей по наблюдаемым типам компонентов (см. ComponentObserver) и
+ * рассылает их пакетами. Один объект данного класса принадлежит EntityComponentManager. Изменения сущностей
+ * буферов учитываются при слиянии буфера с менеджером.
+ *
+ * Для каждого наблюдаемого типа хранятся два SparseSet, ключом которых является персональный ID сущности. Если
+ * сущность получает компонент, которого лишилась после предыдущей рассылки, или наоборот - изменения взаимно
+ * уничтожаются. Т.к. ID удаленной сущности может быть сразу выделен новой сущности, один и тот же ID может
+ * одновременно находиться в обоих наборах для сущностей разных поколений - поэтому при рассылке пакет удаленных
+ * сущностей передается раньше пакета добавленных.
+ */
+final class ComponentObservers {
+
+    private final ComponentTypes TYPES;
+    private final Array<ObservedType> OBSERVED; //Индекс - ID типа компонентов.
+    private final IntArray OBSERVED_TYPES;
+    private boolean isNotifying;
+
+    ComponentObservers(ComponentTypes types) {
+        TYPES = types;
+        OBSERVED = new Array<>(ObservedType.class, 0);
+        OBSERVED_TYPES = new IntArray(0);
+    }
+
+    void add(int componentTypeID, ComponentObserver observer) {
+        checkNotNotifying();
+        ObservedType observed = get(componentTypeID);
+        if(observed == null) {
+            observed = new ObservedType();
+            OBSERVED.setAndExpand(componentTypeID, observed);
+            OBSERVED_TYPES.add(componentTypeID);
+        }
+        observed.OBSERVERS.add(observer);
+    }
+
+    boolean remove(int componentTypeID, ComponentObserver observer) {
+        checkNotNotifying();
+        ObservedType observed = get(componentTypeID);
+        if(observed == null) return false;
+
+        int index = observed.OBSERVERS.linearSearch(observer);
+        if(index == -1) return false;
+        observed.OBSERVERS.orderedRemove(index);
+        if(observed.OBSERVERS.getLength() == 0) {
+            OBSERVED.set(componentTypeID, null);
+            OBSERVED_TYPES.quickRemove(OBSERVED_TYPES.linearSearch(componentTypeID));
+        }
+        return true;
+    }
+
+    boolean isEmpty() {
+        return OBSERVED_TYPES.getLength() == 0;
+    }
+
+    void added(Entity entity, int componentTypeID) {
+        ObservedType observed = get(componentTypeID);
+        if(observed != null) observed.added(entity);
+    }
+
+    void removed(Entity entity, int componentTypeID) {
+        ObservedType observed = get(componentTypeID);
+        if(observed != null) observed.removed(entity);
+    }
+
+    //Вызывается при переносе сущности из архетипа from в архетип to.
+    void moved(Entity entity, Archetype from, Archetype to) {
+        for(int i = 0; i < OBSERVED_TYPES.getLength(); i++) {
+            int componentTypeID = OBSERVED_TYPES.get(i);
+            boolean wasContained = from.containsComponentType(componentTypeID);
+            if(wasContained != to.containsComponentType(componentTypeID)) {
+                if(wasContained) OBSERVED.get(componentTypeID).removed(entity);
+                else OBSERVED.get(componentTypeID).added(entity);
+            }
+        }
+    }
+
+    //Вызывается перед переносом всех сущностей архетипа from в архетип to.
+    void movedAll(Archetype from, Archetype to) {
+        for(int i = 0; i < from.getLength(); i++) moved(from.getEntity(i), from, to);
+    }
+
+    //Вызывается после добавления в архетип новой сущности.
+    void addedAll(Entity entity, Archetype archetype) {
+        for(int i = 0; i < OBSERVED_TYPES.getLength(); i++) {
+            int componentTypeID = OBSERVED_TYPES.get(i);
+            if(archetype.containsComponentType(componentTypeID)) OBSERVED.get(componentTypeID).added(entity);
+        }
+    }
+
+    //Вызывается перед слиянием архетипа буфера с архетипом менеджера.
+    void addedAll(Archetype archetype) {
+        for(int i = 0; i < archetype.getLength(); i++) addedAll(archetype.getEntity(i), archetype);
+    }
+
+    //Вызывается перед слиянием компонентов разреженных типов буфера с компонентами менеджера.
+    void addedAll(SparseComponents sparse) {
+        for(int i = 0; i < OBSERVED_TYPES.getLength(); i++) {
+            int componentTypeID = OBSERVED_TYPES.get(i);
+            if(TYPES.isSparse(componentTypeID)) sparse.forEachOwner(componentTypeID, OBSERVED.get(componentTypeID)::added);
+        }
+    }
+
+    //Вызывается перед удалением сущности вместе со всеми её компонентами.
+    void removedAll(Entity entity, Archetype archetype, SparseComponents sparse) {
+        for(int i = 0; i < OBSERVED_TYPES.getLength(); i++) {
+            int componentTypeID = OBSERVED_TYPES.get(i);
+            if(archetype.containsComponentType(componentTypeID) ||
+                    (TYPES.isSparse(componentTypeID) && sparse.contains(entity.getPersonalID(), componentTypeID))) {
+                OBSERVED.get(componentTypeID).removed(entity);
+            }
+        }
+    }
+
+    /*
+     * Рассылает все накопленные изменения. Изменения, выполненные наблюдателями во время рассылки, будут разосланы
+     * при следующем вызове этого метода.
+     */
+    void notifyObservers() {
+        if(isNotifying) {
+            throw new IllegalStateException("Нельзя вызывать notifyObservers() во время рассылки изменений.");
+        }
+
+        isNotifying = true;
+        try {
+            for(int i = 0; i < OBSERVED_TYPES.getLength(); i++) OBSERVED.get(OBSERVED_TYPES.get(i)).takeBatches();
+            for(int i = 0; i < OBSERVED_TYPES.getLength(); i++) {
+                int componentTypeID = OBSERVED_TYPES.get(i);
+                OBSERVED.get(componentTypeID).notifyObservers(componentTypeID);
+            }
+        } finally {
+            isNotifying = false;
+        }
+    }
+
+    private void checkNotNotifying() {
+        if(isNotifying) {
+            throw new IllegalStateException("Нельзя изменять список наблюдателей во время рассылки изменений.");
+        }
+    }
+
+    private ObservedType get(int componentTypeID) {
+        return componentTypeID < OBSERVED.getLength() ? OBSERVED.get(componentTypeID) : null;
+    }
+
+
+    static final class ObservedType {
+
+        private final Array<ComponentObserver> OBSERVERS;
+        private final SparseSet<Entity> ADDED; //Ключ - персональный ID сущности.
+        private final SparseSet<Entity> REMOVED; //Ключ - персональный ID сущности.
+        private final Array<Entity> ADDED_BATCH;
+        private final Array<Entity> REMOVED_BATCH;
+
+        private ObservedType() {
+            OBSERVERS = new Array<>(ComponentObserver.class, 0);
+            ADDED = new SparseSet<>();
+            REMOVED = new SparseSet<>();
+            ADDED_BATCH = new Array<>(Entity.class, 0);
+            REMOVED_BATCH = new Array<>(Entity.class, 0);
+        }
+
+        void added(Entity entity) {
+            int entityID = entity.getPersonalID();
+            if(entity.equals(REMOVED.get(entityID))) REMOVED.remove(entityID);
+            else ADDED.put(entityID, entity);
+        }
+
+        void removed(Entity entity) {
+            int entityID = entity.getPersonalID();
+            if(entity.equals(ADDED.get(entityID))) ADDED.remove(entityID);
+            else REMOVED.put(entityID, entity);
+        }
+
+        private void takeBatches() {
+            ADDED_BATCH.clear();
+            REMOVED_BATCH.clear();
+            for(int i = 0; i < ADDED.getSize(); i++) ADDED_BATCH.add(ADDED.getValue(i));
+            for(int i = 0; i < REMOVED.getSize(); i++) REMOVED_BATCH.add(REMOVED.getValue(i));
+            ADDED.clear();
+            REMOVED.clear();
+        }
+
+        private void notifyObservers(int componentTypeID) {
+            if(REMOVED_BATCH.getLength() > 0) {
+                for(int i = 0; i < OBSERVERS.getLength(); i++) OBSERVERS.get(i).onRemoved(componentTypeID, REMOVED_BATCH);
+            }
+            if(ADDED_BATCH.getLength() > 0) {
+                for(int i = 0; i < OBSERVERS.getLength(); i++) OBSERVERS.get(i).onAdded(componentTypeID, ADDED_BATCH);
+            }
+            ADDED_BATCH.clear();
+            REMOVED_BATCH.clear();
+        }
+
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.bakuard.ecsEngine.core;
+
+import com.bakuard.ecsEngine.core.utils.Array;
+import com.bakuard.ecsEngine.core.utils.Bits;
+import com.bakuard.ecsEngine.core.utils.IntArray;
+
+/*
+ * Хранит сведения о способе хранения каждого зарегистрированного типа компонентов. Все типы компонентов, которые
+ * не были явно зарегистрированы, считаются обычными (объектными) типами компонентов (см. Component).
+ * Используется архетипами для определения того, какие столбцы необходимо создать для каждого типа компонентов.
+ * Компоненты разреженных типов хранятся вне архетипов (см. SparseComponents), а теги входят в набор типов архетипа,
+ * но не имеют столбцов.
+ * Один объект данного класса принадлежит EntityComponentManager и используется также всеми его буферами.
+ */
+final class ComponentTypes {
+
+    private final Array<Schema> SCHEMAS; //Индекс - ID структурного типа компонентов.
+    private final Array<StructColumn.Storage> STORAGES; //Индекс - ID структурного типа компонентов.
+    private final Bits SPARSE;
+    private final Bits TAGS;
+    private final IntArray SPARSE_TYPES; //ID всех разреженных типов компонентов в порядке их регистрации.
+
+    ComponentTypes() {
+        SCHEMAS = new Array<>(Schema.class, 0);
+        STORAGES = new Array<>(StructColumn.Storage.class, 0);
+        SPARSE = new Bits();
+        TAGS = new Bits();
+        SPARSE_TYPES = new IntArray(0);
+    }
+
+    void registerSparse(int componentTypeID) {
+        checkNotRegistered(componentTypeID);
+        SPARSE.expandTo(componentTypeID + 1).set(componentTypeID);
+        SPARSE_TYPES.add(componentTypeID);
+    }
+
+    boolean isSparse(int componentTypeID) {
+        return componentTypeID < SPARSE.getSize() && SPARSE.get(componentTypeID);
+    }
+
+    boolean hasSparseTypes() {
+        return SPARSE_TYPES.getLength() > 0;
+    }
+
+    /*
+     * Возвращает true, если результат фильтра может зависеть от компонентов разреженных типов, и набор типов
+     * компонентов должен проверяться отдельно для каждой сущности. Для MaskFilter это верно, только если его наборы
+     * содержат хотя бы один разреженный тип. Для прочих реализаций EntitiesFilter условие неизвестно, поэтому при
+     * наличии хотя бы одного разреженного типа метод всегда возвращает true.
+     */
+    boolean isSparseFilter(EntitiesFilter filter) {
+        if(SPARSE_TYPES.getLength() == 0) return false;
+        return !(filter instanceof MaskFilter) || ((MaskFilter) filter).containsAnyType(SPARSE);
+    }
+
+    IntArray getSparseTypes() {
+        return SPARSE_TYPES;
+    }
+
+    //Возвращает кол-во бит, достаточное для хранения любого разреженного типа компонентов в объекте Bits.
+    int getSparseTypesBound() {
+        return SPARSE.getSize();
+    }
+
+    void registerTag(int componentTypeID) {
+        checkNotRegistered(componentTypeID);
+        TAGS.expandTo(componentTypeID + 1).set(componentTypeID);
+    }
+
+    //Возвращает true, если данный тип компонентов является тегом - входит в набор типов архетипа, но не имеет столбца.
+    boolean isTag(int componentTypeID) {
+        return componentTypeID < TAGS.getSize() && TAGS.get(componentTypeID);
+    }
+
+    void registerStruct(int componentTypeID, Schema schema, StructColumn.Storage storage) {
+        checkNotRegistered(componentTypeID);
+        SCHEMAS.setAndExpand(componentTypeID, schema);
+        STORAGES.setAndExpand(componentTypeID, storage);
+    }
+
+    StructColumn createStructColumn(int componentTypeID, Chunk chunk, ChunkPool pool) {
+        return StructColumn.create(SCHEMAS.get(componentTypeID), STORAGES.get(componentTypeID), chunk, pool);
+    }
+
+    boolean isStruct(int componentTypeID) {
+        return getSchema(componentTypeID) != null;
+    }
+
+    Schema getSchema(int componentTypeID) {
+        return componentTypeID < SCHEMAS.getLength() ? SCHEMAS.get(componentTypeID) : null;
+    }
+
+    //Возвращает true, если компоненты данного типа представлены объектами Component.
+    boolean isObject(int componentTypeID) {
+        return !isStruct(componentTypeID) && !isTag(componentTypeID);
+    }
+
+    //Возвращает true, если компоненты данного типа хранятся в архетипах и учитываются в наборе типов архетипа.
+    boolean isArchetypal(int componentTypeID) {
+        return !isSparse(componentTypeID);
+    }
+
+    /*
+     * Возвращает набор типов компонентов архетипа, в который будут добавлены сущности создаваемые пакетом.
+     * Все типы должны быть не меньше нуля, не повторяться и не быть разреженными.
+     */
+    Bits toArchetypeTypes(int[] componentTypes) {
+        Bits result = new Bits();
+        for(int componentTypeID : componentTypes) {
+            if(componentTypeID < 0) {
+                throw new IllegalArgumentException(
+                        "ID типа компонента не должно быть меньше нуля. Получено " + componentTypeID);
+            } else if(isSparse(componentTypeID)) {
+                throw new IllegalArgumentException(
+                        "Тип компонентов " + componentTypeID + " является разреженным и не входит в архетип.");
+            } else if(componentTypeID < result.getSize() && result.get(componentTypeID)) {
+                throw new IllegalArgumentException("Тип компонентов " + componentTypeID + " указан несколько раз.");
+            }
+            result.expandTo(componentTypeID + 1).set(componentTypeID);
+        }
+        return result;
+    }
+
+    private void checkNotRegistered(int componentTypeID) {
+        if(componentTypeID < 0) {
+            throw new IllegalArgumentException(
+                    "ID типа компонента не должно быть меньше нуля. Получено " + componentTypeID);
+        } else if(isStruct(componentTypeID) || isSparse(componentTypeID) || isTag(componentTypeID)) {
+            throw new IllegalArgumentException("Тип компонентов " + componentTypeID + " уже зарегистрирован.");
+        }
+    }
+
+}
@@ -0,0 +1,402 @@
+package com.bakuard.ecsEngine.core;
+
+import com.bakuard.ecsEngine.core.exceptions.ExceptionHandler;
+
+import java.util.Arrays;
+
+/**
+ * Буфер отложенных операций (см. {@link EntityCommandBuffer}), в который могут одновременно записывать операции
+ * несколько потоков. Буфер состоит из заданного при его создании кол-ва полос - отдельных
+ * {@link EntityCommandBuffer}, пронумерованных от нуля. Каждая операция записывается в полосу с указанным
+ * вызывающим кодом номером без блокировок, поэтому одна полоса не должна использоваться несколькими потоками
+ * одновременно - как правило, номер полосы это номер рабочего потока или задачи. Каждая операция сопровождается
+ * ключом сортировки, например - номером группы сущностей и номером сущности в группе, для которой была записана
+ * операция (см. {@link #sortKey(int, int)}). При слиянии с {@link EntityComponentManager} (см.
+ * {@link EntityComponentManager#flushBuffer(ConcurrentCommandBuffer, ExceptionHandler)}) операции всех полос
+ * выполняются в порядке возрастания ключей, операции разных полос с одинаковым ключом - в порядке возрастания
+ * номеров полос, а операции одной полосы с одинаковым ключом - в порядке их записи. Поэтому порядок выполнения
+ * операций не зависит ни от того, какие потоки выполняли запись, ни от того, в каком порядке они это делали.
+ * <br/><br/>
+ * Персональные ID сущностей создаваемых через буфер выделяются из блока ID полосы (см.
+ * {@link EntityCommandBuffer#createEntity(int)}) и поэтому зависят от распределения работы между полосами. Если
+ * требуется полностью детерминированное выполнение, не используйте персональные ID таких сущностей в логике игры.
+ * <br/><br/>
+ * Методы {@link #reset()}, {@link #isEmpty()} и слияние буфера должны вызываться только после того, как все потоки
+ * завершили запись операций. После слияния буфер становится невалидным и может быть повторно использован после
+ * вызова {@link #reset()}, при этом полосы и емкость их внутренних массивов сохраняются. За создание объектов
+ * данного класса отвечает метод {@link EntityComponentManager#createConcurrentCommandBuffer(int)}.
+ */
+public final class ConcurrentCommandBuffer {
+
+    /**
+     * Возвращает ключ сортировки, упорядочивающий операции сначала по номеру группы сущностей, а затем по номеру
+     * сущности в группе.
+     * @param chunkIndex номер группы сущностей. Должен быть не меньше нуля.
+     * @param entityIndex номер сущности в группе.
+     * @return ключ сортировки.
+     */
+    public static long sortKey(int chunkIndex, int entityIndex) {
+        return (long) chunkIndex << 32 | (entityIndex & 0xFFFFFFFFL);
+    }
+
+
+    private final EntityComponentManager MANAGER;
+    private final Lane[] LANES;
+    //Используются при слиянии буфера (см. sortCommands()).
+    private long[] keys; //Индекс - номер операции среди операций всех полос.
+    private int[] laneIndexes; //Индекс - номер операции среди операций всех полос.
+    private int[] order; //Номера операций в порядке их выполнения.
+    private int[] mergeBuffer;
+    private int numberCommands;
+    private boolean isValid;
+
+    ConcurrentCommandBuffer(EntityComponentManager manager, int numberLanes) {
+        MANAGER = manager;
+        LANES = new Lane[numberLanes];
+        for(int i = 0; i < numberLanes; i++) LANES[i] = new Lane(manager.createEntityCommandBuffer());
+        keys = new long[0];
+        laneIndexes = new int[0];
+        order = new int[0];
+        mergeBuffer = new int[0];
+        isValid = true;
+    }
+
+    /**
+     * Аналог {@link EntityCommandBuffer#createEntity(int)}, записывающий операцию в указанную полосу.
+     * @param lane номер полосы, в которую записывается операция.
+     * @param sortKey ключ сортировки операции.
+     * @param entityTypeID идентификатор типа сущности.
+     * @return новую сущность.
+     * @throws IllegalArgumentException если идентификатор типа сущности меньше нуля или полосы с указанным
+     *                                  номером не существует.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}.
+     */
+    public Entity createEntity(int lane, long sortKey, int entityTypeID) {
+        Lane current = begin(lane);
+        Entity entity = current.BUFFER.createEntity(entityTypeID);
+        current.end(sortKey);
+        return entity;
+    }
+
+    /**
+     * Аналог {@link EntityCommandBuffer#removeEntity(Entity)}, записывающий операцию в указанную полосу.
+     * @param lane номер полосы, в которую записывается операция.
+     * @param sortKey ключ сортировки операции.
+     * @param entity удаляемая сущность.
+     * @throws IllegalArgumentException если полосы с указанным номером не существует.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}.
+     */
+    public void removeEntity(int lane, long sortKey, Entity entity) {
+        Lane current = begin(lane);
+        current.BUFFER.removeEntity(entity);
+        current.end(sortKey);
+    }
+
+    /**
+     * Аналог {@link EntityCommandBuffer#bind(Component)}, записывающий операцию в указанную полосу.
+     * @param lane номер полосы, в которую записывается операция.
+     * @param sortKey ключ сортировки операции.
+     * @param component связываемый компонент.
+     * @throws IllegalArgumentException если полосы с указанным номером не существует.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}.
+     */
+    public void bind(int lane, long sortKey, Component component) {
+        Lane current = begin(lane);
+        current.BUFFER.bind(component);
+        current.end(sortKey);
+    }
+
+    /**
+     * Аналог {@link EntityCommandBuffer#unbind(Component)}, записывающий операцию в указанную полосу.
+     * @param lane номер полосы, в которую записывается операция.
+     * @param sortKey ключ сортировки операции.
+     * @param component отвязываемый компонент.
+     * @throws IllegalArgumentException если полосы с указанным номером не существует.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}.
+     */
+    public void unbind(int lane, long sortKey, Component component) {
+        Lane current = begin(lane);
+        current.BUFFER.unbind(component);
+        current.end(sortKey);
+    }
+
+    /**
+     * Аналог {@link EntityCommandBuffer#bind(Component...)}, записывающий операцию в указанную полосу.
+     * @param lane номер полосы, в которую записывается операция.
+     * @param sortKey ключ сортировки операции.
+     * @param components связываемые компоненты.
+     * @throws IllegalArgumentException если полосы с указанным номером не существует.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}.
+     */
+    public void bind(int lane, long sortKey, Component... components) {
+        Lane current = begin(lane);
+        current.BUFFER.bind(components);
+        current.end(sortKey);
+    }
+
+    /**
+     * Аналог {@link EntityCommandBuffer#unbind(Component...)}, записывающий операцию в указанную полосу.
+     * @param lane номер полосы, в которую записывается операция.
+     * @param sortKey ключ сортировки операции.
+     * @param components отвязываемые компоненты.
+     * @throws IllegalArgumentException если полосы с указанным номером не существует.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}.
+     */
+    public void unbind(int lane, long sortKey, Component... components) {
+        Lane current = begin(lane);
+        current.BUFFER.unbind(components);
+        current.end(sortKey);
+    }
+
+    /**
+     * Аналог {@link EntityCommandBuffer#bindStruct(Entity, int)}, записывающий операцию в указанную полосу.
+     * @param lane номер полосы, в которую записывается операция.
+     * @param sortKey ключ сортировки операции.
+     * @param owner сущность, с которой связывается компонент.
+     * @param componentTypeID идентификатор структурного типа компонентов.
+     * @throws IllegalArgumentException если полосы с указанным номером не существует.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}.
+     */
+    public void bindStruct(int lane, long sortKey, Entity owner, int componentTypeID) {
+        Lane current = begin(lane);
+        current.BUFFER.bindStruct(owner, componentTypeID);
+        current.end(sortKey);
+    }
+
+    /**
+     * Аналог {@link EntityCommandBuffer#unbindStruct(Entity, int)}, записывающий операцию в указанную полосу.
+     * @param lane номер полосы, в которую записывается операция.
+     * @param sortKey ключ сортировки операции.
+     * @param owner сущность, от которой отвязывается компонент.
+     * @param componentTypeID идентификатор структурного типа компонентов.
+     * @throws IllegalArgumentException если полосы с указанным номером не существует.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}.
+     */
+    public void unbindStruct(int lane, long sortKey, Entity owner, int componentTypeID) {
+        Lane current = begin(lane);
+        current.BUFFER.unbindStruct(owner, componentTypeID);
+        current.end(sortKey);
+    }
+
+    /**
+     * Аналог {@link EntityCommandBuffer#bindTag(Entity, int)}, записывающий операцию в указанную полосу.
+     * @param lane номер полосы, в которую записывается операция.
+     * @param sortKey ключ сортировки операции.
+     * @param owner сущность, с которой связывается тег.
+     * @param componentTypeID идентификатор типа компонентов, зарегистрированного как тег.
+     * @throws IllegalArgumentException если полосы с указанным номером не существует.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}.
+     */
+    public void bindTag(int lane, long sortKey, Entity owner, int componentTypeID) {
+        Lane current = begin(lane);
+        current.BUFFER.bindTag(owner, componentTypeID);
+        current.end(sortKey);
+    }
+
+    /**
+     * Аналог {@link EntityCommandBuffer#unbindTag(Entity, int)}, записывающий операцию в указанную полосу.
+     * @param lane номер полосы, в которую записывается операция.
+     * @param sortKey ключ сортировки операции.
+     * @param owner сущность, от которой отвязывается тег.
+     * @param componentTypeID идентификатор типа компонентов, зарегистрированного как тег.
+     * @throws IllegalArgumentException если полосы с указанным номером не существует.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}.
+     */
+    public void unbindTag(int lane, long sortKey, Entity owner, int componentTypeID) {
+        Lane current = begin(lane);
+        current.BUFFER.unbindTag(owner, componentTypeID);
+        current.end(sortKey);
+    }
+
+    /**
+     * Очищает все полосы данного буфера (см. {@link EntityCommandBuffer#reset()}) и делает его снова валидным.
+     * Если буфер ещё не был слит с {@link EntityComponentManager}, все его операции отменяются.
+     */
+    public void reset() {
+        for(Lane lane : LANES) lane.reset();
+        numberCommands = 0;
+        isValid = true;
+    }
+
+    /**
+     * Проверяет - является ли состояние буфера валидным. Буфер считается валидным с момента его создания (или
+     * вызова {@link #reset()}) и до его слияния с {@link EntityComponentManager}.
+     * @return true, если буфер валиден, иначе - false.
+     */
+    public boolean isValid() {
+        return isValid;
+    }
+
+    /**
+     * Проверяет - является ли очередь отложенных операций всех полос данного буфера пустой.
+     * @return true, если ни в одну полосу не было записано ни одной операции, иначе - false.
+     */
+    public boolean isEmpty() {
+        for(Lane lane : LANES) {
+            if(lane.size > 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Возвращает кол-во полос данного буфера, заданное при его создании.
+     * @return кол-во полос данного буфера.
+     */
+    public int getNumberLanes() {
+        return LANES.length;
+    }
+
+    boolean belongsTo(EntityComponentManager manager) {
+        return MANAGER == manager;
+    }
+
+    void invalid() {
+        isValid = false;
+        for(Lane lane : LANES) lane.BUFFER.invalid();
+    }
+
+    /*
+     * Упорядочивает операции всех полос по ключу сортировки. Сортировка устойчива, а операции добавляются полоса
+     * за полосой в порядке номеров полос и в порядке их записи внутри полосы, поэтому операции с одинаковым
+     * ключом упорядочиваются сначала по номеру полосы, а затем по порядку записи.
+     */
+    void sortCommands() {
+        numberCommands = 0;
+        for(Lane lane : LANES) numberCommands += lane.size;
+
+        if(keys.length < numberCommands) {
+            keys = new long[numberCommands];
+            laneIndexes = new int[numberCommands];
+            order = new int[numberCommands];
+            mergeBuffer = new int[numberCommands];
+        }
+
+        int command = 0;
+        for(int i = 0; i < LANES.length; i++) {
+            Lane lane = LANES[i];
+            lane.firstCommand = command;
+            for(int j = 0; j < lane.size; j++) {
+                keys[command] = lane.keys[j];
+                laneIndexes[command] = i;
+                order[command] = command;
+                ++command;
+            }
+        }
+
+        mergeSort();
+    }
+
+    int getNumberCommands() {
+        return numberCommands;
+    }
+
+    //Устанавливает позицию чтения полосы на начало операции с указанным порядковым номером и возвращает полосу.
+    EntityCommandBuffer seekCommand(int index) {
+        int command = order[index];
+        Lane lane = LANES[laneIndexes[command]];
+        int laneCommand = command - lane.firstCommand;
+        lane.BUFFER.seek(
+                lane.commandStarts[laneCommand],
+                lane.componentStarts[laneCommand],
+                lane.createdEntityStarts[laneCommand]
+        );
+        return lane.BUFFER;
+    }
+
+    EntityCommandBuffer getLane(int index) {
+        return LANES[index].BUFFER;
+    }
+
+    private Lane begin(int lane) {
+        if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
+        if(lane < 0 || lane >= LANES.length) {
+            throw new IllegalArgumentException("Полосы с номером " + lane + " не существует. Кол-во полос: " +
+                    LANES.length);
+        }
+
+        Lane current = LANES[lane];
+        current.begin();
+        return current;
+    }
+
+    //Устойчивая восходящая сортировка слиянием массива order по значениям keys.
+    private void mergeSort() {
+        int[] from = order;
+        int[] to = mergeBuffer;
+        for(int width = 1; width < numberCommands; width <<= 1) {
+            for(int low = 0; low < numberCommands; low += width << 1) {
+                int middle = Math.min(low + width, numberCommands);
+                int high = Math.min(low + (width << 1), numberCommands);
+                int i = low, j = middle, k = low;
+                while(i < middle && j < high) to[k++] = keys[from[j]] < keys[from[i]] ? from[j++] : from[i++];
+                while(i < middle) to[k++] = from[i++];
+                while(j < high) to[k++] = from[j++];
+            }
+            int[] temp = from;
+            from = to;
+            to = temp;
+        }
+        order = from;
+        mergeBuffer = to;
+    }
+
+
+    /*
+     * Полоса буфера. Для каждой операции хранит её ключ сортировки и позиции начала её записи в потоке
+     * команд, массиве компонентов и массиве созданных сущностей буфера полосы.
+     */
+    private static final class Lane {
+
+        private final EntityCommandBuffer BUFFER;
+        private long[] keys;
+        private int[] commandStarts;
+        private int[] componentStarts;
+        private int[] createdEntityStarts;
+        private int size;
+        private int firstCommand; //Номер первой операции полосы среди операций всех полос (см. sortCommands()).
+
+        private Lane(EntityCommandBuffer buffer) {
+            BUFFER = buffer;
+            keys = new long[0];
+            commandStarts = new int[0];
+            componentStarts = new int[0];
+            createdEntityStarts = new int[0];
+        }
+
+        //Запоминает позиции начала записи очередной операции.
+        private void begin() {
+            if(size == keys.length) {
+                int newCapacity = Math.max(size + 1, size + (size >>> 1));
+                keys = Arrays.copyOf(keys, newCapacity);
+                commandStarts = Arrays.copyOf(commandStarts, newCapacity);
+                componentStarts = Arrays.copyOf(componentStarts, newCapacity);
+                createdEntityStarts = Arrays.copyOf(createdEntityStarts, newCapacity);
+            }
+            commandStarts[size] = BUFFER.getCommandsLength();
+            componentStarts[size] = BUFFER.getNumberComponents();
+            createdEntityStarts[size] = BUFFER.getNumberCreatedEntities();
+        }
+
+        //Вызывается после успешной записи операции, начатой методом begin().
+        private void end(long sortKey) {
+            keys[size++] = sortKey;
+        }
+
+        private void reset() {
+            BUFFER.reset();
+            size = 0;
+        }
+
+    }
+
+}
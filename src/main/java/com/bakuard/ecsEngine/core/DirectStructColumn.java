@@ -0,0 +1,148 @@
+package com.bakuard.ecsEngine.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Реализация {@link StructColumn} хранящая значения полей вне кучи - в direct ByteBuffer. Значения хранятся
+ * построчно: строка с индексом i занимает {@link #getRowSize()} байт начиная со смещения i * {@link #getRowSize()},
+ * а значение поля внутри строки находится по смещению {@link #getFieldOffset(int)}. Благодаря этому перенос
+ * сущности между архетипами или её удаление выполняется одним копированием блока памяти, а сами значения не
+ * просматриваются сборщиком мусора.
+ * <br/><br/>
+ * Буфер является внутренним хранилищем данного столбца и не доступен извне: его емкость равна
+ * {@link Chunk#CAPACITY} строк, а сам буфер возвращается в общий пул и переиспользуется другими группами
+ * сущностей, как только данная группа становится пустой. <br/>
+ * Объекты данного класса создаются и управляются {@link EntityComponentManager}.
+ */
+public final class DirectStructColumn extends StructColumn {
+
+    private final int ROW_SIZE;
+    private final int[] FIELD_OFFSETS;
+    private final ByteBuffer BUFFER;
+    private final ByteBuffer SOURCE; //Представления BUFFER для копирования блоков памяти без создания новых объектов.
+    private final ByteBuffer TARGET;
+
+    DirectStructColumn(Schema schema, Chunk chunk, ChunkPool pool) {
+        super(schema, chunk);
+
+        FIELD_OFFSETS = new int[schema.getNumberFields()];
+        int rowSize = 0;
+        for(int i = 0; i < FIELD_OFFSETS.length; i++) {
+            FIELD_OFFSETS[i] = rowSize;
+            rowSize += schema.getFieldType(i).getSize();
+        }
+        ROW_SIZE = Math.max(rowSize, 1);
+
+        BUFFER = pool.takeDirect(ROW_SIZE);
+        SOURCE = BUFFER.duplicate();
+        TARGET = BUFFER.duplicate();
+    }
+
+    @Override
+    public Storage getStorage() {
+        return Storage.DIRECT;
+    }
+
+    /**
+     * Возвращает размер одной строки данного столбца в байтах.
+     * @return размер одной строки данного столбца в байтах.
+     */
+    public int getRowSize() {
+        return ROW_SIZE;
+    }
+
+    /**
+     * Возвращает смещение значения указанного поля относительно начала строки в байтах.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @return смещение значения поля относительно начала строки.
+     * @throws ArrayIndexOutOfBoundsException если не соблюдается условие
+     *                                        fieldIndex >= 0 && fieldIndex < {@link Schema#getNumberFields()}
+     */
+    public int getFieldOffset(int fieldIndex) {
+        return FIELD_OFFSETS[fieldIndex];
+    }
+
+    @Override
+    public int getInt(int fieldIndex, int index) {
+        return BUFFER.getInt(position(fieldIndex, index, Schema.FieldType.INT));
+    }
+
+    @Override
+    public void setInt(int fieldIndex, int index, int value) {
+        BUFFER.putInt(position(fieldIndex, index, Schema.FieldType.INT), value);
+    }
+
+    @Override
+    public long getLong(int fieldIndex, int index) {
+        return BUFFER.getLong(position(fieldIndex, index, Schema.FieldType.LONG));
+    }
+
+    @Override
+    public void setLong(int fieldIndex, int index, long value) {
+        BUFFER.putLong(position(fieldIndex, index, Schema.FieldType.LONG), value);
+    }
+
+    @Override
+    public float getFloat(int fieldIndex, int index) {
+        return BUFFER.getFloat(position(fieldIndex, index, Schema.FieldType.FLOAT));
+    }
+
+    @Override
+    public void setFloat(int fieldIndex, int index, float value) {
+        BUFFER.putFloat(position(fieldIndex, index, Schema.FieldType.FLOAT), value);
+    }
+
+    @Override
+    public double getDouble(int fieldIndex, int index) {
+        return BUFFER.getDouble(position(fieldIndex, index, Schema.FieldType.DOUBLE));
+    }
+
+    @Override
+    public void setDouble(int fieldIndex, int index, double value) {
+        BUFFER.putDouble(position(fieldIndex, index, Schema.FieldType.DOUBLE), value);
+    }
+
+    @Override
+    void clearRow(int index) {
+        int from = index * ROW_SIZE;
+        for(int i = 0; i < ROW_SIZE; i++) BUFFER.put(from + i, (byte) 0);
+    }
+
+    @Override
+    void clearRows(int fromIndex, int count) {
+        int from = fromIndex * ROW_SIZE;
+        int to = (fromIndex + count) * ROW_SIZE;
+        for(int i = from; i < to; i++) BUFFER.put(i, (byte) 0);
+    }
+
+    @Override
+    void copyRows(int fromIndex, StructColumn to, int toIndex, int count) {
+        DirectStructColumn other = (DirectStructColumn) to;
+        SOURCE.limit((fromIndex + count) * ROW_SIZE).position(fromIndex * ROW_SIZE);
+        other.TARGET.limit((toIndex + count) * ROW_SIZE).position(toIndex * ROW_SIZE);
+        other.TARGET.put(SOURCE);
+    }
+
+    //Использует собственные представления буферов, т.к. позиции SOURCE и TARGET общие для всех потоков.
+    @Override
+    void copyRowsConcurrently(int fromIndex, StructColumn to, int toIndex, int count) {
+        DirectStructColumn other = (DirectStructColumn) to;
+        ByteBuffer source = BUFFER.duplicate();
+        ByteBuffer target = other.BUFFER.duplicate();
+        source.limit((fromIndex + count) * ROW_SIZE).position(fromIndex * ROW_SIZE);
+        target.limit((toIndex + count) * ROW_SIZE).position(toIndex * ROW_SIZE);
+        target.put(source);
+    }
+
+    @Override
+    void release(ChunkPool pool) {
+        pool.giveDirect(BUFFER, ROW_SIZE);
+    }
+
+    private int position(int fieldIndex, int index, Schema.FieldType type) {
+        checkIndex(index);
+        checkFieldType(fieldIndex, type);
+        return index * ROW_SIZE + FIELD_OFFSETS[fieldIndex];
+    }
+
+}
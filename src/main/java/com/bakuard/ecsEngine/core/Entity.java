@@ -7,6 +7,49 @@ package com.bakuard.ecsEngine.core;
  */
 public final class Entity {
 
+    /**
+     * Максимальный идентификатор типа сущности, который может быть закодирован в дескрипторе сущности
+     * (см. {@link #getHandle()}).
+     */
+    public static final int MAX_HANDLE_TYPE_ID = 0xFFFF;
+
+    static final int GENERATION_MASK = 0xFFFF;
+
+    /**
+     * Возвращает идентификатор типа сущности закодированный в указанном дескрипторе сущности
+     * (см. {@link #getHandle()}).
+     * @param handle дескриптор сущности.
+     * @return идентификатор типа сущности.
+     */
+    public static int getTypeID(long handle) {
+        return (int) (handle >>> 48);
+    }
+
+    /**
+     * Возвращает персональный ID сущности закодированный в указанном дескрипторе сущности
+     * (см. {@link #getHandle()}).
+     * @param handle дескриптор сущности.
+     * @return персональный ID сущности.
+     */
+    public static int getPersonalID(long handle) {
+        return (int) handle;
+    }
+
+    /**
+     * Возвращает младшие 16 бит поколения сущности (см. {@link #getGeneration()}) закодированные в указанном
+     * дескрипторе сущности (см. {@link #getHandle()}).
+     * @param handle дескриптор сущности.
+     * @return младшие 16 бит поколения сущности.
+     */
+    public static int getGeneration(long handle) {
+        return (int) (handle >>> 32) & GENERATION_MASK;
+    }
+
+    static long toHandle(int typeID, int personalID, int generation) {
+        return (long) typeID << 48 | (long) (generation & GENERATION_MASK) << 32 | (personalID & 0xFFFFFFFFL);
+    }
+
+
     private final int PERSONAL_ID;
     private final int TYPE_ID;
     private final int GENERATION;
@@ -43,6 +86,21 @@ public final class Entity {
         return GENERATION;
     }
 
+    /**
+     * Возвращает дескриптор данной сущности - число типа long, в старших 16 битах которого закодирован
+     * идентификатор типа сущности, в следующих 16 битах - младшие 16 бит поколения сущности, а в младших 32 битах -
+     * персональный ID сущности. Дескрипторы позволяют хранить ссылки на сущности в примитивных массивах и проверять,
+     * является ли сущность живой, без обращения к объекту Entity (см. {@link EntityComponentManager#isAlive(long)}).
+     * Если идентификатор типа сущности больше {@link #MAX_HANDLE_TYPE_ID}, он будет закодирован некорректно.
+     * <br/><br/>
+     * Чтобы младших 16 бит поколения было достаточно, персональный ID, переиспользованный 65535 раз, после удаления
+     * сущности больше никогда не выделяется. Поэтому дескриптор удаленной сущности никогда не станет снова живым.
+     * @return дескриптор данной сущности.
+     */
+    public long getHandle() {
+        return toHandle(TYPE_ID, PERSONAL_ID, GENERATION);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
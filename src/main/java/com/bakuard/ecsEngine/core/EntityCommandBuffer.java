@@ -2,8 +2,9 @@ package com.bakuard.ecsEngine.core;
 
 import com.bakuard.ecsEngine.core.exceptions.ExceptionHandler;
 import com.bakuard.ecsEngine.core.utils.Bits;
+import com.bakuard.ecsEngine.core.utils.IntArray;
 
-import java.util.ArrayDeque;
+import java.util.Arrays;
 
 /**
  * Используется, когда необходимо отложено выполнить несколько последоваельных операций. В момент слияния с
@@ -21,35 +22,67 @@ import java.util.ArrayDeque;
  * Чтобы применить изменения внесенные в буфер, необходимо передать его методу
  * {@link EntityComponentManager#flushBuffer(EntityCommandBuffer, ExceptionHandler)}.
  * <br/><br/>
- * Объекты данного класса нельзя переиспользовать после их слияния с {@link EntityComponentManager}. Слияние
- * осуществляется в основном потоке. <br/>
+ * После слияния с {@link EntityComponentManager} буфер становится невалидным. Чтобы использовать его повторно,
+ * вызовите {@link #reset()} - при этом буфер сохраняет емкость всех своих внутренних массивов. Для повторного
+ * использования буферов разными системами предназначены методы
+ * {@link EntityComponentManager#borrowEntityCommandBuffer()} и
+ * {@link EntityComponentManager#returnBuffer(EntityCommandBuffer)}. Слияние осуществляется в основном потоке. <br/>
  * Объекты данного класса не делают никаких проверок на коректность выполнения операций (например, при попытке
  * удалить сущность они не будут проверять, а была ли сущность уже удалена, или при попытке связать компонент с
  * сущностью они не будут проверять - а был ли компонент уже свзязан с ущностью и жива ли сущность). Все проверки
  * будут выполнены в момент слияния буфера через метод
  * {@link EntityComponentManager#flushBuffer(EntityCommandBuffer, ExceptionHandler)}. <br/>
  * За создание объектов EntityCommandBuffer отвечает метод {@link EntityComponentManager#createEntityCommandBuffer()}.
+ * <br/><br/>
+ * Операции не хранятся в виде отдельных объектов: буфер записывает их в поток целых чисел, где каждая операция
+ * представлена кодом операции, за которым следуют её аргументы (тип, персональный ID и поколение сущности,
+ * идентификатор типа компонентов). Связываемые и отвязываемые компоненты, а также созданные буфером сущности,
+ * хранятся в отдельных массивах в порядке добавления операций. Поэтому добавление операций и их выполнение при
+ * слиянии не создают промежуточных объектов.
  */
 public final class EntityCommandBuffer {
 
-    enum OperationType {
-        CREATE_ENTITY,
-        REMOVE_ENTITY,
-        BIND_COMPONENT,
-        UNBIND_COMPONENT,
-        BIND_COMPONENTS,
-        UNBIND_COMPONENTS
-    }
+    /*
+     * Коды операций. Формат записи каждой операции в потоке COMMANDS:
+     * CREATE_ENTITY - код (сущность берется из массива созданных сущностей).
+     * REMOVE_ENTITY - код, сущность (три числа - см. writeEntity()).
+     * BIND_COMPONENT, UNBIND_COMPONENT - код (компонент берется из массива компонентов).
+     * BIND_COMPONENTS, UNBIND_COMPONENTS - код, кол-во компонентов (компоненты берутся из массива компонентов).
+     * BIND_STRUCT, UNBIND_STRUCT, BIND_TAG, UNBIND_TAG - код, сущность, идентификатор типа компонентов.
+     */
+    static final int CREATE_ENTITY = 0;
+    static final int REMOVE_ENTITY = 1;
+    static final int BIND_COMPONENT = 2;
+    static final int UNBIND_COMPONENT = 3;
+    static final int BIND_COMPONENTS = 4;
+    static final int UNBIND_COMPONENTS = 5;
+    static final int BIND_STRUCT = 6;
+    static final int UNBIND_STRUCT = 7;
+    static final int BIND_TAG = 8;
+    static final int UNBIND_TAG = 9;
 
     private final EntityComponentManager MANAGER;
+    private final EntityIDAllocator.Block ID_BLOCK;
     private final Bits USED_ENTITIES_ID;
-    private final ArrayDeque<Operation> OPERATIONS;
-    private boolean isValid; //После flush'а, буфер нельзя переиспользовать
+    private final IntArray COMMANDS;
+    private Component[] components;
+    private int numberComponents;
+    private Entity[] createdEntities;
+    private int numberCreatedEntities;
+    //Позиции чтения потока команд и массивов при слиянии буфера.
+    private int commandPosition;
+    private int componentPosition;
+    private int createdEntityPosition;
+    private boolean isValid; //После flush'а, буфер нельзя использовать до вызова reset()
+    private boolean isPooled; //true - буфер находится в пуле буферов менеджера.
 
     EntityCommandBuffer(EntityComponentManager manager) {
         MANAGER = manager;
+        ID_BLOCK = manager.createIDBlock();
         USED_ENTITIES_ID = new Bits(0);
-        OPERATIONS = new ArrayDeque<>();
+        COMMANDS = new IntArray(0);
+        components = new Component[0];
+        createdEntities = new Entity[0];
 
         isValid = true;
     }
@@ -69,17 +102,17 @@ public final class EntityCommandBuffer {
         if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
 
         if(entityTypeID >= 0) {
-            int entityID = 0;
-            int generation = 0;
-            synchronized(MANAGER) {
-                entityID = MANAGER.getNewEntityID();
-                generation = MANAGER.getGeneration(entityID);
-            }
+            int entityID = ID_BLOCK.nextID();
+            int generation = ID_BLOCK.generationOf(entityID);
 
             Entity entity = new Entity(entityTypeID, entityID, generation);
-            USED_ENTITIES_ID.expandTo(entityID);
+            USED_ENTITIES_ID.expandTo(entityID + 1);
             USED_ENTITIES_ID.set(entityID);
-            OPERATIONS.addLast(new Operation(OperationType.CREATE_ENTITY, entity));
+            if(numberCreatedEntities == createdEntities.length) {
+                createdEntities = Arrays.copyOf(createdEntities, newCapacity(numberCreatedEntities + 1));
+            }
+            createdEntities[numberCreatedEntities++] = entity;
+            COMMANDS.add(CREATE_ENTITY);
 
             return entity;
         }
@@ -95,7 +128,8 @@ public final class EntityCommandBuffer {
     public void removeEntity(Entity entity) {
         if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
 
-        OPERATIONS.addLast(new Operation(OperationType.REMOVE_ENTITY, entity));
+        COMMANDS.add(REMOVE_ENTITY);
+        writeEntity(entity);
     }
 
     /**
@@ -108,7 +142,8 @@ public final class EntityCommandBuffer {
     public void bind(Component component) {
         if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
 
-        OPERATIONS.addLast(new Operation(OperationType.BIND_COMPONENT, null, component));
+        COMMANDS.add(BIND_COMPONENT);
+        writeComponent(component);
     }
 
     /**
@@ -121,7 +156,8 @@ public final class EntityCommandBuffer {
     public void unbind(Component component) {
         if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
 
-        OPERATIONS.addLast(new Operation(OperationType.UNBIND_COMPONENT, null, component));
+        COMMANDS.add(UNBIND_COMPONENT);
+        writeComponent(component);
     }
 
     /**
@@ -135,7 +171,9 @@ public final class EntityCommandBuffer {
     public void bind(Component... components) {
         if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
 
-        OPERATIONS.addLast(new Operation(OperationType.BIND_COMPONENTS, null, components));
+        COMMANDS.add(BIND_COMPONENTS);
+        COMMANDS.add(components.length);
+        for(Component component : components) writeComponent(component);
     }
 
     /**
@@ -148,7 +186,98 @@ public final class EntityCommandBuffer {
     public void unbind(Component... components) {
         if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
 
-        OPERATIONS.addLast(new Operation(OperationType.UNBIND_COMPONENTS, null, components));
+        COMMANDS.add(UNBIND_COMPONENTS);
+        COMMANDS.add(components.length);
+        for(Component component : components) writeComponent(component);
+    }
+
+    /**
+     * Добавляет операцию по связыванию с указанной сущностью компонента структурного типа
+     * (см. {@link EntityComponentManager#bindStruct(Entity, int)}) в очередь отложенных операций.
+     * @param owner сущность, с которой связывается компонент.
+     * @param componentTypeID идентификатор структурного типа компонентов.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}
+     */
+    public void bindStruct(Entity owner, int componentTypeID) {
+        if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
+
+        COMMANDS.add(BIND_STRUCT);
+        writeEntity(owner);
+        COMMANDS.add(componentTypeID);
+    }
+
+    /**
+     * Добавляет операцию по отвязыванию от указанной сущности компонента структурного типа
+     * (см. {@link EntityComponentManager#unbindStruct(Entity, int)}) в очередь отложенных операций.
+     * @param owner сущность, от которой отвязывается компонент.
+     * @param componentTypeID идентификатор структурного типа компонентов.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}
+     */
+    public void unbindStruct(Entity owner, int componentTypeID) {
+        if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
+
+        COMMANDS.add(UNBIND_STRUCT);
+        writeEntity(owner);
+        COMMANDS.add(componentTypeID);
+    }
+
+    /**
+     * Добавляет операцию по связыванию с указанной сущностью тега
+     * (см. {@link EntityComponentManager#bindTag(Entity, int)}) в очередь отложенных операций.
+     * @param owner сущность, с которой связывается тег.
+     * @param componentTypeID идентификатор типа компонентов, зарегистрированного как тег.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}
+     */
+    public void bindTag(Entity owner, int componentTypeID) {
+        if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
+
+        COMMANDS.add(BIND_TAG);
+        writeEntity(owner);
+        COMMANDS.add(componentTypeID);
+    }
+
+    /**
+     * Добавляет операцию по отвязыванию от указанной сущности тега
+     * (см. {@link EntityComponentManager#unbindTag(Entity, int)}) в очередь отложенных операций.
+     * @param owner сущность, от которой отвязывается тег.
+     * @param componentTypeID идентификатор типа компонентов, зарегистрированного как тег.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}
+     */
+    public void unbindTag(Entity owner, int componentTypeID) {
+        if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
+
+        COMMANDS.add(UNBIND_TAG);
+        writeEntity(owner);
+        COMMANDS.add(componentTypeID);
+    }
+
+    /**
+     * Очищает данный буфер и делает его снова валидным (см. {@link #isValid()}), сохраняя емкость его внутренних
+     * массивов. Если буфер ещё не был слит с {@link EntityComponentManager}, все добавленные в него операции
+     * отменяются, а ID созданных через него сущностей освобождаются - такие сущности никогда не будут добавлены
+     * в менеджер. Метод должен вызываться в потоке, который работает с данным буфером.
+     */
+    public void reset() {
+        if(isValid) {
+            for(int id = USED_ENTITIES_ID.nextSetBit(0); id != -1; id = USED_ENTITIES_ID.nextSetBit(id + 1)) {
+                ID_BLOCK.free(id);
+            }
+        }
+
+        USED_ENTITIES_ID.clearAll();
+        COMMANDS.clear();
+        Arrays.fill(components, 0, numberComponents, null);
+        Arrays.fill(createdEntities, 0, numberCreatedEntities, null);
+        numberComponents = 0;
+        numberCreatedEntities = 0;
+        commandPosition = 0;
+        componentPosition = 0;
+        createdEntityPosition = 0;
+        isValid = true;
     }
 
     /**
@@ -167,35 +296,89 @@ public final class EntityCommandBuffer {
      * @return true, если очередь отложенных операций пуста, иначе - false.
      */
     public boolean isEmpty() {
-        return OPERATIONS.isEmpty();
+        return commandPosition == COMMANDS.getLength();
     }
 
+    //Возвращает неиспользованные ID сущностей блока данного буфера для переиспользования.
     void invalid() {
         isValid = false;
+        ID_BLOCK.release();
+    }
+
+    //Методы чтения потока команд используемые EntityComponentManager при слиянии буфера.
+    int nextInt() {
+        return COMMANDS.get(commandPosition++);
+    }
+
+    Component nextComponent() {
+        return components[componentPosition++];
+    }
+
+    //Пропускает count компонентов и возвращает индекс первого из них в массиве getComponents().
+    int nextComponents(int count) {
+        int from = componentPosition;
+        componentPosition += count;
+        return from;
+    }
+
+    Component[] getComponents() {
+        return components;
     }
 
-    Operation getAndRemoveHead() {
-        return OPERATIONS.pollFirst();
+    Entity nextCreatedEntity() {
+        return createdEntities[createdEntityPosition++];
     }
 
     Bits getUsedEntitiesID() {
         return USED_ENTITIES_ID;
     }
 
+    //Текущие позиции записи. Используются ConcurrentCommandBuffer для запоминания начала каждой операции.
+    int getCommandsLength() {
+        return COMMANDS.getLength();
+    }
+
+    int getNumberComponents() {
+        return numberComponents;
+    }
+
+    int getNumberCreatedEntities() {
+        return numberCreatedEntities;
+    }
+
+    //Устанавливает позиции чтения на начало операции записанной ранее (см. предыдущие методы).
+    void seek(int commandPosition, int componentPosition, int createdEntityPosition) {
+        this.commandPosition = commandPosition;
+        this.componentPosition = componentPosition;
+        this.createdEntityPosition = createdEntityPosition;
+    }
 
+    boolean belongsTo(EntityComponentManager manager) {
+        return MANAGER == manager;
+    }
 
-    static class Operation {
+    //Используется пулом буферов менеджера для обнаружения повторного возврата буфера.
+    boolean setPooled(boolean pooled) {
+        boolean previous = isPooled;
+        isPooled = pooled;
+        return previous;
+    }
 
-        final OperationType OPERATION_TYPE;
-        final Entity ENTITY;
-        final Component[] COMPONENTS;
+    private void writeEntity(Entity entity) {
+        COMMANDS.add(entity.getTypeID());
+        COMMANDS.add(entity.getPersonalID());
+        COMMANDS.add(entity.getGeneration());
+    }
 
-        private Operation(OperationType operationType, Entity entity, Component... components) {
-            OPERATION_TYPE = operationType;
-            ENTITY = entity;
-            COMPONENTS = components;
+    private void writeComponent(Component component) {
+        if(numberComponents == components.length) {
+            components = Arrays.copyOf(components, newCapacity(numberComponents + 1));
         }
+        components[numberComponents++] = component;
+    }
 
+    private int newCapacity(int minCapacity) {
+        return Math.max(minCapacity, minCapacity + (minCapacity >>> 1));
     }
 
 }
@@ -7,7 +7,18 @@ import com.bakuard.ecsEngine.core.utils.*;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Данный класс представляет собой менеджер компонентов и сущностей. Менеджер компонентов и сущностей хранит и
@@ -18,28 +29,194 @@ import java.util.function.Consumer;
  */
 public final class EntityComponentManager {
 
-    private final IntArray ENTITY_GENERATIONS;
-    private final Bits AVAILABLE_ENTITIES_ID; //Для переиспользования ID сущностей. Используется менджером и буферами.
+    //Кол-во диапазонов групп сущностей на один поток пула в parallelForEach().
+    private static final int RANGES_PER_THREAD = 4;
+
+    private final EntityIDAllocator ID_ALLOCATOR; //Используется менджером и буферами.
+    private final EntityIDAllocator.Block ID_BLOCK;
     private final Bits LIVE_ENTITIES;
+    private final Bits REMOVED_ENTITIES_ID; //Используется только методом removeEntities(), всегда пуст между вызовами.
     private final Array<Entity> ENTITIES_BY_ID;
     private final IntArray INDEXES_BY_ENTITIES_ID; //индексы сущностей в архетипах.
     private final Array<Archetype> ARCHETYPES_BY_ENTITIES;
-    private final Array<Archetype> ARCHETYPES;
+    private final Archetypes ARCHETYPES;
+    private final ComponentTypes COMPONENT_TYPES;
+    private final ChunkPool CHUNK_POOL; //Общий для всех архетипов данного менеджера и его буферов.
+    private final SparseComponents SPARSE;
+    private final TickCounter TICK_COUNTER; //Общий для всех архетипов данного менеджера и его буферов.
+    private final ComponentObservers OBSERVERS;
+    private final PendingEntities PENDING; //Используется только методом flushBufferCoalesced().
+    //Пулы буферов (см. borrowEntityCommandBuffer() и borrowNewEntitiesBuffer()). Используются из разных потоков.
+    private final ConcurrentLinkedQueue<EntityCommandBuffer> COMMAND_BUFFERS_POOL;
+    private final ConcurrentLinkedQueue<NewEntitiesBuffer> NEW_ENTITIES_BUFFERS_POOL;
 
     private int actualModCount; //Используется для реализации Fail-Fast итераторов.
-    private final int EMPTY_ENTITIES_INDEX; //Индекс архетипа хранящего все сущности без компонентов.
+    private volatile boolean isParallelRun; //true во время выполнения parallelForEach().
+    private ForkJoinPool parallelPool;
 
     EntityComponentManager() {
-        EMPTY_ENTITIES_INDEX = 0;
-
-        AVAILABLE_ENTITIES_ID = new Bits(640);
+        ID_ALLOCATOR = new EntityIDAllocator();
+        ID_BLOCK = ID_ALLOCATOR.createBlock();
         LIVE_ENTITIES = new Bits(640);
-        ENTITY_GENERATIONS = new IntArray(640);
+        REMOVED_ENTITIES_ID = new Bits(640);
         ENTITIES_BY_ID = new Array<>(Entity.class, 0);
         INDEXES_BY_ENTITIES_ID = new IntArray(0);
         ARCHETYPES_BY_ENTITIES = new Array<>(Archetype.class, 0);
-        ARCHETYPES = new Array<>(Archetype.class, 0);
-        ARCHETYPES.add(new Archetype(new Bits()));
+        COMPONENT_TYPES = new ComponentTypes();
+        CHUNK_POOL = new ChunkPool();
+        TICK_COUNTER = new TickCounter();
+        ARCHETYPES = new Archetypes(COMPONENT_TYPES, CHUNK_POOL, TICK_COUNTER);
+        SPARSE = new SparseComponents(COMPONENT_TYPES);
+        OBSERVERS = new ComponentObservers(COMPONENT_TYPES);
+        PENDING = new PendingEntities();
+        COMMAND_BUFFERS_POOL = new ConcurrentLinkedQueue<>();
+        NEW_ENTITIES_BUFFERS_POOL = new ConcurrentLinkedQueue<>();
+        parallelPool = ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Задает пул потоков, в котором будет выполняться метод
+     * {@link #parallelForEach(EntitiesFilter, BiConsumer, ExceptionHandler)}. По умолчанию используется
+     * {@link ForkJoinPool#commonPool()}.
+     * @param pool пул потоков для параллельного перебора сущностей.
+     * @throws NullPointerException если pool равен null.
+     */
+    public void setParallelPool(ForkJoinPool pool) {
+        if(pool == null) throw new NullPointerException("Пул потоков не может быть равен null.");
+        parallelPool = pool;
+    }
+
+    /**
+     * Регистрирует указанный тип компонентов как структурный тип компонентов с заданной схемой полей
+     * (см. {@link Schema}), значения которого хранятся в куче (см. {@link StructColumn.Storage#HEAP}).
+     * Аналогичен вызову registerStructType(componentTypeID, schema, StructColumn.Storage.HEAP).
+     * @param componentTypeID идентификатор типа компонентов.
+     * @param schema схема полей структурного типа компонентов.
+     * @throws IllegalArgumentException если идентификатор типа компонентов меньше нуля, тип компонентов уже
+     *                                  зарегистрирован или уже используется какой-либо сущностью.
+     * @throws NullPointerException если schema равна null.
+     */
+    public void registerStructType(int componentTypeID, Schema schema) {
+        registerStructType(componentTypeID, schema, StructColumn.Storage.HEAP);
+    }
+
+    /**
+     * Регистрирует указанный тип компонентов как структурный тип компонентов с заданной схемой полей
+     * (см. {@link Schema}) и способом хранения значений (см. {@link StructColumn.Storage}). Компоненты
+     * структурного типа не являются объектами: значения их полей хранятся в столбцах отдельно для каждого архетипа
+     * (см. {@link StructColumn}). Связать такой компонент с сущностью можно методом {@link #bindStruct(Entity, int)}.
+     * Значения полей доступны через методы getInt(), getLong(), getFloat(), getDouble() и их пары set...(), а
+     * также через столбцы групп сущностей (см. {@link #forEachChunk(EntitiesFilter, Consumer)}).
+     * <br/><br/>
+     * При хранении вне кучи ({@link StructColumn.Storage#DIRECT}) память пустых групп сущностей возвращается в
+     * общий пул и освобождается явно методом {@link #dropEmptyArchetypes()}.
+     * <br/><br/>
+     * Тип компонентов должен быть зарегистрирован до первого его использования как в данном менеджере, так и в его
+     * буферах.
+     * @param componentTypeID идентификатор типа компонентов.
+     * @param schema схема полей структурного типа компонентов.
+     * @param storage способ хранения значений структурного типа компонентов.
+     * @throws IllegalArgumentException если идентификатор типа компонентов меньше нуля, тип компонентов уже
+     *                                  зарегистрирован или уже используется какой-либо сущностью.
+     * @throws NullPointerException если schema или storage равны null.
+     */
+    public void registerStructType(int componentTypeID, Schema schema, StructColumn.Storage storage) {
+        if(schema == null) throw new NullPointerException("Схема структурного типа не может быть равна null.");
+        if(storage == null) throw new NullPointerException("Способ хранения не может быть равен null.");
+        checkUnusedComponentType(componentTypeID);
+        COMPONENT_TYPES.registerStruct(componentTypeID, schema, storage);
+    }
+
+    /**
+     * Регистрирует указанный тип компонентов как тег. Тег - это тип компонентов без данных (например, "Enemy" или
+     * "Selected"), наличие которого у сущности отражается только в наборе типов компонентов её архетипа. Для тегов
+     * не создаются ни объекты {@link Component}, ни столбцы в группах сущностей, поэтому методы
+     * {@link #bindTag(Entity, int)} и {@link #unbindTag(Entity, int)} не выделяют память для каждой сущности.
+     * Наличие тега у сущности проверяется методом {@link #hasComponent(Entity, int)} и учитывается при фильтрации
+     * сущностей как и любой другой тип компонентов.
+     * <br/><br/>
+     * Тип компонентов должен быть зарегистрирован до первого его использования как в данном менеджере, так и в его
+     * буферах.
+     * @param componentTypeID идентификатор типа компонентов.
+     * @throws IllegalArgumentException если идентификатор типа компонентов меньше нуля, тип компонентов уже
+     *                                  зарегистрирован или уже используется какой-либо сущностью.
+     */
+    public void registerTagType(int componentTypeID) {
+        checkUnusedComponentType(componentTypeID);
+        COMPONENT_TYPES.registerTag(componentTypeID);
+    }
+
+    /**
+     * Регистрирует указанный тип компонентов как разреженный тип компонентов. Компоненты разреженного типа хранятся
+     * не в архетипах, а в отдельном для каждого такого типа разреженном множестве (см.
+     * {@link com.bakuard.ecsEngine.core.utils.SparseSet}), индексом которого является персональный ID сущности.
+     * Разреженные типы не входят в набор типов компонентов архетипа, поэтому связывание и отвязывание таких
+     * компонентов выполняется за O(1) и не переносит сущность вместе со всеми её компонентами в другой архетип.
+     * Используйте разреженные типы для компонентов, которые часто связываются с сущностями и отвязываются от них
+     * (например, компоненты-маркеры состояния).
+     * <br/><br/>
+     * Компоненты разреженного типа связываются и отвязываются обычными методами {@link #bind(Component)} и
+     * {@link #unbind(Component)} и учитываются при фильтрации сущностей методами
+     * {@link #getEntities(EntitiesFilter)} и {@link #forEach(EntitiesFilter, Consumer)}: в этом случае набор типов
+     * компонентов проверяется для каждой сущности отдельно, что медленнее фильтрации архетипа в целом.
+     * <br/><br/>
+     * Тип компонентов должен быть зарегистрирован до первого его использования как в данном менеджере, так и в его
+     * буферах.
+     * @param componentTypeID идентификатор типа компонентов.
+     * @throws IllegalArgumentException если идентификатор типа компонентов меньше нуля, тип компонентов уже
+     *                                  зарегистрирован или уже используется какой-либо сущностью.
+     */
+    public void registerSparseType(int componentTypeID) {
+        checkUnusedComponentType(componentTypeID);
+        COMPONENT_TYPES.registerSparse(componentTypeID);
+        ARCHETYPES.rematchQueries();
+    }
+
+    /**
+     * Создает и регистрирует в данном менеджере запрос (см. {@link Query}) с указанным фильтром. Запрос хранит
+     * список архетипов удовлетворяющих фильтру и автоматически пополняет его при создании новых архетипов, поэтому
+     * перебор сущностей через запрос не проверяет каждый раз все архетипы. Используйте запросы для фильтров,
+     * которые применяются многократно (например, на каждом шаге игрового цикла). Если запрос больше не нужен -
+     * удалите его методом {@link #removeQuery(Query)}.
+     * @param filter фильтр запроса.
+     * @return новый запрос.
+     * @throws NullPointerException если filter равен null.
+     */
+    public Query createQuery(EntitiesFilter filter) {
+        if(filter == null) throw new NullPointerException("Фильтр запроса не может быть равен null.");
+
+        Query query = new Query(this, filter, COMPONENT_TYPES);
+        ARCHETYPES.addQuery(query);
+        return query;
+    }
+
+    /**
+     * Удаляет запрос созданный методом {@link #createQuery(EntitiesFilter)}. После вызова этого метода запрос
+     * больше не отслеживает создание новых архетипов и не может быть использован.
+     * @param query удаляемый запрос.
+     * @throws IllegalArgumentException если запрос был создан другим менеджером или уже был удален.
+     */
+    public void removeQuery(Query query) {
+        if(!query.belongsTo(this) || !ARCHETYPES.removeQuery(query)) {
+            throw new IllegalArgumentException("Запрос " + query + " был создан другим менеджером или уже удален.");
+        }
+        query.invalid();
+    }
+
+    /**
+     * Удаляет все архетипы (наборы сущностей с одинаковым набором типов компонентов), которые на момент вызова
+     * этого метода не содержат ни одной сущности, и очищает общий пул групп сущностей (см. {@link Chunk}). Память
+     * удаленных из пула массивов, в том числе память вне кучи (см. {@link StructColumn.Storage#DIRECT}),
+     * освобождает сборщик мусора. Архетипы не удаляются автоматически, так как повторное создание архетипа при
+     * следующем переходе сущности стоит дороже, чем его хранение. Вызывайте этот метод после массового удаления сущностей или изменения их состава компонентов.
+     * @return кол-во удаленных архетипов.
+     */
+    public int dropEmptyArchetypes() {
+        onModification();
+
+        int removed = ARCHETYPES.dropEmpty();
+        CHUNK_POOL.clear();
+        return removed;
     }
 
     /**
@@ -51,25 +228,141 @@ public final class EntityComponentManager {
      * @throws IllegalArgumentException если идентификатор типа сущности меньше нуля.
      */
     public Entity createEntity(int entityTypeID) {
-        actualModCount++;
+        onModification();
+
+        if(entityTypeID >= 0) return addNewEntity(entityTypeID, ARCHETYPES.getEmpty());
+        throw new IllegalArgumentException("ID типа сущности не должно быть меньше нуля. Получено " + entityTypeID);
+    }
+
+    /**
+     * Создает count новых уникальных сущностей (см. {@link #createEntity(int)}) с типом entityTypeID и набором
+     * типов компонентов componentTypes, который может содержать объектные и структурные типы компонентов и теги.
+     * Данный метод предназначен для массового создания однотипных сущностей (например, при загрузке уровня).
+     * В отличие от вызова {@link #createEntity(int)} с последующим связыванием компонентов, каждая сущность сразу
+     * добавляется в архетип с набором типов componentTypes, а не в архетип без компонентов, и не переносится
+     * между архетипами при связывании каждого следующего компонента. ID всех сущностей выделяются сразу, а сами
+     * сущности добавляются в архетип диапазонами, заполняющими группы сущностей (см. {@link Chunk}) целиком. Затем
+     * для каждой сущности по порядку вызывается initializer (см. {@link EntityInitializer}), который должен связать
+     * с ней компоненты всех объектных типов из componentTypes. Все поля компонентов структурных типов новой
+     * сущности равны нулю.
+     * <br/><br/>
+     * Если initializer не связал с сущностью компонент одного из объектных типов, эта сущность и все ещё не
+     * инициализированные сущности удаляются и выбрасывается исключение, при этом уже инициализированные сущности
+     * остаются.
+     * @param entityTypeID идентификатор типа создаваемых сущностей.
+     * @param count кол-во создаваемых сущностей.
+     * @param componentTypes идентификаторы типов компонентов создаваемых сущностей.
+     * @param initializer инициализатор каждой созданной сущности.
+     * @return созданные сущности в порядке их создания.
+     * @throws IllegalArgumentException если идентификатор типа сущности или count меньше нуля, один из типов
+     *                                  компонентов меньше нуля, является разреженным или указан несколько раз.
+     * @throws IllegalStateException если initializer не связал с сущностью компонент одного из объектных типов.
+     */
+    public Array<Entity> createEntities(int entityTypeID,
+                                        int count,
+                                        int[] componentTypes,
+                                        EntityInitializer initializer) {
+        onModification();
+
+        checkCreateEntities(entityTypeID, count);
+        Archetype archetype = ARCHETYPES.get(COMPONENT_TYPES.toArchetypeTypes(componentTypes));
+        Entity[] entities = addNewEntities(entityTypeID, count, archetype);
+
+        Array<Entity> result = new Array<>(Entity.class, count);
+        for(int i = 0; i < count; ++i) {
+            Entity entity = entities[i];
+            int entityID = entity.getPersonalID();
+
+            initializer.init(entity, i);
+
+            int missingType = ARCHETYPES_BY_ENTITIES.get(entityID).
+                    findMissingObjectType(INDEXES_BY_ENTITIES_ID.get(entityID));
+            if(missingType != -1) {
+                for(int j = count - 1; j >= i; --j) {
+                    if(isAlive(entities[j])) removeEntity(entities[j]);
+                }
+                throw new IllegalStateException(
+                        "Инициализатор не связал с сущностью " + entity + " компонент типа " + missingType);
+            }
+            result.set(i, entity);
+        }
+        return result;
+    }
+
+    /**
+     * Проверяет описание шаблона сущностей и создает по нему шаблон (см. {@link Prefab}), который может
+     * использоваться только с данным менеджером.
+     * @param builder описание шаблона.
+     * @return новый шаблон сущностей.
+     * @throws IllegalArgumentException если один из типов компонентов меньше нуля, указан несколько раз, является
+     *                                  разреженным или не соответствует способу его добавления в описание (например,
+     *                                  для структурного типа указана функция создания компонента).
+     */
+    public Prefab createPrefab(Prefab.Builder builder) {
+        return new Prefab(this, builder, builder.toComponentTypes(COMPONENT_TYPES));
+    }
+
+    /**
+     * Создает count новых уникальных сущностей по указанному шаблону (см. {@link Prefab}). Каждая сущность сразу
+     * добавляется в архетип шаблона, после чего с ней связываются компоненты созданные функциями шаблона и
+     * вызывается инициализатор шаблона (если он задан).
+     * @param prefab шаблон сущностей.
+     * @param count кол-во создаваемых сущностей.
+     * @return созданные сущности в порядке их создания.
+     * @throws IllegalArgumentException если шаблон был создан другим менеджером, count меньше нуля или функция
+     *                                  шаблона вернула недопустимый компонент (в этом случае сущность, для
+     *                                  которой был создан компонент, удаляется, а ранее созданные остаются).
+     */
+    public Array<Entity> instantiate(Prefab prefab, int count) {
+        onModification();
 
-        if(entityTypeID >= 0) {
-            int entityID = 0;
-            int generation = 0;
-            synchronized(this) {
-                entityID = getNewEntityID();
-                generation = getGeneration(entityID);
+        if(!prefab.belongsTo(this)) {
+            throw new IllegalArgumentException("Шаблон " + prefab + " был создан другим менеджером.");
+        }
+        checkCreateEntities(prefab.getEntityTypeID(), count);
+        Archetype archetype = prefab.getArchetype(ARCHETYPES);
+        EntityInitializer initializer = prefab.getInitializer();
+
+        Array<Entity> result = new Array<>(Entity.class, count);
+        for(int i = 0; i < count; ++i) {
+            Entity entity = addNewEntity(prefab.getEntityTypeID(), archetype);
+            int entityIndex = INDEXES_BY_ENTITIES_ID.get(entity.getPersonalID());
+
+            for(int j = 0; j < prefab.getNumberFactories(); ++j) {
+                Component component;
+                try {
+                    component = createComponent(prefab.getFactory(j), entity, prefab.getFactoryType(j));
+                } catch(RuntimeException e) {
+                    removeEntity(entity);
+                    throw e;
+                }
+                archetype.addComponent(entityIndex, component);
+                component.bind();
             }
 
-            Entity entity = new Entity(entityTypeID, entityID, generation);
-            ENTITIES_BY_ID.setAndExpand(entityID, entity);
-            LIVE_ENTITIES.expandTo(entityID).set(entityID);
-            ARCHETYPES.get(EMPTY_ENTITIES_INDEX).addEntity(INDEXES_BY_ENTITIES_ID, entity);
-            ARCHETYPES_BY_ENTITIES.setAndExpand(entityID, ARCHETYPES.get(EMPTY_ENTITIES_INDEX));
+            if(initializer != null) initializer.init(entity, i);
+            result.set(i, entity);
+        }
+        return result;
+    }
 
-            return entity;
+    /**
+     * Создает новую уникальную сущность (см. {@link #createEntity(int)}) и возвращает её дескриптор (см.
+     * {@link Entity#getHandle()}). Используйте дескрипторы сущностей вместе с методами {@link #isAlive(long)},
+     * {@link #removeEntity(long)}, {@link #getComponent(long, int)}, {@link #bind(long, Function)},
+     * {@link #bindTag(long, int)} и {@link #bindStruct(long, int)}, если необходимо хранить большое кол-во ссылок на короткоживущие сущности
+     * в примитивных массивах.
+     * @param entityTypeID идентификатор типа сущности.
+     * @return дескриптор новой сущности.
+     * @throws IllegalArgumentException если идентификатор типа сущности меньше нуля или больше
+     *                                  {@link Entity#MAX_HANDLE_TYPE_ID}.
+     */
+    public long createEntityHandle(int entityTypeID) {
+        if(entityTypeID > Entity.MAX_HANDLE_TYPE_ID) {
+            throw new IllegalArgumentException(
+                    "ID типа сущности не должно быть больше " + Entity.MAX_HANDLE_TYPE_ID + ". Получено " + entityTypeID);
         }
-        throw new IllegalArgumentException("ID типа сущности не должно быть меньше нуля. Получено " + entityTypeID);
+        return createEntity(entityTypeID).getHandle();
     }
 
     /**
@@ -78,23 +371,117 @@ public final class EntityComponentManager {
      * @throws IllegalArgumentException если сущность уже была удалена.
      */
     public void removeEntity(Entity entity) {
-        actualModCount++;
+        onModification();
 
         if(isAlive(entity)) {
             int entityID = entity.getPersonalID();
-            freeEntityID(entityID);
+            ID_BLOCK.free(entityID);
 
             LIVE_ENTITIES.clear(entityID);
             ENTITIES_BY_ID.set(entityID, null);
             Archetype archetype = ARCHETYPES_BY_ENTITIES.set(entityID, null);
+            if(!OBSERVERS.isEmpty()) OBSERVERS.removedAll(entity, archetype, SPARSE);
             archetype.destructAllComponent(INDEXES_BY_ENTITIES_ID.get(entityID));
             archetype.unbindAllComponents(INDEXES_BY_ENTITIES_ID.get(entityID));
             archetype.removeEntity(INDEXES_BY_ENTITIES_ID, entity);
+            if(COMPONENT_TYPES.hasSparseTypes()) SPARSE.removeAll(entityID);
         } else {
             throw new IllegalArgumentException("Сущность " + entity + " уже была удалена.");
         }
     }
 
+    /**
+     * Удаляет из менеджера компонентов и сущностей все сущности удовлетворяющие критерию задаваемому объектом типа
+     * {@link EntitiesFilter}. Результат аналогичен вызову {@link #removeEntity(Entity)} для каждой такой сущности,
+     * но если фильтру удовлетворяют все сущности архетипа, архетип очищается целиком: метод destruct() вызывается
+     * для компонентов каждого столбца подряд, а группы сущностей возвращаются в пул без переноса сущностей внутри
+     * архетипа. ID таких сущностей собираются в битовую маску, по которой они пословно снимаются с учета живых
+     * сущностей и одним пакетом возвращаются для повторного использования. Это возможно, если результат фильтра не
+     * зависит от разреженных типов компонентов (см. {@link #registerSparseType(int)}), например, если наборы
+     * {@link MaskFilter} не содержат разреженных типов.
+     * Пустые архетипы не удаляются (см. {@link #dropEmptyArchetypes()}).
+     * @param filter объект задающий критерий отбора удаляемых сущностей.
+     * @return кол-во удаленных сущностей.
+     */
+    public int removeEntities(EntitiesFilter filter) {
+        onModification();
+
+        int removed = 0;
+        Array<Entity> entities = null;
+        int lowRemovedID = Integer.MAX_VALUE;
+        int highRemovedID = -1;
+        boolean isSparseFilter = COMPONENT_TYPES.isSparseFilter(filter);
+        boolean hasSparseTypes = COMPONENT_TYPES.hasSparseTypes();
+        Array<Archetype> candidates = ARCHETYPES.getCandidates(filter);
+        int numberArchetypes = candidates != null ? candidates.getLength() : ARCHETYPES.getLength();
+        for(int i = 0; i < numberArchetypes; ++i) {
+            Archetype archetype = candidates != null ? candidates.get(i) : ARCHETYPES.get(i);
+            if(archetype.getLength() == 0 || !isValidArchetype(archetype, filter)) continue;
+
+            if(!isSparseFilter && archetype.isValidAllEntityTypes(filter)) {
+                removed += archetype.getLength();
+                REMOVED_ENTITIES_ID.expandTo(LIVE_ENTITIES.getSize());
+                for(int j = 0; j < archetype.getNumberChunks(); ++j) {
+                    Chunk chunk = archetype.getChunk(j);
+                    Entity[] chunkEntities = chunk.getEntities();
+                    for(int k = 0; k < chunk.getLength(); ++k) {
+                        if(!OBSERVERS.isEmpty()) OBSERVERS.removedAll(chunkEntities[k], archetype, SPARSE);
+                        int entityID = chunkEntities[k].getPersonalID();
+                        REMOVED_ENTITIES_ID.set(entityID);
+                        lowRemovedID = Math.min(lowRemovedID, entityID);
+                        highRemovedID = Math.max(highRemovedID, entityID);
+                        ENTITIES_BY_ID.set(entityID, null);
+                        ARCHETYPES_BY_ENTITIES.set(entityID, null);
+                        if(hasSparseTypes) SPARSE.removeAll(entityID);
+                    }
+                }
+                archetype.removeAll();
+            } else {
+                if(entities == null) entities = new Array<>(Entity.class, 0);
+                for(int j = 0; j < archetype.getLength(); ++j) {
+                    Entity entity = archetype.getEntity(j);
+                    if(isValidEntity(archetype, filter, entity)) entities.add(entity);
+                }
+            }
+        }
+
+        if(highRemovedID != -1) {
+            LIVE_ENTITIES.andNot(REMOVED_ENTITIES_ID);
+            ID_BLOCK.freeAll(REMOVED_ENTITIES_ID);
+            //Сбрасываются только слова, в которых могли быть установлены биты.
+            REMOVED_ENTITIES_ID.fill(lowRemovedID, highRemovedID + 1, false);
+        }
+        if(entities != null) {
+            for(int i = 0; i < entities.getLength(); ++i) removeEntity(entities.get(i));
+            removed += entities.getLength();
+        }
+        return removed;
+    }
+
+    /**
+     * Удаляет сущность с указанным дескриптором (см. {@link Entity#getHandle()}) из менеджера компонентов и
+     * сущностей.
+     * @param handle дескриптор удаляемой сущности.
+     * @throws IllegalArgumentException если сущность уже была удалена.
+     */
+    public void removeEntity(long handle) {
+        Entity entity = getEntity(handle);
+        if(entity == null) {
+            throw new IllegalArgumentException("Сущность с дескриптором " + handle + " уже была удалена.");
+        }
+        removeEntity(entity);
+    }
+
+    /**
+     * Возвращает живую сущность с указанным дескриптором (см. {@link Entity#getHandle()}) или null, если такой
+     * сущности нет на момент вызова данного метода.
+     * @param handle дескриптор сущности.
+     * @return живую сущность с указанным дескриптором или null.
+     */
+    public Entity getEntity(long handle) {
+        return isAlive(handle) ? ENTITIES_BY_ID.get(Entity.getPersonalID(handle)) : null;
+    }
+
     /**
      * Возвращает живую сущность (подробнее см. {@link #isAlive(Entity)}) имеющую заданный ID или null, если такой
      * сущности нет на момент вызова данного метода.
@@ -114,7 +501,29 @@ public final class EntityComponentManager {
      * @return true, если указанная сущность является живой, иначе - false.
      */
     public boolean isAlive(Entity entity) {
-        return entity.equals(ENTITIES_BY_ID.get(entity.getPersonalID()));
+        int entityID = entity.getPersonalID();
+        return entityID < ENTITIES_BY_ID.getLength() && entity.equals(ENTITIES_BY_ID.get(entityID));
+    }
+
+    /**
+     * Проверяет, является ли сущность с указанным дескриптором (см. {@link Entity#getHandle()}) живой. В отличие
+     * от {@link #isAlive(Entity)}, проверка выполняется сравнением поколения сущности закодированного в дескрипторе
+     * с текущим поколением её персонального ID, и лишь затем тип сущности закодированный в дескрипторе сравнивается
+     * с типом живой сущности. В дескрипторе хранятся только младшие 16 бит поколения, поэтому персональный ID,
+     * исчерпавший эти 16 бит, больше не переиспользуется (см. {@link Entity#getHandle()}), и дескриптор удаленной
+     * сущности никогда не будет ошибочно считаться живым.
+     * @param handle дескриптор сущности.
+     * @return true, если сущность с указанным дескриптором является живой, иначе - false.
+     */
+    public boolean isAlive(long handle) {
+        int entityID = Entity.getPersonalID(handle);
+        if(entityID < 0 || entityID >= LIVE_ENTITIES.getSize() || !LIVE_ENTITIES.get(entityID) ||
+                (ID_ALLOCATOR.getGeneration(entityID) & Entity.GENERATION_MASK) != Entity.getGeneration(handle)) {
+            return false;
+        }
+
+        Entity entity = getEntity(entityID);
+        return entity != null && (entity.getTypeID() & Entity.MAX_HANDLE_TYPE_ID) == Entity.getTypeID(handle);
     }
 
     /**
@@ -144,12 +553,12 @@ public final class EntityComponentManager {
                 while(currentEntity == null && ++currentArchetypeIndex < ARCHETYPES.getLength()) {
                     Archetype archetype = ARCHETYPES.get(currentArchetypeIndex);
 
-                    if(archetype.isValid(FILTER)) {
+                    if(isValidArchetype(archetype, FILTER)) {
                         iteratorEntities = archetype.getEntitiesIterator();
 
                         while(currentEntity == null && iteratorEntities.hasNext()) {
                             Entity temp = iteratorEntities.next();
-                            if(FILTER.isValidEntityType(temp.getTypeID())) currentEntity = temp;
+                            if(isValidEntity(archetype, FILTER, temp)) currentEntity = temp;
                         }
                     }
                 }
@@ -173,18 +582,18 @@ public final class EntityComponentManager {
 
                     while(currentEntity == null && iteratorEntities.hasNext()) {
                         Entity temp = iteratorEntities.next();
-                        if(FILTER.isValidEntityType(temp.getTypeID())) currentEntity = temp;
+                        if(isValidEntity(ARCHETYPES.get(currentArchetypeIndex), FILTER, temp)) currentEntity = temp;
                     }
 
                     while(currentEntity == null && ++currentArchetypeIndex < ARCHETYPES.getLength()) {
                         Archetype archetype = ARCHETYPES.get(currentArchetypeIndex);
 
-                        if(archetype.isValid(FILTER)) {
+                        if(isValidArchetype(archetype, FILTER)) {
                             iteratorEntities = archetype.getEntitiesIterator();
 
                             while(currentEntity == null && iteratorEntities.hasNext()) {
                                 Entity temp = iteratorEntities.next();
-                                if(FILTER.isValidEntityType(temp.getTypeID())) currentEntity = temp;
+                                if(isValidEntity(archetype, FILTER, temp)) currentEntity = temp;
                             }
                         }
                     }
@@ -195,6 +604,76 @@ public final class EntityComponentManager {
         };
     }
 
+    /**
+     * Создает новый курсор для перебора сущностей данного менеджера (см. {@link QueryCursor}). Курсор не создает
+     * новых объектов во время перебора и предназначен для многократного использования.
+     * @return новый курсор.
+     */
+    public QueryCursor createCursor() {
+        return new QueryCursor(this);
+    }
+
+    /**
+     * Возвращает {@link Spliterator} перебирающий все сущности удовлетворяющие критерию задаваемому объектом типа
+     * {@link EntitiesFilter}. Набор подходящих групп сущностей (см. {@link Chunk}) фиксируется в момент вызова
+     * данного метода, а метод {@link Spliterator#trySplit()} делит его пополам по группам, поэтому полученный объект
+     * подходит для параллельной обработки сущностей (см. {@link #stream(EntitiesFilter)}).
+     * <br/><br/>
+     * Если filter является объектом {@link MaskFilter}, допускающим сущности любого типа, и его наборы не содержат
+     * разреженных типов компонентов, кол-во сущностей известно точно и Spliterator имеет характеристики
+     * {@link Spliterator#SIZED} и {@link Spliterator#SUBSIZED}. Иначе {@link Spliterator#estimateSize()} возвращает
+     * кол-во сущностей во всех подходящих архетипах, т.е. оценку сверху.
+     * <br/><br/>
+     * Данный Spliterator придерживается политики fail-fast. Методы filter могут вызываться из разных потоков.
+     * @param filter объект задающий критерий отбора сущностей.
+     * @return Spliterator перебирающий все сущности удовлетворяющие заданному критерию.
+     * @throws ConcurrentModificationException если EntityComponentManager был модифицирован во время перебора
+     *                                         сущностей.
+     */
+    public Spliterator<Entity> getEntitiesSpliterator(EntitiesFilter filter) {
+        Array<Archetype> archetypes = new Array<>(Archetype.class, 0);
+        Array<Chunk> chunks = new Array<>(Chunk.class, 0);
+        collectChunks(filter, archetypes, chunks);
+        boolean isExact = filter instanceof MaskFilter &&
+                ((MaskFilter) filter).isAnyEntityType() &&
+                !COMPONENT_TYPES.isSparseFilter(filter);
+        return new EntitiesSpliterator(archetypes, chunks, 0, chunks.getLength(), filter, isExact, actualModCount);
+    }
+
+    /**
+     * Аналог {@link #getEntitiesSpliterator(EntitiesFilter)}, перебирающий дескрипторы (см. {@link Entity#getHandle()})
+     * сущностей вместо самих сущностей.
+     * @param filter объект задающий критерий отбора сущностей.
+     * @return Spliterator перебирающий дескрипторы всех сущностей удовлетворяющих заданному критерию.
+     * @throws ConcurrentModificationException если EntityComponentManager был модифицирован во время перебора
+     *                                         сущностей.
+     */
+    public Spliterator.OfLong getHandlesSpliterator(EntitiesFilter filter) {
+        return new HandlesSpliterator((EntitiesSpliterator) getEntitiesSpliterator(filter));
+    }
+
+    /**
+     * Возвращает последовательный поток всех сущностей удовлетворяющих критерию задаваемому объектом типа
+     * {@link EntitiesFilter} (см. {@link #getEntitiesSpliterator(EntitiesFilter)}). Поток можно сделать
+     * параллельным методом {@link Stream#parallel()}, например для подсчета суммы значений компонентов без
+     * создания промежуточных коллекций. Во время обработки потока нельзя изменять состояние данного менеджера:
+     * для этого используйте {@link EntityCommandBuffer}.
+     * @param filter объект задающий критерий отбора сущностей.
+     * @return поток сущностей удовлетворяющих заданному критерию.
+     */
+    public Stream<Entity> stream(EntitiesFilter filter) {
+        return StreamSupport.stream(getEntitiesSpliterator(filter), false);
+    }
+
+    /**
+     * Аналог {@link #stream(EntitiesFilter)}, возвращающий поток дескрипторов сущностей.
+     * @param filter объект задающий критерий отбора сущностей.
+     * @return поток дескрипторов сущностей удовлетворяющих заданному критерию.
+     */
+    public LongStream handleStream(EntitiesFilter filter) {
+        return StreamSupport.longStream(getHandlesSpliterator(filter), false);
+    }
+
     /**
      * Перебирает все сущности удовлетворяющие критерию задаваемому объектом типа {@link EntitiesFilter}. Порядок
      * перебора сущностей может отличаться для каждого нового вызова этого метода. Если вы хотите использовать
@@ -209,22 +688,26 @@ public final class EntityComponentManager {
      */
     public void forEach(final EntitiesFilter FILTER, final Consumer<Entity> ACTION) {
         final int EXPECTED_MOD_COUNT = actualModCount;
+        final Array<Archetype> CANDIDATES = ARCHETYPES.getCandidates(FILTER);
+        final int NUMBER_ARCHETYPES = CANDIDATES != null ? CANDIDATES.getLength() : ARCHETYPES.getLength();
 
-        for(int i = 0; i < ARCHETYPES.getLength(); ++i) {
-            Archetype archetype = ARCHETYPES.get(i);
+        for(int i = 0; i < NUMBER_ARCHETYPES; ++i) {
+            Archetype archetype = CANDIDATES != null ? CANDIDATES.get(i) : ARCHETYPES.get(i);
 
-            if(archetype.isValid(FILTER)) {
-                Array<Entity> archetypeEntities = archetype.getEntities();
+            if(isValidArchetype(archetype, FILTER)) {
+                for(int j = 0; j < archetype.getNumberChunks(); ++j) {
+                    Chunk chunk = archetype.getChunk(j);
 
-                for(int j = 0; j < archetypeEntities.getLength(); ++j) {
-                    Entity entity = archetypeEntities.get(i);
+                    for(int k = 0; k < chunk.getLength(); ++k) {
+                        Entity entity = chunk.getEntity(k);
 
-                    if(FILTER.isValidEntityType(entity.getTypeID())) ACTION.accept(entity);
+                        if(isValidEntity(archetype, FILTER, entity)) ACTION.accept(entity);
 
-                    if(EXPECTED_MOD_COUNT != actualModCount) {
-                        throw new ConcurrentModificationException(
-                                "Нельзя изменять состояние EntityComponentManager во время перебора сущностей."
-                        );
+                        if(EXPECTED_MOD_COUNT != actualModCount) {
+                            throw new ConcurrentModificationException(
+                                    "Нельзя изменять состояние EntityComponentManager во время перебора сущностей."
+                            );
+                        }
                     }
                 }
             }
@@ -233,153 +716,578 @@ public final class EntityComponentManager {
 
 
     /**
-     * Возвращает true, если указанная сущность является живой и связана хотя бы с одним компонентом идентификатор
-     * типа которого равен componentTypeID, иначе возвращает false.
-     * @param owner сущность для которой выполняется проверка.
-     * @param componentTypeID идентификатор типа компонента.
-     * @return true, если указанная сущность является живой и связана хотя бы с одним компонентом идентификатор
-     *         типа которого равен componentTypeID, иначе возвращает false.
+     * Перебирает все сущности удовлетворяющие критерию задаваемому объектом типа {@link EntitiesFilter} и имеющие
+     * компонент типа typeA, передавая в action сущность и её компонент. В отличие от
+     * {@link #forEach(EntitiesFilter, Consumer)} с последующим вызовом {@link #getComponent(Entity, int)}, столбец
+     * компонентов ищется один раз для каждого архетипа, а компонент каждой сущности читается из столбца группы
+     * сущностей по индексу без проверок живучести сущности и поиска её архетипа. Если сущность связана сразу с
+     * несколькими компонентами указанного типа - будет передан один из них (см. {@link #getComponent(Entity, int)}).
+     * <br/><br/>
+     * Указанный тип компонентов должен быть объектным типом компонентов (см. {@link Component}), в том числе может
+     * быть разреженным (см. {@link #registerSparseType(int)}). Данный метод придерживается политики fail-fast.
+     * @param filter объект задающий критерий отбора сущностей.
+     * @param typeA идентификатор типа компонентов.
+     * @param action действие, которое будет выполнено для каждой сущности удовлетворяющей заданному критерию.
+     * @param <A> тип компонентов typeA.
+     * @throws IllegalArgumentException если тип компонентов зарегистрирован как структурный или как тег.
+     * @throws ConcurrentModificationException если EntityComponentManager был модифицирован во время перебора
+     *                                         сущностей с помощью данного метода.
+     * @throws ClassCastException если компонент указанного типа не является объектом класса A.
      */
-    public boolean hasComponent(Entity owner, int componentTypeID) {
-        return isAlive(owner) && ARCHETYPES_BY_ENTITIES.get(owner.getPersonalID()).containsComponentType(componentTypeID);
+    @SuppressWarnings("unchecked")
+    public <A extends Component> void forEach(EntitiesFilter filter, int typeA, Action1<A> action) {
+        Component[] row = new Component[1];
+        forEachComponents(filter, new int[]{typeA}, row, entity -> action.accept(entity, (A) row[0]));
     }
 
     /**
-     * Возвращает кол-во компонентов связанных с указанной сущностью и идентификатор типа которых равен
-     * componentTypeID. Возвращает ноль, если нет ни одного компонента имеющего указанный идентфикатор и связанного
-     * с указанной суностью, или сущность не явлеятся живой.
-     * @param owner сущность для которой выполняется проверка.
-     * @param componentTypeID идентификатор типа компонентов.
-     * @return кол-во компонентов связанных с указанной сущностью и идентификатор типа которых равен componentTypeID.
+     * Аналог {@link #forEach(EntitiesFilter, int, Action1)} для сущностей имеющих компоненты двух указанных типов.
+     * @param filter объект задающий критерий отбора сущностей.
+     * @param typeA идентификатор первого типа компонентов.
+     * @param typeB идентификатор второго типа компонентов.
+     * @param action действие, которое будет выполнено для каждой сущности удовлетворяющей заданному критерию.
+     * @param <A> тип компонентов typeA.
+     * @param <B> тип компонентов typeB.
+     * @throws IllegalArgumentException если один из типов компонентов зарегистрирован как структурный или как тег.
+     * @throws ConcurrentModificationException если EntityComponentManager был модифицирован во время перебора
+     *                                         сущностей с помощью данного метода.
+     * @throws ClassCastException если компонент одного из указанных типов не является объектом соответствующего
+     *                            класса.
      */
-    public int getCountComponent(Entity owner, int componentTypeID) {
-        return Component.getCountComponent(getComponent(owner, componentTypeID));
+    @SuppressWarnings("unchecked")
+    public <A extends Component, B extends Component> void forEach(EntitiesFilter filter,
+                                                                   int typeA,
+                                                                   int typeB,
+                                                                   Action2<A, B> action) {
+        Component[] row = new Component[2];
+        forEachComponents(filter, new int[]{typeA, typeB}, row,
+                entity -> action.accept(entity, (A) row[0], (B) row[1]));
     }
 
     /**
-     * Возвращает компонент связанный с указанной сущностью. Если сущность связана сразу с несколькими
-     * компонентами указанного типа - вернется один из них, при этом метод не дает гарантий какой именно компонент
-     * будет возвращен. Если сущность не связана ни с одним компонентом указанного типа или не является живой -
-     * возвращает null.
-     * @param owner сущность для которой выполняется проверка.
-     * @param componentTypeID идентификатор типа компонентов.
-     * @return компонент ассоциированый с указанной сущностью или null.
+     * Аналог {@link #forEach(EntitiesFilter, int, Action1)} для сущностей имеющих компоненты трех указанных типов.
+     * @param filter объект задающий критерий отбора сущностей.
+     * @param typeA идентификатор первого типа компонентов.
+     * @param typeB идентификатор второго типа компонентов.
+     * @param typeC идентификатор третьего типа компонентов.
+     * @param action действие, которое будет выполнено для каждой сущности удовлетворяющей заданному критерию.
+     * @param <A> тип компонентов typeA.
+     * @param <B> тип компонентов typeB.
+     * @param <C> тип компонентов typeC.
+     * @throws IllegalArgumentException если один из типов компонентов зарегистрирован как структурный или как тег.
+     * @throws ConcurrentModificationException если EntityComponentManager был модифицирован во время перебора
+     *                                         сущностей с помощью данного метода.
+     * @throws ClassCastException если компонент одного из указанных типов не является объектом соответствующего
+     *                            класса.
      */
-    public Component getComponent(Entity owner, int componentTypeID) {
-        Component component = null;
-        int entityPersonalID = owner.getPersonalID();
-        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entityPersonalID);
-        if(isAlive(owner) && archetype.containsComponentType(componentTypeID)) {
-            component = archetype.getComponent(INDEXES_BY_ENTITIES_ID.get(entityPersonalID), componentTypeID);
-        }
-        return component;
+    @SuppressWarnings("unchecked")
+    public <A extends Component, B extends Component, C extends Component> void forEach(EntitiesFilter filter,
+                                                                                        int typeA,
+                                                                                        int typeB,
+                                                                                        int typeC,
+                                                                                        Action3<A, B, C> action) {
+        Component[] row = new Component[3];
+        forEachComponents(filter, new int[]{typeA, typeB, typeC}, row,
+                entity -> action.accept(entity, (A) row[0], (B) row[1], (C) row[2]));
     }
 
     /**
-     * Возвращает компонент связанный с указанной сущностью и имеющий указаную метку. Если сущность связана
-     * сразу с несколькими компонетами указанного типа и имеющими указаную метку - возвращает один из них, при
-     * этом метод не дает гарантий касательно того, кокой именно компонент будет возвращен. Если сущность не связана
-     * ни с одним компонентом указанного типа и имеющим указаную метку, или не является живой - возвращает null.
-     * @param owner сущность для которой выполняется проверка.
-     * @param componentTypeID идентификатор типа компонентов.
-     * @param label строковая метка по которой ищется компонент асоциированый с указываемой сущностью.
-     * @return компонент ассоциированый с указанной сущностью и имеющий указаную метку или null.
+     * Параллельно перебирает все сущности удовлетворяющие критерию задаваемому объектом типа {@link EntitiesFilter}.
+     * Группы сущностей (см. {@link Chunk}) всех подходящих архетипов распределяются между потоками пула заданного
+     * методом {@link #setParallelPool(ForkJoinPool)}, при этом каждая группа обрабатывается целиком одним потоком.
+     * Метод возвращает управление только после обработки всех сущностей.
+     * <br/><br/>
+     * Во время перебора состав сущностей и их компонентов не может изменяться: любой метод данного менеджера,
+     * изменяющий его состояние, выбросит {@link IllegalStateException}. Вместо этого action получает
+     * {@link EntityCommandBuffer} потока, в котором он выполняется, и все изменения состава сущностей и компонентов
+     * должны записываться в него. Подходящие группы делятся на непрерывные диапазоны, и у каждого диапазона свой
+     * буфер. После завершения перебора буферы сливаются с данным менеджером в вызывающем потоке (см.
+     * {@link #flushBuffer(EntityCommandBuffer, ExceptionHandler)}) в порядке диапазонов, поэтому операции
+     * применяются в том же порядке, что и при последовательном переборе групп, независимо от распределения групп
+     * между потоками. Персональные ID созданных в буферах сущностей при этом могут отличаться от запуска к запуску.
+     * Читать компоненты и изменять значения их полей (в том числе полей компонентов структурных типов) во время
+     * перебора можно, если разные сущности не разделяют изменяемые данные. Методы filter вызываются из разных
+     * потоков и должны быть потокобезопасными.
+     * <br/><br/>
+     * Если action выбросит исключение, перебор будет прерван, записанные в буферы операции отброшены, а исключение
+     * будет проброшено из данного метода. Если исключение было выброшено в другом потоке, пул может пробросить его
+     * копию того же типа, причиной которой является исходное исключение (см. {@link ForkJoinTask#invoke()}).
+     * @param filter объект задающий критерий отбора сущностей.
+     * @param action действие, которое будет выполнено для каждой сущности удовлетворяющей заданному критерию.
+     * @param handler обработчик для ошибок, которые могут возникнуть при слиянии буферов с данным менеджером.
+     * @throws IllegalStateException если метод вызван во время другого параллельного перебора.
+     * @throws BatchException если слияние одного из буферов было прервано.
      */
-    public Component getComponent(Entity owner, int componentTypeID, String label) {
-        Component component = null;
-        int entityPersonalID = owner.getPersonalID();
-        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entityPersonalID);
-        if(isAlive(owner) && archetype.containsComponentType(componentTypeID)) {
-            component = archetype.getComponent(INDEXES_BY_ENTITIES_ID.get(entityPersonalID), componentTypeID, label);
+    public void parallelForEach(final EntitiesFilter filter,
+                                final BiConsumer<Entity, EntityCommandBuffer> action,
+                                final ExceptionHandler<IllegalArgumentException> handler) {
+        onModification();
+
+        Array<Archetype> archetypes = new Array<>(Archetype.class, 0);
+        Array<Chunk> chunks = new Array<>(Chunk.class, 0);
+        collectChunks(filter, archetypes, chunks);
+
+        int numberChunks = chunks.getLength();
+        int numberRanges = Math.min(numberChunks, parallelPool.getParallelism() * RANGES_PER_THREAD);
+        int rangeSize = numberRanges > 0 ? (numberChunks + numberRanges - 1) / numberRanges : 0;
+        if(rangeSize > 0) numberRanges = (numberChunks + rangeSize - 1) / rangeSize;
+        EntityCommandBuffer[] buffers = new EntityCommandBuffer[numberRanges]; //Индекс - индекс диапазона групп.
+
+        isParallelRun = true;
+        try {
+            parallelPool.invoke(new ChunksTask(archetypes, chunks, 0, numberRanges, rangeSize, filter, action, buffers));
+        } catch(RuntimeException | Error e) {
+            for(EntityCommandBuffer buffer : buffers) {
+                if(buffer != null) {
+                    discardBuffer(buffer);
+                    returnBuffer(buffer);
+                }
+            }
+            throw e;
+        } finally {
+            isParallelRun = false;
         }
-        return component;
-    }
 
-    /**
-     * Возвращает массив компонентов связанных с указанной сущностью и имеющих идентифкатор типа равный
-     * componentTypeID. Если нет ни одного компонента имеющего указанный идентификатор типа и связанного с
-     * указанной сущностью, или сущность не является живой - метод возвращает null.
-     * @param owner сущность для которой выполняется проверка.
-     * @param componentTypeID идентификатор типа компонентов.
-     * @return массив компонентов связанных с указанной сущностью или null.
-     */
-    public Array<Component> getComponents(Entity owner, int componentTypeID) {
-        Array<Component> components = null;
-        int entityPersonalID = owner.getPersonalID();
-        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entityPersonalID);
-        if(isAlive(owner) && archetype.containsComponentType(componentTypeID)) {
-            components = archetype.getComponents(INDEXES_BY_ENTITIES_ID.get(entityPersonalID), componentTypeID);
+        try {
+            for(EntityCommandBuffer buffer : buffers) flushBuffer(buffer, handler);
+        } finally {
+            for(EntityCommandBuffer buffer : buffers) returnBuffer(buffer);
         }
-        return components;
     }
 
     /**
-     * Связывает указанный компонент с его сущностю-владельцем (см. {@link Component#Component(Entity, int)}).
-     * Информация о связи между сущностю-владельцем и компонентом будет сохранена в данном менеджере сущностей и
-     * компонентов.
-     * @param component связываемый компонент.
-     * @throws IllegalArgumentException если сущность-владелец не является живой или компонент уже связан с сущностью.
+     * Аналог {@link #forEach(EntitiesFilter, Consumer)}, перебирающий только архетипы закешированные указанным
+     * запросом (см. {@link #createQuery(EntitiesFilter)}). Фильтр запроса вызывается только для ещё не проверенных
+     * запросом типов сущностей.
+     * @param QUERY запрос задающий критерий отбора сущностей.
+     * @param ACTION действие, которое будет выполнено для каждой сущности удовлетворяющей заданному критерию.
+     * @throws IllegalArgumentException если запрос был создан другим менеджером или удален.
+     * @throws ConcurrentModificationException если EntityComponentManager был модифицирован во время перебора
+     *                                         сущностей с помощью данного метода.
      */
-    public void bind(Component component) {
-        actualModCount++;
+    public void forEach(final Query QUERY, final Consumer<Entity> ACTION) {
+        checkQuery(QUERY);
+        final int EXPECTED_MOD_COUNT = actualModCount;
 
-        checkBind(component);
+        for(int i = 0; i < QUERY.getNumberArchetypes(); ++i) {
+            Archetype archetype = QUERY.get(i);
 
-        Entity owner = component.getOwner();
+            for(int j = 0; j < archetype.getNumberChunks(); ++j) {
+                Chunk chunk = archetype.getChunk(j);
 
-        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(owner.getPersonalID());
-        if(archetype.containsComponentType(component.getTypeID())) {
-            archetype.addComponent(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID()), component);
-        } else {
-            final Bits MASK = archetype.getCopyComponentTypes();
-            MASK.expandTo(component.getTypeID() + 1).set(component.getTypeID());
-            int indexArchetype = ARCHETYPES.binarySearch((Archetype b) -> b.compareComponentTypes(MASK));
+                for(int k = 0; k < chunk.getLength(); ++k) {
+                    Entity entity = chunk.getEntity(k);
 
-            Archetype newArchetype = null;
-            if (indexArchetype != -1) {
-                newArchetype = ARCHETYPES.get(indexArchetype);
-            } else {
-                newArchetype = new Archetype(MASK);
-                ARCHETYPES.binaryInsert(newArchetype, Archetype::compareTo);
+                    if(isValidEntity(QUERY, archetype, entity)) ACTION.accept(entity);
+
+                    if(EXPECTED_MOD_COUNT != actualModCount) {
+                        throw new ConcurrentModificationException(
+                                "Нельзя изменять состояние EntityComponentManager во время перебора сущностей."
+                        );
+                    }
+                }
             }
-            ARCHETYPES_BY_ENTITIES.set(owner.getPersonalID(), newArchetype);
-            archetype.moveEntityTo(INDEXES_BY_ENTITIES_ID, owner, newArchetype);
-            newArchetype.addComponent(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID()), component);
         }
-
-        component.bind();
     }
 
     /**
-     * Отвязывает указанный компонент от его сущности-владельца (см. {@link Component#Component(Entity, int)}).
-     * @param component отвязываемый компонент.
-     * @throws IllegalArgumentException если сущность-владелец не является живой или компонент уже отвязан от сущности.
+     * Аналог {@link #forEachChunk(EntitiesFilter, Consumer)}, перебирающий только группы сущностей архетипов
+     * закешированных указанным запросом (см. {@link #createQuery(EntitiesFilter)}).
+     * @param QUERY запрос задающий критерий отбора сущностей.
+     * @param ACTION действие, которое будет выполнено для каждой группы сущностей удовлетворяющей заданному критерию.
+     * @throws IllegalArgumentException если запрос был создан другим менеджером или удален.
+     * @throws ConcurrentModificationException если EntityComponentManager был модифицирован во время перебора
+     *                                         групп сущностей с помощью данного метода.
      */
-    public void unbind(Component component) {
-        actualModCount++;
-
-        checkUnbind(component);
+    public void forEachChunk(final Query QUERY, final Consumer<Chunk> ACTION) {
+        checkQuery(QUERY);
+        final int EXPECTED_MOD_COUNT = actualModCount;
+        final boolean CHECK_SPARSE_TYPES = COMPONENT_TYPES.isSparseFilter(QUERY.getFilter());
 
-        Entity owner = component.getOwner();
-        int entityPersonalID = owner.getPersonalID();
-        int entityIndex = INDEXES_BY_ENTITIES_ID.get(entityPersonalID);
+        for(int i = 0; i < QUERY.getNumberArchetypes(); ++i) {
+            Archetype archetype = QUERY.get(i);
 
-        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entityPersonalID);
-        if(archetype.hasMoreThanOneComponent(entityIndex, component.getTypeID())) {
-            archetype.removeComponent(entityIndex, component);
-        } else {
-            final Bits MASK = archetype.getCopyComponentTypes().clear(component.getTypeID());
-            int indexArchetype = ARCHETYPES.binarySearch((Archetype b) -> b.compareComponentTypes(MASK));
+            if(archetype.getLength() > 0 && archetype.isValidEntityType(QUERY) &&
+                    (!CHECK_SPARSE_TYPES || archetype.isValidComponentTypes(QUERY.getFilter()))) {
+                for(int j = 0; j < archetype.getNumberChunks(); ++j) {
+                    ACTION.accept(archetype.getChunk(j));
 
-            Archetype newArchetype = null;
-            if(indexArchetype != -1) {
-                newArchetype = ARCHETYPES.get(indexArchetype);
-            } else {
-                newArchetype = new Archetype(MASK);
-                ARCHETYPES.binaryInsert(newArchetype, Archetype::compareTo);
+                    if(EXPECTED_MOD_COUNT != actualModCount) {
+                        throw new ConcurrentModificationException(
+                                "Нельзя изменять состояние EntityComponentManager во время перебора групп сущностей."
+                        );
+                    }
+                }
             }
-            ARCHETYPES_BY_ENTITIES.set(entityPersonalID, newArchetype);
-            archetype.moveEntityTo(INDEXES_BY_ENTITIES_ID, owner, newArchetype);
+        }
+    }
+
+    /**
+     * Перебирает все группы сущностей (см. {@link Chunk}), набор типов компонентов которых удовлетворяет критерию
+     * задаваемому объектом типа {@link EntitiesFilter}. В отличие от {@link #forEach(EntitiesFilter, Consumer)},
+     * данный метод позволяет обрабатывать компоненты сущностей последовательным проходом по столбцам группы
+     * (см. {@link Chunk#getStructColumn(int)}). Каждая группа содержит не более {@link Chunk#CAPACITY} сущностей
+     * и может обрабатываться независимо от других групп. Пустые группы не перебираются.
+     * <br/><br/>
+     * Фильтрация по типам сущностей выполняется для архетипа в целом: группы архетипа будут переданы в action, если
+     * архетип содержит хотя бы одну сущность, тип которой удовлетворяет фильтру. Поэтому группа может содержать и
+     * сущности, тип которых фильтру не удовлетворяет. Компоненты разреженных типов (см.
+     * {@link #registerSparseType(int)}) не хранятся в группах и при фильтрации групп не учитываются.
+     * <br/><br/>
+     * Данный метод придерживается политики fail-fast. Для создания, удаления и модификации состава компонентов
+     * сущностей во время перебора используйте класс {@link EntityCommandBuffer}.
+     * @param FILTER объект задающий критерий отбора сущностей.
+     * @param ACTION действие, которое будет выполнено для каждой группы сущностей удовлетворяющей заданному критерию.
+     * @throws ConcurrentModificationException если EntityComponentManager был модифицирован во время перебора
+     *                                         групп сущностей с помощью данного метода.
+     */
+    public void forEachChunk(final EntitiesFilter FILTER, final Consumer<Chunk> ACTION) {
+        final int EXPECTED_MOD_COUNT = actualModCount;
+        final Array<Archetype> CANDIDATES = ARCHETYPES.getCandidates(FILTER);
+        final int NUMBER_ARCHETYPES = CANDIDATES != null ? CANDIDATES.getLength() : ARCHETYPES.getLength();
+
+        for(int i = 0; i < NUMBER_ARCHETYPES; ++i) {
+            Archetype archetype = CANDIDATES != null ? CANDIDATES.get(i) : ARCHETYPES.get(i);
+
+            if(archetype.getLength() > 0 && archetype.isValid(FILTER)) {
+                for(int j = 0; j < archetype.getNumberChunks(); ++j) {
+                    ACTION.accept(archetype.getChunk(j));
+
+                    if(EXPECTED_MOD_COUNT != actualModCount) {
+                        throw new ConcurrentModificationException(
+                                "Нельзя изменять состояние EntityComponentManager во время перебора групп сущностей."
+                        );
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Аналог {@link #forEachChunk(EntitiesFilter, Consumer)}, перебирающий только те группы сущностей, в которых
+     * компоненты указанного типа изменялись на такте sinceTick или позже (см. {@link Chunk#isChangedSince(int, long)}).
+     * Позволяет системе обрабатывать только группы, изменившиеся с момента её предыдущего запуска: для этого
+     * система запоминает значение {@link #getChangeTick()} при каждом запуске и передает его в следующий вызов
+     * данного метода.
+     * <br/><br/>
+     * Изменения отслеживаются для групп в целом, поэтому в action может быть передана группа, в которой изменилась
+     * только одна сущность. Компоненты разреженных типов в группах не хранятся и данным методом не отслеживаются.
+     * @param FILTER объект задающий критерий отбора сущностей.
+     * @param COMPONENT_TYPE_ID идентификатор типа компонентов, изменения которых проверяются.
+     * @param SINCE_TICK номер такта изменений, начиная с которого изменения учитываются.
+     * @param ACTION действие, которое будет выполнено для каждой изменившейся группы сущностей удовлетворяющей
+     *               заданному критерию.
+     * @throws ConcurrentModificationException если EntityComponentManager был модифицирован во время перебора
+     *                                         групп сущностей с помощью данного метода.
+     */
+    public void forEachChunk(final EntitiesFilter FILTER,
+                             final int COMPONENT_TYPE_ID,
+                             final long SINCE_TICK,
+                             final Consumer<Chunk> ACTION) {
+        forEachChunk(FILTER, chunk -> {
+            if(chunk.isChangedSince(COMPONENT_TYPE_ID, SINCE_TICK)) ACTION.accept(chunk);
+        });
+    }
+
+    /**
+     * Аналог {@link #forEachChunk(EntitiesFilter, int, long, Consumer)}, перебирающий только группы сущностей
+     * архетипов закешированных указанным запросом (см. {@link #createQuery(EntitiesFilter)}).
+     * @param QUERY запрос задающий критерий отбора сущностей.
+     * @param COMPONENT_TYPE_ID идентификатор типа компонентов, изменения которых проверяются.
+     * @param SINCE_TICK номер такта изменений, начиная с которого изменения учитываются.
+     * @param ACTION действие, которое будет выполнено для каждой изменившейся группы сущностей удовлетворяющей
+     *               заданному критерию.
+     * @throws IllegalArgumentException если запрос был создан другим менеджером или удален.
+     * @throws ConcurrentModificationException если EntityComponentManager был модифицирован во время перебора
+     *                                         групп сущностей с помощью данного метода.
+     */
+    public void forEachChunk(final Query QUERY,
+                             final int COMPONENT_TYPE_ID,
+                             final long SINCE_TICK,
+                             final Consumer<Chunk> ACTION) {
+        forEachChunk(QUERY, chunk -> {
+            if(chunk.isChangedSince(COMPONENT_TYPE_ID, SINCE_TICK)) ACTION.accept(chunk);
+        });
+    }
+
+    /**
+     * Возвращает номер текущего такта изменений. Все изменения компонентов, выполненные после вызова
+     * {@link #advanceChangeTick()} и до следующего его вызова, отмечаются этим номером (см.
+     * {@link Chunk#getChangeTick(int)}). {@link GameLoop} переходит к следующему такту в начале каждого шага
+     * игрового цикла. Первый такт имеет номер 1.
+     * @return номер текущего такта изменений.
+     */
+    public long getChangeTick() {
+        return TICK_COUNTER.get();
+    }
+
+    /**
+     * Переходит к следующему такту изменений и возвращает его номер (см. {@link #getChangeTick()}).
+     * @return номер нового такта изменений.
+     * @throws IllegalStateException если метод вызывается во время выполнения
+     *                               {@link #parallelForEach(EntitiesFilter, BiConsumer, ExceptionHandler)}.
+     */
+    public long advanceChangeTick() {
+        if(isParallelRun) {
+            throw new IllegalStateException("Нельзя переходить к следующему такту изменений во время parallelForEach().");
+        }
+        return TICK_COUNTER.advance();
+    }
+
+    /**
+     * Отмечает компоненты указанного типа в группе сущностей (см. {@link Chunk}), содержащей указанную сущность,
+     * как измененные на текущем такте изменений. Этот метод необходимо вызывать после изменения полей объектов
+     * {@link Component} и после записи в столбцы структурных типов напрямую (см. {@link Chunk#getStructColumn(int)}),
+     * т.к. такие изменения менеджер не отслеживает. Вызов не считается модификацией менеджера и допустим во время
+     * перебора сущностей.
+     * @param entity сущность, компонент которой был изменен.
+     * @param componentTypeID идентификатор типа компонентов.
+     * @throws IllegalArgumentException если сущность не является живой, тип компонентов зарегистрирован как
+     *                                  разреженный или архетип сущности не содержит указанного типа компонентов.
+     */
+    public void markChanged(Entity entity, int componentTypeID) {
+        if(!isAlive(entity)) {
+            throw new IllegalArgumentException("Сущность " + entity + " удалена.");
+        }
+        if(COMPONENT_TYPES.isSparse(componentTypeID)) {
+            throw new IllegalArgumentException("Изменения компонентов разреженного типа " + componentTypeID +
+                    " не отслеживаются.");
+        }
+
+        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entity.getPersonalID());
+        if(archetype.getTickIndex(componentTypeID) == -1) {
+            throw new IllegalArgumentException(
+                    "Сущность " + entity + " не имеет компонентов типа " + componentTypeID);
+        }
+        archetype.markChanged(INDEXES_BY_ENTITIES_ID.get(entity.getPersonalID()), componentTypeID);
+    }
+
+    /**
+     * Регистрирует наблюдателя за структурными изменениями сущностей по указанному типу компонентов (см.
+     * {@link ComponentObserver}). Наблюдатель получит только изменения, выполненные после его регистрации, в том
+     * числе изменения, внесенные при слиянии буферов с данным менеджером (см. {@link #flushBuffer(NewEntitiesBuffer)}
+     * и {@link #flushBuffer(EntityCommandBuffer, ExceptionHandler)}). Изменения накапливаются и рассылаются пакетами
+     * методом {@link #notifyObservers()}. Один и тот же наблюдатель может быть зарегистрирован для нескольких
+     * типов компонентов.
+     * @param componentTypeID идентификатор наблюдаемого типа компонентов.
+     * @param observer наблюдатель.
+     * @throws IllegalArgumentException если идентификатор типа компонентов меньше нуля.
+     * @throws NullPointerException если observer равен null.
+     * @throws IllegalStateException если метод вызывается во время рассылки изменений.
+     */
+    public void addObserver(int componentTypeID, ComponentObserver observer) {
+        if(componentTypeID < 0) {
+            throw new IllegalArgumentException(
+                    "ID типа компонента не должно быть меньше нуля. Получено " + componentTypeID);
+        }
+        if(observer == null) throw new NullPointerException("Наблюдатель не может быть равен null.");
+        OBSERVERS.add(componentTypeID, observer);
+    }
+
+    /**
+     * Удаляет наблюдателя, ранее зарегистрированного для указанного типа компонентов методом
+     * {@link #addObserver(int, ComponentObserver)}. Если для типа компонентов не остается ни одного наблюдателя,
+     * накопленные по нему изменения отбрасываются.
+     * @param componentTypeID идентификатор наблюдаемого типа компонентов.
+     * @param observer наблюдатель.
+     * @return true, если наблюдатель был зарегистрирован для указанного типа компонентов, иначе - false.
+     * @throws IllegalStateException если метод вызывается во время рассылки изменений.
+     */
+    public boolean removeObserver(int componentTypeID, ComponentObserver observer) {
+        return OBSERVERS.remove(componentTypeID, observer);
+    }
+
+    /**
+     * Рассылает наблюдателям (см. {@link ComponentObserver}) все структурные изменения, накопленные с момента
+     * предыдущего вызова этого метода: для каждого наблюдаемого типа компонентов сначала вызывается
+     * {@link ComponentObserver#onRemoved(int, Array)}, затем {@link ComponentObserver#onAdded(int, Array)}.
+     * Наблюдатели могут изменять состояние менеджера - такие изменения будут разосланы при следующем вызове.
+     * {@link GameLoop} вызывает этот метод в начале каждого шага игрового цикла.
+     * @throws IllegalStateException если метод вызывается во время рассылки изменений.
+     */
+    public void notifyObservers() {
+        OBSERVERS.notifyObservers();
+    }
+
+    /**
+     * Возвращает true, если указанная сущность является живой и связана хотя бы с одним компонентом идентификатор
+     * типа которого равен componentTypeID, иначе возвращает false.
+     * @param owner сущность для которой выполняется проверка.
+     * @param componentTypeID идентификатор типа компонента.
+     * @return true, если указанная сущность является живой и связана хотя бы с одним компонентом идентификатор
+     *         типа которого равен componentTypeID, иначе возвращает false.
+     */
+    public boolean hasComponent(Entity owner, int componentTypeID) {
+        if(COMPONENT_TYPES.isSparse(componentTypeID)) {
+            return isAlive(owner) && SPARSE.contains(owner.getPersonalID(), componentTypeID);
+        }
+        return isAlive(owner) && ARCHETYPES_BY_ENTITIES.get(owner.getPersonalID()).containsComponentType(componentTypeID);
+    }
+
+    /**
+     * Возвращает кол-во компонентов связанных с указанной сущностью и идентификатор типа которых равен
+     * componentTypeID. Возвращает ноль, если нет ни одного компонента имеющего указанный идентфикатор и связанного
+     * с указанной суностью, или сущность не явлеятся живой.
+     * @param owner сущность для которой выполняется проверка.
+     * @param componentTypeID идентификатор типа компонентов.
+     * @return кол-во компонентов связанных с указанной сущностью и идентификатор типа которых равен componentTypeID.
+     */
+    public int getCountComponent(Entity owner, int componentTypeID) {
+        return Component.getCountComponent(getComponent(owner, componentTypeID));
+    }
+
+    /**
+     * Возвращает компонент связанный с указанной сущностью. Если сущность связана сразу с несколькими
+     * компонентами указанного типа - вернется один из них, при этом метод не дает гарантий какой именно компонент
+     * будет возвращен. Если сущность не связана ни с одним компонентом указанного типа или не является живой -
+     * возвращает null.
+     * @param owner сущность для которой выполняется проверка.
+     * @param componentTypeID идентификатор типа компонентов.
+     * @return компонент ассоциированый с указанной сущностью или null.
+     */
+    public Component getComponent(Entity owner, int componentTypeID) {
+        Component component = null;
+        int entityPersonalID = owner.getPersonalID();
+        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entityPersonalID);
+        if(isAlive(owner) && COMPONENT_TYPES.isSparse(componentTypeID)) {
+            component = SPARSE.get(entityPersonalID, componentTypeID);
+        } else if(isAlive(owner) && archetype.containsComponentType(componentTypeID)) {
+            component = archetype.getComponent(INDEXES_BY_ENTITIES_ID.get(entityPersonalID), componentTypeID);
+        }
+        return component;
+    }
+
+    /**
+     * Аналог {@link #getComponent(Entity, int)} для сущности с указанным дескриптором (см.
+     * {@link Entity#getHandle()}).
+     * @param handle дескриптор сущности.
+     * @param componentTypeID идентификатор типа компонентов.
+     * @return компонент ассоциированый с указанной сущностью или null.
+     */
+    public Component getComponent(long handle, int componentTypeID) {
+        Entity owner = getEntity(handle);
+        return owner != null ? getComponent(owner, componentTypeID) : null;
+    }
+
+    /**
+     * Возвращает компонент связанный с указанной сущностью и имеющий указаную метку. Если сущность связана
+     * сразу с несколькими компонетами указанного типа и имеющими указаную метку - возвращает один из них, при
+     * этом метод не дает гарантий касательно того, кокой именно компонент будет возвращен. Если сущность не связана
+     * ни с одним компонентом указанного типа и имеющим указаную метку, или не является живой - возвращает null.
+     * @param owner сущность для которой выполняется проверка.
+     * @param componentTypeID идентификатор типа компонентов.
+     * @param label строковая метка по которой ищется компонент асоциированый с указываемой сущностью.
+     * @return компонент ассоциированый с указанной сущностью и имеющий указаную метку или null.
+     */
+    public Component getComponent(Entity owner, int componentTypeID, String label) {
+        Component component = null;
+        int entityPersonalID = owner.getPersonalID();
+        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entityPersonalID);
+        if(isAlive(owner) && COMPONENT_TYPES.isSparse(componentTypeID)) {
+            component = Component.findByLabel(SPARSE.get(entityPersonalID, componentTypeID), label);
+        } else if(isAlive(owner) && archetype.containsComponentType(componentTypeID)) {
+            component = archetype.getComponent(INDEXES_BY_ENTITIES_ID.get(entityPersonalID), componentTypeID, label);
+        }
+        return component;
+    }
+
+    /**
+     * Возвращает массив компонентов связанных с указанной сущностью и имеющих идентифкатор типа равный
+     * componentTypeID. Если нет ни одного компонента имеющего указанный идентификатор типа и связанного с
+     * указанной сущностью, или сущность не является живой - метод возвращает null.
+     * @param owner сущность для которой выполняется проверка.
+     * @param componentTypeID идентификатор типа компонентов.
+     * @return массив компонентов связанных с указанной сущностью или null.
+     */
+    public Array<Component> getComponents(Entity owner, int componentTypeID) {
+        Array<Component> components = null;
+        int entityPersonalID = owner.getPersonalID();
+        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entityPersonalID);
+        if(isAlive(owner) && COMPONENT_TYPES.isSparse(componentTypeID)) {
+            components = Component.toArray(SPARSE.get(entityPersonalID, componentTypeID));
+        } else if(isAlive(owner) && archetype.containsComponentType(componentTypeID)) {
+            components = archetype.getComponents(INDEXES_BY_ENTITIES_ID.get(entityPersonalID), componentTypeID);
+        }
+        return components;
+    }
+
+    /**
+     * Связывает указанный компонент с его сущностю-владельцем (см. {@link Component#Component(Entity, int)}).
+     * Информация о связи между сущностю-владельцем и компонентом будет сохранена в данном менеджере сущностей и
+     * компонентов.
+     * @param component связываемый компонент.
+     * @throws IllegalArgumentException если сущность-владелец не является живой или компонент уже связан с сущностью.
+     */
+    public void bind(Component component) {
+        onModification();
+
+        checkBind(component);
+
+        if(COMPONENT_TYPES.isSparse(component.getTypeID())) {
+            bindSparse(component);
+            component.bind();
+            return;
+        }
+
+        int entityPersonalID = component.getOwner().getPersonalID();
+        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entityPersonalID);
+        if(!archetype.containsComponentType(component.getTypeID())) {
+            Archetype newArchetype = ARCHETYPES.getWith(archetype, component.getTypeID());
+            moveEntity(component.getOwner(), archetype, newArchetype);
+            archetype = newArchetype;
+        }
+        archetype.addComponent(INDEXES_BY_ENTITIES_ID.get(entityPersonalID), component);
+
+        component.bind();
+    }
+
+    /**
+     * Аналог {@link #bind(Component)} для сущности с указанным дескриптором (см. {@link Entity#getHandle()}). Т.к.
+     * владелец компонента задается при его создании, компонент создается переданной factory для живой сущности с
+     * указанным дескриптором, после чего связывается с ней.
+     * @param handle дескриптор сущности.
+     * @param factory создает новый, ещё не связанный компонент, владельцем которого является переданная сущность.
+     * @return связанный компонент.
+     * @throws IllegalArgumentException если сущность не является живой или factory вернула компонент, владельцем
+     *                                  которого не является сущность с указанным дескриптором, или уже связанный
+     *                                  компонент.
+     * @throws NullPointerException если factory равна null.
+     */
+    public <T extends Component> T bind(long handle, Function<Entity, T> factory) {
+        if(factory == null) throw new NullPointerException("factory не может быть равна null.");
+
+        Entity owner = getLiveEntity(handle);
+        T component = factory.apply(owner);
+        if(component == null || !owner.equals(component.getOwner())) {
+            throw new IllegalArgumentException("Недопустимый компонент " + component + " для сущности " + owner);
+        }
+        bind(component);
+        return component;
+    }
+
+    /**
+     * Отвязывает указанный компонент от его сущности-владельца (см. {@link Component#Component(Entity, int)}).
+     * @param component отвязываемый компонент.
+     * @throws IllegalArgumentException если сущность-владелец не является живой или компонент уже отвязан от сущности.
+     */
+    public void unbind(Component component) {
+        onModification();
+
+        checkUnbind(component);
+
+        if(COMPONENT_TYPES.isSparse(component.getTypeID())) {
+            unbindSparse(component);
+            component.unbind();
+            return;
+        }
+
+        int entityPersonalID = component.getOwner().getPersonalID();
+        int entityIndex = INDEXES_BY_ENTITIES_ID.get(entityPersonalID);
+        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entityPersonalID);
+
+        archetype.removeComponent(entityIndex, component);
+        if(archetype.getComponent(entityIndex, component.getTypeID()) == null) {
+            moveEntity(component.getOwner(), archetype, ARCHETYPES.getWithout(archetype, component.getTypeID()));
         }
 
         component.unbind();
@@ -398,38 +1306,7 @@ public final class EntityComponentManager {
      *                                  4. Один из передаваемых компонентов уже связан с сущностью.
      */
     public void bind(Component... components) {
-        actualModCount++;
-
-        checkMultipleBind(components);
-
-        Entity owner = components[0].getOwner();
-        int entityPersonalID = owner.getPersonalID();
-        int entityIndex = INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID());
-
-        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entityPersonalID);
-        final Bits MASK = archetype.getCopyComponentTypes();
-        for(Component comp : components) {
-            MASK.expandTo(comp.getTypeID()).set(comp.getTypeID());
-        }
-
-        if(archetype.containsComponentTypes(MASK)) {
-            for(Component comp : components) archetype.addComponent(entityIndex, comp);
-        } else {
-            int indexArchetype = ARCHETYPES.binarySearch((Archetype b) -> b.compareComponentTypes(MASK));
-            Archetype newArchetype = null;
-            if (indexArchetype != -1) {
-                newArchetype = ARCHETYPES.get(indexArchetype);
-            } else {
-                newArchetype = new Archetype(MASK);
-                ARCHETYPES.binaryInsert(newArchetype, Archetype::compareTo);
-            }
-
-            ARCHETYPES_BY_ENTITIES.set(owner.getPersonalID(), newArchetype);
-            archetype.moveEntityTo(INDEXES_BY_ENTITIES_ID, owner, newArchetype);
-            for(Component comp : components) newArchetype.addComponent(entityIndex, comp);
-        }
-
-        for(Component comp : components) comp.bind();
+        bind(components, 0, components.length);
     }
 
     /**
@@ -444,189 +1321,1374 @@ public final class EntityComponentManager {
      *                                  4. Один из передаваемых компонентов уже отвязан от сущности.
      */
     public void unbind(Component... components) {
-        actualModCount++;
+        unbind(components, 0, components.length);
+    }
+
+    /**
+     * Связывает компонент указанного типа с каждой сущностью удовлетворяющей критерию задаваемому объектом типа
+     * {@link EntitiesFilter}. Тип компонентов может быть объектным, структурным (все поля нового компонента будут
+     * равны нулю) или тегом. Сущности, уже имеющие компонент структурного типа или тег указанного типа,
+     * пропускаются.
+     * <br/><br/>
+     * Если фильтру удовлетворяют все сущности архетипа (и результат фильтра не зависит от разреженных типов
+     * компонентов), все они переносятся в архетип с указанным типом компонентов за одну операцию: столбцы
+     * компонентов копируются блоками, а не по одной сущности. Остальные сущности переносятся по одной.
+     * <br/><br/>
+     * Для объектного типа компонентов factory вызывается для каждой подходящей сущности и должна вернуть новый,
+     * ещё не связанный компонент этого типа, владельцем которого является переданная сущность. Все компоненты
+     * создаются до изменения состава компонентов сущностей, поэтому если factory выбросит исключение или вернет
+     * недопустимый компонент - ни один компонент не будет связан. Для структурных типов и тегов factory не
+     * используется и может быть равна null.
+     * @param filter объект задающий критерий отбора сущностей.
+     * @param componentTypeID идентификатор типа компонентов.
+     * @param factory создает компонент объектного типа для каждой сущности.
+     * @return кол-во сущностей, с которыми был связан компонент.
+     * @throws IllegalArgumentException если идентификатор типа компонентов меньше нуля, тип является разреженным или
+     *                                  factory вернула недопустимый компонент.
+     * @throws NullPointerException если тип компонентов является объектным, а factory равна null.
+     */
+    public int bindToAll(EntitiesFilter filter, int componentTypeID, Function<Entity, ? extends Component> factory) {
+        onModification();
+
+        checkBulkComponentType(componentTypeID);
+        boolean isObject = COMPONENT_TYPES.isObject(componentTypeID);
+        if(isObject && factory == null) {
+            throw new NullPointerException("Для объектного типа компонентов " + componentTypeID + " factory обязательна.");
+        }
+
+        Array<Archetype> archetypes = collectArchetypes(filter);
+        boolean isSparseFilter = COMPONENT_TYPES.isSparseFilter(filter);
+        Array<Archetype> wholeArchetypes = new Array<>(Archetype.class, 0);
+        Array<Entity> entities = new Array<>(Entity.class, 0); //Сущности переносимые по одной.
+        Array<Component> components = isObject ? new Array<>(Component.class, 0) : null;
+        for(int i = 0; i < archetypes.getLength(); ++i) {
+            Archetype archetype = archetypes.get(i);
+            boolean contains = archetype.containsComponentType(componentTypeID);
+            if(contains && !isObject) continue;
+
+            boolean isWhole = !isSparseFilter && archetype.isValidAllEntityTypes(filter);
+            if(isWhole && !contains) wholeArchetypes.add(archetype);
+            for(int j = 0; j < archetype.getLength(); ++j) {
+                Entity entity = archetype.getEntity(j);
+                if(isWhole || isValidEntity(archetype, filter, entity)) {
+                    if(!isWhole && !contains) entities.add(entity);
+                    if(isObject) components.add(createComponent(factory, entity, componentTypeID));
+                }
+            }
+        }
+
+        int bound = 0;
+        for(int i = 0; i < wholeArchetypes.getLength(); ++i) {
+            Archetype archetype = wholeArchetypes.get(i);
+            bound += archetype.getLength();
+            Archetype newArchetype = ARCHETYPES.getWith(archetype, componentTypeID);
+            if(!OBSERVERS.isEmpty()) OBSERVERS.movedAll(archetype, newArchetype);
+            archetype.moveAllTo(newArchetype, INDEXES_BY_ENTITIES_ID, ARCHETYPES_BY_ENTITIES);
+        }
+        for(int i = 0; i < entities.getLength(); ++i) {
+            Entity entity = entities.get(i);
+            Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entity.getPersonalID());
+            moveEntity(entity, archetype, ARCHETYPES.getWith(archetype, componentTypeID));
+        }
+        bound += entities.getLength();
+
+        if(isObject) {
+            for(int i = 0; i < components.getLength(); ++i) {
+                Component component = components.get(i);
+                int entityPersonalID = component.getOwner().getPersonalID();
+                ARCHETYPES_BY_ENTITIES.get(entityPersonalID).
+                        addComponent(INDEXES_BY_ENTITIES_ID.get(entityPersonalID), component);
+                component.bind();
+            }
+            bound = components.getLength();
+        }
+        return bound;
+    }
+
+    /**
+     * Отвязывает компоненты указанного типа от каждой сущности удовлетворяющей критерию задаваемому объектом типа
+     * {@link EntitiesFilter}. Для объектного типа компонентов отвязываются все компоненты этого типа. Тип
+     * компонентов может быть объектным, структурным или тегом. Как и {@link #bindToAll(EntitiesFilter, int, Function)},
+     * данный метод переносит все сущности архетипа за одну операцию, если все они удовлетворяют фильтру.
+     * @param filter объект задающий критерий отбора сущностей.
+     * @param componentTypeID идентификатор типа компонентов.
+     * @return кол-во сущностей, от которых были отвязаны компоненты.
+     * @throws IllegalArgumentException если идентификатор типа компонентов меньше нуля или тип является разреженным.
+     */
+    public int unbindFromAll(EntitiesFilter filter, int componentTypeID) {
+        onModification();
+
+        checkBulkComponentType(componentTypeID);
+        boolean isObject = COMPONENT_TYPES.isObject(componentTypeID);
+
+        int unbound = 0;
+        Array<Archetype> archetypes = collectArchetypes(filter);
+        boolean isSparseFilter = COMPONENT_TYPES.isSparseFilter(filter);
+        Array<Entity> entities = new Array<>(Entity.class, 0); //Сущности переносимые по одной.
+        for(int i = 0; i < archetypes.getLength(); ++i) {
+            Archetype archetype = archetypes.get(i);
+            if(!archetype.containsComponentType(componentTypeID)) continue;
+
+            if(!isSparseFilter && archetype.isValidAllEntityTypes(filter)) {
+                unbound += archetype.getLength();
+                if(isObject) archetype.unbindAllComponentsOfType(componentTypeID);
+                Archetype newArchetype = ARCHETYPES.getWithout(archetype, componentTypeID);
+                if(!OBSERVERS.isEmpty()) OBSERVERS.movedAll(archetype, newArchetype);
+                archetype.moveAllTo(newArchetype, INDEXES_BY_ENTITIES_ID, ARCHETYPES_BY_ENTITIES);
+            } else {
+                for(int j = 0; j < archetype.getLength(); ++j) {
+                    Entity entity = archetype.getEntity(j);
+                    if(isValidEntity(archetype, filter, entity)) entities.add(entity);
+                }
+            }
+        }
+
+        for(int i = 0; i < entities.getLength(); ++i) {
+            Entity entity = entities.get(i);
+            int entityPersonalID = entity.getPersonalID();
+            Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entityPersonalID);
+            if(isObject) {
+                Component.detachAll(archetype.getComponent(INDEXES_BY_ENTITIES_ID.get(entityPersonalID), componentTypeID));
+            }
+            moveEntity(entity, archetype, ARCHETYPES.getWithout(archetype, componentTypeID));
+        }
+        return unbound + entities.getLength();
+    }
+
+    /**
+     * Связывает с указанной сущностью компонент структурного типа (см. {@link #registerStructType(int, Schema)}).
+     * Все поля нового компонента будут равны нулю.
+     * @param owner сущность, с которой связывается компонент.
+     * @param componentTypeID идентификатор структурного типа компонентов.
+     * @throws IllegalArgumentException если сущность не является живой, тип компонентов не зарегистрирован как
+     *                                  структурный или сущность уже имеет компонент этого типа.
+     */
+    public void bindStruct(Entity owner, int componentTypeID) {
+        onModification();
+
+        checkBindStruct(owner, componentTypeID);
+
+        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(owner.getPersonalID());
+        moveEntity(owner, archetype, ARCHETYPES.getWith(archetype, componentTypeID));
+    }
+
+    /**
+     * Аналог {@link #bindStruct(Entity, int)} для сущности с указанным дескриптором (см.
+     * {@link Entity#getHandle()}).
+     * @param handle дескриптор сущности.
+     * @param componentTypeID идентификатор структурного типа компонентов.
+     * @throws IllegalArgumentException если сущность не является живой, тип компонентов не зарегистрирован как
+     *                                  структурный или сущность уже имеет компонент этого типа.
+     */
+    public void bindStruct(long handle, int componentTypeID) {
+        bindStruct(getLiveEntity(handle), componentTypeID);
+    }
+
+    /**
+     * Отвязывает от указанной сущности компонент структурного типа (см. {@link #registerStructType(int, Schema)}).
+     * @param owner сущность, от которой отвязывается компонент.
+     * @param componentTypeID идентификатор структурного типа компонентов.
+     * @throws IllegalArgumentException если сущность не является живой или не имеет компонента указанного
+     *                                  структурного типа.
+     */
+    public void unbindStruct(Entity owner, int componentTypeID) {
+        onModification();
+
+        Archetype archetype = getArchetypeWithStruct(owner, componentTypeID);
+        moveEntity(owner, archetype, ARCHETYPES.getWithout(archetype, componentTypeID));
+    }
+
+    /**
+     * Связывает с указанной сущностью тег (см. {@link #registerTagType(int)}). Сущность переносится в архетип,
+     * набор типов компонентов которого дополнительно содержит указанный тег.
+     * @param owner сущность, с которой связывается тег.
+     * @param componentTypeID идентификатор типа компонентов, зарегистрированного как тег.
+     * @throws IllegalArgumentException если сущность не является живой, тип компонентов не зарегистрирован как тег
+     *                                  или сущность уже имеет этот тег.
+     */
+    public void bindTag(Entity owner, int componentTypeID) {
+        onModification();
+
+        checkBindTag(owner, componentTypeID);
+
+        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(owner.getPersonalID());
+        moveEntity(owner, archetype, ARCHETYPES.getWith(archetype, componentTypeID));
+    }
+
+    /**
+     * Аналог {@link #bindTag(Entity, int)} для сущности с указанным дескриптором (см. {@link Entity#getHandle()}).
+     * @param handle дескриптор сущности.
+     * @param componentTypeID идентификатор типа компонентов, зарегистрированного как тег.
+     * @throws IllegalArgumentException если сущность не является живой, тип компонентов не зарегистрирован как тег
+     *                                  или сущность уже имеет этот тег.
+     */
+    public void bindTag(long handle, int componentTypeID) {
+        bindTag(getLiveEntity(handle), componentTypeID);
+    }
+
+    /**
+     * Отвязывает от указанной сущности тег (см. {@link #registerTagType(int)}).
+     * @param owner сущность, от которой отвязывается тег.
+     * @param componentTypeID идентификатор типа компонентов, зарегистрированного как тег.
+     * @throws IllegalArgumentException если сущность не является живой или не имеет указанного тега.
+     */
+    public void unbindTag(Entity owner, int componentTypeID) {
+        onModification();
+
+        checkUnbindTag(owner, componentTypeID);
+
+        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(owner.getPersonalID());
+        moveEntity(owner, archetype, ARCHETYPES.getWithout(archetype, componentTypeID));
+    }
+
+    /**
+     * Возвращает значение поля типа int компонента структурного типа связанного с указанной сущностью.
+     * @param owner сущность-владелец компонента.
+     * @param componentTypeID идентификатор структурного типа компонентов.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @return значение поля.
+     * @throws IllegalArgumentException если сущность не является живой, не имеет компонента указанного
+     *                                  структурного типа или поле имеет другой тип.
+     */
+    public int getInt(Entity owner, int componentTypeID, int fieldIndex) {
+        return getStructColumn(owner, componentTypeID).
+                getInt(fieldIndex, Chunk.row(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID())));
+    }
+
+    /**
+     * Задает значение поля типа int компонента структурного типа связанного с указанной сущностью.
+     * @param owner сущность-владелец компонента.
+     * @param componentTypeID идентификатор структурного типа компонентов.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @param value новое значение поля.
+     * @throws IllegalArgumentException если сущность не является живой, не имеет компонента указанного
+     *                                  структурного типа или поле имеет другой тип.
+     */
+    public void setInt(Entity owner, int componentTypeID, int fieldIndex, int value) {
+        getMutableStructColumn(owner, componentTypeID).
+                setInt(fieldIndex, Chunk.row(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID())), value);
+    }
+
+    /**
+     * Возвращает значение поля типа long компонента структурного типа связанного с указанной сущностью.
+     * @param owner сущность-владелец компонента.
+     * @param componentTypeID идентификатор структурного типа компонентов.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @return значение поля.
+     * @throws IllegalArgumentException если сущность не является живой, не имеет компонента указанного
+     *                                  структурного типа или поле имеет другой тип.
+     */
+    public long getLong(Entity owner, int componentTypeID, int fieldIndex) {
+        return getStructColumn(owner, componentTypeID).
+                getLong(fieldIndex, Chunk.row(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID())));
+    }
+
+    /**
+     * Задает значение поля типа long компонента структурного типа связанного с указанной сущностью.
+     * @param owner сущность-владелец компонента.
+     * @param componentTypeID идентификатор структурного типа компонентов.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @param value новое значение поля.
+     * @throws IllegalArgumentException если сущность не является живой, не имеет компонента указанного
+     *                                  структурного типа или поле имеет другой тип.
+     */
+    public void setLong(Entity owner, int componentTypeID, int fieldIndex, long value) {
+        getMutableStructColumn(owner, componentTypeID).
+                setLong(fieldIndex, Chunk.row(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID())), value);
+    }
+
+    /**
+     * Возвращает значение поля типа float компонента структурного типа связанного с указанной сущностью.
+     * @param owner сущность-владелец компонента.
+     * @param componentTypeID идентификатор структурного типа компонентов.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @return значение поля.
+     * @throws IllegalArgumentException если сущность не является живой, не имеет компонента указанного
+     *                                  структурного типа или поле имеет другой тип.
+     */
+    public float getFloat(Entity owner, int componentTypeID, int fieldIndex) {
+        return getStructColumn(owner, componentTypeID).
+                getFloat(fieldIndex, Chunk.row(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID())));
+    }
+
+    /**
+     * Задает значение поля типа float компонента структурного типа связанного с указанной сущностью.
+     * @param owner сущность-владелец компонента.
+     * @param componentTypeID идентификатор структурного типа компонентов.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @param value новое значение поля.
+     * @throws IllegalArgumentException если сущность не является живой, не имеет компонента указанного
+     *                                  структурного типа или поле имеет другой тип.
+     */
+    public void setFloat(Entity owner, int componentTypeID, int fieldIndex, float value) {
+        getMutableStructColumn(owner, componentTypeID).
+                setFloat(fieldIndex, Chunk.row(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID())), value);
+    }
+
+    /**
+     * Возвращает значение поля типа double компонента структурного типа связанного с указанной сущностью.
+     * @param owner сущность-владелец компонента.
+     * @param componentTypeID идентификатор структурного типа компонентов.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @return значение поля.
+     * @throws IllegalArgumentException если сущность не является живой, не имеет компонента указанного
+     *                                  структурного типа или поле имеет другой тип.
+     */
+    public double getDouble(Entity owner, int componentTypeID, int fieldIndex) {
+        return getStructColumn(owner, componentTypeID).
+                getDouble(fieldIndex, Chunk.row(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID())));
+    }
+
+    /**
+     * Задает значение поля типа double компонента структурного типа связанного с указанной сущностью.
+     * @param owner сущность-владелец компонента.
+     * @param componentTypeID идентификатор структурного типа компонентов.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @param value новое значение поля.
+     * @throws IllegalArgumentException если сущность не является живой, не имеет компонента указанного
+     *                                  структурного типа или поле имеет другой тип.
+     */
+    public void setDouble(Entity owner, int componentTypeID, int fieldIndex, double value) {
+        getMutableStructColumn(owner, componentTypeID).
+                setDouble(fieldIndex, Chunk.row(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID())), value);
+    }
+
+
+    /**
+     * Создает и возвращает новый буфер для асинхронного создания и асинхронного редактирования созданных через него
+     * сущностей.
+     * @return буфер создания и редактирвоания сущностей.
+     */
+    public NewEntitiesBuffer createNewEntitiesBuffer() {
+        return new NewEntitiesBuffer(this);
+    }
+
+    /**
+     * Создает и возвращает буфер для отложенного выполнения операций по созданию сущностей, их удалению и
+     * изменению их состава компонентов.
+     * @return буфер для отложенного выполнения операций по работе с сущностями и компонентами.
+     */
+    public EntityCommandBuffer createEntityCommandBuffer() {
+        return new EntityCommandBuffer(this);
+    }
+
+    /**
+     * Возвращает буфер из пула буферов данного менеджера или создает новый, если пул пуст (см.
+     * {@link #createEntityCommandBuffer()}). Возвращенный буфер пуст и валиден. Используйте этот метод вместе с
+     * {@link #returnBuffer(EntityCommandBuffer)}, если буферы нужны на каждом шаге игрового цикла - в этом случае
+     * буферы и их внутренние массивы не создаются заново. Метод может вызываться из любого потока.
+     * @return пустой буфер для отложенного выполнения операций.
+     */
+    public EntityCommandBuffer borrowEntityCommandBuffer() {
+        EntityCommandBuffer buffer = COMMAND_BUFFERS_POOL.poll();
+        if(buffer == null) return createEntityCommandBuffer();
+        buffer.setPooled(false);
+        return buffer;
+    }
+
+    /**
+     * Очищает указанный буфер (см. {@link EntityCommandBuffer#reset()}) и возвращает его в пул буферов данного
+     * менеджера. Если буфер ещё не был слит с менеджером, все его операции отменяются. После вызова этого метода
+     * буфер нельзя использовать, пока он не будет снова получен методом {@link #borrowEntityCommandBuffer()}.
+     * Метод должен вызываться в потоке, который работал с буфером.
+     * @param buffer возвращаемый буфер.
+     * @throws IllegalArgumentException если буфер был создан другим менеджером.
+     * @throws IllegalStateException если буфер уже находится в пуле.
+     */
+    public void returnBuffer(EntityCommandBuffer buffer) {
+        if(!buffer.belongsTo(this)) {
+            throw new IllegalArgumentException("Буфер " + buffer + " был создан другим менеджером.");
+        }
+        if(buffer.setPooled(true)) {
+            throw new IllegalStateException("Буфер " + buffer + " уже возвращен в пул.");
+        }
+        buffer.reset();
+        COMMAND_BUFFERS_POOL.offer(buffer);
+    }
+
+    /**
+     * Аналог {@link #borrowEntityCommandBuffer()} для буферов создания сущностей (см.
+     * {@link #createNewEntitiesBuffer()}). Метод может вызываться из любого потока.
+     * @return пустой буфер создания сущностей.
+     */
+    public NewEntitiesBuffer borrowNewEntitiesBuffer() {
+        NewEntitiesBuffer buffer = NEW_ENTITIES_BUFFERS_POOL.poll();
+        if(buffer == null) return createNewEntitiesBuffer();
+        buffer.setPooled(false);
+        return buffer;
+    }
+
+    /**
+     * Аналог {@link #returnBuffer(EntityCommandBuffer)} для буферов создания сущностей. Если буфер ещё не был слит
+     * с менеджером, все созданные через него сущности удаляются (см. {@link NewEntitiesBuffer#reset()}).
+     * @param buffer возвращаемый буфер.
+     * @throws IllegalArgumentException если буфер был создан другим менеджером.
+     * @throws IllegalStateException если буфер уже находится в пуле.
+     */
+    public void returnBuffer(NewEntitiesBuffer buffer) {
+        if(!buffer.belongsTo(this)) {
+            throw new IllegalArgumentException("Буфер " + buffer + " был создан другим менеджером.");
+        }
+        if(buffer.setPooled(true)) {
+            throw new IllegalStateException("Буфер " + buffer + " уже возвращен в пул.");
+        }
+        buffer.reset();
+        NEW_ENTITIES_BUFFERS_POOL.offer(buffer);
+    }
+
+    /**
+     * Добавляет все сущности, компоненты и связи между ними из переданного буфера в данный менеджер компонентов и
+     * сущностей.
+     * @param buffer буфер для которого выполняется слияние с данным менеджером компонентов и сущностей.
+     */
+    public void flushBuffer(NewEntitiesBuffer buffer) {
+        onModification();
+
+        buffer.invalid();
+
+        LIVE_ENTITIES.or(buffer.USED_ENTITIES_ID);
+
+        for(int i = 0; i < buffer.ENTITIES_BY_ID.getLength(); i++) {
+            Entity entity = buffer.ENTITIES_BY_ID.get(i);
+            if(entity != null) ENTITIES_BY_ID.setAndExpand(i, entity);
+        }
+
+        for(int i = 0; i < buffer.ARCHETYPES.getLength(); i++) {
+            Archetype from = buffer.ARCHETYPES.get(i);
+            Archetype to = ARCHETYPES.get(from.getCopyComponentTypes());
+            if(!OBSERVERS.isEmpty()) OBSERVERS.addedAll(from);
+            to.merge(from, INDEXES_BY_ENTITIES_ID, ARCHETYPES_BY_ENTITIES);
+        }
+        buffer.ARCHETYPES.freeAll();
+        if(!OBSERVERS.isEmpty()) OBSERVERS.addedAll(buffer.SPARSE);
+        SPARSE.merge(buffer.SPARSE);
+    }
+
+    /**
+     * Аналог {@link #flushBuffer(NewEntitiesBuffer)} для нескольких буферов сразу. Сначала для каждого архетипа
+     * менеджера резервируется место под сущности всех буферов (новые группы сущностей выделяются один раз), а
+     * перенесенным сущностям назначаются их итоговые индексы. Затем столбцы компонентов буферов копируются в
+     * непересекающиеся диапазоны групп менеджера параллельно - в пуле потоков заданном методом
+     * {@link #setParallelPool(ForkJoinPool)}. Порядок сущностей в архетипах совпадает с результатом
+     * последовательного слияния буферов в порядке их передачи.
+     * @param buffers буферы, для которых выполняется слияние с данным менеджером компонентов и сущностей.
+     * @throws IllegalArgumentException если хотя бы один из буферов был создан другим менеджером или один и тот же
+     *                                  буфер передан несколько раз.
+     */
+    public void flushBuffers(NewEntitiesBuffer... buffers) {
+        for(int i = 0; i < buffers.length; i++) {
+            if(!buffers[i].belongsTo(this)) {
+                throw new IllegalArgumentException("Буфер " + buffers[i] + " был создан другим менеджером.");
+            }
+            for(int j = 0; j < i; j++) {
+                if(buffers[i] == buffers[j]) {
+                    throw new IllegalArgumentException("Буфер " + buffers[i] + " передан несколько раз.");
+                }
+            }
+        }
+        onModification();
+
+        for(NewEntitiesBuffer buffer : buffers) {
+            buffer.invalid();
+            LIVE_ENTITIES.or(buffer.USED_ENTITIES_ID);
+            Bits usedID = buffer.USED_ENTITIES_ID;
+            for(int id = usedID.nextSetBit(0); id != -1; id = usedID.nextSetBit(id + 1)) {
+                ENTITIES_BY_ID.setAndExpand(id, buffer.ENTITIES_BY_ID.get(id));
+            }
+        }
+        INDEXES_BY_ENTITIES_ID.expandTo(ENTITIES_BY_ID.getLength());
+        ARCHETYPES_BY_ENTITIES.expandTo(ENTITIES_BY_ID.getLength());
+
+        Array<Archetype.MergeRange> ranges = new Array<>(Archetype.MergeRange.class, 0);
+        for(NewEntitiesBuffer buffer : buffers) {
+            for(int i = 0; i < buffer.ARCHETYPES.getLength(); i++) {
+                Archetype from = buffer.ARCHETYPES.get(i);
+                if(from.getLength() > 0) {
+                    Archetype to = ARCHETYPES.get(from.getCopyComponentTypes());
+                    if(!OBSERVERS.isEmpty()) OBSERVERS.addedAll(from);
+                    to.reserveMerge(from, INDEXES_BY_ENTITIES_ID, ARCHETYPES_BY_ENTITIES, ranges);
+                }
+            }
+        }
+
+        if(ranges.getLength() > 1 && parallelPool.getParallelism() > 1) {
+            parallelPool.invoke(new MergeTask(ranges, 0, ranges.getLength()));
+        } else {
+            for(int i = 0; i < ranges.getLength(); i++) ranges.get(i).copy();
+        }
+
+        for(NewEntitiesBuffer buffer : buffers) {
+            buffer.ARCHETYPES.freeAll();
+            if(!OBSERVERS.isEmpty()) OBSERVERS.addedAll(buffer.SPARSE);
+            SPARSE.merge(buffer.SPARSE);
+        }
+    }
+
+    /**
+     * Последовательно выполняет все операции сохраненые в буфере для отложенного выполнения операций по созданию
+     * сущностей, их удалению и изменению их состава компонентов. Любое исключение, выброшенно из handler, будет
+     * обернуто в непроверяемое исключение {@link BatchException}.
+     * @param buffer буфер для отложенного выполнения операций.
+     * @param handler обработчик для ошибок, которые могут возникнуть в ходе выполнения операций из буфера.
+     * @throws BatchException если пакетная операция была прервана.
+     */
+    public void flushBuffer(EntityCommandBuffer buffer, ExceptionHandler<IllegalArgumentException> handler) {
+        onModification();
+
+        buffer.invalid();
+
+        while(!buffer.isEmpty()) {
+            try {
+                executeCommand(buffer);
+            } catch(IllegalArgumentException e) {
+                try {
+                    handler.handle(e);
+                } catch(Exception exception) {
+                    freeUnflushedEntities(buffer);
+                    throw new BatchException(exception);
+                }
+            }
+        }
+    }
+
+    /**
+     * Аналог {@link #flushBuffer(EntityCommandBuffer, ExceptionHandler)}, объединяющий операции буфера по
+     * сущностям. Операции по-прежнему проверяются в порядке их записи (ошибочные операции передаются в handler и
+     * пропускаются), но вместо немедленного выполнения для каждой сущности накапливается её итоговый состав
+     * компонентов. После проверки всех операций каждая сущность переносится в свой итоговый архетип не более одного
+     * раза, а сущности созданные и удаленные через один и тот же буфер вообще не добавляются в менеджер (у
+     * связанных с ними компонентов вызывается метод {@link Component#destruct()}, после чего они отвязываются).
+     * Сущности, существовавшие до слияния и удаленные через буфер, сначала получают свой итоговый состав
+     * компонентов и затем удаляются так же, как и методом {@link #removeEntity(Entity)}. Исключение - структурный
+     * компонент, который был у сущности до слияния и был отвязан и снова связан через буфер: такая сущность
+     * переносится дважды, чтобы поля компонента были обнулены, как и при последовательном выполнении операций.
+     * <br/><br/>
+     * Итоговое состояние менеджера совпадает с результатом последовательного выполнения операций, за исключением
+     * порядка сущностей в архетипах и порядка однотипных компонентов сущности. Если handler выбрасывает
+     * исключение, выполняются все операции, проверенные до ошибочной операции.
+     * @param buffer буфер для отложенного выполнения операций.
+     * @param handler обработчик для ошибок, которые могут возникнуть в ходе выполнения операций из буфера.
+     * @throws BatchException если пакетная операция была прервана.
+     */
+    public void flushBufferCoalesced(EntityCommandBuffer buffer, ExceptionHandler<IllegalArgumentException> handler) {
+        onModification();
+
+        buffer.invalid();
+
+        while(!buffer.isEmpty()) {
+            try {
+                coalesceCommand(buffer);
+            } catch(IllegalArgumentException e) {
+                try {
+                    handler.handle(e);
+                } catch(Exception exception) {
+                    applyPending(buffer);
+                    freeUnflushedEntities(buffer);
+                    throw new BatchException(exception);
+                }
+            }
+        }
+        applyPending(buffer);
+    }
+
+    /**
+     * Создает и возвращает буфер для многопоточной записи отложенных операций с детерминированным порядком их
+     * выполнения (см. {@link ConcurrentCommandBuffer}).
+     * @param numberLanes кол-во полос буфера, как правило - кол-во потоков или задач, которые будут записывать в
+     *                    него операции.
+     * @return новый многопоточный буфер отложенных операций.
+     * @throws IllegalArgumentException если numberLanes меньше единицы.
+     */
+    public ConcurrentCommandBuffer createConcurrentCommandBuffer(int numberLanes) {
+        if(numberLanes < 1) {
+            throw new IllegalArgumentException("Кол-во полос буфера должно быть больше нуля. Получено " + numberLanes);
+        }
+        return new ConcurrentCommandBuffer(this, numberLanes);
+    }
+
+    /**
+     * Выполняет все операции многопоточного буфера (см. {@link ConcurrentCommandBuffer}) в порядке возрастания их
+     * ключей сортировки. Операции с одинаковым ключом, записанные в одну полосу, выполняются в порядке их записи, а
+     * записанные в разные полосы - в порядке возрастания номеров полос. В остальном метод аналогичен
+     * {@link #flushBuffer(EntityCommandBuffer, ExceptionHandler)}.
+     * @param buffer многопоточный буфер отложенных операций.
+     * @param handler обработчик для ошибок, которые могут возникнуть в ходе выполнения операций из буфера.
+     * @throws IllegalArgumentException если буфер был создан другим менеджером.
+     * @throws BatchException если пакетная операция была прервана.
+     */
+    public void flushBuffer(ConcurrentCommandBuffer buffer, ExceptionHandler<IllegalArgumentException> handler) {
+        if(!buffer.belongsTo(this)) {
+            throw new IllegalArgumentException("Буфер " + buffer + " был создан другим менеджером.");
+        }
+        onModification();
+
+        buffer.invalid();
+        buffer.sortCommands();
+
+        for(int i = 0; i < buffer.getNumberCommands(); i++) {
+            try {
+                executeCommand(buffer.seekCommand(i));
+            } catch(IllegalArgumentException e) {
+                try {
+                    handler.handle(e);
+                } catch(Exception exception) {
+                    for(int j = 0; j < buffer.getNumberLanes(); j++) freeUnflushedEntities(buffer.getLane(j));
+                    throw new BatchException(exception);
+                }
+            }
+        }
+    }
+
+
+    //Добавляет в chunks все непустые группы сущностей архетипов подходящих filter, а в archetypes - архетип каждой группы.
+    private void collectChunks(EntitiesFilter filter, Array<Archetype> archetypes, Array<Chunk> chunks) {
+        Array<Archetype> candidates = ARCHETYPES.getCandidates(filter);
+        int numberArchetypes = candidates != null ? candidates.getLength() : ARCHETYPES.getLength();
+        for(int i = 0; i < numberArchetypes; ++i) {
+            Archetype archetype = candidates != null ? candidates.get(i) : ARCHETYPES.get(i);
+            if(archetype.getLength() > 0 && isValidArchetype(archetype, filter)) {
+                for(int j = 0; j < archetype.getNumberChunks(); ++j) {
+                    Chunk chunk = archetype.getChunk(j);
+                    if(chunk.getLength() > 0) {
+                        archetypes.add(archetype);
+                        chunks.add(chunk);
+                    }
+                }
+            }
+        }
+    }
+
+    //Возвращает снимок списка непустых архетипов удовлетворяющих filter.
+    private Array<Archetype> collectArchetypes(EntitiesFilter filter) {
+        Array<Archetype> result = new Array<>(Archetype.class, 0);
+        Array<Archetype> candidates = ARCHETYPES.getCandidates(filter);
+        int numberArchetypes = candidates != null ? candidates.getLength() : ARCHETYPES.getLength();
+        for(int i = 0; i < numberArchetypes; ++i) {
+            Archetype archetype = candidates != null ? candidates.get(i) : ARCHETYPES.get(i);
+            if(archetype.getLength() > 0 && isValidArchetype(archetype, filter)) result.add(archetype);
+        }
+        return result;
+    }
+
+    private Component createComponent(Function<Entity, ? extends Component> factory, Entity owner, int componentTypeID) {
+        Component component = factory.apply(owner);
+        if(component == null || !owner.equals(component.getOwner()) ||
+                component.getTypeID() != componentTypeID || component.isBind()) {
+            throw new IllegalArgumentException(
+                    "Недопустимый компонент " + component + " для сущности " + owner + " и типа " + componentTypeID);
+        }
+        return component;
+    }
+
+    private void checkBulkComponentType(int componentTypeID) {
+        if(componentTypeID < 0) {
+            throw new IllegalArgumentException(
+                    "ID типа компонента не должно быть меньше нуля. Получено " + componentTypeID);
+        } else if(COMPONENT_TYPES.isSparse(componentTypeID)) {
+            throw new IllegalArgumentException("Тип компонентов " + componentTypeID + " является разреженным и не " +
+                    "входит в архетип. Используйте bind() и unbind().");
+        }
+    }
+
+    private void onModification() {
+        if(isParallelRun) {
+            throw new IllegalStateException(
+                    "Нельзя изменять состояние EntityComponentManager во время параллельного перебора сущностей. " +
+                    "Используйте EntityCommandBuffer.");
+        }
+        actualModCount++;
+    }
+
+    /*
+     * Аналоги bind(Component...) и unbind(Component...) для count компонентов массива начиная с from. Используются
+     * также при слиянии EntityCommandBuffer, компоненты которого хранятся в одном общем массиве.
+     */
+    private void bind(Component[] components, int from, int count) {
+        onModification();
+
+        checkMultipleBind(components, from, count);
+
+        final int TO = from + count;
+        Entity owner = components[from].getOwner();
+        int entityPersonalID = owner.getPersonalID();
+
+        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entityPersonalID);
+        Archetype newArchetype = archetype;
+        for(int i = from; i < TO; ++i) {
+            int componentTypeID = components[i].getTypeID();
+            if(COMPONENT_TYPES.isArchetypal(componentTypeID) && !newArchetype.containsComponentType(componentTypeID)) {
+                newArchetype = ARCHETYPES.getWith(newArchetype, componentTypeID);
+            }
+        }
+        if(newArchetype != archetype) moveEntity(owner, archetype, newArchetype);
+
+        int entityIndex = INDEXES_BY_ENTITIES_ID.get(entityPersonalID);
+        for(int i = from; i < TO; ++i) {
+            if(COMPONENT_TYPES.isSparse(components[i].getTypeID())) bindSparse(components[i]);
+            else newArchetype.addComponent(entityIndex, components[i]);
+        }
+
+        for(int i = from; i < TO; ++i) components[i].bind();
+    }
+
+    private void unbind(Component[] components, int from, int count) {
+        onModification();
+
+        checkMultipleUnbind(components, from, count);
+
+        final int TO = from + count;
+        Entity owner = components[from].getOwner();
+        int entityPersonalID = owner.getPersonalID();
+        int entityIndex = INDEXES_BY_ENTITIES_ID.get(entityPersonalID);
+
+        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entityPersonalID);
+        for(int i = from; i < TO; ++i) {
+            if(COMPONENT_TYPES.isSparse(components[i].getTypeID())) unbindSparse(components[i]);
+            else archetype.removeComponent(entityIndex, components[i]);
+        }
+
+        Archetype newArchetype = archetype;
+        for(int i = from; i < TO; ++i) {
+            int componentTypeID = components[i].getTypeID();
+            if(COMPONENT_TYPES.isArchetypal(componentTypeID) &&
+                    newArchetype.containsComponentType(componentTypeID) &&
+                    archetype.getComponent(entityIndex, componentTypeID) == null) {
+                newArchetype = ARCHETYPES.getWithout(newArchetype, componentTypeID);
+            }
+        }
+        if(newArchetype != archetype) moveEntity(owner, archetype, newArchetype);
+
+        for(int i = from; i < TO; ++i) components[i].unbind();
+    }
+
+    private void bindSparse(Component component) {
+        Entity owner = component.getOwner();
+        if(!OBSERVERS.isEmpty() && !SPARSE.contains(owner.getPersonalID(), component.getTypeID())) {
+            OBSERVERS.added(owner, component.getTypeID());
+        }
+        SPARSE.bind(component);
+    }
+
+    private void unbindSparse(Component component) {
+        Entity owner = component.getOwner();
+        SPARSE.unbind(component);
+        if(!OBSERVERS.isEmpty() && !SPARSE.contains(owner.getPersonalID(), component.getTypeID())) {
+            OBSERVERS.removed(owner, component.getTypeID());
+        }
+    }
+
+    //Выполняет очередную операцию буфера. Все аргументы операции считываются из буфера до её выполнения.
+    private void executeCommand(EntityCommandBuffer buffer) {
+        switch (buffer.nextInt()) {
+            case EntityCommandBuffer.CREATE_ENTITY:
+                Entity entity = buffer.nextCreatedEntity();
+                int entityID = entity.getPersonalID();
+
+                ENTITIES_BY_ID.setAndExpand(entityID, entity);
+                LIVE_ENTITIES.expandTo(entityID + 1);
+                LIVE_ENTITIES.set(entityID);
+                ARCHETYPES.getEmpty().addEntity(INDEXES_BY_ENTITIES_ID, entity);
+                ARCHETYPES_BY_ENTITIES.setAndExpand(entityID, ARCHETYPES.getEmpty());
+
+                buffer.getUsedEntitiesID().clear(entityID);
+                break;
+            case EntityCommandBuffer.REMOVE_ENTITY: removeEntity(nextEntity(buffer));
+                break;
+            case EntityCommandBuffer.BIND_COMPONENT: bind(buffer.nextComponent());
+                break;
+            case EntityCommandBuffer.UNBIND_COMPONENT: unbind(buffer.nextComponent());
+                break;
+            case EntityCommandBuffer.BIND_COMPONENTS: {
+                int count = buffer.nextInt();
+                bind(buffer.getComponents(), buffer.nextComponents(count), count);
+            }
+                break;
+            case EntityCommandBuffer.UNBIND_COMPONENTS: {
+                int count = buffer.nextInt();
+                unbind(buffer.getComponents(), buffer.nextComponents(count), count);
+            }
+                break;
+            case EntityCommandBuffer.BIND_STRUCT: bindStruct(nextEntity(buffer), buffer.nextInt());
+                break;
+            case EntityCommandBuffer.UNBIND_STRUCT: unbindStruct(nextEntity(buffer), buffer.nextInt());
+                break;
+            case EntityCommandBuffer.BIND_TAG: bindTag(nextEntity(buffer), buffer.nextInt());
+                break;
+            case EntityCommandBuffer.UNBIND_TAG: unbindTag(nextEntity(buffer), buffer.nextInt());
+                break;
+        }
+    }
+
+    /*
+     * Проверяет очередную операцию буфера относительно накопленного состояния сущностей PENDING (см.
+     * flushBufferCoalesced()) и добавляет её результат к этому состоянию, не изменяя сам менеджер.
+     */
+    private void coalesceCommand(EntityCommandBuffer buffer) {
+        switch (buffer.nextInt()) {
+            case EntityCommandBuffer.CREATE_ENTITY:
+                PENDING.add(buffer.nextCreatedEntity(), ARCHETYPES.getEmpty(), true);
+                break;
+            case EntityCommandBuffer.REMOVE_ENTITY: {
+                Entity entity = nextEntity(buffer);
+                if(!isPendingAlive(entity)) {
+                    throw new IllegalArgumentException("Сущность " + entity + " уже была удалена.");
+                }
+                PENDING.REMOVED.set(getPendingSlot(entity));
+            }
+                break;
+            case EntityCommandBuffer.BIND_COMPONENT: {
+                Component[] components = buffer.getComponents();
+                coalesceBind(components, buffer.nextComponents(1), 1);
+            }
+                break;
+            case EntityCommandBuffer.UNBIND_COMPONENT: {
+                Component[] components = buffer.getComponents();
+                coalesceUnbind(components, buffer.nextComponents(1), 1);
+            }
+                break;
+            case EntityCommandBuffer.BIND_COMPONENTS: {
+                int count = buffer.nextInt();
+                coalesceBind(buffer.getComponents(), buffer.nextComponents(count), count);
+            }
+                break;
+            case EntityCommandBuffer.UNBIND_COMPONENTS: {
+                int count = buffer.nextInt();
+                coalesceUnbind(buffer.getComponents(), buffer.nextComponents(count), count);
+            }
+                break;
+            case EntityCommandBuffer.BIND_STRUCT: {
+                Entity owner = nextEntity(buffer);
+                int componentTypeID = buffer.nextInt();
+                if(!COMPONENT_TYPES.isStruct(componentTypeID)) {
+                    throw new IllegalArgumentException(
+                            "Тип компонентов " + componentTypeID + " не зарегистрирован как структурный.");
+                } else if(!isPendingAlive(owner)) {
+                    throw new IllegalArgumentException(
+                            "Компонент структурного типа " + componentTypeID +
+                            " не может быть связан с удаленой сущностью " + owner);
+                }
+                int slot = getPendingSlot(owner);
+                Archetype target = PENDING.TARGETS.get(slot);
+                if(target.containsComponentType(componentTypeID)) {
+                    throw new IllegalArgumentException(
+                            "Сущность " + owner + " уже имеет компонент структурного типа " + componentTypeID);
+                }
+                PENDING.TARGETS.set(slot, ARCHETYPES.getWith(target, componentTypeID));
+            }
+                break;
+            case EntityCommandBuffer.UNBIND_STRUCT: {
+                Entity owner = nextEntity(buffer);
+                int componentTypeID = buffer.nextInt();
+                if(!isPendingAlive(owner)) {
+                    throw new IllegalArgumentException("Сущность " + owner + " удалена.");
+                }
+                int slot = getPendingSlot(owner);
+                Archetype target = PENDING.TARGETS.get(slot);
+                if(!COMPONENT_TYPES.isStruct(componentTypeID) || !target.containsComponentType(componentTypeID)) {
+                    throw new IllegalArgumentException(
+                            "Сущность " + owner + " не имеет компонента структурного типа " + componentTypeID);
+                }
+                PENDING.TARGETS.set(slot, ARCHETYPES.getWithout(target, componentTypeID));
+                if(PENDING.SOURCES.get(slot).containsComponentType(componentTypeID)) {
+                    PENDING.resetStruct(slot, componentTypeID);
+                }
+            }
+                break;
+            case EntityCommandBuffer.BIND_TAG: {
+                Entity owner = nextEntity(buffer);
+                int componentTypeID = buffer.nextInt();
+                if(!COMPONENT_TYPES.isTag(componentTypeID)) {
+                    throw new IllegalArgumentException(
+                            "Тип компонентов " + componentTypeID + " не зарегистрирован как тег.");
+                } else if(!isPendingAlive(owner)) {
+                    throw new IllegalArgumentException(
+                            "Тег " + componentTypeID + " не может быть связан с удаленой сущностью " + owner);
+                }
+                int slot = getPendingSlot(owner);
+                Archetype target = PENDING.TARGETS.get(slot);
+                if(target.containsComponentType(componentTypeID)) {
+                    throw new IllegalArgumentException("Сущность " + owner + " уже имеет тег " + componentTypeID);
+                }
+                PENDING.TARGETS.set(slot, ARCHETYPES.getWith(target, componentTypeID));
+            }
+                break;
+            case EntityCommandBuffer.UNBIND_TAG: {
+                Entity owner = nextEntity(buffer);
+                int componentTypeID = buffer.nextInt();
+                if(!isPendingAlive(owner)) {
+                    throw new IllegalArgumentException("Сущность " + owner + " удалена.");
+                }
+                int slot = getPendingSlot(owner);
+                Archetype target = PENDING.TARGETS.get(slot);
+                if(!COMPONENT_TYPES.isTag(componentTypeID) || !target.containsComponentType(componentTypeID)) {
+                    throw new IllegalArgumentException("Сущность " + owner + " не имеет тега " + componentTypeID);
+                }
+                PENDING.TARGETS.set(slot, ARCHETYPES.getWithout(target, componentTypeID));
+            }
+                break;
+        }
+    }
+
+    private void coalesceBind(Component[] components, int from, int count) {
+        checkSameOwner(components, from, count);
+
+        Entity owner = components[from].getOwner();
+        if(!isPendingAlive(owner)) {
+            throw new IllegalArgumentException("Нельзя связать компоненты с удаленой сущностью " + owner);
+        }
+
+        int slot = getPendingSlot(owner);
+        for(int i = from; i < from + count; ++i) {
+            checkObjectType(components[i]);
+            if(PENDING.isBind(slot, components[i])) {
+                throw new IllegalArgumentException("Компонент " + components[i] + " уже связан с сущностью " + owner);
+            }
+        }
+
+        for(int i = from; i < from + count; ++i) {
+            Component component = components[i];
+            PENDING.bind(slot, component);
+            Archetype target = PENDING.TARGETS.get(slot);
+            if(COMPONENT_TYPES.isArchetypal(component.getTypeID()) &&
+                    !target.containsComponentType(component.getTypeID())) {
+                PENDING.TARGETS.set(slot, ARCHETYPES.getWith(target, component.getTypeID()));
+            }
+        }
+    }
+
+    private void coalesceUnbind(Component[] components, int from, int count) {
+        checkSameOwner(components, from, count);
+
+        Entity owner = components[from].getOwner();
+        if(!isPendingAlive(owner)) {
+            throw new IllegalArgumentException(
+                    "Сущность " + owner + ", являющееся владельцем указанных компонентво удалена.");
+        }
+
+        int slot = getPendingSlot(owner);
+        for(int i = from; i < from + count; ++i) {
+            if(!PENDING.isBind(slot, components[i])) {
+                throw new IllegalArgumentException("Компонент " + components[i] + " уже отвязан от сущности " + owner);
+            }
+        }
+
+        for(int i = from; i < from + count; ++i) {
+            Component component = components[i];
+            PENDING.unbind(slot, component);
+            int componentTypeID = component.getTypeID();
+            Archetype target = PENDING.TARGETS.get(slot);
+            int sourceCount = PENDING.CREATED.get(slot) ? 0 : getCountComponent(owner, componentTypeID);
+            if(COMPONENT_TYPES.isArchetypal(componentTypeID) &&
+                    target.containsComponentType(componentTypeID) &&
+                    sourceCount + PENDING.getCountChange(slot, componentTypeID) == 0) {
+                PENDING.TARGETS.set(slot, ARCHETYPES.getWithout(target, componentTypeID));
+            }
+        }
+    }
+
+    /*
+     * Вызывает destruct() у компонентов, связанных через буфер с сущностью из ячейки slot, и затем отвязывает их -
+     * так же, как removeEntity() поступает с компонентами удаляемой сущности.
+     */
+    private void destructBound(int slot) {
+        for(int r = PENDING.FIRST_RECORDS.get(slot); r != -1; r = PENDING.NEXT_RECORDS.get(r)) {
+            if(PENDING.RECORD_STATES.get(r) == PendingEntities.BOUND) PENDING.RECORD_COMPONENTS.get(r).destruct();
+        }
+        for(int r = PENDING.FIRST_RECORDS.get(slot); r != -1; r = PENDING.NEXT_RECORDS.get(r)) {
+            if(PENDING.RECORD_STATES.get(r) == PendingEntities.BOUND) PENDING.RECORD_COMPONENTS.get(r).unbind();
+        }
+    }
+
+    //Проверяет - является ли сущность живой с учетом ещё не выполненных операций буфера.
+    private boolean isPendingAlive(Entity entity) {
+        int slot = PENDING.slotOf(entity.getPersonalID());
+        return slot != -1 ? !PENDING.REMOVED.get(slot) && PENDING.ENTITIES.get(slot).equals(entity) : isAlive(entity);
+    }
+
+    //Возвращает ячейку накопленного состояния живой сущности, создавая её при первом обращении.
+    private int getPendingSlot(Entity entity) {
+        int entityID = entity.getPersonalID();
+        int slot = PENDING.slotOf(entityID);
+        if(slot == -1) slot = PENDING.add(ENTITIES_BY_ID.get(entityID), ARCHETYPES_BY_ENTITIES.get(entityID), false);
+        return slot;
+    }
+
+    /*
+     * Применяет накопленное состояние сущностей к менеджеру - не более одного переноса каждой сущности - и
+     * очищает PENDING. Сущности, существовавшие до слияния и удаленные через буфер, сначала получают свой итоговый
+     * состав компонентов, а затем удаляются через removeEntity(), как и при последовательном выполнении операций.
+     */
+    private void applyPending(EntityCommandBuffer buffer) {
+        for(int slot = 0; slot < PENDING.getSize(); slot++) {
+            Entity entity = PENDING.ENTITIES.get(slot);
+            int entityID = entity.getPersonalID();
+            Archetype target = PENDING.TARGETS.get(slot);
+            boolean isRemoved = PENDING.REMOVED.get(slot);
+
+            if(PENDING.CREATED.get(slot)) {
+                buffer.getUsedEntitiesID().clear(entityID);
+                if(isRemoved) {
+                    ID_BLOCK.free(entityID);
+                    destructBound(slot);
+                    continue;
+                }
+
+                ENTITIES_BY_ID.setAndExpand(entityID, entity);
+                LIVE_ENTITIES.expandTo(entityID + 1).set(entityID);
+                target.addEntity(INDEXES_BY_ENTITIES_ID, entity);
+                ARCHETYPES_BY_ENTITIES.setAndExpand(entityID, target);
+                if(!OBSERVERS.isEmpty()) OBSERVERS.addedAll(entity, target);
+            } else {
+                Archetype current = PENDING.SOURCES.get(slot);
+                int entityIndex = INDEXES_BY_ENTITIES_ID.get(entityID);
+                for(int r = PENDING.FIRST_RECORDS.get(slot); r != -1; r = PENDING.NEXT_RECORDS.get(r)) {
+                    if(PENDING.RECORD_STATES.get(r) == PendingEntities.UNBOUND) {
+                        Component component = PENDING.RECORD_COMPONENTS.get(r);
+                        if(COMPONENT_TYPES.isSparse(component.getTypeID())) unbindSparse(component);
+                        else current.removeComponent(entityIndex, component);
+                        component.unbind();
+                    }
+                }
+
+                for(int r = PENDING.FIRST_RECORDS.get(slot); r != -1 && !isRemoved; r = PENDING.NEXT_RECORDS.get(r)) {
+                    int componentTypeID = PENDING.RECORD_TYPES.get(r);
+                    if(PENDING.RECORD_STATES.get(r) == PendingEntities.RESET_STRUCT &&
+                            current.containsComponentType(componentTypeID) &&
+                            target.containsComponentType(componentTypeID)) {
+                        Archetype without = ARCHETYPES.getWithout(current, componentTypeID);
+                        moveEntity(entity, current, without);
+                        current = without;
+                    }
+                }
+                if(current != target) moveEntity(entity, current, target);
+            }
+
+            int entityIndex = INDEXES_BY_ENTITIES_ID.get(entityID);
+            for(int r = PENDING.FIRST_RECORDS.get(slot); r != -1; r = PENDING.NEXT_RECORDS.get(r)) {
+                if(PENDING.RECORD_STATES.get(r) == PendingEntities.BOUND) {
+                    Component component = PENDING.RECORD_COMPONENTS.get(r);
+                    if(COMPONENT_TYPES.isSparse(component.getTypeID())) bindSparse(component);
+                    else target.addComponent(entityIndex, component);
+                    component.bind();
+                }
+            }
+
+            if(isRemoved) removeEntity(entity);
+        }
+        PENDING.clear();
+    }
+
+    //Освобождает ID сущностей, созданных через буфер, но так и не добавленных в менеджер.
+    private void freeUnflushedEntities(EntityCommandBuffer buffer) {
+        Bits mask = buffer.getUsedEntitiesID();
+        for(int id = mask.nextSetBit(0); id != -1; id = mask.nextSetBit(id + 1)) ID_BLOCK.free(id);
+    }
+
+    /*
+     * Считывает из потока команд буфера сущность, записанную как тип, персональный ID и поколение. Если такая
+     * сущность жива, возвращает объект хранящийся в менеджере, иначе - новый объект (для сообщения об ошибке).
+     */
+    private Entity nextEntity(EntityCommandBuffer buffer) {
+        int typeID = buffer.nextInt();
+        int personalID = buffer.nextInt();
+        int generation = buffer.nextInt();
+
+        Entity entity = personalID < ENTITIES_BY_ID.getLength() ? ENTITIES_BY_ID.get(personalID) : null;
+        if(entity == null || entity.getGeneration() != generation || entity.getTypeID() != typeID) {
+            entity = new Entity(typeID, personalID, generation);
+        }
+        return entity;
+    }
+
+    //Отменяет все операции буфера и освобождает ID созданных через него сущностей.
+    private void discardBuffer(EntityCommandBuffer buffer) {
+        buffer.invalid();
+        freeUnflushedEntities(buffer);
+    }
+
+    private void moveEntity(Entity entity, Archetype from, Archetype to) {
+        if(!OBSERVERS.isEmpty()) OBSERVERS.moved(entity, from, to);
+        ARCHETYPES_BY_ENTITIES.set(entity.getPersonalID(), to);
+        from.moveEntityTo(INDEXES_BY_ENTITIES_ID, entity, to);
+    }
+
+    /*
+     * Данный метод вызывается из EntityCommandBuffer и NewEntitiesBuffer, и таким оразом может быть вызван
+     * из разных потоков. Каждый буфер выделяет ID сущностей из собственного блока без синхронизации.
+     */
+    EntityIDAllocator.Block createIDBlock() {
+        return ID_ALLOCATOR.createBlock();
+    }
+
+    ComponentTypes getComponentTypes() {
+        return COMPONENT_TYPES;
+    }
+
+    ChunkPool getChunkPool() {
+        return CHUNK_POOL;
+    }
 
-        checkMultipleUnbind(components);
+    TickCounter getTickCounter() {
+        return TICK_COUNTER;
+    }
 
-        Entity owner = components[0].getOwner();
-        int entityPersonalID = owner.getPersonalID();
-        int entityIndex = INDEXES_BY_ENTITIES_ID.get(entityPersonalID);
+    /*
+     * Если результат фильтра зависит от разреженных типов компонентов (см. ComponentTypes#isSparseFilter()), набор
+     * типов компонентов проверяется отдельно для каждой сущности (см. isValidEntity()), а архетип проверяется только
+     * по типам его сущностей. Остальные фильтры проверяются по набору типов архетипа как обычно.
+     */
+    boolean isValidArchetype(Archetype archetype, EntitiesFilter filter) {
+        return COMPONENT_TYPES.isSparseFilter(filter) ? archetype.isValidEntityType(filter) : archetype.isValid(filter);
+    }
 
-        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entityPersonalID);
-        final Bits MASK = archetype.getCopyComponentTypes();
-        boolean hasMoreThanOneComponents = true;
-        for(Component comp : components) {
-            MASK.expandTo(comp.getTypeID()).set(comp.getTypeID());
-            hasMoreThanOneComponents &= archetype.hasMoreThanOneComponent(entityIndex, comp.getTypeID());
-        }
+    boolean isValidEntity(Archetype archetype, EntitiesFilter filter, Entity entity) {
+        return filter.isValidEntityType(entity.getTypeID()) &&
+                (!COMPONENT_TYPES.isSparseFilter(filter) || archetype.isValidComponentTypes(filter, SPARSE, entity));
+    }
 
-        if(hasMoreThanOneComponents) {
-            for(Component comp : components) archetype.removeComponent(entityIndex, comp);
-        } else {
-            int indexArchetype = ARCHETYPES.binarySearch((Archetype b) -> b.compareComponentTypes(MASK));
-            Archetype newArchetype = null;
-            if (indexArchetype != -1) {
-                newArchetype = ARCHETYPES.get(indexArchetype);
-            } else {
-                newArchetype = new Archetype(MASK);
-                ARCHETYPES.binaryInsert(newArchetype, Archetype::compareTo);
-            }
+    //Аналог предыдущего метода для архетипов закешированных запросом.
+    boolean isValidEntity(Query query, Archetype archetype, Entity entity) {
+        return query.isValidEntityType(entity.getTypeID()) && (!COMPONENT_TYPES.isSparseFilter(query.getFilter()) ||
+                archetype.isValidComponentTypes(query.getFilter(), SPARSE, entity));
+    }
 
-            ARCHETYPES_BY_ENTITIES.set(entityPersonalID, newArchetype);
-            archetype.moveEntityTo(INDEXES_BY_ENTITIES_ID, owner, newArchetype);
-        }
+    //Методы используемые QueryCursor.
+    int getModCount() {
+        return actualModCount;
+    }
 
-        for(Component comp : components) comp.unbind();
+    Array<Archetype> getCandidates(EntitiesFilter filter) {
+        return ARCHETYPES.getCandidates(filter);
     }
 
+    int getNumberArchetypes() {
+        return ARCHETYPES.getLength();
+    }
 
-    /**
-     * Создает и возвращает новый буфер для асинхронного создания и асинхронного редактирования созданных через него
-     * сущностей.
-     * @return буфер создания и редактирвоания сущностей.
-     */
-    public NewEntitiesBuffer createNewEntitiesBuffer() {
-        return new NewEntitiesBuffer(this);
+    Archetype getArchetype(int index) {
+        return ARCHETYPES.get(index);
     }
 
-    /**
-     * Создает и возвращает буфер для отложенного выполнения операций по созданию сущностей, их удалению и
-     * изменению их состава компонентов.
-     * @return буфер для отложенного выполнения операций по работе с сущностями и компонентами.
-     */
-    public EntityCommandBuffer createEntityCommandBuffer() {
-        return new EntityCommandBuffer(this);
+    private Entity getLiveEntity(long handle) {
+        Entity entity = getEntity(handle);
+        if(entity == null) throw new IllegalArgumentException("Сущность с дескриптором " + handle + " удалена.");
+        return entity;
     }
 
-    /**
-     * Добавляет все сущности, компоненты и связи между ними из переданного буфера в данный менеджер компонентов и
-     * сущностей.
-     * @param buffer буфер для которого выполняется слияние с данным менеджером компонентов и сущностей.
-     */
-    public void flushBuffer(NewEntitiesBuffer buffer) {
-        actualModCount++;
+    //Аналог getStructColumn() отмечающий компоненты указанного типа в группе сущности как измененные.
+    private StructColumn getMutableStructColumn(Entity owner, int componentTypeID) {
+        Archetype archetype = getArchetypeWithStruct(owner, componentTypeID);
+        int entityIndex = INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID());
+        archetype.markChanged(entityIndex, componentTypeID);
+        return archetype.getStructColumn(entityIndex, componentTypeID);
+    }
 
-        buffer.invalid();
+    private StructColumn getStructColumn(Entity owner, int componentTypeID) {
+        return getArchetypeWithStruct(owner, componentTypeID).
+                getStructColumn(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID()), componentTypeID);
+    }
 
-        LIVE_ENTITIES.or(buffer.USED_ENTITIES_ID);
+    private Archetype getArchetypeWithStruct(Entity owner, int componentTypeID) {
+        if(!isAlive(owner)) {
+            throw new IllegalArgumentException("Сущность " + owner + " удалена.");
+        }
 
-        for(int i = 0; i < buffer.ENTITIES_BY_ID.getLength(); i++) {
-            Entity entity = buffer.ENTITIES_BY_ID.get(i);
-            if(entity != null) ENTITIES_BY_ID.setAndExpand(i, entity);
+        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(owner.getPersonalID());
+        if(!archetype.containsStructColumn(componentTypeID)) {
+            throw new IllegalArgumentException(
+                    "Сущность " + owner + " не имеет компонента структурного типа " + componentTypeID);
         }
+        return archetype;
+    }
 
-        for(int i = 0, j = 0; i < buffer.ARCHETYPES.getLength(); i++) {
-            Archetype from = buffer.ARCHETYPES.get(i);
-            Archetype to = ARCHETYPES.get(j);
-            Bits fromComponentTypes = from.getCopyComponentTypes();
+    private void checkBindStruct(Entity owner, int componentTypeID) {
+        if(!COMPONENT_TYPES.isStruct(componentTypeID)) {
+            throw new IllegalArgumentException(
+                    "Тип компонентов " + componentTypeID + " не зарегистрирован как структурный.");
+        } else if(!isAlive(owner)) {
+            throw new IllegalArgumentException(
+                    "Компонент структурного типа " + componentTypeID + " не может быть связан с удаленой сущностью " +
+                    owner);
+        } else if(ARCHETYPES_BY_ENTITIES.get(owner.getPersonalID()).containsComponentType(componentTypeID)) {
+            throw new IllegalArgumentException(
+                    "Сущность " + owner + " уже имеет компонент структурного типа " + componentTypeID);
+        }
+    }
 
-            int compareTypes = fromComponentTypes.compareIgnoreSize(to.getCopyComponentTypes());
-            while(compareTypes > 0 && ++j < ARCHETYPES.getLength()) {
-                to = ARCHETYPES.get(j);
-                compareTypes = fromComponentTypes.compareIgnoreSize(to.getCopyComponentTypes());
-            }
+    private void checkBindTag(Entity owner, int componentTypeID) {
+        if(!COMPONENT_TYPES.isTag(componentTypeID)) {
+            throw new IllegalArgumentException("Тип компонентов " + componentTypeID + " не зарегистрирован как тег.");
+        } else if(!isAlive(owner)) {
+            throw new IllegalArgumentException(
+                    "Тег " + componentTypeID + " не может быть связан с удаленой сущностью " + owner);
+        } else if(ARCHETYPES_BY_ENTITIES.get(owner.getPersonalID()).containsComponentType(componentTypeID)) {
+            throw new IllegalArgumentException("Сущность " + owner + " уже имеет тег " + componentTypeID);
+        }
+    }
 
-            if(compareTypes == 0) {
-                to.merge(from, INDEXES_BY_ENTITIES_ID, ARCHETYPES_BY_ENTITIES);
-            } else {
-                Archetype newArchetype = new Archetype(fromComponentTypes);
-                newArchetype.merge(from, INDEXES_BY_ENTITIES_ID, ARCHETYPES_BY_ENTITIES);
-                ARCHETYPES.insert(j, newArchetype);
-            }
+    private void checkUnbindTag(Entity owner, int componentTypeID) {
+        if(!isAlive(owner)) {
+            throw new IllegalArgumentException("Сущность " + owner + " удалена.");
+        } else if(!COMPONENT_TYPES.isTag(componentTypeID) ||
+                !ARCHETYPES_BY_ENTITIES.get(owner.getPersonalID()).containsComponentType(componentTypeID)) {
+            throw new IllegalArgumentException("Сущность " + owner + " не имеет тега " + componentTypeID);
         }
     }
 
-    /**
-     * Последовательно выполняет все операции сохраненые в буфере для отложенного выполнения операций по созданию
-     * сущностей, их удалению и изменению их состава компонентов. Любое исключение, выброшенно из handler, будет
-     * обернуто в непроверяемое исключение {@link BatchException}.
-     * @param buffer буфер для отложенного выполнения операций.
-     * @param handler обработчик для ошибок, которые могут возникнуть в ходе выполнения операций из буфера.
-     * @throws BatchException если пакетная операция была прервана.
+    /*
+     * Общая реализация методов forEach() принимающих типы компонентов. Для каждой подходящей сущности записывает её
+     * компоненты указанных типов в ROW и вызывает ACTION. Столбцы объектных типов ищутся один раз для каждого
+     * архетипа, компоненты разреженных типов читаются из SparseComponents.
      */
-    public void flushBuffer(EntityCommandBuffer buffer, ExceptionHandler<IllegalArgumentException> handler) {
-        actualModCount++;
+    private void forEachComponents(final EntitiesFilter FILTER,
+                                   final int[] TYPE_IDS,
+                                   final Component[] ROW,
+                                   final Consumer<Entity> ACTION) {
+        for(int componentTypeID : TYPE_IDS) checkObjectType(componentTypeID);
 
-        buffer.invalid();
+        final int EXPECTED_MOD_COUNT = actualModCount;
+        final Array<Archetype> CANDIDATES = ARCHETYPES.getCandidates(FILTER);
+        final int NUMBER_ARCHETYPES = CANDIDATES != null ? CANDIDATES.getLength() : ARCHETYPES.getLength();
+        final int[] COLUMNS = new int[TYPE_IDS.length];
+        final Component[][] DATA = new Component[TYPE_IDS.length][];
+
+        for(int i = 0; i < NUMBER_ARCHETYPES; ++i) {
+            Archetype archetype = CANDIDATES != null ? CANDIDATES.get(i) : ARCHETYPES.get(i);
+            if(!isValidArchetype(archetype, FILTER) || !findColumns(archetype, TYPE_IDS, COLUMNS)) continue;
+
+            for(int j = 0; j < archetype.getNumberChunks(); ++j) {
+                Chunk chunk = archetype.getChunk(j);
+                Entity[] entities = chunk.getEntities();
+                for(int c = 0; c < COLUMNS.length; ++c) {
+                    DATA[c] = COLUMNS[c] != -1 ? chunk.getComponentColumn(COLUMNS[c]) : null;
+                }
 
-        Bits mask = buffer.getUsedEntitiesID();
+                for(int k = 0; k < chunk.getLength(); ++k) {
+                    Entity entity = entities[k];
 
-        while(!buffer.isEmpty()) {
-            try {
-                EntityCommandBuffer.Operation operation = buffer.getAndRemoveHead();
-                switch (operation.OPERATION_TYPE) {
-                    case CREATE_ENTITY:
-                        Entity entity = operation.ENTITY;
-                        int entityID = entity.getPersonalID();
-
-                        ENTITIES_BY_ID.setAndExpand(entityID, entity);
-                        LIVE_ENTITIES.expandTo(entityID);
-                        LIVE_ENTITIES.set(entityID);
-                        ARCHETYPES.get(EMPTY_ENTITIES_INDEX).addEntity(INDEXES_BY_ENTITIES_ID, entity);
-                        ARCHETYPES_BY_ENTITIES.setAndExpand(entityID, ARCHETYPES.get(EMPTY_ENTITIES_INDEX));
-
-                        mask.clear(entityID);
-                        break;
-                    case REMOVE_ENTITY: removeEntity(operation.ENTITY);
-                        break;
-                    case BIND_COMPONENT: bind(operation.COMPONENTS[0]);
-                        break;
-                    case UNBIND_COMPONENT: unbind(operation.COMPONENTS[0]);
-                        break;
-                    case BIND_COMPONENTS: bind(operation.COMPONENTS);
-                        break;
-                    case UNBIND_COMPONENTS: unbind(operation.COMPONENTS);
-                        break;
-                }
-            } catch(IllegalArgumentException e) {
-                try {
-                    handler.handle(e);
-                } catch(Exception exception) {
-                    synchronized(this) {
-                        AVAILABLE_ENTITIES_ID.and(mask.expandTo(AVAILABLE_ENTITIES_ID.getSize()).not());
+                    if(isValidEntity(archetype, FILTER, entity)) {
+                        boolean hasAll = true;
+                        for(int c = 0; c < ROW.length; ++c) {
+                            ROW[c] = DATA[c] != null ? DATA[c][k] : SPARSE.get(entity.getPersonalID(), TYPE_IDS[c]);
+                            hasAll &= ROW[c] != null;
+                        }
+                        if(hasAll) ACTION.accept(entity);
+                    }
+
+                    if(EXPECTED_MOD_COUNT != actualModCount) {
+                        throw new ConcurrentModificationException(
+                                "Нельзя изменять состояние EntityComponentManager во время перебора сущностей."
+                        );
                     }
-                    throw new BatchException(exception);
                 }
             }
         }
     }
 
-
-
     /*
-     * Данный метод также вызывается из EntityCommandBuffer и NewEntitiesBuffer, и таким оразом может быть вызван
-     * из разных потоков.
+     * Записывает в columns индексы столбцов указанных типов компонентов в архетипе (-1 для разреженных типов).
+     * Возвращает false, если архетип не содержит столбца хотя бы одного из неразреженных типов.
      */
-    int getGeneration(int entityPersonalID) {
-        ENTITY_GENERATIONS.expandTo(entityPersonalID);
-        return ENTITY_GENERATIONS.increment(entityPersonalID);
+    private boolean findColumns(Archetype archetype, int[] componentTypesID, int[] columns) {
+        for(int i = 0; i < componentTypesID.length; ++i) {
+            if(COMPONENT_TYPES.isSparse(componentTypesID[i])) {
+                columns[i] = -1;
+            } else {
+                columns[i] = archetype.getObjectColumnIndex(componentTypesID[i]);
+                if(columns[i] == -1) return false;
+            }
+        }
+        return true;
+    }
+
+    private void checkObjectType(int componentTypeID) {
+        if(componentTypeID < 0 || !COMPONENT_TYPES.isObject(componentTypeID)) {
+            throw new IllegalArgumentException(
+                    "Тип компонентов " + componentTypeID + " не является объектным типом компонентов.");
+        }
+    }
+
+    //Создает новую сущность и добавляет её в конец указанного архетипа.
+    private Entity addNewEntity(int entityTypeID, Archetype archetype) {
+        int entityID = ID_BLOCK.nextID();
+        int generation = ID_BLOCK.generationOf(entityID);
+
+        Entity entity = new Entity(entityTypeID, entityID, generation);
+        ENTITIES_BY_ID.setAndExpand(entityID, entity);
+        LIVE_ENTITIES.expandTo(entityID + 1).set(entityID);
+        archetype.addEntity(INDEXES_BY_ENTITIES_ID, entity);
+        ARCHETYPES_BY_ENTITIES.setAndExpand(entityID, archetype);
+        if(!OBSERVERS.isEmpty()) OBSERVERS.addedAll(entity, archetype);
+        return entity;
     }
 
     /*
-    * Данный метод также вызывается из EntityCommandBuffer и NewEntitiesBuffer, и таким оразом может быть вызван
-    * из разных потоков.
+     * Аналог addNewEntity() для count сущностей: выделяет все ID за один вызов, один раз расширяет индексы
+     * менеджера и добавляет сущности в конец архетипа диапазонами (см. Archetype#addEntities()).
      */
-    int getNewEntityID() {
-        int entityID = AVAILABLE_ENTITIES_ID.nextClearBit(0);
+    private Entity[] addNewEntities(int entityTypeID, int count, Archetype archetype) {
+        int[] ids = new int[count];
+        ID_BLOCK.nextIDs(ids, count);
+
+        Entity[] entities = new Entity[count];
+        int maxID = -1;
+        for(int i = 0; i < count; ++i) {
+            entities[i] = new Entity(entityTypeID, ids[i], ID_BLOCK.generationOf(ids[i]));
+            maxID = Math.max(maxID, ids[i]);
+        }
 
-        if(entityID == -1) {
-            entityID = AVAILABLE_ENTITIES_ID.getSize();
-            AVAILABLE_ENTITIES_ID.expandTo(entityID * 2);
+        ENTITIES_BY_ID.expandTo(maxID + 1);
+        ARCHETYPES_BY_ENTITIES.expandTo(maxID + 1);
+        INDEXES_BY_ENTITIES_ID.expandTo(maxID + 1);
+        LIVE_ENTITIES.expandTo(maxID + 1);
+        for(int i = 0; i < count; ++i) {
+            ENTITIES_BY_ID.set(ids[i], entities[i]);
+            ARCHETYPES_BY_ENTITIES.set(ids[i], archetype);
+            LIVE_ENTITIES.set(ids[i]);
         }
-        AVAILABLE_ENTITIES_ID.set(entityID);
+        archetype.addEntities(INDEXES_BY_ENTITIES_ID, entities, count, entityTypeID);
+        if(!OBSERVERS.isEmpty()) {
+            for(Entity entity : entities) OBSERVERS.addedAll(entity, archetype);
+        }
+        return entities;
+    }
 
-        return entityID;
+    private void checkCreateEntities(int entityTypeID, int count) {
+        if(entityTypeID < 0) {
+            throw new IllegalArgumentException("ID типа сущности не должно быть меньше нуля. Получено " + entityTypeID);
+        } else if(count < 0) {
+            throw new IllegalArgumentException("Кол-во сущностей не может быть меньше нуля. Получено " + count);
+        }
     }
 
-    /*
-     * Данный метод также вызывается из EntityCommandBuffer и NewEntitiesBuffer, и таким оразом может быть вызван
-     * из разных потоков.
-     */
-    synchronized void freeEntityID(int entityID) {
-        AVAILABLE_ENTITIES_ID.clear(entityID);
+    void checkQuery(Query query) {
+        if(!query.belongsTo(this)) {
+            throw new IllegalArgumentException("Запрос " + query + " был создан другим менеджером или удален.");
+        }
+    }
+
+    private void checkUnusedComponentType(int componentTypeID) {
+        for(int i = 0; i < ARCHETYPES.getLength(); i++) {
+            if(ARCHETYPES.get(i).containsComponentType(componentTypeID)) {
+                throw new IllegalArgumentException(
+                        "Тип компонентов " + componentTypeID + " уже используется и не может быть зарегистрирован.");
+            }
+        }
+    }
+
+    private void checkObjectType(Component component) {
+        if(COMPONENT_TYPES.isStruct(component.getTypeID())) {
+            throw new IllegalArgumentException(
+                    "Тип компонента " + component + " зарегистрирован как структурный. Используйте bindStruct().");
+        } else if(COMPONENT_TYPES.isTag(component.getTypeID())) {
+            throw new IllegalArgumentException(
+                    "Тип компонента " + component + " зарегистрирован как тег. Используйте bindTag().");
+        }
     }
 
     private void checkBind(Component component) {
+        checkObjectType(component);
+
         Entity owner = component.getOwner();
         if(!isAlive(owner)) {
             throw new IllegalArgumentException(
@@ -652,57 +2714,475 @@ public final class EntityComponentManager {
         }
     }
 
-    private void checkMultipleBind(Component[] components) {
-        if(components.length == 0)
-            throw new IllegalArgumentException("Передаваемый массив компонентов не должен быть пустым.");
+    private void checkMultipleBind(Component[] components, int from, int count) {
+        checkSameOwner(components, from, count);
 
-        Entity owner = components[0].getOwner();
-        for(int i = 1; i < components.length; ++i) {
-            if(!owner.equals(components[i].getOwner())) {
-                throw new IllegalArgumentException(
-                        "Все компоненты должны принадлежать одной и той же сущности. " +
-                        "Компонент " + components[i] + " пренадлежит сущности " + components[i].getOwner() +
-                        ", а компонент " + components[0] + " пренадлежит сущности " + owner
-                );
+        Entity owner = components[from].getOwner();
+        if(!isAlive(owner)) {
+            throw new IllegalArgumentException("Нельзя связать компоненты с удаленой сущностью " + owner);
+        }
+
+        for(int i = from; i < from + count; ++i) {
+            checkObjectType(components[i]);
+            if(components[i].isBind()) {
+                throw new IllegalArgumentException("Компонент " + components[i] + " уже связан с сущностью " + owner);
             }
         }
+    }
 
+    private void checkMultipleUnbind(Component[] components, int from, int count) {
+        checkSameOwner(components, from, count);
+
+        Entity owner = components[from].getOwner();
         if(!isAlive(owner)) {
-            throw new IllegalArgumentException("Нельзя связать компоненты с удаленой сущностью " + owner);
+            throw new IllegalArgumentException(
+                    "Сущность " + owner + ", являющееся владельцем указанных компонентво удалена.");
         }
 
-        for(Component comp : components) {
-            if(comp.isBind()) {
-                throw new IllegalArgumentException("Компонент " + comp + " уже связан с сущностью " + owner);
+        for(int i = from; i < from + count; ++i) {
+            if(!components[i].isBind()) {
+                throw new IllegalArgumentException("Компонент " + components[i] + " уже отвязан от сущности " + owner);
             }
         }
     }
 
-    private void checkMultipleUnbind(Component[] components) {
-        if(components.length == 0)
+    private void checkSameOwner(Component[] components, int from, int count) {
+        if(count == 0)
             throw new IllegalArgumentException("Передаваемый массив компонентов не должен быть пустым.");
 
-        Entity owner = components[0].getOwner();
-        for(int i = 1; i < components.length; ++i) {
+        Entity owner = components[from].getOwner();
+        for(int i = from + 1; i < from + count; ++i) {
             if(!owner.equals(components[i].getOwner())) {
                 throw new IllegalArgumentException(
                         "Все компоненты должны принадлежать одной и той же сущности. " +
                         "Компонент " + components[i] + " пренадлежит сущности " + components[i].getOwner() +
-                        ", а компонент " + components[0] + " пренадлежит сущности " + owner
+                        ", а компонент " + components[from] + " пренадлежит сущности " + owner
                 );
             }
         }
+    }
 
-        if(!isAlive(owner)) {
-            throw new IllegalArgumentException(
-                    "Сущность " + owner + ", являющееся владельцем указанных компонентво удалена.");
+    /*
+     * Spliterator сущностей. Перебирает группы сущностей из диапазона [from, TO) зафиксированного списка групп.
+     * Каждый объект использует собственный объект Bits для проверки разреженных типов компонентов, поэтому разные
+     * части одного перебора могут обрабатываться в разных потоках.
+     */
+    private final class EntitiesSpliterator implements Spliterator<Entity> {
+
+        private final Array<Archetype> ARCHETYPES_OF_CHUNKS; //Архетип каждой группы из CHUNKS.
+        private final Array<Chunk> CHUNKS;
+        private final int TO;
+        private final EntitiesFilter FILTER;
+        private final boolean IS_EXACT; //true - каждая сущность из подходящих групп удовлетворяет FILTER.
+        private final boolean CHECK_SPARSE_TYPES;
+        private final int EXPECTED_MOD_COUNT;
+        private final Bits PARAM;
+        private int from;
+        private int row; //Индекс следующей сущности в группе from.
+
+        private EntitiesSpliterator(Array<Archetype> archetypes,
+                                    Array<Chunk> chunks,
+                                    int from,
+                                    int to,
+                                    EntitiesFilter filter,
+                                    boolean isExact,
+                                    int expectedModCount) {
+            ARCHETYPES_OF_CHUNKS = archetypes;
+            CHUNKS = chunks;
+            this.from = from;
+            TO = to;
+            FILTER = filter;
+            IS_EXACT = isExact;
+            CHECK_SPARSE_TYPES = COMPONENT_TYPES.isSparseFilter(filter);
+            EXPECTED_MOD_COUNT = expectedModCount;
+            PARAM = new Bits();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Entity> action) {
+            while(from < TO) {
+                checkModCount();
+                Chunk chunk = CHUNKS.get(from);
+                while(row < chunk.getLength()) {
+                    Entity entity = chunk.getEntity(row++);
+                    if(isValid(ARCHETYPES_OF_CHUNKS.get(from), entity)) {
+                        action.accept(entity);
+                        return true;
+                    }
+                }
+                ++from;
+                row = 0;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Entity> action) {
+            for(; from < TO; ++from, row = 0) {
+                Archetype archetype = ARCHETYPES_OF_CHUNKS.get(from);
+                Chunk chunk = CHUNKS.get(from);
+                Entity[] entities = chunk.getEntities();
+                for(; row < chunk.getLength(); ++row) {
+                    checkModCount();
+                    if(isValid(archetype, entities[row])) action.accept(entities[row]);
+                }
+            }
+            checkModCount();
+        }
+
+        @Override
+        public Spliterator<Entity> trySplit() {
+            if(TO - from < 2) return null;
+            int middle = (from + TO) >>> 1;
+            EntitiesSpliterator prefix = new EntitiesSpliterator(
+                    ARCHETYPES_OF_CHUNKS, CHUNKS, from, middle, FILTER, IS_EXACT, EXPECTED_MOD_COUNT);
+            prefix.row = row;
+            from = middle;
+            row = 0;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = 0;
+            for(int i = from; i < TO; ++i) size += CHUNKS.get(i).getLength();
+            return from < TO ? size - row : 0;
+        }
+
+        @Override
+        public int characteristics() {
+            return IS_EXACT ? NONNULL | DISTINCT | SIZED | SUBSIZED : NONNULL | DISTINCT;
+        }
+
+        private boolean isValid(Archetype archetype, Entity entity) {
+            return IS_EXACT || (FILTER.isValidEntityType(entity.getTypeID()) &&
+                    (!CHECK_SPARSE_TYPES || archetype.isValidComponentTypes(FILTER, SPARSE, entity, PARAM)));
+        }
+
+        private void checkModCount() {
+            if(EXPECTED_MOD_COUNT != actualModCount) {
+                throw new ConcurrentModificationException(
+                        "Нельзя изменять состояние EntityComponentManager во время перебора сущностей.");
+            }
+        }
+
+    }
+
+    //Spliterator дескрипторов сущностей, делегирующий перебор EntitiesSpliterator.
+    private static final class HandlesSpliterator implements Spliterator.OfLong {
+
+        private final EntitiesSpliterator ENTITIES;
+
+        private HandlesSpliterator(EntitiesSpliterator entities) {
+            ENTITIES = entities;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            return ENTITIES.tryAdvance(entity -> action.accept(entity.getHandle()));
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            ENTITIES.forEachRemaining(entity -> action.accept(entity.getHandle()));
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            EntitiesSpliterator prefix = (EntitiesSpliterator) ENTITIES.trySplit();
+            return prefix != null ? new HandlesSpliterator(prefix) : null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return ENTITIES.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return ENTITIES.characteristics();
+        }
+
+    }
+
+
+    /*
+     * Задача параллельного перебора сущностей. Делит отрезок индексов диапазонов групп сущностей пополам, пока в нем
+     * не останется один диапазон. Группы диапазона обрабатываются по порядку в текущем потоке, а все операции
+     * записываются в буфер этого диапазона.
+     */
+    private final class ChunksTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Array<Archetype> ARCHETYPES_OF_CHUNKS; //Архетип каждой группы из CHUNKS.
+        private final Array<Chunk> CHUNKS;
+        private final int FROM; //Индекс первого диапазона групп.
+        private final int TO; //Индекс последнего диапазона групп не включая его.
+        private final int RANGE_SIZE; //Кол-во групп в каждом диапазоне, кроме, возможно, последнего.
+        private final EntitiesFilter FILTER;
+        private final BiConsumer<Entity, EntityCommandBuffer> ACTION;
+        private final EntityCommandBuffer[] BUFFERS; //Индекс - индекс диапазона групп.
+
+        private ChunksTask(Array<Archetype> archetypes,
+                           Array<Chunk> chunks,
+                           int from,
+                           int to,
+                           int rangeSize,
+                           EntitiesFilter filter,
+                           BiConsumer<Entity, EntityCommandBuffer> action,
+                           EntityCommandBuffer[] buffers) {
+            ARCHETYPES_OF_CHUNKS = archetypes;
+            CHUNKS = chunks;
+            FROM = from;
+            TO = to;
+            RANGE_SIZE = rangeSize;
+            FILTER = filter;
+            ACTION = action;
+            BUFFERS = buffers;
+        }
+
+        @Override
+        protected void compute() {
+            if(TO - FROM > 1) {
+                int middle = (FROM + TO) >>> 1;
+                invokeAll(
+                        new ChunksTask(ARCHETYPES_OF_CHUNKS, CHUNKS, FROM, middle, RANGE_SIZE, FILTER, ACTION, BUFFERS),
+                        new ChunksTask(ARCHETYPES_OF_CHUNKS, CHUNKS, middle, TO, RANGE_SIZE, FILTER, ACTION, BUFFERS)
+                );
+            } else if(TO - FROM == 1) {
+                EntityCommandBuffer buffer = borrowEntityCommandBuffer();
+                BUFFERS[FROM] = buffer;
+                boolean checkSparseTypes = COMPONENT_TYPES.isSparseFilter(FILTER);
+                Bits param = checkSparseTypes ? new Bits() : null;
+
+                int lastChunk = Math.min(CHUNKS.getLength(), (FROM + 1) * RANGE_SIZE);
+                for(int c = FROM * RANGE_SIZE; c < lastChunk; ++c) {
+                    Archetype archetype = ARCHETYPES_OF_CHUNKS.get(c);
+                    Chunk chunk = CHUNKS.get(c);
+                    Entity[] entities = chunk.getEntities();
+
+                    for(int i = 0; i < chunk.getLength(); ++i) {
+                        Entity entity = entities[i];
+                        if(FILTER.isValidEntityType(entity.getTypeID()) && (!checkSparseTypes ||
+                                archetype.isValidComponentTypes(FILTER, SPARSE, entity, param))) {
+                            ACTION.accept(entity, buffer);
+                        }
+                    }
+                }
+            }
+        }
+
+    }
+
+
+    /*
+     * Задача параллельного копирования строк при слиянии буферов (см. flushBuffers()). Делит список диапазонов
+     * копирования пополам, пока в нем не останется один диапазон.
+     */
+    private static final class MergeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Array<Archetype.MergeRange> RANGES;
+        private final int FROM;
+        private final int TO;
+
+        private MergeTask(Array<Archetype.MergeRange> ranges, int from, int to) {
+            RANGES = ranges;
+            FROM = from;
+            TO = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(TO - FROM > 1) {
+                int middle = (FROM + TO) >>> 1;
+                invokeAll(new MergeTask(RANGES, FROM, middle), new MergeTask(RANGES, middle, TO));
+            } else if(TO - FROM == 1) {
+                RANGES.get(FROM).copy();
+            }
+        }
+
+    }
+
+
+    /*
+     * Итоговые изменения сущностей, накопленные при слиянии буфера с объединением операций (см.
+     * flushBufferCoalesced()). Состояние каждой сущности хранится в ячейке параллельных массивов, номер которой
+     * определяется по персональному ID сущности, а изменения её компонентов - в виде списка записей. Объект
+     * принадлежит менеджеру и переиспользуется при каждом слиянии. Сам менеджер и компоненты не изменяются до
+     * вызова applyPending().
+     */
+    private static final class PendingEntities {
+
+        private static final int UNCHANGED = 0; //Компонент был связан и отвязан через буфер (или наоборот).
+        private static final int BOUND = 1; //Компонент связан через буфер.
+        private static final int UNBOUND = 2; //Компонент был связан до слияния и отвязан через буфер.
+        private static final int RESET_STRUCT = 3; //Структурный тип был у сущности до слияния и отвязан через буфер.
+
+        private final IntArray SLOTS_BY_ENTITIES_ID; //Номер ячейки сущности + 1 или 0, если ячейки нет.
+        private final Array<Entity> ENTITIES; //Индекс - номер ячейки.
+        private final Array<Archetype> SOURCES; //Архетип сущности до слияния. Индекс - номер ячейки.
+        private final Array<Archetype> TARGETS; //Архетип, в который будет перенесена сущность. Индекс - номер ячейки.
+        private final Bits CREATED; //Ячейки сущностей, созданных через сливаемый буфер.
+        private final Bits REMOVED; //Ячейки сущностей, удаленных через сливаемый буфер.
+        private final IntArray FIRST_RECORDS; //Индекс первой записи сущности или -1. Индекс - номер ячейки.
+        private final IntArray LAST_RECORDS; //Индекс последней записи сущности или -1. Индекс - номер ячейки.
+        private final Array<Component> RECORD_COMPONENTS; //Индекс - номер записи. Для RESET_STRUCT - null.
+        private final IntArray RECORD_TYPES; //Индекс - номер записи.
+        private final IntArray RECORD_STATES; //Индекс - номер записи.
+        private final IntArray NEXT_RECORDS; //Следующая запись той же сущности или -1. Индекс - номер записи.
+
+        private PendingEntities() {
+            SLOTS_BY_ENTITIES_ID = new IntArray(0);
+            ENTITIES = new Array<>(Entity.class, 0);
+            SOURCES = new Array<>(Archetype.class, 0);
+            TARGETS = new Array<>(Archetype.class, 0);
+            CREATED = new Bits();
+            REMOVED = new Bits();
+            FIRST_RECORDS = new IntArray(0);
+            LAST_RECORDS = new IntArray(0);
+            RECORD_COMPONENTS = new Array<>(Component.class, 0);
+            RECORD_TYPES = new IntArray(0);
+            RECORD_STATES = new IntArray(0);
+            NEXT_RECORDS = new IntArray(0);
+        }
+
+        private int getSize() {
+            return ENTITIES.getLength();
+        }
+
+        private int slotOf(int entityID) {
+            return entityID < SLOTS_BY_ENTITIES_ID.getLength() ? SLOTS_BY_ENTITIES_ID.get(entityID) - 1 : -1;
+        }
+
+        private int add(Entity entity, Archetype source, boolean isCreated) {
+            int slot = ENTITIES.getLength();
+            ENTITIES.add(entity);
+            SOURCES.add(source);
+            TARGETS.add(source);
+            CREATED.expandTo(slot + 1);
+            REMOVED.expandTo(slot + 1);
+            if(isCreated) CREATED.set(slot);
+            FIRST_RECORDS.add(-1);
+            LAST_RECORDS.add(-1);
+            SLOTS_BY_ENTITIES_ID.setAndExpand(entity.getPersonalID(), slot + 1);
+            return slot;
+        }
+
+        private boolean isBind(int slot, Component component) {
+            int record = findRecord(slot, component);
+            if(record == -1) return component.isBind();
+            int state = RECORD_STATES.get(record);
+            return state == BOUND || state == UNCHANGED && component.isBind();
+        }
+
+        private void bind(int slot, Component component) {
+            int record = findRecord(slot, component);
+            if(record == -1) addRecord(slot, component, component.getTypeID(), BOUND);
+            else RECORD_STATES.set(record, RECORD_STATES.get(record) == UNBOUND ? UNCHANGED : BOUND);
         }
 
-        for(Component comp : components) {
-            if(!comp.isBind()) {
-                throw new IllegalArgumentException("Компонент " + comp + " уже отвязан от сущности " + owner);
+        private void unbind(int slot, Component component) {
+            int record = findRecord(slot, component);
+            if(record == -1) addRecord(slot, component, component.getTypeID(), UNBOUND);
+            else RECORD_STATES.set(record, RECORD_STATES.get(record) == BOUND ? UNCHANGED : UNBOUND);
+        }
+
+        private void resetStruct(int slot, int componentTypeID) {
+            addRecord(slot, null, componentTypeID, RESET_STRUCT);
+        }
+
+        //Возвращает изменение кол-ва компонентов указанного типа относительно состояния до слияния.
+        private int getCountChange(int slot, int componentTypeID) {
+            int change = 0;
+            for(int r = FIRST_RECORDS.get(slot); r != -1; r = NEXT_RECORDS.get(r)) {
+                if(RECORD_TYPES.get(r) == componentTypeID) {
+                    int state = RECORD_STATES.get(r);
+                    if(state == BOUND) ++change;
+                    else if(state == UNBOUND) --change;
+                }
+            }
+            return change;
+        }
+
+        //Сбрасывает ячейки сущностей по их ID и очищает массивы, сохраняя их емкость.
+        private void clear() {
+            for(int i = 0; i < ENTITIES.getLength(); i++) SLOTS_BY_ENTITIES_ID.set(ENTITIES.get(i).getPersonalID(), 0);
+            ENTITIES.clear();
+            SOURCES.clear();
+            TARGETS.clear();
+            CREATED.clearAll();
+            REMOVED.clearAll();
+            FIRST_RECORDS.clear();
+            LAST_RECORDS.clear();
+            RECORD_COMPONENTS.clear();
+            RECORD_TYPES.clear();
+            RECORD_STATES.clear();
+            NEXT_RECORDS.clear();
+        }
+
+        //Компоненты сравниваются по ссылке и ищутся только среди записей одной сущности.
+        private int findRecord(int slot, Component component) {
+            for(int r = FIRST_RECORDS.get(slot); r != -1; r = NEXT_RECORDS.get(r)) {
+                if(RECORD_COMPONENTS.get(r) == component) return r;
             }
+            return -1;
+        }
+
+        private void addRecord(int slot, Component component, int componentTypeID, int state) {
+            int record = RECORD_STATES.getLength();
+            RECORD_COMPONENTS.add(component);
+            RECORD_TYPES.add(componentTypeID);
+            RECORD_STATES.add(state);
+            NEXT_RECORDS.add(-1);
+            int last = LAST_RECORDS.get(slot);
+            if(last == -1) FIRST_RECORDS.set(slot, record);
+            else NEXT_RECORDS.set(last, record);
+            LAST_RECORDS.set(slot, record);
         }
+
+    }
+
+
+    /**
+     * Действие над сущностью и одним её компонентом (см. {@link #forEach(EntitiesFilter, int, Action1)}). Данный
+     * интерфейс является функциональным.
+     * @param <A> тип компонента.
+     */
+    @FunctionalInterface
+    public interface Action1<A extends Component> {
+
+        public void accept(Entity entity, A a);
+
+    }
+
+    /**
+     * Действие над сущностью и двумя её компонентами (см. {@link #forEach(EntitiesFilter, int, int, Action2)}).
+     * Данный интерфейс является функциональным.
+     * @param <A> тип первого компонента.
+     * @param <B> тип второго компонента.
+     */
+    @FunctionalInterface
+    public interface Action2<A extends Component, B extends Component> {
+
+        public void accept(Entity entity, A a, B b);
+
+    }
+
+    /**
+     * Действие над сущностью и тремя её компонентами (см. {@link #forEach(EntitiesFilter, int, int, int, Action3)}).
+     * Данный интерфейс является функциональным.
+     * @param <A> тип первого компонента.
+     * @param <B> тип второго компонента.
+     * @param <C> тип третьего компонента.
+     */
+    @FunctionalInterface
+    public interface Action3<A extends Component, B extends Component, C extends Component> {
+
+        public void accept(Entity entity, A a, B b, C c);
+
     }
 
 }
@@ -0,0 +1,188 @@
+package com.bakuard.ecsEngine.core;
+
+import com.bakuard.ecsEngine.core.utils.Bits;
+import com.bakuard.ecsEngine.core.utils.IntArray;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * Выделяет персональные ID сущностей и хранит поколение каждого ID. Один объект данного класса принадлежит
+ * EntityComponentManager и используется также всеми его буферами.
+ *
+ * ID выделяются не по одному, а блоками (см. Block): каждый владелец блока (менеджер или буфер) резервирует сразу
+ * BLOCK_SIZE ID и затем выделяет и освобождает их локально без какой-либо синхронизации. Резервирование блока
+ * выполняется без блокировок: сначала берется пакет ранее освобожденных ID из общей очереди, а если она пуста -
+ * атомарно резервируется непрерывный диапазон ещё ни разу не использованных ID. Неиспользованные ID блока
+ * возвращаются в общую очередь при слиянии буфера с менеджером (см. Block#release()).
+ *
+ * Дескриптор сущности хранит только младшие 16 бит поколения (см. Entity#getHandle()). Чтобы дескриптор удаленной
+ * сущности никогда не стал снова живым, ID, поколение которого достигло Entity#GENERATION_MASK, при освобождении
+ * выводится из оборота и больше никогда не выделяется.
+ */
+final class EntityIDAllocator {
+
+    static final int BLOCK_SIZE = 256;
+
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final AtomicInteger NEXT_ID; //Все ID начиная с этого ещё ни разу не выделялись.
+    private final ConcurrentLinkedQueue<int[]> FREE_IDS; //Пакеты освобожденных ID.
+    /*
+     * Поколения ID хранятся в страницах фиксированного размера, которые никогда не копируются. Поэтому владелец
+     * блока может без синхронизации изменять поколения своих ID, пока другой поток добавляет новые страницы.
+     * Массив страниц заменяется целиком через compareAndSet() (см. ensureGenerationPages()).
+     */
+    private final AtomicReference<int[][]> GENERATION_PAGES;
+
+    EntityIDAllocator() {
+        NEXT_ID = new AtomicInteger();
+        FREE_IDS = new ConcurrentLinkedQueue<>();
+        GENERATION_PAGES = new AtomicReference<>(new int[0][]);
+    }
+
+    Block createBlock() {
+        return new Block();
+    }
+
+    //Возвращает текущее поколение указанного ID или ноль, если ID ещё ни разу не выделялся.
+    int getGeneration(int entityID) {
+        int[][] pages = GENERATION_PAGES.get();
+        int page = entityID >>> PAGE_SHIFT;
+        return page < pages.length ? pages[page][entityID & PAGE_MASK] : 0;
+    }
+
+    //Вызывается только владельцем блока, которому в данный момент принадлежит entityID.
+    private int nextGeneration(int entityID) {
+        return ++GENERATION_PAGES.get()[entityID >>> PAGE_SHIFT][entityID & PAGE_MASK];
+    }
+
+    /*
+     * Гарантирует, что для всех ID меньших toID существуют страницы поколений. Выполняется без блокировок: если
+     * другой поток успел заменить массив страниц, попытка повторяется с его массивом. Уже существующие страницы
+     * переносятся в новый массив по ссылке, поэтому изменения поколений в них не теряются.
+     */
+    private void ensureGenerationPages(int toID) {
+        int numberPages = ((toID - 1) >>> PAGE_SHIFT) + 1;
+        int[][] pages = GENERATION_PAGES.get();
+        while(numberPages > pages.length) {
+            int[][] newPages = Arrays.copyOf(pages, numberPages);
+            for(int i = pages.length; i < numberPages; i++) newPages[i] = new int[PAGE_SIZE];
+            if(GENERATION_PAGES.compareAndSet(pages, newPages)) return;
+            pages = GENERATION_PAGES.get();
+        }
+    }
+
+    /*
+     * Блок ID принадлежащий одному владельцу (менеджеру или буферу). Методы блока не являются потокобезопасными и
+     * должны вызываться только из потока, работающего с его владельцем.
+     */
+    final class Block {
+
+        private final IntArray RECYCLED; //Освобожденные ID, которые будут выделены в первую очередь.
+        private int next; //Начало оставшейся части непрерывного диапазона ID.
+        private int end; //Конец непрерывного диапазона ID не включая его.
+
+        private Block() {
+            RECYCLED = new IntArray(0);
+        }
+
+        //Выделяет новый ID и увеличивает его поколение. Возвращает ID, поколение можно узнать через generationOf().
+        int nextID() {
+            if(RECYCLED.getLength() == 0 && next == end) reserve();
+
+            int entityID = RECYCLED.getLength() > 0 ? RECYCLED.quickRemove(RECYCLED.getLength() - 1) : next++;
+            nextGeneration(entityID);
+            return entityID;
+        }
+
+        /*
+         * Аналог nextID() для count ID, которые записываются в ids начиная с нулевого индекса. Сначала выделяются
+         * освобожденные ID блока и общей очереди, а недостающие ID резервируются одним непрерывным диапазоном.
+         */
+        void nextIDs(int[] ids, int count) {
+            int index = 0;
+            while(index < count) {
+                if(RECYCLED.getLength() > 0) {
+                    ids[index++] = RECYCLED.quickRemove(RECYCLED.getLength() - 1);
+                } else if(next < end) {
+                    ids[index++] = next++;
+                } else {
+                    int[] recycled = FREE_IDS.poll();
+                    if(recycled != null) {
+                        for(int entityID : recycled) RECYCLED.add(entityID);
+                    } else {
+                        int rangeLength = (count - index + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+                        next = NEXT_ID.getAndAdd(rangeLength);
+                        end = next + rangeLength;
+                        ensureGenerationPages(end);
+                    }
+                }
+            }
+            for(int i = 0; i < count; i++) nextGeneration(ids[i]);
+        }
+
+        int generationOf(int entityID) {
+            return getGeneration(entityID);
+        }
+
+        /*
+         * Возвращает ID в данный блок, если он не выведен из оборота. Если блок накопил слишком много освобожденных ID, их часть возвращается в
+         * общую очередь, чтобы они могли быть выделены другими владельцами.
+         */
+        void free(int entityID) {
+            if(isRetired(entityID)) return;
+            RECYCLED.add(entityID);
+            if(RECYCLED.getLength() >= BLOCK_SIZE * 2) FREE_IDS.add(removeLast(BLOCK_SIZE));
+        }
+
+        /*
+         * Аналог free() для всех ID, установленных в entitiesID. Освобожденные ID, превышающие запас блока,
+         * возвращаются в общую очередь пакетами по BLOCK_SIZE.
+         */
+        void freeAll(Bits entitiesID) {
+            for(int entityID = entitiesID.nextSetBit(0); entityID != -1; entityID = entitiesID.nextSetBit(entityID + 1)) {
+                if(!isRetired(entityID)) RECYCLED.add(entityID);
+            }
+            while(RECYCLED.getLength() >= BLOCK_SIZE * 2) FREE_IDS.add(removeLast(BLOCK_SIZE));
+        }
+
+        //Возвращает все неиспользованные ID данного блока в общую очередь.
+        void release() {
+            if(next < end) {
+                int[] rest = new int[end - next];
+                for(int i = 0; i < rest.length; i++) rest[i] = next + i;
+                FREE_IDS.add(rest);
+                next = end;
+            }
+            if(RECYCLED.getLength() > 0) FREE_IDS.add(removeLast(RECYCLED.getLength()));
+        }
+
+        private void reserve() {
+            int[] recycled = FREE_IDS.poll();
+            if(recycled != null) {
+                for(int entityID : recycled) RECYCLED.add(entityID);
+            } else {
+                next = NEXT_ID.getAndAdd(BLOCK_SIZE);
+                end = next + BLOCK_SIZE;
+                ensureGenerationPages(end);
+            }
+        }
+
+        private boolean isRetired(int entityID) {
+            return (getGeneration(entityID) & Entity.GENERATION_MASK) == Entity.GENERATION_MASK;
+        }
+
+        private int[] removeLast(int count) {
+            int[] result = new int[count];
+            for(int i = 0; i < count; i++) result[i] = RECYCLED.quickRemove(RECYCLED.getLength() - 1);
+            return result;
+        }
+
+    }
+
+}
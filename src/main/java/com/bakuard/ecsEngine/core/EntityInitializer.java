@@ -0,0 +1,21 @@
+package com.bakuard.ecsEngine.core;
+
+/**
+ * Инициализирует сущности создаваемые пакетом методами
+ * {@link EntityComponentManager#createEntities(int, int, int[], EntityInitializer)} и
+ * {@link NewEntitiesBuffer#createEntities(int, int, int[], EntityInitializer)}.
+ */
+@FunctionalInterface
+public interface EntityInitializer {
+
+    /**
+     * Вызывается для каждой созданной сущности сразу после её добавления в архетип с заданным набором типов
+     * компонентов. Компоненты структурных типов этой сущности уже существуют и все их поля равны нулю. Компоненты
+     * объектных типов из заданного набора должны быть связаны с сущностью в этом методе - т.к. сущность уже
+     * находится в нужном архетипе, их связывание не переносит сущность в другой архетип.
+     * @param entity созданная сущность.
+     * @param index порядковый номер сущности в пакете (от нуля до count - 1).
+     */
+    public void init(Entity entity, int index);
+
+}
@@ -7,6 +7,9 @@ package com.bakuard.ecsEngine.core;
  * или поставлен на паузу.
  * <br/><br/>
  * Каждый шаг обнавления игрового цикла состоит из одной и той же строго определенной последовательности подшагов: <br/>
+ * 0. Менеджер сущностей переходит к следующему такту изменений (см.
+ *    {@link EntityComponentManager#advanceChangeTick()}) и рассылает наблюдателям структурные изменения сущностей
+ *    накопленные на предыдущем шаге (см. {@link EntityComponentManager#notifyObservers()}). <br/>
  * 1. Изменяется список обновляемых систем (все системы добавленные в очередь добавления или удаления на
  *    предыдущем шаге игрового цикла будут фактически добавлены или удалены из списка обрабатываемых систем). <br/>
  * 2. Рассылка всех событий добавленных на предыдущем шаге игрового цикла. События рассылаются в порядке убывания
@@ -27,8 +30,12 @@ public final class GameLoop {
     private final Object LOCK = new Object();
 
     private final SystemManager SYSTEM_MANAGER;
+    private final EntityComponentManager ENTITY_COMPONENT_MANAGER;
 
-    GameLoop(int numberUpdatePerSecond, int maxFrameSkip, SystemManager systemManager) {
+    GameLoop(int numberUpdatePerSecond,
+             int maxFrameSkip,
+             SystemManager systemManager,
+             EntityComponentManager entityComponentManager) {
         if(numberUpdatePerSecond <= 0 || numberUpdatePerSecond > 1000) {
             throw new IllegalArgumentException("Для numberUpdatePerSecond должно выполняться условие: " +
                     "numberUpdatePerSecond > 0 || numberUpdatePerSecond <= 1000. " +
@@ -40,6 +47,7 @@ public final class GameLoop {
         NUMBER_UPDATE_PER_SECOND = numberUpdatePerSecond;
         MAX_FRAME_SKIP = maxFrameSkip;
         SYSTEM_MANAGER = systemManager;
+        ENTITY_COMPONENT_MANAGER = entityComponentManager;
     }
 
     /**
@@ -142,6 +150,9 @@ public final class GameLoop {
             delta += elapsedTime;
             long fullElapsedInterval = delta;
 
+            ENTITY_COMPONENT_MANAGER.advanceChangeTick();
+            ENTITY_COMPONENT_MANAGER.notifyObservers();
+
             SYSTEM_MANAGER.changeSystemsList();
 
             SYSTEM_MANAGER.sendEvents();
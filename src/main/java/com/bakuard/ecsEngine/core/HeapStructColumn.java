@@ -0,0 +1,189 @@
+package com.bakuard.ecsEngine.core;
+
+import java.util.Arrays;
+
+/**
+ * Реализация {@link StructColumn} хранящая значения полей в куче. Значения каждого поля хранятся в отдельном плотном
+ * массиве примитивов, где индекс значения совпадает с индексом сущности в группе (см. {@link Chunk#getEntity(int)}).
+ * Поэтому перебор значений одного поля для всех сущностей группы - это последовательный проход по одному массиву.
+ * <br/><br/>
+ * Массивы возвращаемые методами {@link #getInts(int)}, {@link #getLongs(int)}, {@link #getFloats(int)} и
+ * {@link #getDoubles(int)} являются внутренним хранилищем данного столбца: их длина равна {@link Chunk#CAPACITY},
+ * а сами массивы возвращаются в общий пул и переиспользуются другими группами сущностей, как только данная группа
+ * становится пустой. Не сохраняйте ссылки на них между изменениями состава сущностей. <br/>
+ * Объекты данного класса создаются и управляются {@link EntityComponentManager}.
+ */
+public final class HeapStructColumn extends StructColumn {
+
+    private final int[][] INTS;
+    private final long[][] LONGS;
+    private final float[][] FLOATS;
+    private final double[][] DOUBLES;
+
+    HeapStructColumn(Schema schema, Chunk chunk, ChunkPool pool) {
+        super(schema, chunk);
+
+        int numberFields = schema.getNumberFields();
+        INTS = new int[numberFields][];
+        LONGS = new long[numberFields][];
+        FLOATS = new float[numberFields][];
+        DOUBLES = new double[numberFields][];
+        for(int i = 0; i < numberFields; i++) {
+            switch(schema.getFieldType(i)) {
+                case INT: INTS[i] = pool.takeInts(); break;
+                case LONG: LONGS[i] = pool.takeLongs(); break;
+                case FLOAT: FLOATS[i] = pool.takeFloats(); break;
+                case DOUBLE: DOUBLES[i] = pool.takeDoubles(); break;
+            }
+        }
+    }
+
+    @Override
+    public Storage getStorage() {
+        return Storage.HEAP;
+    }
+
+    @Override
+    public int getInt(int fieldIndex, int index) {
+        checkIndex(index);
+        return getInts(fieldIndex)[index];
+    }
+
+    @Override
+    public void setInt(int fieldIndex, int index, int value) {
+        checkIndex(index);
+        getInts(fieldIndex)[index] = value;
+    }
+
+    @Override
+    public long getLong(int fieldIndex, int index) {
+        checkIndex(index);
+        return getLongs(fieldIndex)[index];
+    }
+
+    @Override
+    public void setLong(int fieldIndex, int index, long value) {
+        checkIndex(index);
+        getLongs(fieldIndex)[index] = value;
+    }
+
+    @Override
+    public float getFloat(int fieldIndex, int index) {
+        checkIndex(index);
+        return getFloats(fieldIndex)[index];
+    }
+
+    @Override
+    public void setFloat(int fieldIndex, int index, float value) {
+        checkIndex(index);
+        getFloats(fieldIndex)[index] = value;
+    }
+
+    @Override
+    public double getDouble(int fieldIndex, int index) {
+        checkIndex(index);
+        return getDoubles(fieldIndex)[index];
+    }
+
+    @Override
+    public void setDouble(int fieldIndex, int index, double value) {
+        checkIndex(index);
+        getDoubles(fieldIndex)[index] = value;
+    }
+
+    /**
+     * Возвращает внутренний массив значений поля типа int. Значимыми являются только первые
+     * {@link #getLength()} элементов массива.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @return внутренний массив значений поля.
+     * @throws IllegalArgumentException если поле с указанным индексом не имеет тип int.
+     */
+    public int[] getInts(int fieldIndex) {
+        checkFieldType(fieldIndex, Schema.FieldType.INT);
+        return INTS[fieldIndex];
+    }
+
+    /**
+     * Возвращает внутренний массив значений поля типа long. Значимыми являются только первые
+     * {@link #getLength()} элементов массива.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @return внутренний массив значений поля.
+     * @throws IllegalArgumentException если поле с указанным индексом не имеет тип long.
+     */
+    public long[] getLongs(int fieldIndex) {
+        checkFieldType(fieldIndex, Schema.FieldType.LONG);
+        return LONGS[fieldIndex];
+    }
+
+    /**
+     * Возвращает внутренний массив значений поля типа float. Значимыми являются только первые
+     * {@link #getLength()} элементов массива.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @return внутренний массив значений поля.
+     * @throws IllegalArgumentException если поле с указанным индексом не имеет тип float.
+     */
+    public float[] getFloats(int fieldIndex) {
+        checkFieldType(fieldIndex, Schema.FieldType.FLOAT);
+        return FLOATS[fieldIndex];
+    }
+
+    /**
+     * Возвращает внутренний массив значений поля типа double. Значимыми являются только первые
+     * {@link #getLength()} элементов массива.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @return внутренний массив значений поля.
+     * @throws IllegalArgumentException если поле с указанным индексом не имеет тип double.
+     */
+    public double[] getDoubles(int fieldIndex) {
+        checkFieldType(fieldIndex, Schema.FieldType.DOUBLE);
+        return DOUBLES[fieldIndex];
+    }
+
+    @Override
+    void clearRow(int index) {
+        for(int i = 0; i < INTS.length; i++) {
+            if(INTS[i] != null) INTS[i][index] = 0;
+            else if(LONGS[i] != null) LONGS[i][index] = 0L;
+            else if(FLOATS[i] != null) FLOATS[i][index] = 0F;
+            else DOUBLES[i][index] = 0D;
+        }
+    }
+
+    @Override
+    void clearRows(int fromIndex, int count) {
+        int toIndex = fromIndex + count;
+        for(int i = 0; i < INTS.length; i++) {
+            if(INTS[i] != null) Arrays.fill(INTS[i], fromIndex, toIndex, 0);
+            else if(LONGS[i] != null) Arrays.fill(LONGS[i], fromIndex, toIndex, 0L);
+            else if(FLOATS[i] != null) Arrays.fill(FLOATS[i], fromIndex, toIndex, 0F);
+            else Arrays.fill(DOUBLES[i], fromIndex, toIndex, 0D);
+        }
+    }
+
+    @Override
+    void copyRows(int fromIndex, StructColumn to, int toIndex, int count) {
+        HeapStructColumn other = (HeapStructColumn) to;
+        for(int i = 0; i < INTS.length; i++) {
+            if(INTS[i] != null) java.lang.System.arraycopy(INTS[i], fromIndex, other.INTS[i], toIndex, count);
+            else if(LONGS[i] != null) java.lang.System.arraycopy(LONGS[i], fromIndex, other.LONGS[i], toIndex, count);
+            else if(FLOATS[i] != null) java.lang.System.arraycopy(FLOATS[i], fromIndex, other.FLOATS[i], toIndex, count);
+            else java.lang.System.arraycopy(DOUBLES[i], fromIndex, other.DOUBLES[i], toIndex, count);
+        }
+    }
+
+    @Override
+    void copyRowsConcurrently(int fromIndex, StructColumn to, int toIndex, int count) {
+        copyRows(fromIndex, to, toIndex, count);
+    }
+
+    @Override
+    void release(ChunkPool pool) {
+        for(int i = 0; i < INTS.length; i++) {
+            if(INTS[i] != null) pool.give(INTS[i]);
+            else if(LONGS[i] != null) pool.give(LONGS[i]);
+            else if(FLOATS[i] != null) pool.give(FLOATS[i]);
+            else pool.give(DOUBLES[i]);
+        }
+    }
+
+}
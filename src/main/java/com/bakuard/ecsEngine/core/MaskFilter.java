@@ -0,0 +1,200 @@
+package com.bakuard.ecsEngine.core;
+
+import com.bakuard.ecsEngine.core.utils.Bits;
+
+/**
+ * Декларативная реализация {@link EntitiesFilter}, задаваемая тремя наборами типов компонентов и набором типов
+ * сущностей: <br/>
+ * 1. all - сущность должна иметь компоненты всех указанных типов. <br/>
+ * 2. any - сущность должна иметь компонент хотя бы одного из указанных типов (если набор пуст - условие не
+ *    проверяется). <br/>
+ * 3. none - сущность не должна иметь компонентов ни одного из указанных типов. <br/>
+ * 4. entityTypes - тип сущности должен входить в указанный набор (если набор пуст - подходит любой тип сущности).
+ * <br/><br/>
+ * Проверка набора типов компонентов выполняется пословно над битовыми масками и не изменяет переданный объект
+ * Bits, поэтому {@link EntityComponentManager} передает в такой фильтр набор типов архетипа без копирования. Кроме
+ * того, менеджер использует набор all для отбора архетипов по индексу архетипов каждого типа компонентов, не проверяя
+ * архетипы, в которых гарантированно нет хотя бы одного из обязательных типов компонентов. Если условие отбора
+ * сущностей нельзя выразить через данные наборы - используйте собственную реализацию {@link EntitiesFilter}.
+ * <br/><br/>
+ * Объекты данного класса неизменяемы и создаются с помощью {@link MaskFilter.Builder}.
+ */
+public final class MaskFilter implements EntitiesFilter {
+
+    private final Bits ALL;
+    private final Bits ANY;
+    private final Bits NONE;
+    private final Bits ENTITY_TYPES;
+
+    private MaskFilter(Builder builder) {
+        ALL = new Bits(builder.all);
+        ANY = new Bits(builder.any);
+        NONE = new Bits(builder.none);
+        ENTITY_TYPES = new Bits(builder.entityTypes);
+    }
+
+    /**
+     * Возвращает true, если набор типов компонентов содержит все типы набора all, хотя бы один тип набора any
+     * (если он не пуст) и ни одного типа набора none, иначе - false. Переданный объект не изменяется.
+     * @param componentTypes идентификаторы типов компонентов, рассматриваемого архетипа сущностей.
+     * @return true, если набор типов компонентов удовлетворяет данному фильтру, иначе - false.
+     */
+    @Override
+    public boolean isValidComponentTypes(Bits componentTypes) {
+        return componentTypes.contains(ALL) &&
+                (ANY.isEmpty() || componentTypes.intersect(ANY)) &&
+                !componentTypes.intersect(NONE);
+    }
+
+    /**
+     * Возвращает true, если набор entityTypes пуст или содержит указанный тип сущности, иначе - false.
+     * @param entityTypeID идентификатор типа сущности.
+     * @return true, если тип сущности удовлетворяет данному фильтру, иначе - false.
+     */
+    @Override
+    public boolean isValidEntityType(int entityTypeID) {
+        return ENTITY_TYPES.isEmpty() || (entityTypeID < ENTITY_TYPES.getSize() && ENTITY_TYPES.get(entityTypeID));
+    }
+
+    /**
+     * Возвращает копию набора типов компонентов, каждый из которых обязательно должен быть у сущности.
+     * @return копию набора all.
+     */
+    public Bits getAll() {
+        return new Bits(ALL);
+    }
+
+    /**
+     * Возвращает копию набора типов компонентов, хотя бы один из которых должен быть у сущности.
+     * @return копию набора any.
+     */
+    public Bits getAny() {
+        return new Bits(ANY);
+    }
+
+    /**
+     * Возвращает копию набора типов компонентов, ни одного из которых не должно быть у сущности.
+     * @return копию набора none.
+     */
+    public Bits getNone() {
+        return new Bits(NONE);
+    }
+
+    /**
+     * Возвращает копию набора допустимых типов сущностей. Пустой набор означает, что подходит любой тип сущности.
+     * @return копию набора entityTypes.
+     */
+    public Bits getEntityTypes() {
+        return new Bits(ENTITY_TYPES);
+    }
+
+    /**
+     * Возвращает true, если фильтр допускает сущности любого типа, иначе - false.
+     * @return true, если фильтр допускает сущности любого типа, иначе - false.
+     */
+    public boolean isAnyEntityType() {
+        return ENTITY_TYPES.isEmpty();
+    }
+
+    //Используется менеджером для выбора индекса архетипов без копирования набора all.
+    Bits getAllMask() {
+        return ALL;
+    }
+
+    //Возвращает true, если хотя бы один из наборов all, any или none содержит хотя бы один из указанных типов.
+    boolean containsAnyType(Bits componentTypes) {
+        return ALL.intersect(componentTypes) || ANY.intersect(componentTypes) || NONE.intersect(componentTypes);
+    }
+
+    @Override
+    public String toString() {
+        return "MaskFilter{" +
+                "ALL=" + ALL +
+                ", ANY=" + ANY +
+                ", NONE=" + NONE +
+                ", ENTITY_TYPES=" + ENTITY_TYPES +
+                '}';
+    }
+
+
+    /**
+     * Используется для создания объектов {@link MaskFilter}. Каждый метод добавления типов может вызываться
+     * несколько раз - переданные типы добавляются к уже указанным.
+     */
+    public static final class Builder {
+
+        private final Bits all;
+        private final Bits any;
+        private final Bits none;
+        private final Bits entityTypes;
+
+        /**
+         * Создает объект Builder для фильтра, которому удовлетворяет любая сущность.
+         */
+        public Builder() {
+            all = new Bits();
+            any = new Bits();
+            none = new Bits();
+            entityTypes = new Bits();
+        }
+
+        /**
+         * Добавляет типы компонентов, каждый из которых обязательно должен быть у сущности.
+         * @param componentTypesID идентификаторы типов компонентов.
+         * @return ссылку на этот же объект Builder.
+         * @throws IllegalArgumentException если хотя бы один идентификатор меньше нуля.
+         */
+        public Builder all(int... componentTypesID) {
+            return addTo(all, componentTypesID);
+        }
+
+        /**
+         * Добавляет типы компонентов, хотя бы один из которых должен быть у сущности.
+         * @param componentTypesID идентификаторы типов компонентов.
+         * @return ссылку на этот же объект Builder.
+         * @throws IllegalArgumentException если хотя бы один идентификатор меньше нуля.
+         */
+        public Builder any(int... componentTypesID) {
+            return addTo(any, componentTypesID);
+        }
+
+        /**
+         * Добавляет типы компонентов, ни одного из которых не должно быть у сущности.
+         * @param componentTypesID идентификаторы типов компонентов.
+         * @return ссылку на этот же объект Builder.
+         * @throws IllegalArgumentException если хотя бы один идентификатор меньше нуля.
+         */
+        public Builder none(int... componentTypesID) {
+            return addTo(none, componentTypesID);
+        }
+
+        /**
+         * Добавляет допустимые типы сущностей. Если ни один тип сущностей не будет добавлен - фильтру будут
+         * удовлетворять сущности любого типа.
+         * @param entityTypesID идентификаторы типов сущностей.
+         * @return ссылку на этот же объект Builder.
+         * @throws IllegalArgumentException если хотя бы один идентификатор меньше нуля.
+         */
+        public Builder entityTypes(int... entityTypesID) {
+            return addTo(entityTypes, entityTypesID);
+        }
+
+        /**
+         * Создает и возвращает новый фильтр с заданными наборами типов.
+         * @return новый фильтр.
+         */
+        public MaskFilter build() {
+            return new MaskFilter(this);
+        }
+
+        private Builder addTo(Bits bits, int[] ids) {
+            for(int id : ids) {
+                if(id < 0) throw new IllegalArgumentException("ID типа не может быть меньше нуля. Получено " + id);
+                bits.expandTo(id + 1).set(id);
+            }
+            return this;
+        }
+
+    }
+
+}
@@ -21,8 +21,11 @@ import com.bakuard.ecsEngine.core.utils.IntArray;
  * Чтобы применить изменения внесенные в буфер, необходимо передать его методу
  * {@link EntityComponentManager#flushBuffer(NewEntitiesBuffer)}.
  * <br/><br/>
- * Объекты данного класса нельзя переиспользовать после их слияния с {@link EntityComponentManager}. Слияние
- * осуществляется в основном потоке. <br/>
+ * После слияния с {@link EntityComponentManager} буфер становится невалидным. Чтобы использовать его повторно,
+ * вызовите {@link #reset()} - при этом буфер сохраняет свои архетипы и емкость всех внутренних массивов. Для
+ * повторного использования буферов разными системами предназначены методы
+ * {@link EntityComponentManager#borrowNewEntitiesBuffer()} и
+ * {@link EntityComponentManager#returnBuffer(NewEntitiesBuffer)}. Слияние осуществляется в основном потоке. <br/>
  * Объект данного класса может работать только с сущностями созданными через него. При попытке работать с сущностями
  * не созданными через объект данного класса будет генерироваться исключение. <br/>
  * За создание объектов NewEntitiesBuffer отвечает метод {@link EntityComponentManager#createNewEntitiesBuffer()}.
@@ -30,27 +33,30 @@ import com.bakuard.ecsEngine.core.utils.IntArray;
 public final class NewEntitiesBuffer {
 
     private final EntityComponentManager MANAGER;
+    private final EntityIDAllocator.Block ID_BLOCK;
 
     final Bits USED_ENTITIES_ID;
     final Array<Entity> ENTITIES_BY_ID;
-    final Array<Archetype> ARCHETYPES;
+    final Archetypes ARCHETYPES;
+    final SparseComponents SPARSE;
     private final IntArray INDEXES_BY_ENTITIES_ID;
     private final Array<Archetype> ARCHETYPES_BY_ENTITIES;
+    private final ComponentTypes COMPONENT_TYPES;
 
-    private final int EMPTY_ENTITIES_INDEX; //Индекс корзины хранящей все сущности без компонентов.
-    private boolean isValid; //После flush'а, буфер нельзя переиспользовать
+    private boolean isValid; //После flush'а, буфер нельзя использовать до вызова reset()
+    private boolean isPooled; //true - буфер находится в пуле буферов менеджера.
 
     NewEntitiesBuffer(EntityComponentManager manager) {
-        EMPTY_ENTITIES_INDEX = 0;
-
         MANAGER = manager;
+        ID_BLOCK = manager.createIDBlock();
 
         USED_ENTITIES_ID = new Bits();
         ENTITIES_BY_ID = new Array<>(Entity.class, 0);
         INDEXES_BY_ENTITIES_ID = new IntArray(0);
         ARCHETYPES_BY_ENTITIES = new Array<>(Archetype.class, 0);
-        ARCHETYPES = new Array<>(Archetype.class, 0);
-        ARCHETYPES.add(new Archetype(new Bits()));
+        COMPONENT_TYPES = manager.getComponentTypes();
+        ARCHETYPES = new Archetypes(COMPONENT_TYPES, manager.getChunkPool(), manager.getTickCounter());
+        SPARSE = new SparseComponents(COMPONENT_TYPES);
 
         isValid = true;
     }
@@ -69,25 +75,100 @@ public final class NewEntitiesBuffer {
         if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
 
         if(entityTypeID >= 0) {
-            int entityID = 0;
-            int generation = 0;
-            synchronized(MANAGER) {
-                entityID = MANAGER.getNewEntityID();
-                generation = MANAGER.getGeneration(entityID);
-            }
+            int entityID = ID_BLOCK.nextID();
+            int generation = ID_BLOCK.generationOf(entityID);
 
             Entity entity = new Entity(entityTypeID, entityID, generation);
             ENTITIES_BY_ID.setAndExpand(entityID, entity);
-            USED_ENTITIES_ID.expandTo(entityID);
+            USED_ENTITIES_ID.expandTo(entityID + 1);
             USED_ENTITIES_ID.set(entityID);
-            ARCHETYPES.get(EMPTY_ENTITIES_INDEX).addEntity(INDEXES_BY_ENTITIES_ID, entity);
-            ARCHETYPES_BY_ENTITIES.setAndExpand(entityID, ARCHETYPES.get(EMPTY_ENTITIES_INDEX));
+            ARCHETYPES.getEmpty().addEntity(INDEXES_BY_ENTITIES_ID, entity);
+            ARCHETYPES_BY_ENTITIES.setAndExpand(entityID, ARCHETYPES.getEmpty());
 
             return entity;
         }
         throw new IllegalArgumentException("ID типа сущности не должно быть меньше нуля. Получено " + entityTypeID);
     }
 
+    /**
+     * Создает count новых уникальных сущностей (см. {@link #createEntity(int)}) с типом entityTypeID и набором
+     * типов компонентов componentTypes, который может содержать объектные и структурные типы компонентов и теги.
+     * Данный метод предназначен для массового создания однотипных сущностей (например, при загрузке уровня).
+     * В отличие от вызова {@link #createEntity(int)} с последующим связыванием компонентов, каждая сущность сразу
+     * добавляется в архетип с набором типов componentTypes, а не в архетип без компонентов, и не переносится
+     * между архетипами при связывании каждого следующего компонента. ID всех сущностей выделяются сразу, а сами
+     * сущности добавляются в архетип диапазонами, заполняющими группы сущностей (см. {@link Chunk}) целиком. Затем
+     * для каждой сущности по порядку вызывается initializer (см. {@link EntityInitializer}), который должен связать
+     * с ней компоненты всех объектных типов из componentTypes. Все поля компонентов структурных типов новой
+     * сущности равны нулю.
+     * <br/><br/>
+     * Если initializer не связал с сущностью компонент одного из объектных типов, эта сущность и все ещё не
+     * инициализированные сущности удаляются и выбрасывается исключение, при этом уже инициализированные сущности
+     * остаются.
+     * @param entityTypeID идентификатор типа создаваемых сущностей.
+     * @param count кол-во создаваемых сущностей.
+     * @param componentTypes идентификаторы типов компонентов создаваемых сущностей.
+     * @param initializer инициализатор каждой созданной сущности.
+     * @return созданные сущности в порядке их создания.
+     * @throws IllegalArgumentException если идентификатор типа сущности или count меньше нуля, один из типов
+     *                                  компонентов меньше нуля, является разреженным или указан несколько раз.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}, а также если initializer не связал с сущностью
+     *                              компонент одного из объектных типов.
+     */
+    public Array<Entity> createEntities(int entityTypeID,
+                                        int count,
+                                        int[] componentTypes,
+                                        EntityInitializer initializer) {
+        if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
+
+        if(entityTypeID < 0) {
+            throw new IllegalArgumentException("ID типа сущности не должно быть меньше нуля. Получено " + entityTypeID);
+        } else if(count < 0) {
+            throw new IllegalArgumentException("Кол-во сущностей не может быть меньше нуля. Получено " + count);
+        }
+        Archetype archetype = ARCHETYPES.get(COMPONENT_TYPES.toArchetypeTypes(componentTypes));
+
+        int[] ids = new int[count];
+        ID_BLOCK.nextIDs(ids, count);
+        Entity[] entities = new Entity[count];
+        int maxID = -1;
+        for(int i = 0; i < count; ++i) {
+            entities[i] = new Entity(entityTypeID, ids[i], ID_BLOCK.generationOf(ids[i]));
+            maxID = Math.max(maxID, ids[i]);
+        }
+        ENTITIES_BY_ID.expandTo(maxID + 1);
+        ARCHETYPES_BY_ENTITIES.expandTo(maxID + 1);
+        INDEXES_BY_ENTITIES_ID.expandTo(maxID + 1);
+        USED_ENTITIES_ID.expandTo(maxID + 1);
+        for(int i = 0; i < count; ++i) {
+            ENTITIES_BY_ID.set(ids[i], entities[i]);
+            ARCHETYPES_BY_ENTITIES.set(ids[i], archetype);
+            USED_ENTITIES_ID.set(ids[i]);
+        }
+        archetype.addEntities(INDEXES_BY_ENTITIES_ID, entities, count, entityTypeID);
+
+        Array<Entity> result = new Array<>(Entity.class, count);
+        for(int i = 0; i < count; ++i) {
+            Entity entity = entities[i];
+            int entityID = entity.getPersonalID();
+
+            initializer.init(entity, i);
+
+            int missingType = ARCHETYPES_BY_ENTITIES.get(entityID).
+                    findMissingObjectType(INDEXES_BY_ENTITIES_ID.get(entityID));
+            if(missingType != -1) {
+                for(int j = count - 1; j >= i; --j) {
+                    if(contains(entities[j])) removeEntity(entities[j]);
+                }
+                throw new IllegalStateException(
+                        "Инициализатор не связал с сущностью " + entity + " компонент типа " + missingType);
+            }
+            result.set(i, entity);
+        }
+        return result;
+    }
+
     /**
      * Удаляет указаную сущность из данного буфера.
      * @param entity удаляемая сущность.
@@ -100,7 +181,7 @@ public final class NewEntitiesBuffer {
 
         if(contains(entity)) {
             int entityID = entity.getPersonalID();
-            MANAGER.freeEntityID(entityID);
+            ID_BLOCK.free(entityID);
 
             ENTITIES_BY_ID.set(entityID, null);
             USED_ENTITIES_ID.clear(entityID);
@@ -108,6 +189,7 @@ public final class NewEntitiesBuffer {
             archetype.destructAllComponent(INDEXES_BY_ENTITIES_ID.get(entityID));
             archetype.unbindAllComponents(INDEXES_BY_ENTITIES_ID.get(entityID));
             archetype.removeEntity(INDEXES_BY_ENTITIES_ID, entity);
+            if(COMPONENT_TYPES.hasSparseTypes()) SPARSE.removeAll(entityID);
         } else {
             throw new IllegalArgumentException(
                     "Сущность " + entity + " была создана не через данный буфер, или уже была удалена.");
@@ -129,30 +211,22 @@ public final class NewEntitiesBuffer {
 
         checkBind(component);
 
-        Entity owner = component.getOwner();
-
-        component.bind();
+        if(COMPONENT_TYPES.isSparse(component.getTypeID())) {
+            SPARSE.bind(component);
+            component.bind();
+            return;
+        }
 
-        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(owner.getPersonalID());
-        if(archetype.containsComponentType(component.getTypeID())) {
-            archetype.addComponent(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID()), component);
-        } else {
-            final Bits MASK = archetype.getCopyComponentTypes().
-                    expandTo(component.getTypeID() + 1).
-                    set(component.getTypeID());
-            int indexBasket = ARCHETYPES.binarySearch((Archetype b) -> b.compareComponentTypes(MASK));
-
-            Archetype newArchetype = null;
-            if (indexBasket != -1) {
-                newArchetype = ARCHETYPES.get(indexBasket);
-            } else {
-                newArchetype = new Archetype(MASK);
-                ARCHETYPES.binaryInsert(newArchetype, Archetype::compareTo);
-            }
-            archetype.moveEntityTo(INDEXES_BY_ENTITIES_ID, owner, newArchetype);
-            newArchetype.addComponent(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID()), component);
-            ARCHETYPES_BY_ENTITIES.set(owner.getPersonalID(), newArchetype);
+        int entityPersonalID = component.getOwner().getPersonalID();
+        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entityPersonalID);
+        if(!archetype.containsComponentType(component.getTypeID())) {
+            Archetype newArchetype = ARCHETYPES.getWith(archetype, component.getTypeID());
+            moveEntity(component.getOwner(), archetype, newArchetype);
+            archetype = newArchetype;
         }
+        archetype.addComponent(INDEXES_BY_ENTITIES_ID.get(entityPersonalID), component);
+
+        component.bind();
     }
 
     /**
@@ -169,26 +243,19 @@ public final class NewEntitiesBuffer {
 
         checkUnbind(component);
 
-        Entity owner = component.getOwner();
+        if(COMPONENT_TYPES.isSparse(component.getTypeID())) {
+            SPARSE.unbind(component);
+            component.unbind();
+            return;
+        }
 
-        int entityPersonalID = owner.getPersonalID();
+        int entityPersonalID = component.getOwner().getPersonalID();
         int entityIndex = INDEXES_BY_ENTITIES_ID.get(entityPersonalID);
         Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entityPersonalID);
-        if(archetype.hasMoreThanOneComponent(entityIndex, component.getTypeID())) {
-            archetype.removeComponent(entityIndex, component);
-        } else {
-            final Bits MASK = archetype.getCopyComponentTypes().clear(component.getTypeID());
-            int indexBasket = ARCHETYPES.binarySearch((Archetype b) -> b.compareComponentTypes(MASK));
-
-            Archetype newArchetype = null;
-            if(indexBasket != -1) {
-                newArchetype = ARCHETYPES.get(indexBasket);
-            } else {
-                newArchetype = new Archetype(MASK);
-                ARCHETYPES.binaryInsert(newArchetype, Archetype::compareTo);
-            }
-            archetype.moveEntityTo(INDEXES_BY_ENTITIES_ID, owner, newArchetype);
-            ARCHETYPES_BY_ENTITIES.set(entityPersonalID, newArchetype);
+
+        archetype.removeComponent(entityIndex, component);
+        if(archetype.getComponent(entityIndex, component.getTypeID()) == null) {
+            moveEntity(component.getOwner(), archetype, ARCHETYPES.getWithout(archetype, component.getTypeID()));
         }
 
         component.unbind();
@@ -217,29 +284,20 @@ public final class NewEntitiesBuffer {
 
         Entity owner = components[0].getOwner();
         int entityPersonalID = owner.getPersonalID();
-        int entityIndex = INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID());
 
         Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entityPersonalID);
-        final Bits MASK = archetype.getCopyComponentTypes();
+        Archetype newArchetype = archetype;
         for(Component comp : components) {
-            MASK.expandTo(comp.getTypeID()).set(comp.getTypeID());
-        }
-
-        if(archetype.containsComponentTypes(MASK)) {
-            for(Component comp : components) archetype.addComponent(entityIndex, comp);
-        } else {
-            int indexArchetype = ARCHETYPES.binarySearch((Archetype b) -> b.compareComponentTypes(MASK));
-            Archetype newArchetype = null;
-            if (indexArchetype != -1) {
-                newArchetype = ARCHETYPES.get(indexArchetype);
-            } else {
-                newArchetype = new Archetype(MASK);
-                ARCHETYPES.binaryInsert(newArchetype, Archetype::compareTo);
+            if(COMPONENT_TYPES.isArchetypal(comp.getTypeID()) && !newArchetype.containsComponentType(comp.getTypeID())) {
+                newArchetype = ARCHETYPES.getWith(newArchetype, comp.getTypeID());
             }
+        }
+        if(newArchetype != archetype) moveEntity(owner, archetype, newArchetype);
 
-            ARCHETYPES_BY_ENTITIES.set(owner.getPersonalID(), newArchetype);
-            archetype.moveEntityTo(INDEXES_BY_ENTITIES_ID, owner, newArchetype);
-            for(Component comp : components) newArchetype.addComponent(entityIndex, comp);
+        int entityIndex = INDEXES_BY_ENTITIES_ID.get(entityPersonalID);
+        for(Component comp : components) {
+            if(COMPONENT_TYPES.isSparse(comp.getTypeID())) SPARSE.bind(comp);
+            else newArchetype.addComponent(entityIndex, comp);
         }
 
         for(Component comp : components) comp.bind();
@@ -270,32 +328,234 @@ public final class NewEntitiesBuffer {
         int entityIndex = INDEXES_BY_ENTITIES_ID.get(entityPersonalID);
 
         Archetype archetype = ARCHETYPES_BY_ENTITIES.get(entityPersonalID);
-        final Bits MASK = archetype.getCopyComponentTypes();
-        boolean hasMoreThanOneComponents = true;
         for(Component comp : components) {
-            MASK.expandTo(comp.getTypeID()).set(comp.getTypeID());
-            hasMoreThanOneComponents &= archetype.hasMoreThanOneComponent(entityIndex, comp.getTypeID());
+            if(COMPONENT_TYPES.isSparse(comp.getTypeID())) SPARSE.unbind(comp);
+            else archetype.removeComponent(entityIndex, comp);
         }
 
-        if(hasMoreThanOneComponents) {
-            for(Component comp : components) archetype.removeComponent(entityIndex, comp);
-        } else {
-            int indexArchetype = ARCHETYPES.binarySearch((Archetype b) -> b.compareComponentTypes(MASK));
-            Archetype newArchetype = null;
-            if (indexArchetype != -1) {
-                newArchetype = ARCHETYPES.get(indexArchetype);
-            } else {
-                newArchetype = new Archetype(MASK);
-                ARCHETYPES.binaryInsert(newArchetype, Archetype::compareTo);
+        Archetype newArchetype = archetype;
+        for(Component comp : components) {
+            if(COMPONENT_TYPES.isArchetypal(comp.getTypeID()) &&
+                    newArchetype.containsComponentType(comp.getTypeID()) &&
+                    archetype.getComponent(entityIndex, comp.getTypeID()) == null) {
+                newArchetype = ARCHETYPES.getWithout(newArchetype, comp.getTypeID());
             }
-
-            ARCHETYPES_BY_ENTITIES.set(entityPersonalID, newArchetype);
-            archetype.moveEntityTo(INDEXES_BY_ENTITIES_ID, owner, newArchetype);
         }
+        if(newArchetype != archetype) moveEntity(owner, archetype, newArchetype);
 
         for(Component comp : components) comp.unbind();
     }
 
+    /**
+     * Связывает с указанной сущностью компонент структурного типа
+     * (см. {@link EntityComponentManager#registerStructType(int, Schema)}). Все поля нового компонента будут равны
+     * нулю.
+     * @param owner сущность, с которой связывается компонент.
+     * @param componentTypeID идентификатор структурного типа компонентов.
+     * @throws IllegalArgumentException если сущность не была создана через данный буфер или была удалена, тип
+     *                                  компонентов не зарегистрирован как структурный или сущность уже имеет
+     *                                  компонент этого типа.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}
+     */
+    public void bindStruct(Entity owner, int componentTypeID) {
+        if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
+
+        if(!COMPONENT_TYPES.isStruct(componentTypeID)) {
+            throw new IllegalArgumentException(
+                    "Тип компонентов " + componentTypeID + " не зарегистрирован как структурный.");
+        } else if(!contains(owner)) {
+            throw new IllegalArgumentException(
+                    "Сущность " + owner + " была создана не через данный буфер или была удалена.");
+        }
+
+        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(owner.getPersonalID());
+        if(archetype.containsComponentType(componentTypeID)) {
+            throw new IllegalArgumentException(
+                    "Сущность " + owner + " уже имеет компонент структурного типа " + componentTypeID);
+        }
+        moveEntity(owner, archetype, ARCHETYPES.getWith(archetype, componentTypeID));
+    }
+
+    /**
+     * Отвязывает от указанной сущности компонент структурного типа
+     * (см. {@link EntityComponentManager#registerStructType(int, Schema)}).
+     * @param owner сущность, от которой отвязывается компонент.
+     * @param componentTypeID идентификатор структурного типа компонентов.
+     * @throws IllegalArgumentException если сущность не была создана через данный буфер или была удалена, или
+     *                                  не имеет компонента указанного структурного типа.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}
+     */
+    public void unbindStruct(Entity owner, int componentTypeID) {
+        if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
+
+        Archetype archetype = getArchetypeWithStruct(owner, componentTypeID);
+        moveEntity(owner, archetype, ARCHETYPES.getWithout(archetype, componentTypeID));
+    }
+
+    /**
+     * Связывает с указанной сущностью тег (см. {@link EntityComponentManager#registerTagType(int)}).
+     * @param owner сущность, с которой связывается тег.
+     * @param componentTypeID идентификатор типа компонентов, зарегистрированного как тег.
+     * @throws IllegalArgumentException если сущность не была создана через данный буфер или была удалена, тип
+     *                                  компонентов не зарегистрирован как тег или сущность уже имеет этот тег.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}
+     */
+    public void bindTag(Entity owner, int componentTypeID) {
+        if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
+
+        if(!COMPONENT_TYPES.isTag(componentTypeID)) {
+            throw new IllegalArgumentException("Тип компонентов " + componentTypeID + " не зарегистрирован как тег.");
+        } else if(!contains(owner)) {
+            throw new IllegalArgumentException(
+                    "Сущность " + owner + " была создана не через данный буфер или была удалена.");
+        }
+
+        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(owner.getPersonalID());
+        if(archetype.containsComponentType(componentTypeID)) {
+            throw new IllegalArgumentException("Сущность " + owner + " уже имеет тег " + componentTypeID);
+        }
+        moveEntity(owner, archetype, ARCHETYPES.getWith(archetype, componentTypeID));
+    }
+
+    /**
+     * Отвязывает от указанной сущности тег (см. {@link EntityComponentManager#registerTagType(int)}).
+     * @param owner сущность, от которой отвязывается тег.
+     * @param componentTypeID идентификатор типа компонентов, зарегистрированного как тег.
+     * @throws IllegalArgumentException если сущность не была создана через данный буфер или была удалена, или
+     *                                  не имеет указанного тега.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}
+     */
+    public void unbindTag(Entity owner, int componentTypeID) {
+        if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
+
+        if(!contains(owner)) {
+            throw new IllegalArgumentException(
+                    "Сущность " + owner + " была создана не через данный буфер или была удалена.");
+        }
+
+        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(owner.getPersonalID());
+        if(!COMPONENT_TYPES.isTag(componentTypeID) || !archetype.containsComponentType(componentTypeID)) {
+            throw new IllegalArgumentException("Сущность " + owner + " не имеет тега " + componentTypeID);
+        }
+        moveEntity(owner, archetype, ARCHETYPES.getWithout(archetype, componentTypeID));
+    }
+
+    /**
+     * Аналог {@link EntityComponentManager#getInt(Entity, int, int)} для сущностей данного буфера.
+     * @throws IllegalArgumentException если сущность не была создана через данный буфер или была удалена, не имеет
+     *                                  компонента указанного структурного типа или поле имеет другой тип.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}
+     */
+    public int getInt(Entity owner, int componentTypeID, int fieldIndex) {
+        if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
+
+        return getStructColumn(owner, componentTypeID).
+                getInt(fieldIndex, Chunk.row(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID())));
+    }
+
+    /**
+     * Аналог {@link EntityComponentManager#setInt(Entity, int, int, int)} для сущностей данного буфера.
+     * @throws IllegalArgumentException если сущность не была создана через данный буфер или была удалена, не имеет
+     *                                  компонента указанного структурного типа или поле имеет другой тип.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}
+     */
+    public void setInt(Entity owner, int componentTypeID, int fieldIndex, int value) {
+        if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
+
+        getStructColumn(owner, componentTypeID).
+                setInt(fieldIndex, Chunk.row(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID())), value);
+    }
+
+    /**
+     * Аналог {@link EntityComponentManager#getLong(Entity, int, int)} для сущностей данного буфера.
+     * @throws IllegalArgumentException если сущность не была создана через данный буфер или была удалена, не имеет
+     *                                  компонента указанного структурного типа или поле имеет другой тип.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}
+     */
+    public long getLong(Entity owner, int componentTypeID, int fieldIndex) {
+        if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
+
+        return getStructColumn(owner, componentTypeID).
+                getLong(fieldIndex, Chunk.row(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID())));
+    }
+
+    /**
+     * Аналог {@link EntityComponentManager#setLong(Entity, int, int, long)} для сущностей данного буфера.
+     * @throws IllegalArgumentException если сущность не была создана через данный буфер или была удалена, не имеет
+     *                                  компонента указанного структурного типа или поле имеет другой тип.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}
+     */
+    public void setLong(Entity owner, int componentTypeID, int fieldIndex, long value) {
+        if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
+
+        getStructColumn(owner, componentTypeID).
+                setLong(fieldIndex, Chunk.row(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID())), value);
+    }
+
+    /**
+     * Аналог {@link EntityComponentManager#getFloat(Entity, int, int)} для сущностей данного буфера.
+     * @throws IllegalArgumentException если сущность не была создана через данный буфер или была удалена, не имеет
+     *                                  компонента указанного структурного типа или поле имеет другой тип.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}
+     */
+    public float getFloat(Entity owner, int componentTypeID, int fieldIndex) {
+        if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
+
+        return getStructColumn(owner, componentTypeID).
+                getFloat(fieldIndex, Chunk.row(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID())));
+    }
+
+    /**
+     * Аналог {@link EntityComponentManager#setFloat(Entity, int, int, float)} для сущностей данного буфера.
+     * @throws IllegalArgumentException если сущность не была создана через данный буфер или была удалена, не имеет
+     *                                  компонента указанного структурного типа или поле имеет другой тип.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}
+     */
+    public void setFloat(Entity owner, int componentTypeID, int fieldIndex, float value) {
+        if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
+
+        getStructColumn(owner, componentTypeID).
+                setFloat(fieldIndex, Chunk.row(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID())), value);
+    }
+
+    /**
+     * Аналог {@link EntityComponentManager#getDouble(Entity, int, int)} для сущностей данного буфера.
+     * @throws IllegalArgumentException если сущность не была создана через данный буфер или была удалена, не имеет
+     *                                  компонента указанного структурного типа или поле имеет другой тип.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}
+     */
+    public double getDouble(Entity owner, int componentTypeID, int fieldIndex) {
+        if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
+
+        return getStructColumn(owner, componentTypeID).
+                getDouble(fieldIndex, Chunk.row(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID())));
+    }
+
+    /**
+     * Аналог {@link EntityComponentManager#setDouble(Entity, int, int, double)} для сущностей данного буфера.
+     * @throws IllegalArgumentException если сущность не была создана через данный буфер или была удалена, не имеет
+     *                                  компонента указанного структурного типа или поле имеет другой тип.
+     * @throws IllegalStateException при попытке использовать данный буфер после его слияния с
+     *                              {@link EntityComponentManager}
+     */
+    public void setDouble(Entity owner, int componentTypeID, int fieldIndex, double value) {
+        if(!isValid) throw new IllegalStateException("Данный буфер не может быть переиспользован.");
+
+        getStructColumn(owner, componentTypeID).
+                setDouble(fieldIndex, Chunk.row(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID())), value);
+    }
+
     /**
      * Возвращает сущность созданую и хранящуюся в данном буфере, и имеющую указанный personalID
      * или null - если сущности с таким ID не хранится в данном буфере на момент вызова этого метода.
@@ -317,7 +577,28 @@ public final class NewEntitiesBuffer {
      * @return true, если указаная сущность на момент вызова этого метода находится в данном буфере, иначе - false.
      */
     public boolean contains(Entity entity) {
-        return entity.equals(ENTITIES_BY_ID.get(entity.getPersonalID()));
+        return entity.equals(getEntity(entity.getPersonalID()));
+    }
+
+    /**
+     * Очищает данный буфер и делает его снова валидным (см. {@link #isValid()}), сохраняя его архетипы и емкость
+     * внутренних массивов. Если буфер ещё не был слит с {@link EntityComponentManager}, все созданные через него
+     * сущности удаляются (см. {@link #removeEntity(Entity)}) и никогда не будут добавлены в менеджер. Метод должен
+     * вызываться в потоке, который работает с данным буфером.
+     */
+    public void reset() {
+        if(isValid) {
+            for(int id = USED_ENTITIES_ID.nextSetBit(0); id != -1; id = USED_ENTITIES_ID.nextSetBit(id + 1)) {
+                removeEntity(ENTITIES_BY_ID.get(id));
+            }
+        }
+
+        ARCHETYPES.freeAll();
+        USED_ENTITIES_ID.clearAll();
+        ENTITIES_BY_ID.clear();
+        INDEXES_BY_ENTITIES_ID.clear();
+        ARCHETYPES_BY_ENTITIES.clear();
+        isValid = true;
     }
 
     /**
@@ -330,11 +611,60 @@ public final class NewEntitiesBuffer {
         return isValid;
     }
 
+    //Возвращает неиспользованные ID сущностей блока данного буфера для переиспользования.
     void invalid() {
         isValid = false;
+        ID_BLOCK.release();
+    }
+
+    boolean belongsTo(EntityComponentManager manager) {
+        return MANAGER == manager;
+    }
+
+    //Используется пулом буферов менеджера для обнаружения повторного возврата буфера.
+    boolean setPooled(boolean pooled) {
+        boolean previous = isPooled;
+        isPooled = pooled;
+        return previous;
+    }
+
+    private void moveEntity(Entity entity, Archetype from, Archetype to) {
+        ARCHETYPES_BY_ENTITIES.set(entity.getPersonalID(), to);
+        from.moveEntityTo(INDEXES_BY_ENTITIES_ID, entity, to);
+    }
+
+    private StructColumn getStructColumn(Entity owner, int componentTypeID) {
+        return getArchetypeWithStruct(owner, componentTypeID).
+                getStructColumn(INDEXES_BY_ENTITIES_ID.get(owner.getPersonalID()), componentTypeID);
+    }
+
+    private Archetype getArchetypeWithStruct(Entity owner, int componentTypeID) {
+        if(!contains(owner)) {
+            throw new IllegalArgumentException(
+                    "Сущность " + owner + " была создана не через данный буфер или была удалена.");
+        }
+
+        Archetype archetype = ARCHETYPES_BY_ENTITIES.get(owner.getPersonalID());
+        if(!archetype.containsStructColumn(componentTypeID)) {
+            throw new IllegalArgumentException(
+                    "Сущность " + owner + " не имеет компонента структурного типа " + componentTypeID);
+        }
+        return archetype;
+    }
+
+    private void checkObjectType(Component component) {
+        if(COMPONENT_TYPES.isStruct(component.getTypeID())) {
+            throw new IllegalArgumentException(
+                    "Тип компонента " + component + " зарегистрирован как структурный. Используйте bindStruct().");
+        } else if(COMPONENT_TYPES.isTag(component.getTypeID())) {
+            throw new IllegalArgumentException(
+                    "Тип компонента " + component + " зарегистрирован как тег. Используйте bindTag().");
+        }
     }
 
     private void checkBind(Component component) {
+        checkObjectType(component);
+
         Entity owner = component.getOwner();
         if(!contains(owner)) {
             throw new IllegalArgumentException(
@@ -381,6 +711,7 @@ public final class NewEntitiesBuffer {
         }
 
         for(Component comp : components) {
+            checkObjectType(comp);
             if(comp.isBind()) {
                 throw new IllegalArgumentException("Компонент " + comp + " уже связан с сущностью " + owner);
             }
@@ -0,0 +1,195 @@
+package com.bakuard.ecsEngine.core;
+
+import com.bakuard.ecsEngine.core.utils.Bits;
+
+import java.util.ArrayList;
+import java.util.function.Function;
+
+/**
+ * Шаблон однотипных сущностей (например, "орк" или "стрела"), по которому {@link EntityComponentManager} создает
+ * сразу множество сущностей с одним и тем же набором компонентов (см.
+ * {@link EntityComponentManager#instantiate(Prefab, int)}). Шаблон хранит тип создаваемых сущностей, набор типов их
+ * компонентов и функцию создания каждого компонента объектного типа. Кроме того, шаблон запоминает архетип
+ * с его набором типов компонентов, поэтому создание сущностей по шаблону не строит набор типов компонентов и не
+ * ищет архетип заново, а каждая сущность сразу добавляется в этот архетип, минуя промежуточные архетипы.
+ * <br/><br/>
+ * Шаблоны описываются с помощью {@link Prefab.Builder} и регистрируются методом
+ * {@link EntityComponentManager#createPrefab(Prefab.Builder)}. Объекты данного класса неизменяемы с точки зрения
+ * пользователя.
+ */
+public final class Prefab {
+
+    private final EntityComponentManager MANAGER;
+    private final int ENTITY_TYPE_ID;
+    private final Bits COMPONENT_TYPES;
+    private final int[] OBJECT_TYPES; //Тип компонентов создаваемых каждой функцией из FACTORIES.
+    private final ArrayList<Function<Entity, ? extends Component>> FACTORIES;
+    private final EntityInitializer INITIALIZER;
+    private Archetype archetype;
+    private int archetypesVersion; //Версия списка архетипов (см. Archetypes#getVersion()), для которой найден archetype.
+
+    Prefab(EntityComponentManager manager, Builder builder, Bits componentTypes) {
+        MANAGER = manager;
+        ENTITY_TYPE_ID = builder.entityTypeID;
+        COMPONENT_TYPES = componentTypes;
+        OBJECT_TYPES = builder.objectTypes.stream().mapToInt(Integer::intValue).toArray();
+        FACTORIES = new ArrayList<>(builder.factories);
+        INITIALIZER = builder.initializer;
+    }
+
+    /**
+     * Возвращает идентификатор типа сущностей создаваемых по данному шаблону.
+     * @return идентификатор типа сущностей.
+     */
+    public int getEntityTypeID() {
+        return ENTITY_TYPE_ID;
+    }
+
+    /**
+     * Возвращает копию набора типов компонентов сущностей создаваемых по данному шаблону.
+     * @return копию набора типов компонентов.
+     */
+    public Bits getComponentTypes() {
+        return new Bits(COMPONENT_TYPES);
+    }
+
+    boolean belongsTo(EntityComponentManager manager) {
+        return MANAGER == manager;
+    }
+
+    //Возвращает архетип шаблона. Архетип ищется заново только если после предыдущего поиска удалялись архетипы.
+    Archetype getArchetype(Archetypes archetypes) {
+        if(archetype == null || archetypesVersion != archetypes.getVersion()) {
+            archetype = archetypes.get(new Bits(COMPONENT_TYPES));
+            archetypesVersion = archetypes.getVersion();
+        }
+        return archetype;
+    }
+
+    int getNumberFactories() {
+        return FACTORIES.size();
+    }
+
+    int getFactoryType(int index) {
+        return OBJECT_TYPES[index];
+    }
+
+    Function<Entity, ? extends Component> getFactory(int index) {
+        return FACTORIES.get(index);
+    }
+
+    EntityInitializer getInitializer() {
+        return INITIALIZER;
+    }
+
+
+    /**
+     * Используется для описания шаблона сущностей. Готовое описание передается методу
+     * {@link EntityComponentManager#createPrefab(Prefab.Builder)}, который проверяет типы компонентов и создает
+     * шаблон.
+     */
+    public static final class Builder {
+
+        private final int entityTypeID;
+        private final ArrayList<Integer> objectTypes;
+        private final ArrayList<Function<Entity, ? extends Component>> factories;
+        private final ArrayList<Integer> structTypes;
+        private final ArrayList<Integer> tagTypes;
+        private EntityInitializer initializer;
+
+        /**
+         * Создает объект Builder для шаблона сущностей указанного типа без компонентов.
+         * @param entityTypeID идентификатор типа сущностей создаваемых по шаблону.
+         * @throws IllegalArgumentException если идентификатор типа сущности меньше нуля.
+         */
+        public Builder(int entityTypeID) {
+            if(entityTypeID < 0) {
+                throw new IllegalArgumentException(
+                        "ID типа сущности не должно быть меньше нуля. Получено " + entityTypeID);
+            }
+            this.entityTypeID = entityTypeID;
+            objectTypes = new ArrayList<>();
+            factories = new ArrayList<>();
+            structTypes = new ArrayList<>();
+            tagTypes = new ArrayList<>();
+        }
+
+        /**
+         * Добавляет в шаблон компонент объектного типа. Для каждой создаваемой сущности factory должна возвращать
+         * новый, ещё не связанный компонент указанного типа, владельцем которого является переданная сущность
+         * (например, копию компонента-образца).
+         * @param componentTypeID идентификатор объектного типа компонентов.
+         * @param factory функция создания компонента для новой сущности.
+         * @return ссылку на этот же объект Builder.
+         * @throws NullPointerException если factory равна null.
+         */
+        public Builder component(int componentTypeID, Function<Entity, ? extends Component> factory) {
+            if(factory == null) throw new NullPointerException("Функция создания компонента не может быть равна null.");
+            objectTypes.add(componentTypeID);
+            factories.add(factory);
+            return this;
+        }
+
+        /**
+         * Добавляет в шаблон компонент структурного типа. Все поля компонента новой сущности будут равны нулю, если
+         * их не изменит инициализатор шаблона (см. {@link #initializer(EntityInitializer)}).
+         * @param componentTypeID идентификатор структурного типа компонентов.
+         * @return ссылку на этот же объект Builder.
+         */
+        public Builder struct(int componentTypeID) {
+            structTypes.add(componentTypeID);
+            return this;
+        }
+
+        /**
+         * Добавляет в шаблон тег.
+         * @param componentTypeID идентификатор типа компонентов, зарегистрированного как тег.
+         * @return ссылку на этот же объект Builder.
+         */
+        public Builder tag(int componentTypeID) {
+            tagTypes.add(componentTypeID);
+            return this;
+        }
+
+        /**
+         * Задает инициализатор, который вызывается для каждой созданной по шаблону сущности после связывания с ней
+         * всех компонентов шаблона. Может использоваться, например, для задания значений полей компонентов
+         * структурных типов.
+         * @param initializer инициализатор сущностей или null.
+         * @return ссылку на этот же объект Builder.
+         */
+        public Builder initializer(EntityInitializer initializer) {
+            this.initializer = initializer;
+            return this;
+        }
+
+        //Проверяет типы компонентов описания и возвращает набор типов компонентов архетипа шаблона.
+        Bits toComponentTypes(ComponentTypes types) {
+            int[] all = new int[objectTypes.size() + structTypes.size() + tagTypes.size()];
+            int index = 0;
+            for(int componentTypeID : objectTypes) {
+                if(componentTypeID >= 0 && !types.isObject(componentTypeID)) {
+                    throw new IllegalArgumentException("Тип компонентов " + componentTypeID + " не является объектным.");
+                }
+                all[index++] = componentTypeID;
+            }
+            for(int componentTypeID : structTypes) {
+                if(componentTypeID >= 0 && !types.isStruct(componentTypeID)) {
+                    throw new IllegalArgumentException(
+                            "Тип компонентов " + componentTypeID + " не зарегистрирован как структурный.");
+                }
+                all[index++] = componentTypeID;
+            }
+            for(int componentTypeID : tagTypes) {
+                if(componentTypeID >= 0 && !types.isTag(componentTypeID)) {
+                    throw new IllegalArgumentException(
+                            "Тип компонентов " + componentTypeID + " не зарегистрирован как тег.");
+                }
+                all[index++] = componentTypeID;
+            }
+            return types.toArchetypeTypes(all);
+        }
+
+    }
+
+}
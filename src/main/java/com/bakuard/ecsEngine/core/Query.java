@@ -0,0 +1,108 @@
+package com.bakuard.ecsEngine.core;
+
+import com.bakuard.ecsEngine.core.utils.Array;
+import com.bakuard.ecsEngine.core.utils.IntArray;
+
+/**
+ * Зарегистрированный в {@link EntityComponentManager} запрос на перебор сущностей удовлетворяющих критерию
+ * задаваемому объектом типа {@link EntitiesFilter}. В отличие от методов перебора принимающих EntitiesFilter,
+ * запрос хранит список архетипов (наборов сущностей с одинаковым набором типов компонентов), набор типов
+ * компонентов которых удовлетворяет фильтру, а также результаты проверки каждого типа сущностей. Список архетипов
+ * пополняется только при создании нового архетипа, поэтому повторный перебор сущностей через запрос не вызывает
+ * методы фильтра для уже проверенных архетипов и типов сущностей.
+ * <br/><br/>
+ * Т.к. результаты проверок кешируются, фильтр запроса должен для одних и тех же аргументов всегда возвращать
+ * один и тот же результат. Запросы создаются методом {@link EntityComponentManager#createQuery(EntitiesFilter)}
+ * и используются в методах {@link EntityComponentManager#forEach(Query, java.util.function.Consumer)} и
+ * {@link EntityComponentManager#forEachChunk(Query, java.util.function.Consumer)}.
+ */
+public final class Query {
+
+    private static final int UNKNOWN = 0;
+    private static final int VALID = 1;
+    private static final int INVALID = 2;
+
+    private final EntityComponentManager MANAGER;
+    private final EntitiesFilter FILTER;
+    private final ComponentTypes TYPES;
+    private final Array<Archetype> ARCHETYPES;
+    private final IntArray ENTITY_TYPES; //Индекс - ID типа сущности, значение - UNKNOWN, VALID или INVALID.
+    private boolean isValid;
+
+    Query(EntityComponentManager manager, EntitiesFilter filter, ComponentTypes types) {
+        MANAGER = manager;
+        FILTER = filter;
+        TYPES = types;
+        ARCHETYPES = new Array<>(Archetype.class, 0);
+        ENTITY_TYPES = new IntArray(0);
+        isValid = true;
+    }
+
+    /**
+     * Возвращает фильтр, с которым был создан данный запрос.
+     * @return фильтр данного запроса.
+     */
+    public EntitiesFilter getFilter() {
+        return FILTER;
+    }
+
+    /**
+     * Возвращает true, если данный запрос зарегистрирован в {@link EntityComponentManager} и может быть
+     * использован, иначе - false. Запрос перестает быть валидным после вызова
+     * {@link EntityComponentManager#removeQuery(Query)}.
+     * @return true, если данный запрос может быть использован, иначе - false.
+     */
+    public boolean isValid() {
+        return isValid;
+    }
+
+    /**
+     * Возвращает кол-во архетипов (наборов сущностей с одинаковым набором типов компонентов), набор типов
+     * компонентов которых на момент вызова удовлетворяет фильтру данного запроса.
+     * @return кол-во архетипов удовлетворяющих фильтру данного запроса.
+     */
+    public int getNumberArchetypes() {
+        return ARCHETYPES.getLength();
+    }
+
+    boolean belongsTo(EntityComponentManager manager) {
+        return isValid && MANAGER == manager;
+    }
+
+    void invalid() {
+        isValid = false;
+        clearArchetypes();
+    }
+
+    void clearArchetypes() {
+        ARCHETYPES.clear();
+    }
+
+    /*
+     * Вызывается при создании нового архетипа. Если фильтр запроса зависит от разреженных типов компонентов (см.
+     * ComponentTypes#isSparseFilter()), запрос хранит все архетипы, т.к. набор типов компонентов проверяется
+     * отдельно для каждой сущности.
+     */
+    void tryAdd(Archetype archetype) {
+        if(TYPES.isSparseFilter(FILTER) || archetype.isValidComponentTypes(FILTER)) ARCHETYPES.add(archetype);
+    }
+
+    void remove(Archetype archetype) {
+        int index = ARCHETYPES.linearSearch(archetype);
+        if(index != -1) ARCHETYPES.quickRemove(index);
+    }
+
+    Archetype get(int index) {
+        return ARCHETYPES.get(index);
+    }
+
+    boolean isValidEntityType(int entityTypeID) {
+        int state = entityTypeID < ENTITY_TYPES.getLength() ? ENTITY_TYPES.get(entityTypeID) : UNKNOWN;
+        if(state == UNKNOWN) {
+            state = FILTER.isValidEntityType(entityTypeID) ? VALID : INVALID;
+            ENTITY_TYPES.setAndExpand(entityTypeID, state);
+        }
+        return state == VALID;
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.bakuard.ecsEngine.core;
+
+import com.bakuard.ecsEngine.core.utils.Array;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * Многоразовый курсор для перебора сущностей удовлетворяющих критерию задаваемому объектом типа
+ * {@link EntitiesFilter} или запросом {@link Query}. В отличие от {@link EntityComponentManager#getEntities(EntitiesFilter)},
+ * курсор не создает новых объектов ни при перезапуске перебора, ни во время перебора, поэтому один курсор можно
+ * хранить в системе и использовать на каждом шаге игрового цикла. Пример использования:
+ * <pre>
+ *     cursor.reset(filter);
+ *     while(cursor.advance()) {
+ *         Entity entity = cursor.entity();
+ *         ...
+ *     }
+ * </pre>
+ * Как и итераторы Java, курсор придерживается политики fail-fast: если менеджер был модифицирован после вызова
+ * reset(), метод {@link #advance()} выбросит {@link ConcurrentModificationException}. Для создания, удаления и
+ * модификации состава компонентов сущностей во время перебора используйте класс {@link EntityCommandBuffer}.
+ * <br/><br/>
+ * Курсоры создаются методом {@link EntityComponentManager#createCursor()}. Данный класс не является потокобезопасным.
+ */
+public final class QueryCursor {
+
+    private final EntityComponentManager MANAGER;
+    private EntitiesFilter filter;
+    private Query query;
+    private Array<Archetype> candidates; //null - перебираются все архетипы менеджера.
+    private int numberArchetypes;
+    private int expectedModCount;
+    private int archetypeIndex;
+    private int chunkIndex;
+    private int row;
+    private Archetype archetype;
+    private Chunk chunk;
+    private Entity current;
+
+    QueryCursor(EntityComponentManager manager) {
+        MANAGER = manager;
+    }
+
+    /**
+     * Подготавливает курсор к перебору сущностей удовлетворяющих указанному фильтру. Предыдущий перебор (если он
+     * не был завершен) прекращается. После вызова этого метода курсор не указывает ни на одну сущность - для
+     * перехода к первой сущности вызовите {@link #advance()}.
+     * @param filter объект задающий критерий отбора сущностей.
+     * @return ссылку на этот же курсор.
+     * @throws NullPointerException если filter равен null.
+     */
+    public QueryCursor reset(EntitiesFilter filter) {
+        if(filter == null) throw new NullPointerException("Фильтр не может быть равен null.");
+        this.filter = filter;
+        query = null;
+        candidates = MANAGER.getCandidates(filter);
+        numberArchetypes = candidates != null ? candidates.getLength() : MANAGER.getNumberArchetypes();
+        return restart();
+    }
+
+    /**
+     * Подготавливает курсор к перебору сущностей удовлетворяющих указанному запросу. Перебираются только
+     * архетипы закешированные запросом (см. {@link Query}). Предыдущий перебор (если он не был завершен)
+     * прекращается.
+     * @param query запрос задающий критерий отбора сущностей.
+     * @return ссылку на этот же курсор.
+     * @throws IllegalArgumentException если запрос был создан другим менеджером или удален.
+     */
+    public QueryCursor reset(Query query) {
+        MANAGER.checkQuery(query);
+        this.query = query;
+        filter = query.getFilter();
+        candidates = null;
+        numberArchetypes = query.getNumberArchetypes();
+        return restart();
+    }
+
+    /**
+     * Переходит к следующей сущности удовлетворяющей критерию, заданному последним вызовом метода reset().
+     * @return true, если такая сущность найдена, false - если перебор завершен.
+     * @throws IllegalStateException если перед вызовом данного метода ни разу не вызывался метод reset().
+     * @throws ConcurrentModificationException если EntityComponentManager был модифицирован после последнего вызова
+     *                                         метода reset().
+     */
+    public boolean advance() {
+        if(filter == null) throw new IllegalStateException("Перед перебором необходимо вызвать метод reset().");
+        if(expectedModCount != MANAGER.getModCount()) {
+            throw new ConcurrentModificationException(
+                    "Нельзя изменять состояние EntityComponentManager во время перебора сущностей.");
+        }
+
+        current = null;
+        while(true) {
+            if(chunk != null) {
+                while(row + 1 < chunk.getLength()) {
+                    Entity entity = chunk.getEntity(++row);
+                    if(isValid(entity)) {
+                        current = entity;
+                        return true;
+                    }
+                }
+                chunk = ++chunkIndex < archetype.getNumberChunks() ? archetype.getChunk(chunkIndex) : null;
+                row = -1;
+            } else if(archetypeIndex + 1 < numberArchetypes) {
+                archetype = nextArchetype(++archetypeIndex);
+                chunkIndex = 0;
+                row = -1;
+                chunk = archetype != null && archetype.getNumberChunks() > 0 ? archetype.getChunk(0) : null;
+            } else {
+                archetype = null;
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Возвращает сущность, на которую указывает курсор после последнего успешного вызова {@link #advance()}.
+     * @return текущую сущность.
+     * @throws NoSuchElementException если курсор не указывает ни на одну сущность.
+     */
+    public Entity entity() {
+        if(current == null) throw new NoSuchElementException("Курсор не указывает ни на одну сущность.");
+        return current;
+    }
+
+    /**
+     * Возвращает индекс текущей сущности в её группе сущностей (см. {@link #chunk()}). Этот индекс можно
+     * использовать для чтения компонентов сущности из столбцов группы, например
+     * {@link Chunk#getComponent(int, int)}.
+     * @return индекс текущей сущности в её группе.
+     * @throws NoSuchElementException если курсор не указывает ни на одну сущность.
+     */
+    public int index() {
+        if(current == null) throw new NoSuchElementException("Курсор не указывает ни на одну сущность.");
+        return row;
+    }
+
+    /**
+     * Возвращает группу сущностей, в которой находится текущая сущность.
+     * @return группу сущностей текущей сущности.
+     * @throws NoSuchElementException если курсор не указывает ни на одну сущность.
+     */
+    public Chunk chunk() {
+        if(current == null) throw new NoSuchElementException("Курсор не указывает ни на одну сущность.");
+        return chunk;
+    }
+
+    private QueryCursor restart() {
+        expectedModCount = MANAGER.getModCount();
+        archetypeIndex = -1;
+        chunkIndex = 0;
+        row = -1;
+        archetype = null;
+        chunk = null;
+        current = null;
+        return this;
+    }
+
+    //Возвращает архетип с указанным индексом или null, если архетип не удовлетворяет фильтру.
+    private Archetype nextArchetype(int index) {
+        if(query != null) return query.get(index);
+        Archetype next = candidates != null ? candidates.get(index) : MANAGER.getArchetype(index);
+        return MANAGER.isValidArchetype(next, filter) ? next : null;
+    }
+
+    private boolean isValid(Entity entity) {
+        return query != null ?
+                MANAGER.isValidEntity(query, archetype, entity) :
+                MANAGER.isValidEntity(archetype, filter, entity);
+    }
+
+}
@@ -0,0 +1,186 @@
+package com.bakuard.ecsEngine.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Описывает набор примитивных полей структурного типа компонентов. В отличие от обычных компонентов
+ * (см. {@link Component}), структурные компоненты не являются объектами: их значения хранятся в плотных
+ * столбцах отдельно для каждого архетипа (см. {@link StructColumn}). Это позволяет перебирать данные большого
+ * кол-ва сущностей последовательно, не переходя по ссылкам на отдельные объекты.
+ * <br/><br/>
+ * Каждому полю схемы соответсвует индекс - порядковый номер поля в порядке его добавления через {@link Builder}.
+ * Именно этот индекс используется для доступа к значениям поля. Объекты данного класса неизменяемы.
+ * Для регистрации структурного типа компонентов используйте метод
+ * {@link EntityComponentManager#registerStructType(int, Schema)}.
+ */
+public final class Schema {
+
+    /**
+     * Допустимые типы полей структурного компонента.
+     */
+    public enum FieldType {
+        INT(Integer.BYTES),
+        LONG(Long.BYTES),
+        FLOAT(Float.BYTES),
+        DOUBLE(Double.BYTES);
+
+        private final int SIZE;
+
+        FieldType(int size) {
+            SIZE = size;
+        }
+
+        /**
+         * Возвращает размер значения данного типа в байтах.
+         * @return размер значения данного типа в байтах.
+         */
+        public int getSize() {
+            return SIZE;
+        }
+    }
+
+
+    private final String[] NAMES;
+    private final FieldType[] TYPES;
+
+    private Schema(Builder builder) {
+        NAMES = builder.names.toArray(new String[0]);
+        TYPES = builder.types.toArray(new FieldType[0]);
+    }
+
+    /**
+     * Возвращает кол-во полей данной схемы.
+     * @return кол-во полей данной схемы.
+     */
+    public int getNumberFields() {
+        return TYPES.length;
+    }
+
+    /**
+     * Возвращает тип поля с указанным индексом.
+     * @param fieldIndex индекс поля.
+     * @return тип поля с указанным индексом.
+     * @throws ArrayIndexOutOfBoundsException если не соблюдается условие
+     *                                        fieldIndex >= 0 && fieldIndex < {@link #getNumberFields()}
+     */
+    public FieldType getFieldType(int fieldIndex) {
+        return TYPES[fieldIndex];
+    }
+
+    /**
+     * Возвращает имя поля с указанным индексом.
+     * @param fieldIndex индекс поля.
+     * @return имя поля с указанным индексом.
+     * @throws ArrayIndexOutOfBoundsException если не соблюдается условие
+     *                                        fieldIndex >= 0 && fieldIndex < {@link #getNumberFields()}
+     */
+    public String getFieldName(int fieldIndex) {
+        return NAMES[fieldIndex];
+    }
+
+    /**
+     * Возвращает индекс поля с указанным именем или -1, если данная схема не содержит такого поля.
+     * @param fieldName имя поля.
+     * @return индекс поля с указанным именем или -1.
+     */
+    public int getFieldIndex(String fieldName) {
+        for(int i = 0; i < NAMES.length; i++) {
+            if(NAMES[i].equals(fieldName)) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return "Schema{" +
+                "NAMES=" + Arrays.toString(NAMES) +
+                ", TYPES=" + Arrays.toString(TYPES) +
+                '}';
+    }
+
+
+    /**
+     * Объекты данного класса используются для пошагового создания объектов {@link Schema}. Индекс каждого поля
+     * равен кол-ву полей добавленных до него.
+     */
+    public static final class Builder {
+
+        private final ArrayList<String> names;
+        private final ArrayList<FieldType> types;
+
+        /**
+         * Создает объект Builder для схемы без полей.
+         */
+        public Builder() {
+            names = new ArrayList<>();
+            types = new ArrayList<>();
+        }
+
+        /**
+         * Добавляет в схему поле типа int.
+         * @param fieldName имя поля.
+         * @return ссылку на этот же объект Builder.
+         * @throws IllegalArgumentException если поле с таким именем уже было добавлено.
+         * @throws NullPointerException если fieldName равен null.
+         */
+        public Builder addInt(String fieldName) {
+            return addField(fieldName, FieldType.INT);
+        }
+
+        /**
+         * Добавляет в схему поле типа long.
+         * @param fieldName имя поля.
+         * @return ссылку на этот же объект Builder.
+         * @throws IllegalArgumentException если поле с таким именем уже было добавлено.
+         * @throws NullPointerException если fieldName равен null.
+         */
+        public Builder addLong(String fieldName) {
+            return addField(fieldName, FieldType.LONG);
+        }
+
+        /**
+         * Добавляет в схему поле типа float.
+         * @param fieldName имя поля.
+         * @return ссылку на этот же объект Builder.
+         * @throws IllegalArgumentException если поле с таким именем уже было добавлено.
+         * @throws NullPointerException если fieldName равен null.
+         */
+        public Builder addFloat(String fieldName) {
+            return addField(fieldName, FieldType.FLOAT);
+        }
+
+        /**
+         * Добавляет в схему поле типа double.
+         * @param fieldName имя поля.
+         * @return ссылку на этот же объект Builder.
+         * @throws IllegalArgumentException если поле с таким именем уже было добавлено.
+         * @throws NullPointerException если fieldName равен null.
+         */
+        public Builder addDouble(String fieldName) {
+            return addField(fieldName, FieldType.DOUBLE);
+        }
+
+        /**
+         * Создает и возвращает объект Schema.
+         * @return объект Schema.
+         */
+        public Schema build() {
+            return new Schema(this);
+        }
+
+        private Builder addField(String fieldName, FieldType type) {
+            if(fieldName == null) {
+                throw new NullPointerException("Имя поля не может быть равно null.");
+            } else if(names.contains(fieldName)) {
+                throw new IllegalArgumentException("Поле с именем '" + fieldName + "' уже было добавлено.");
+            }
+
+            names.add(fieldName);
+            types.add(type);
+            return this;
+        }
+
+    }
+
+}
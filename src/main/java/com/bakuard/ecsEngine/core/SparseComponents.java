@@ -0,0 +1,110 @@
+package com.bakuard.ecsEngine.core;
+
+import com.bakuard.ecsEngine.core.utils.Array;
+import com.bakuard.ecsEngine.core.utils.Bits;
+import com.bakuard.ecsEngine.core.utils.IntArray;
+import com.bakuard.ecsEngine.core.utils.SparseSet;
+
+import java.util.function.Consumer;
+
+/*
+ * Хранит компоненты разреженных типов (см. EntityComponentManager#registerSparseType(int)) одного владельца
+ * (EntityComponentManager или NewEntitiesBuffer). Для каждого разреженного типа компонентов используется отдельный
+ * SparseSet, ключом которого является персональный ID сущности, а значением - первый компонент списка однотипных
+ * компонентов сущности. Разреженные типы не входят в набор типов компонентов архетипа, поэтому связывание и
+ * отвязывание таких компонентов выполняется за O(1) и никогда не переносит сущность в другой архетип.
+ */
+final class SparseComponents {
+
+    private final ComponentTypes TYPES;
+    private final Array<SparseSet<Component>> SETS; //Индекс - ID разреженного типа компонентов.
+
+    @SuppressWarnings("unchecked")
+    SparseComponents(ComponentTypes types) {
+        TYPES = types;
+        SETS = new Array<>((Class<SparseSet<Component>>) (Class<?>) SparseSet.class, 0);
+    }
+
+    void bind(Component component) {
+        SparseSet<Component> set = getSet(component.getTypeID());
+        int entityPersonalID = component.getOwner().getPersonalID();
+        set.put(entityPersonalID, Component.add(set.get(entityPersonalID), component));
+    }
+
+    void unbind(Component component) {
+        SparseSet<Component> set = getSet(component.getTypeID());
+        int entityPersonalID = component.getOwner().getPersonalID();
+        Component head = Component.remove(set.get(entityPersonalID), component);
+        if(head == null) set.remove(entityPersonalID);
+        else set.put(entityPersonalID, head);
+    }
+
+    Component get(int entityPersonalID, int componentTypeID) {
+        SparseSet<Component> set = componentTypeID < SETS.getLength() ? SETS.get(componentTypeID) : null;
+        return set != null ? set.get(entityPersonalID) : null;
+    }
+
+    boolean contains(int entityPersonalID, int componentTypeID) {
+        return get(entityPersonalID, componentTypeID) != null;
+    }
+
+    //Передает в action каждую сущность, имеющую компоненты указанного разреженного типа.
+    void forEachOwner(int componentTypeID, Consumer<Entity> action) {
+        SparseSet<Component> set = componentTypeID < SETS.getLength() ? SETS.get(componentTypeID) : null;
+        if(set != null) {
+            for(int i = 0; i < set.getSize(); i++) action.accept(set.getValue(i).getOwner());
+        }
+    }
+
+    //Вызывает destruct() у всех компонентов разреженных типов указанной сущности и отвязывает их от неё.
+    void removeAll(int entityPersonalID) {
+        IntArray sparseTypes = TYPES.getSparseTypes();
+        for(int i = 0; i < sparseTypes.getLength(); i++) {
+            SparseSet<Component> set = getSet(sparseTypes.get(i));
+            Component head = set.remove(entityPersonalID);
+
+            Component component = head;
+            while(component != null) {
+                component.destruct();
+                component = component.getNext();
+            }
+            Component.detachAll(head);
+        }
+    }
+
+    /*
+     * Записывает в mask, какие разреженные типы компонентов есть у указанной сущности: бит разреженного типа
+     * устанавливается, если сущность имеет компонент этого типа, и сбрасывается в противном случае. Размер mask должен
+     * быть не меньше ComponentTypes#getSparseTypesBound().
+     */
+    void fillTypes(Bits mask, int entityPersonalID) {
+        IntArray sparseTypes = TYPES.getSparseTypes();
+        for(int i = 0; i < sparseTypes.getLength(); i++) {
+            int componentTypeID = sparseTypes.get(i);
+            if(contains(entityPersonalID, componentTypeID)) mask.set(componentTypeID);
+            else mask.clear(componentTypeID);
+        }
+    }
+
+    //Переносит все компоненты из other в данный объект. Сущности other не должны пересекаться с сущностями данного.
+    void merge(SparseComponents other) {
+        for(int i = 0; i < other.SETS.getLength(); i++) {
+            SparseSet<Component> from = other.SETS.get(i);
+            if(from != null) {
+                SparseSet<Component> to = getSet(i);
+                for(int j = 0; j < from.getSize(); j++) to.put(from.getKey(j), from.getValue(j));
+                from.clear();
+            }
+        }
+    }
+
+    private SparseSet<Component> getSet(int componentTypeID) {
+        SparseSet<Component> set = componentTypeID < SETS.getLength() ? SETS.get(componentTypeID) : null;
+        if(set == null) {
+            set = new SparseSet<>();
+            SETS.setAndExpand(componentTypeID, set);
+        }
+        return set;
+    }
+
+}
@@ -0,0 +1,188 @@
+package com.bakuard.ecsEngine.core;
+
+/**
+ * Хранит значения всех полей одного структурного типа компонентов (см. {@link Schema}) для всех сущностей
+ * одной группы сущностей (см. {@link Chunk}). Индекс строки столбца совпадает с индексом сущности в группе
+ * (см. {@link Chunk#getEntity(int)}). Емкость столбца фиксирована и равна {@link Chunk#CAPACITY}.
+ * <br/><br/>
+ * Способ хранения значений задается при регистрации структурного типа компонентов
+ * (см. {@link EntityComponentManager#registerStructType(int, Schema, Storage)}): <br/>
+ * 1. {@link Storage#HEAP} - значения хранятся в массивах примитивов в куче (см. {@link HeapStructColumn}). <br/>
+ * 2. {@link Storage#DIRECT} - значения хранятся в памяти вне кучи и не просматриваются сборщиком мусора
+ *    (см. {@link DirectStructColumn}).
+ * <br/><br/>
+ * Объекты данного класса создаются и управляются {@link EntityComponentManager}.
+ */
+public abstract class StructColumn {
+
+    /**
+     * Способ хранения значений структурного типа компонентов.
+     */
+    public enum Storage {
+        /**
+         * Значения каждого поля хранятся в отдельном массиве примитивов в куче.
+         */
+        HEAP,
+        /**
+         * Значения хранятся построчно в памяти вне кучи (direct ByteBuffer). Такая память не просматривается
+         * сборщиком мусора и освобождается явно (см. {@link EntityComponentManager#dropEmptyArchetypes()}).
+         */
+        DIRECT
+    }
+
+
+    final Schema SCHEMA;
+    private final Chunk CHUNK;
+
+    StructColumn(Schema schema, Chunk chunk) {
+        SCHEMA = schema;
+        CHUNK = chunk;
+    }
+
+    static StructColumn create(Schema schema, Storage storage, Chunk chunk, ChunkPool pool) {
+        return storage == Storage.DIRECT ?
+                new DirectStructColumn(schema, chunk, pool) :
+                new HeapStructColumn(schema, chunk, pool);
+    }
+
+    /**
+     * Возвращает схему структурного типа компонентов, значения которого хранит данный столбец.
+     * @return схема структурного типа компонентов.
+     */
+    public Schema getSchema() {
+        return SCHEMA;
+    }
+
+    /**
+     * Возвращает кол-во сущностей, значения полей которых хранит данный столбец.
+     * @return кол-во сущностей, значения полей которых хранит данный столбец.
+     */
+    public int getLength() {
+        return CHUNK.getLength();
+    }
+
+    /**
+     * Возвращает способ хранения значений данного столбца.
+     * @return способ хранения значений данного столбца.
+     */
+    public abstract Storage getStorage();
+
+    /**
+     * Возвращает значение поля типа int для сущности с указанным индексом.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @param index индекс сущности.
+     * @return значение поля.
+     * @throws IllegalArgumentException если поле с указанным индексом не имеет тип int.
+     * @throws ArrayIndexOutOfBoundsException если не соблюдается условие index >= 0 && index < length.
+     */
+    public abstract int getInt(int fieldIndex, int index);
+
+    /**
+     * Задает значение поля типа int для сущности с указанным индексом.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @param index индекс сущности.
+     * @param value новое значение поля.
+     * @throws IllegalArgumentException если поле с указанным индексом не имеет тип int.
+     * @throws ArrayIndexOutOfBoundsException если не соблюдается условие index >= 0 && index < length.
+     */
+    public abstract void setInt(int fieldIndex, int index, int value);
+
+    /**
+     * Возвращает значение поля типа long для сущности с указанным индексом.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @param index индекс сущности.
+     * @return значение поля.
+     * @throws IllegalArgumentException если поле с указанным индексом не имеет тип long.
+     * @throws ArrayIndexOutOfBoundsException если не соблюдается условие index >= 0 && index < length.
+     */
+    public abstract long getLong(int fieldIndex, int index);
+
+    /**
+     * Задает значение поля типа long для сущности с указанным индексом.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @param index индекс сущности.
+     * @param value новое значение поля.
+     * @throws IllegalArgumentException если поле с указанным индексом не имеет тип long.
+     * @throws ArrayIndexOutOfBoundsException если не соблюдается условие index >= 0 && index < length.
+     */
+    public abstract void setLong(int fieldIndex, int index, long value);
+
+    /**
+     * Возвращает значение поля типа float для сущности с указанным индексом.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @param index индекс сущности.
+     * @return значение поля.
+     * @throws IllegalArgumentException если поле с указанным индексом не имеет тип float.
+     * @throws ArrayIndexOutOfBoundsException если не соблюдается условие index >= 0 && index < length.
+     */
+    public abstract float getFloat(int fieldIndex, int index);
+
+    /**
+     * Задает значение поля типа float для сущности с указанным индексом.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @param index индекс сущности.
+     * @param value новое значение поля.
+     * @throws IllegalArgumentException если поле с указанным индексом не имеет тип float.
+     * @throws ArrayIndexOutOfBoundsException если не соблюдается условие index >= 0 && index < length.
+     */
+    public abstract void setFloat(int fieldIndex, int index, float value);
+
+    /**
+     * Возвращает значение поля типа double для сущности с указанным индексом.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @param index индекс сущности.
+     * @return значение поля.
+     * @throws IllegalArgumentException если поле с указанным индексом не имеет тип double.
+     * @throws ArrayIndexOutOfBoundsException если не соблюдается условие index >= 0 && index < length.
+     */
+    public abstract double getDouble(int fieldIndex, int index);
+
+    /**
+     * Задает значение поля типа double для сущности с указанным индексом.
+     * @param fieldIndex индекс поля (см. {@link Schema}).
+     * @param index индекс сущности.
+     * @param value новое значение поля.
+     * @throws IllegalArgumentException если поле с указанным индексом не имеет тип double.
+     * @throws ArrayIndexOutOfBoundsException если не соблюдается условие index >= 0 && index < length.
+     */
+    public abstract void setDouble(int fieldIndex, int index, double value);
+
+    //Обнуляет все поля строки с указанным индексом.
+    abstract void clearRow(int index);
+
+    //Обнуляет все поля count строк начиная с fromIndex.
+    abstract void clearRows(int fromIndex, int count);
+
+    /*
+     * Копирует count строк данного столбца начиная с fromIndex в столбец to начиная с toIndex. Столбец to должен
+     * иметь тот же способ хранения, что и данный столбец.
+     */
+    abstract void copyRows(int fromIndex, StructColumn to, int toIndex, int count);
+
+    /*
+     * Аналог copyRows(), который может одновременно вызываться из разных потоков для одних и тех же столбцов, если
+     * копируемые строки столбца to не пересекаются.
+     */
+    abstract void copyRowsConcurrently(int fromIndex, StructColumn to, int toIndex, int count);
+
+    //Возвращает память столбца в пул. После вызова этого метода столбец нельзя использовать.
+    abstract void release(ChunkPool pool);
+
+    void checkFieldType(int fieldIndex, Schema.FieldType type) {
+        if(SCHEMA.getFieldType(fieldIndex) != type) {
+            throw new IllegalArgumentException(
+                    "Поле с индексом " + fieldIndex + " имеет тип " + SCHEMA.getFieldType(fieldIndex) +
+                    ", а не " + type);
+        }
+    }
+
+    void checkIndex(int index) {
+        int length = CHUNK.getLength();
+        if(index < 0 || index >= length) {
+            throw new ArrayIndexOutOfBoundsException(
+                    "Для параметра index не соблюдается условие: " +
+                            "index >= 0 && index < length, где length=" + length + ", index=" + index);
+        }
+    }
+
+}
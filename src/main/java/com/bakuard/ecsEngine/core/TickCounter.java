@@ -0,0 +1,25 @@
+package com.bakuard.ecsEngine.core;
+
+/*
+ * Счетчик тактов изменений. Каждая группа сущностей (см. Chunk) хранит для каждого типа компонентов своего архетипа
+ * номер такта, на котором компоненты этого типа в группе последний раз изменялись. Один объект данного класса
+ * принадлежит EntityComponentManager и используется также архетипами всех его буферов. Счетчик увеличивается только
+ * в потоке менеджера (см. EntityComponentManager#advanceChangeTick()), а читаться может из любого потока.
+ */
+final class TickCounter {
+
+    private volatile long tick;
+
+    TickCounter() {
+        tick = 1;
+    }
+
+    long get() {
+        return tick;
+    }
+
+    long advance() {
+        return ++tick;
+    }
+
+}
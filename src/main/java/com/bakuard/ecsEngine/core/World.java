@@ -15,7 +15,8 @@ public final class World {
     private World(Builder builder) {
         ENTITY_COMPONENT_MANAGER = new EntityComponentManager();
         SYSTEM_MANAGER = new SystemManager(builder.numberPorts);
-        GAME_LOOP = new GameLoop(builder.numberUpdatePerSecond, builder.maxFrameSkip, SYSTEM_MANAGER);
+        GAME_LOOP = new GameLoop(builder.numberUpdatePerSecond, builder.maxFrameSkip, SYSTEM_MANAGER,
+                ENTITY_COMPONENT_MANAGER);
     }
 
     /**
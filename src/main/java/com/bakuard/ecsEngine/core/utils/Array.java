@@ -482,7 +482,7 @@ public final class Array<T> implements Iterable<T> {
             int different = comparator.compare(values[middle]);
 
             if(different == 0) return middle;
-            else if(different > 0) fromIndex = middle + 1;
+            else if(different < 0) fromIndex = middle + 1;
             else toIndex = middle;
         }
         return -1;
@@ -146,15 +146,26 @@ public final class Bits implements Comparable<Bits> {
                     "; toIndex=" + toIndex + ")");
         }
 
+        if(fromIndex == toIndex) return this;
+
+        //Крайние слова диапазона изменяются по маске, а слова между ними - целиком.
+        int firstWord = fromIndex >>> 6;
+        int lastWord = (toIndex - 1) >>> 6;
+        long firstMask = -1L << fromIndex;
+        long lastMask = -1L >>> -toIndex;
+        if(firstWord == lastWord) firstMask &= lastMask;
+
         if(flag) {
-            while (fromIndex < toIndex) {
-                words[fromIndex >>> 6] |= 1L << fromIndex;
-                ++fromIndex;
+            words[firstWord] |= firstMask;
+            if(firstWord != lastWord) {
+                Arrays.fill(words, firstWord + 1, lastWord, -1L);
+                words[lastWord] |= lastMask;
             }
         } else {
-            while (fromIndex < toIndex) {
-                words[fromIndex >>> 6] &= ~(1L << fromIndex);
-                ++fromIndex;
+            words[firstWord] &= ~firstMask;
+            if(firstWord != lastWord) {
+                Arrays.fill(words, firstWord + 1, lastWord, 0L);
+                words[lastWord] &= ~lastMask;
             }
         }
         return this;
@@ -360,6 +371,19 @@ public final class Bits implements Comparable<Bits> {
         return this;
     }
 
+    /**
+     * Выполняет операцию разности двух множеств: сбрасывает в ноль все биты, установленные в other. Метод
+     * записывает результат операции в объект Bits, у которого был вызван данный метод и возвращает ссылку на этот
+     * же объект. Размер объекта, у которого вызван метод, не изменяется.
+     * @param other вычитаемое множество.
+     * @return ссылка на объект Bits, у которого был вызван данный метод.
+     */
+    public Bits andNot(Bits other) {
+        int commonWords = Math.min(words.length, other.words.length);
+        for(int i = 0; i < commonWords; ++i) words[i] &= ~other.words[i];
+        return this;
+    }
+
     /**
      * Выполняет операцию симметричной разности двух множеств. Метод записывает результат операции в объект Bits,
      * у которого был вызван данный метод и возвращает ссылку на этот же объект. В качестве первого операнда
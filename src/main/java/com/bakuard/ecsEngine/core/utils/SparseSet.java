@@ -0,0 +1,187 @@
+package com.bakuard.ecsEngine.core.utils;
+
+import java.util.Arrays;
+
+/**
+ * Ассоциативный массив, ключами которого являются неотрицательные целые числа. Хранит пары ключ-значение в
+ * плотных массивах (без промежутков), а для каждого ключа хранит индекс его пары в плотном массиве. Благодаря этому
+ * операции добавления, поиска и удаления выполняются за O(1) без вычисления хеш-функции, а перебор всех пар
+ * (см. {@link #getKey(int)} и {@link #getValue(int)}) - это последовательный проход по плотным массивам. Объем
+ * занимаемой памяти пропорционален наибольшему ключу, поэтому данная коллекция подходит для небольших и плотно
+ * расположенных ключей, например - идентификаторов сущностей. <br/>
+ * При удалении пары на её место в плотном массиве записывается последняя пара, поэтому порядок перебора пар
+ * может меняться после каждого удаления.
+ * @param <T> тип значений.
+ */
+public final class SparseSet<T> {
+
+    private static final int MIN_CAPACITY = 10;
+
+    private int[] sparse; //Индекс - ключ, значение - индекс пары в плотных массивах или -1.
+    private int[] keys;
+    private Object[] values;
+    private int size;
+
+    /**
+     * Создает пустой SparseSet.
+     */
+    public SparseSet() {
+        sparse = new int[MIN_CAPACITY];
+        Arrays.fill(sparse, -1);
+        keys = new int[MIN_CAPACITY];
+        values = new Object[MIN_CAPACITY];
+    }
+
+    /**
+     * Добавляет пару ключ-значение. Если для данного ключа уже было задано значение - оно будет перезаписано.
+     * @param key ключ.
+     * @param value значение.
+     * @return значение, которое ранее было связано с данным ключом, или null.
+     * @throws IllegalArgumentException если ключ меньше нуля.
+     */
+    public T put(int key, T value) {
+        if(key < 0) throw new IllegalArgumentException("Ключ не может быть меньше нуля. Получено " + key);
+
+        if(key >= sparse.length) {
+            int oldLength = sparse.length;
+            sparse = Arrays.copyOf(sparse, Math.max(key + (key >>> 1) + 1, MIN_CAPACITY));
+            Arrays.fill(sparse, oldLength, sparse.length, -1);
+        }
+
+        int index = sparse[key];
+        if(index != -1) {
+            T oldValue = valueAt(index);
+            values[index] = value;
+            return oldValue;
+        }
+
+        if(size == keys.length) {
+            int newCapacity = size + (size >>> 1) + 1;
+            keys = Arrays.copyOf(keys, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+        sparse[key] = size;
+        keys[size] = key;
+        values[size] = value;
+        ++size;
+        return null;
+    }
+
+    /**
+     * Возвращает значение связанное с указанным ключом или null, если такого ключа нет.
+     * @param key ключ.
+     * @return значение связанное с указанным ключом или null.
+     */
+    public T get(int key) {
+        int index = indexOf(key);
+        return index != -1 ? valueAt(index) : null;
+    }
+
+    /**
+     * Возвращает true, если данный SparseSet содержит указанный ключ, иначе - false.
+     * @param key ключ.
+     * @return true, если данный SparseSet содержит указанный ключ, иначе - false.
+     */
+    public boolean contains(int key) {
+        return indexOf(key) != -1;
+    }
+
+    /**
+     * Удаляет пару с указанным ключом и возвращает её значение. Если такого ключа нет - возвращает null.
+     * На место удаленной пары в плотном массиве записывается последняя пара.
+     * @param key ключ.
+     * @return значение удаленной пары или null.
+     */
+    public T remove(int key) {
+        int index = indexOf(key);
+        if(index == -1) return null;
+
+        T removed = valueAt(index);
+        int last = --size;
+        if(index != last) {
+            keys[index] = keys[last];
+            values[index] = values[last];
+            sparse[keys[index]] = index;
+        }
+        values[last] = null;
+        sparse[key] = -1;
+        return removed;
+    }
+
+    /**
+     * Удаляет все пары ключ-значение. Данный метод не уменьшает емкость внутренних массивов.
+     */
+    public void clear() {
+        for(int i = 0; i < size; i++) {
+            sparse[keys[i]] = -1;
+            values[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Возвращает кол-во пар ключ-значение.
+     * @return кол-во пар ключ-значение.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Возвращает true, если данный SparseSet не содержит ни одной пары, иначе - false.
+     * @return true, если данный SparseSet не содержит ни одной пары, иначе - false.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Возвращает ключ пары с указанным индексом в плотном массиве.
+     * @param index индекс пары в плотном массиве.
+     * @return ключ пары.
+     * @throws IndexOutOfBoundsException если не соблюдается условие index >= 0 && index < {@link #getSize()}
+     */
+    public int getKey(int index) {
+        halfOpenIntervalCheck(index);
+        return keys[index];
+    }
+
+    /**
+     * Возвращает значение пары с указанным индексом в плотном массиве.
+     * @param index индекс пары в плотном массиве.
+     * @return значение пары.
+     * @throws IndexOutOfBoundsException если не соблюдается условие index >= 0 && index < {@link #getSize()}
+     */
+    public T getValue(int index) {
+        halfOpenIntervalCheck(index);
+        return valueAt(index);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("SparseSet{size=").append(size).append(", pairs=[");
+        for(int i = 0; i < size; i++) {
+            if(i > 0) result.append(", ");
+            result.append(keys[i]).append('=').append(values[i]);
+        }
+        return result.append("]}").toString();
+    }
+
+    private int indexOf(int key) {
+        return key >= 0 && key < sparse.length ? sparse[key] : -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T valueAt(int index) {
+        return (T) values[index];
+    }
+
+    private void halfOpenIntervalCheck(int index) {
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "Для параметра index не соблюдается условие: index >= 0 && index < size, где size=" +
+                            size + ", index=" + index);
+        }
+    }
+
+}
@@ -1183,6 +1183,29 @@ class ArrayTest {
                         "в конце массива.");
     }
 
+    @Test
+    public void binarySearch_PropertyComparator() {
+        Array<Integer> array = new Array<>(Integer.class, 0);
+        array.addAll(0,10,20,30,40,50,60,70,80,90);
+
+        for(int i = 0; i < array.getLength(); i++) {
+            int value = i * 10;
+            Assertions.assertEquals(i, array.binarySearch((Integer element) -> Integer.compare(element, value)),
+                    "Метод binarySearch(PropertyComparator) должен находить индекс каждого элемента,\n " +
+                            "присутсвующего в массиве один раз, если порядок элементов возрастающий.\n " +
+                            "Элемент для которого данный метод работает неправильно, равен " + value);
+        }
+        Assertions.assertEquals(-1, array.binarySearch((Integer element) -> Integer.compare(element, -10)),
+                "Метод binarySearch(PropertyComparator) должен возвращать -1, если искомое значение\n " +
+                        "меньше наименьшего элемента массива.");
+        Assertions.assertEquals(-1, array.binarySearch((Integer element) -> Integer.compare(element, 57)),
+                "Метод binarySearch(PropertyComparator) должен возвращать -1, если искомое значение\n " +
+                        "отсутсвует в массиве, но могло бы расположиться где-то посередине.");
+        Assertions.assertEquals(-1, array.binarySearch((Integer element) -> Integer.compare(element, 100)),
+                "Метод binarySearch(PropertyComparator) должен возвращать -1, если искомое значение\n " +
+                        "больше наибольшего элемента массива.");
+    }
+
     @Test
     public void binarySearch_DescendingOrder() {
         Array<Integer> array = new Array<>(Integer.class, 0);
@@ -0,0 +1,159 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+class BindToAllTest extends ManagerTest {
+
+    private static final int BUFF = 5;
+
+    private static EntityComponentManager createFilledManager(Array<Entity> entities) {
+        EntityComponentManager manager = createManager();
+        for(int i = 0; i < Chunk.CAPACITY * 3 + 40; i++) {
+            Entity entity = manager.createEntity(i % 2);
+            manager.bind(new Value(entity, HEALTH, i));
+            manager.bindStruct(entity, POSITION);
+            manager.setInt(entity, POSITION, 0, i);
+            if(i % 3 == 0) manager.bindTag(entity, ENEMY);
+            entities.add(entity);
+        }
+        return manager;
+    }
+
+    private static void checkValues(EntityComponentManager manager, Array<Entity> entities) {
+        for(int i = 0; i < entities.getLength(); i++) {
+            Entity entity = entities.get(i);
+            Assertions.assertEquals(i, ((Value) manager.getComponent(entity, HEALTH)).VALUE);
+            Assertions.assertEquals(i, manager.getInt(entity, POSITION, 0));
+            Assertions.assertEquals(i % 3 == 0, manager.hasComponent(entity, ENEMY));
+        }
+    }
+
+    @Test
+    public void bindToAll_wholeArchetypes() {
+        Array<Entity> entities = new Array<>(Entity.class, 0);
+        EntityComponentManager manager = createFilledManager(entities);
+        Entity other = manager.createEntity(0);
+        manager.bind(new Value(other, BUFF, -1));
+
+        int bound = manager.bindToAll(new MaskFilter.Builder().all(HEALTH).build(), BUFF,
+                entity -> new Value(entity, BUFF, ((Value) manager.getComponent(entity, HEALTH)).VALUE * 2));
+
+        Assertions.assertEquals(entities.getLength(), bound);
+        checkValues(manager, entities);
+        for(int i = 0; i < entities.getLength(); i++) {
+            Value buff = (Value) manager.getComponent(entities.get(i), BUFF);
+            Assertions.assertEquals(i * 2, buff.VALUE);
+            Assertions.assertTrue(buff.isBind());
+        }
+        Assertions.assertEquals(1, manager.getCountComponent(other, BUFF));
+    }
+
+    @Test
+    public void bindToAll_partOfArchetypes() {
+        Array<Entity> entities = new Array<>(Entity.class, 0);
+        EntityComponentManager manager = createFilledManager(entities);
+        for(int i = 0; i < entities.getLength(); i += 5) manager.bind(new Value(entities.get(i), SELECTED, i));
+
+        int bound = manager.bindToAll(new MaskFilter.Builder().entityTypes(1).build(), ENEMY, null);
+        int boundSparse = manager.bindToAll(new MaskFilter.Builder().all(SELECTED).build(), BUFF,
+                entity -> new Value(entity, BUFF, 0));
+
+        int expected = 0;
+        int expectedSparse = 0;
+        for(int i = 0; i < entities.getLength(); i++) {
+            Entity entity = entities.get(i);
+            if(i % 2 == 1 && i % 3 != 0) ++expected;
+            if(i % 5 == 0) ++expectedSparse;
+            Assertions.assertEquals(i % 2 == 1 || i % 3 == 0, manager.hasComponent(entity, ENEMY));
+            Assertions.assertEquals(i % 5 == 0, manager.hasComponent(entity, BUFF));
+            Assertions.assertEquals(i, ((Value) manager.getComponent(entity, HEALTH)).VALUE);
+            Assertions.assertEquals(i, manager.getInt(entity, POSITION, 0));
+        }
+        Assertions.assertEquals(expected, bound);
+        Assertions.assertEquals(expectedSparse, boundSparse);
+    }
+
+    @Test
+    public void bindToAll_structType() {
+        Array<Entity> entities = new Array<>(Entity.class, 0);
+        EntityComponentManager manager = createFilledManager(entities);
+        manager.unbindFromAll(new MaskFilter.Builder().entityTypes(0).build(), POSITION);
+
+        int bound = manager.bindToAll(new MaskFilter.Builder().build(), POSITION, null);
+
+        Assertions.assertEquals((entities.getLength() + 1) / 2, bound);
+        for(int i = 0; i < entities.getLength(); i++) {
+            Assertions.assertEquals(i % 2 == 0 ? 0 : i, manager.getInt(entities.get(i), POSITION, 0));
+        }
+    }
+
+    @Test
+    public void unbindFromAll() {
+        Array<Entity> entities = new Array<>(Entity.class, 0);
+        EntityComponentManager manager = createFilledManager(entities);
+        manager.bindToAll(new MaskFilter.Builder().build(), BUFF, entity -> new Value(entity, BUFF, 1));
+        Set<Component> buffs = new HashSet<>();
+        for(int i = 0; i < entities.getLength(); i++) buffs.add(manager.getComponent(entities.get(i), BUFF));
+
+        int unbound = manager.unbindFromAll(new MaskFilter.Builder().all(ENEMY).build(), BUFF);
+        int unboundTags = manager.unbindFromAll(new MaskFilter.Builder().entityTypes(0).build(), ENEMY);
+
+        int expected = 0;
+        int expectedTags = 0;
+        for(int i = 0; i < entities.getLength(); i++) {
+            Entity entity = entities.get(i);
+            if(i % 3 == 0) ++expected;
+            if(i % 3 == 0 && i % 2 == 0) ++expectedTags;
+            Assertions.assertEquals(i % 3 != 0, manager.hasComponent(entity, BUFF));
+            Assertions.assertEquals(i % 3 == 0 && i % 2 == 1, manager.hasComponent(entity, ENEMY));
+            Assertions.assertEquals(i, ((Value) manager.getComponent(entity, HEALTH)).VALUE);
+            Assertions.assertEquals(i, manager.getInt(entity, POSITION, 0));
+        }
+        Assertions.assertEquals(expected, unbound);
+        Assertions.assertEquals(expectedTags, unboundTags);
+        int stillBound = 0;
+        for(Component buff : buffs) if(buff.isBind()) ++stillBound;
+        Assertions.assertEquals(entities.getLength() - expected, stillBound);
+    }
+
+    @Test
+    public void bindToAll_factoryFails_nothingBound() {
+        Array<Entity> entities = new Array<>(Entity.class, 0);
+        EntityComponentManager manager = createFilledManager(entities);
+        Entity last = entities.get(entities.getLength() - 1);
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> manager.bindToAll(new MaskFilter.Builder().build(), BUFF, entity -> {
+                    if(entity.equals(last)) throw new IllegalStateException();
+                    return new Value(entity, BUFF, 0);
+                }));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.bindToAll(new MaskFilter.Builder().build(), BUFF,
+                        entity -> new Value(entity.equals(last) ? entities.get(0) : entity, BUFF, 0)));
+
+        for(int i = 0; i < entities.getLength(); i++) {
+            Assertions.assertFalse(manager.hasComponent(entities.get(i), BUFF));
+        }
+        checkValues(manager, entities);
+    }
+
+    @Test
+    public void bindToAll_invalidArguments() {
+        EntityComponentManager manager = createFilledManager(new Array<>(Entity.class, 0));
+        MaskFilter filter = new MaskFilter.Builder().build();
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.bindToAll(filter, SELECTED, entity -> new Value(entity, SELECTED, 0)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.bindToAll(filter, -1, null));
+        Assertions.assertThrows(NullPointerException.class, () -> manager.bindToAll(filter, BUFF, null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.unbindFromAll(filter, SELECTED));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.unbindFromAll(filter, -1));
+    }
+
+}
@@ -212,6 +212,28 @@ class BitsTest {
                 "Метод clearAll() должен возвращать ссылку на объект, у которого он был вызван.");
     }
 
+    @Test
+    void fill_wordBoundaries() {
+        int[] bounds = {0, 1, 63, 64, 65, 127, 128, 129, 191, 192, 200};
+        for(int from : bounds) {
+            for(int to : bounds) {
+                if(from > to) continue;
+
+                Bits ones = new Bits(200).fill(from, to, true);
+                Bits zeros = new Bits(200).not().fill(from, to, false);
+                for(int i = 0; i < 200; i++) {
+                    boolean inRange = i >= from && i < to;
+                    Assertions.assertEquals(inRange, ones.get(i),
+                            "Не верно работает метод fill() с flag равным true для полуинтервала [" +
+                                    from + "; " + to + "). Индекс бита = " + i);
+                    Assertions.assertEquals(!inRange, zeros.get(i),
+                            "Не верно работает метод fill() с flag равным false для полуинтервала [" +
+                                    from + "; " + to + "). Индекс бита = " + i);
+                }
+            }
+        }
+    }
+
     @Test
     void fill_get() {
         Bits bits = new Bits(100000).
@@ -636,6 +658,33 @@ class BitsTest {
                 "Метод or(Bits other) должен возвращать ссылку на объект, у которого он был вызван.");
     }
 
+    @Test
+    void andNot_Operand() {
+        Bits original = new Bits(100000).fill(20000, 50001, true);
+
+        Assertions.assertEquals(new Bits(100000), new Bits(original).andNot(original),
+                "При вызове метода andNot(), где в качестве аргумента передается тот же объект, " +
+                        "результатом должен являться пустой объект Bits.");
+
+        Bits operand2 = new Bits(40000).fill(10000, 30001, true);
+        Bits expected = new Bits(100000).fill(30001, 50001, true);
+        Assertions.assertEquals(expected, new Bits(original).andNot(operand2),
+                "Не верно работает метод andNot(Bits other) в случае, если размер второго оперенда " +
+                        "меньше первого.");
+
+        Bits operand3 = new Bits(200000).fill(40000, 120000, true);
+        expected = new Bits(100000).fill(20000, 40000, true);
+        Assertions.assertEquals(expected, new Bits(original).andNot(operand3),
+                "Не верно работает метод andNot(Bits other) в случае, если размер второго оперенда больше первого.");
+
+        Bits empty = new Bits(100000);
+        Assertions.assertEquals(original, new Bits(original).andNot(empty),
+                "Вычитание пустого множества не должно изменять объект Bits.");
+
+        Assertions.assertSame(original, original.andNot(operand2),
+                "Метод andNot(Bits other) должен возвращать ссылку на объект, у которого он был вызван.");
+    }
+
     @Test
     void xor_Operand() {
         Bits original = new Bits(1000).setAll(10, 100, 200, 219, 600, 601, 742, 326);
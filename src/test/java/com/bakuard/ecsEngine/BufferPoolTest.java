@@ -0,0 +1,168 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+class BufferPoolTest extends ManagerTest {
+
+    private static Array<Entity> fill(NewEntitiesBuffer buffer, int tick) {
+        Array<Entity> entities = new Array<>(Entity.class, 0);
+        for(int i = 0; i < Chunk.CAPACITY + 10; i++) {
+            Entity entity = buffer.createEntity(0);
+            buffer.bind(new Value(entity, HEALTH));
+            buffer.bindStruct(entity, POSITION);
+            buffer.setInt(entity, POSITION, 0, tick * 10000 + i);
+            if(i % 2 == 0) buffer.bindTag(entity, ENEMY);
+            if(i % 3 == 0) buffer.bind(new Value(entity, SELECTED));
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    private static void check(EntityComponentManager manager, Array<Entity> entities, int tick) {
+        for(int i = 0; i < entities.getLength(); i++) {
+            Entity entity = entities.get(i);
+            Assertions.assertTrue(manager.isAlive(entity));
+            Assertions.assertTrue(manager.hasComponent(entity, HEALTH));
+            Assertions.assertEquals(tick * 10000 + i, manager.getInt(entity, POSITION, 0));
+            Assertions.assertEquals(i % 2 == 0, manager.hasComponent(entity, ENEMY));
+            Assertions.assertEquals(i % 3 == 0, manager.hasComponent(entity, SELECTED));
+        }
+    }
+
+    @Test
+    public void newEntitiesBuffer_resetAfterFlush() {
+        EntityComponentManager manager = createManager();
+        NewEntitiesBuffer buffer = manager.createNewEntitiesBuffer();
+        List<Array<Entity>> ticks = new ArrayList<>();
+
+        for(int tick = 0; tick < 3; tick++) {
+            Array<Entity> entities = fill(buffer, tick);
+            manager.flushBuffer(buffer);
+            Assertions.assertFalse(buffer.isValid());
+            Assertions.assertThrows(IllegalStateException.class, () -> buffer.createEntity(0));
+            buffer.reset();
+            Assertions.assertTrue(buffer.isValid());
+            ticks.add(entities);
+        }
+
+        for(int tick = 0; tick < ticks.size(); tick++) check(manager, ticks.get(tick), tick);
+    }
+
+    @Test
+    public void newEntitiesBuffer_resetBeforeFlush() {
+        EntityComponentManager manager = createManager();
+        NewEntitiesBuffer buffer = manager.createNewEntitiesBuffer();
+        Array<Entity> discarded = fill(buffer, 0);
+
+        buffer.reset();
+        Array<Entity> entities = fill(buffer, 1);
+        manager.flushBuffer(buffer);
+
+        for(int i = 0; i < discarded.getLength(); i++) {
+            Entity entity = discarded.get(i);
+            if(entities.linearSearch(entity) == -1) Assertions.assertFalse(manager.isAlive(entity));
+        }
+        check(manager, entities, 1);
+    }
+
+    @Test
+    public void entityCommandBuffer_resetAfterFlush() {
+        EntityComponentManager manager = createManager();
+        EntityCommandBuffer buffer = manager.createEntityCommandBuffer();
+        Entity first = buffer.createEntity(0);
+        buffer.bindTag(first, ENEMY);
+        manager.flushBuffer(buffer, exception -> Assertions.fail(exception));
+
+        buffer.reset();
+        Entity second = buffer.createEntity(0);
+        buffer.bindTag(second, ENEMY);
+        buffer.removeEntity(first);
+        manager.flushBuffer(buffer, exception -> Assertions.fail(exception));
+
+        Assertions.assertFalse(manager.isAlive(first));
+        Assertions.assertTrue(manager.hasComponent(second, ENEMY));
+    }
+
+    @Test
+    public void borrowEntityCommandBuffer() {
+        EntityComponentManager manager = createManager();
+        EntityCommandBuffer buffer = manager.borrowEntityCommandBuffer();
+        Entity discarded = buffer.createEntity(0);
+        buffer.bindTag(discarded, ENEMY);
+
+        manager.returnBuffer(buffer);
+        EntityCommandBuffer borrowed = manager.borrowEntityCommandBuffer();
+
+        Assertions.assertSame(buffer, borrowed);
+        Assertions.assertTrue(borrowed.isValid());
+        Assertions.assertTrue(borrowed.isEmpty());
+        Entity entity = borrowed.createEntity(0);
+        borrowed.bindTag(entity, ENEMY);
+        manager.flushBuffer(borrowed, exception -> Assertions.fail(exception));
+        Assertions.assertTrue(manager.hasComponent(entity, ENEMY));
+        if(!entity.equals(discarded)) Assertions.assertFalse(manager.isAlive(discarded));
+
+        manager.returnBuffer(borrowed);
+        Assertions.assertSame(buffer, manager.borrowEntityCommandBuffer());
+        Assertions.assertNotSame(buffer, manager.borrowEntityCommandBuffer());
+    }
+
+    @Test
+    public void borrowNewEntitiesBuffer() {
+        EntityComponentManager manager = createManager();
+        NewEntitiesBuffer buffer = manager.borrowNewEntitiesBuffer();
+        Array<Entity> first = fill(buffer, 0);
+        manager.flushBuffer(buffer);
+
+        manager.returnBuffer(buffer);
+        NewEntitiesBuffer borrowed = manager.borrowNewEntitiesBuffer();
+        Array<Entity> second = fill(borrowed, 1);
+        manager.flushBuffer(borrowed);
+
+        Assertions.assertSame(buffer, borrowed);
+        check(manager, first, 0);
+        check(manager, second, 1);
+    }
+
+    @Test
+    public void borrowBuffer_otherThread() throws Exception {
+        EntityComponentManager manager = createManager();
+        manager.returnBuffer(manager.createNewEntitiesBuffer());
+
+        NewEntitiesBuffer buffer = CompletableFuture.supplyAsync(() -> {
+            NewEntitiesBuffer borrowed = manager.borrowNewEntitiesBuffer();
+            fill(borrowed, 2);
+            return borrowed;
+        }).get();
+        manager.flushBuffer(buffer);
+
+        int[] count = new int[1];
+        manager.forEach(new MaskFilter.Builder().all(HEALTH, POSITION).build(), (Entity entity) -> ++count[0]);
+        Assertions.assertEquals(Chunk.CAPACITY + 10, count[0]);
+    }
+
+    @Test
+    public void returnBuffer_invalidBuffers() {
+        EntityComponentManager manager = createManager();
+        EntityComponentManager other = createManager();
+        EntityCommandBuffer commands = manager.borrowEntityCommandBuffer();
+        NewEntitiesBuffer newEntities = manager.borrowNewEntitiesBuffer();
+        manager.returnBuffer(commands);
+        manager.returnBuffer(newEntities);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> manager.returnBuffer(commands));
+        Assertions.assertThrows(IllegalStateException.class, () -> manager.returnBuffer(newEntities));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.returnBuffer(other.createEntityCommandBuffer()));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.returnBuffer(other.createNewEntitiesBuffer()));
+    }
+
+}
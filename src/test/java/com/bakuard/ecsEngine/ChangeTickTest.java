@@ -0,0 +1,169 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ChangeTickTest extends ManagerTest {
+
+    private static EntityComponentManager createFilledManager(Array<Entity> entities) {
+        EntityComponentManager manager = createManager();
+        for(int i = 0; i < Chunk.CAPACITY * 3; i++) {
+            Entity entity = manager.createEntity(0);
+            manager.bind(new Value(entity, HEALTH));
+            manager.bindStruct(entity, POSITION);
+            manager.bindTag(entity, ENEMY);
+            entities.add(entity);
+        }
+        return manager;
+    }
+
+    private static MaskFilter filter() {
+        return new MaskFilter.Builder().all(HEALTH, POSITION, ENEMY).build();
+    }
+
+    private static Array<Chunk> changedChunks(EntityComponentManager manager, int componentTypeID, long sinceTick) {
+        Array<Chunk> chunks = new Array<>(Chunk.class, 0);
+        manager.forEachChunk(filter(), componentTypeID, sinceTick, chunks::add);
+        return chunks;
+    }
+
+    @Test
+    public void advanceChangeTick() {
+        EntityComponentManager manager = createManager();
+
+        Assertions.assertEquals(1, manager.getChangeTick());
+        Assertions.assertEquals(2, manager.advanceChangeTick());
+        Assertions.assertEquals(3, manager.advanceChangeTick());
+        Assertions.assertEquals(3, manager.getChangeTick());
+    }
+
+    @Test
+    public void getChangeTick_newEntities() {
+        EntityComponentManager manager = createFilledManager(new Array<>(Entity.class, 0));
+        int[] chunks = new int[1];
+
+        manager.forEachChunk(filter(), (Chunk chunk) -> {
+            for(int type : new int[]{HEALTH, POSITION, ENEMY}) {
+                Assertions.assertEquals(1, chunk.getChangeTick(type));
+                Assertions.assertTrue(chunk.isChangedSince(type, 1));
+                Assertions.assertFalse(chunk.isChangedSince(type, 2));
+            }
+            Assertions.assertEquals(-1, chunk.getChangeTick(ARMOR));
+            Assertions.assertEquals(-1, chunk.getChangeTick(SELECTED));
+            Assertions.assertFalse(chunk.isChangedSince(ARMOR, 0));
+            ++chunks[0];
+        });
+
+        Assertions.assertEquals(3, chunks[0]);
+    }
+
+    @Test
+    public void forEachChunk_sinceTick() {
+        Array<Entity> entities = new Array<>(Entity.class, 0);
+        EntityComponentManager manager = createFilledManager(entities);
+        long tick = manager.advanceChangeTick();
+        Entity entity = entities.get(Chunk.CAPACITY + 10);
+
+        manager.setInt(entity, POSITION, 0, 42);
+
+        Array<Chunk> changed = changedChunks(manager, POSITION, tick);
+        Assertions.assertEquals(1, changed.getLength());
+        Assertions.assertEquals(entity, changed.get(0).getEntity(10));
+        Assertions.assertEquals(tick, changed.get(0).getChangeTick(POSITION));
+        Assertions.assertEquals(1, changed.get(0).getChangeTick(HEALTH));
+        Assertions.assertEquals(0, changedChunks(manager, HEALTH, tick).getLength());
+        Assertions.assertEquals(3, changedChunks(manager, POSITION, tick - 1).getLength());
+
+        Query query = manager.createQuery(filter());
+        Array<Chunk> fromQuery = new Array<>(Chunk.class, 0);
+        manager.forEachChunk(query, POSITION, tick, fromQuery::add);
+        Assertions.assertEquals(1, fromQuery.getLength());
+        Assertions.assertSame(changed.get(0), fromQuery.get(0));
+    }
+
+    @Test
+    public void getChangeTick_structuralChanges() {
+        Array<Entity> entities = new Array<>(Entity.class, 0);
+        EntityComponentManager manager = createFilledManager(entities);
+        long tick = manager.advanceChangeTick();
+
+        Value second = new Value(entities.get(0), HEALTH);
+        manager.bind(second);
+
+        Assertions.assertEquals(1, changedChunks(manager, HEALTH, tick).getLength());
+        Assertions.assertEquals(0, changedChunks(manager, POSITION, tick).getLength());
+
+        tick = manager.advanceChangeTick();
+        manager.unbind(second);
+        Assertions.assertEquals(1, changedChunks(manager, HEALTH, tick).getLength());
+
+        long moveTick = manager.advanceChangeTick();
+        Entity moved = entities.get(Chunk.CAPACITY * 2 + 5);
+        manager.bind(new Value(moved, ARMOR));
+        int[] chunks = new int[1];
+        manager.forEachChunk(new MaskFilter.Builder().all(ARMOR).build(), (Chunk chunk) -> {
+            for(int type : new int[]{HEALTH, POSITION, ENEMY, ARMOR}) {
+                Assertions.assertTrue(chunk.isChangedSince(type, moveTick));
+            }
+            ++chunks[0];
+        });
+        Assertions.assertEquals(1, chunks[0]);
+        //Удаление сущности из группы переносит на её место последнюю сущность архетипа.
+        Assertions.assertEquals(1, changedChunks(manager, HEALTH, moveTick).getLength());
+    }
+
+    @Test
+    public void markChanged() {
+        Array<Entity> entities = new Array<>(Entity.class, 0);
+        EntityComponentManager manager = createFilledManager(entities);
+        long tick = manager.advanceChangeTick();
+
+        manager.forEach(filter(), (Entity entity) -> {
+            if(entity.equals(entities.get(0))) manager.markChanged(entity, HEALTH);
+        });
+        manager.forEachChunk(filter(), (Chunk chunk) -> {
+            if(chunk.getEntity(0).equals(entities.get(Chunk.CAPACITY * 2))) chunk.markChanged(ENEMY);
+        });
+
+        Array<Chunk> changedHealth = changedChunks(manager, HEALTH, tick);
+        Array<Chunk> changedEnemy = changedChunks(manager, ENEMY, tick);
+        Assertions.assertEquals(1, changedHealth.getLength());
+        Assertions.assertEquals(entities.get(0), changedHealth.get(0).getEntity(0));
+        Assertions.assertEquals(1, changedEnemy.getLength());
+        Assertions.assertEquals(entities.get(Chunk.CAPACITY * 2), changedEnemy.get(0).getEntity(0));
+    }
+
+    @Test
+    public void markChanged_invalidArguments() {
+        Array<Entity> entities = new Array<>(Entity.class, 0);
+        EntityComponentManager manager = createFilledManager(entities);
+        Entity removed = entities.get(1);
+        manager.removeEntity(removed);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.markChanged(removed, HEALTH));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.markChanged(entities.get(0), ARMOR));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.markChanged(entities.get(0), SELECTED));
+        manager.forEachChunk(filter(), (Chunk chunk) ->
+                Assertions.assertThrows(IllegalArgumentException.class, () -> chunk.markChanged(ARMOR)));
+    }
+
+    @Test
+    public void flushBuffer_mergedEntitiesChanged() {
+        EntityComponentManager manager = createFilledManager(new Array<>(Entity.class, 0));
+        NewEntitiesBuffer buffer = manager.createNewEntitiesBuffer();
+        Entity entity = buffer.createEntity(0);
+        buffer.bind(new Value(entity, HEALTH));
+        buffer.bindStruct(entity, POSITION);
+        buffer.bindTag(entity, ENEMY);
+        long tick = manager.advanceChangeTick();
+
+        manager.flushBuffer(buffer);
+
+        Array<Chunk> changed = changedChunks(manager, POSITION, tick);
+        Assertions.assertEquals(1, changed.getLength());
+        Assertions.assertEquals(entity, changed.get(0).getEntity(changed.get(0).getLength() - 1));
+    }
+
+}
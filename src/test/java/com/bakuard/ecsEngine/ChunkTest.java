@@ -0,0 +1,143 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+class ChunkTest extends ManagerTest {
+
+    private static Array<Entity> createEntities(EntityComponentManager manager, int count) {
+        Array<Entity> entities = new Array<>(Entity.class, 0);
+        for(int i = 0; i < count; i++) {
+            Entity entity = manager.createEntity(0);
+            manager.bind(new Value(entity, HEALTH, i));
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    private static List<Chunk> collectChunks(EntityComponentManager manager) {
+        List<Chunk> chunks = new ArrayList<>();
+        manager.forEachChunk(all(HEALTH), chunks::add);
+        return chunks;
+    }
+
+    private static void checkChunks(EntityComponentManager manager, int expectedEntities) {
+        List<Chunk> chunks = collectChunks(manager);
+        Set<Entity> entities = new HashSet<>();
+        for(int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i);
+            if(i < chunks.size() - 1) Assertions.assertEquals(Chunk.CAPACITY, chunk.getLength());
+            else Assertions.assertTrue(chunk.getLength() > 0 && chunk.getLength() <= Chunk.CAPACITY);
+
+            for(int j = 0; j < chunk.getLength(); j++) {
+                Entity entity = chunk.getEntity(j);
+                Assertions.assertTrue(entities.add(entity));
+                Assertions.assertSame(manager.getComponent(entity, HEALTH), chunk.getComponent(HEALTH, j));
+            }
+        }
+        Assertions.assertEquals(expectedEntities, entities.size());
+        Assertions.assertEquals((expectedEntities + Chunk.CAPACITY - 1) / Chunk.CAPACITY, chunks.size());
+    }
+
+    @Test
+    public void forEachChunk_allChunksFullExceptLast() {
+        EntityComponentManager manager = createManager();
+
+        createEntities(manager, Chunk.CAPACITY * 4 + 3);
+
+        checkChunks(manager, Chunk.CAPACITY * 4 + 3);
+    }
+
+    @Test
+    public void removeEntity_chunksStayDense() {
+        EntityComponentManager manager = createManager();
+        Array<Entity> entities = createEntities(manager, Chunk.CAPACITY * 3 + 10);
+
+        int removed = 0;
+        for(int i = 0; i < entities.getLength(); i += 2) {
+            manager.removeEntity(entities.get(i));
+            ++removed;
+        }
+
+        checkChunks(manager, entities.getLength() - removed);
+        for(int i = 1; i < entities.getLength(); i += 2) {
+            Assertions.assertEquals(i, ((Value) manager.getComponent(entities.get(i), HEALTH)).VALUE);
+        }
+    }
+
+    @Test
+    public void bind_entitiesMovedBetweenChunkedArchetypes() {
+        EntityComponentManager manager = createManager();
+        Array<Entity> entities = createEntities(manager, Chunk.CAPACITY * 2 + 1);
+
+        for(int i = 0; i < entities.getLength(); i += 3) manager.bind(new Value(entities.get(i), ARMOR, -i));
+
+        int[] moved = new int[1];
+        manager.forEachChunk(all(HEALTH, ARMOR), (Chunk chunk) -> {
+            Assertions.assertTrue(chunk.containsComponentType(ARMOR));
+            for(int j = 0; j < chunk.getLength(); j++) {
+                Value health = (Value) chunk.getComponent(HEALTH, j);
+                Assertions.assertEquals(-health.VALUE, ((Value) chunk.getComponent(ARMOR, j)).VALUE);
+                ++moved[0];
+            }
+        });
+        Assertions.assertEquals((entities.getLength() + 2) / 3, moved[0]);
+    }
+
+    @Test
+    public void removeEntity_chunksReusedAfterArchetypeEmptied() {
+        EntityComponentManager manager = createManager();
+        Array<Entity> old = createEntities(manager, Chunk.CAPACITY * 2);
+        for(int i = 0; i < old.getLength(); i++) manager.removeEntity(old.get(i));
+        Assertions.assertTrue(collectChunks(manager).isEmpty());
+
+        createEntities(manager, Chunk.CAPACITY + 1);
+
+        checkChunks(manager, Chunk.CAPACITY + 1);
+        Assertions.assertEquals(0, manager.dropEmptyArchetypes());
+        checkChunks(manager, Chunk.CAPACITY + 1);
+    }
+
+    @Test
+    public void dropEmptyArchetypes_emptyArchetypesRemoved() {
+        EntityComponentManager manager = createManager();
+        Array<Entity> entities = createEntities(manager, 10);
+        for(int i = 0; i < entities.getLength(); i++) manager.bind(new Value(entities.get(i), ARMOR, i));
+
+        Assertions.assertEquals(1, manager.dropEmptyArchetypes());
+        Assertions.assertEquals(0, manager.dropEmptyArchetypes());
+        checkChunks(manager, 10);
+    }
+
+    @Test
+    public void getEntity_indexOutOfBounds() {
+        EntityComponentManager manager = createManager();
+        createEntities(manager, 5);
+        Chunk chunk = collectChunks(manager).get(0);
+
+        Assertions.assertThrows(ArrayIndexOutOfBoundsException.class, () -> chunk.getEntity(5));
+        Assertions.assertThrows(ArrayIndexOutOfBoundsException.class, () -> chunk.getEntity(-1));
+        Assertions.assertThrows(ArrayIndexOutOfBoundsException.class, () -> chunk.getComponent(HEALTH, 5));
+        Assertions.assertNull(chunk.getComponent(ARMOR, 0));
+        Assertions.assertNull(chunk.getStructColumn(HEALTH));
+    }
+
+    @Test
+    public void forEachChunk_modifiedDuringIteration() {
+        EntityComponentManager manager = createManager();
+        createEntities(manager, Chunk.CAPACITY + 1);
+
+        Assertions.assertThrows(ConcurrentModificationException.class,
+                () -> manager.forEachChunk(all(HEALTH),
+                        (Chunk chunk) -> manager.createEntity(0)));
+    }
+
+}
@@ -0,0 +1,255 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+class ComponentObserverTest extends ManagerTest {
+
+    //Запоминает полученные пакеты. Массивы пакетов переиспользуются менеджером, поэтому их содержимое копируется.
+    private static class Recorder implements ComponentObserver {
+
+        private final List<String> EVENTS = new ArrayList<>();
+        private final Set<Entity> ADDED = new HashSet<>();
+        private final Set<Entity> REMOVED = new HashSet<>();
+
+        @Override
+        public void onRemoved(int componentTypeID, Array<Entity> entities) {
+            EVENTS.add("removed " + componentTypeID);
+            for(int i = 0; i < entities.getLength(); i++) REMOVED.add(entities.get(i));
+        }
+
+        @Override
+        public void onAdded(int componentTypeID, Array<Entity> entities) {
+            EVENTS.add("added " + componentTypeID);
+            for(int i = 0; i < entities.getLength(); i++) ADDED.add(entities.get(i));
+        }
+
+        void clear() {
+            EVENTS.clear();
+            ADDED.clear();
+            REMOVED.clear();
+        }
+
+    }
+
+    @Test
+    public void notifyObservers_bindAndUnbind() {
+        EntityComponentManager manager = createManager();
+        Recorder recorder = new Recorder();
+        manager.addObserver(HEALTH, recorder);
+        Set<Entity> expected = new HashSet<>();
+        Value[] components = new Value[Chunk.CAPACITY + 10];
+        for(int i = 0; i < components.length; i++) {
+            Entity entity = manager.createEntity(0);
+            components[i] = new Value(entity, HEALTH);
+            manager.bind(components[i]);
+            expected.add(entity);
+        }
+
+        manager.notifyObservers();
+
+        Assertions.assertEquals(List.of("added " + HEALTH), recorder.EVENTS);
+        Assertions.assertEquals(expected, recorder.ADDED);
+
+        recorder.clear();
+        Value second = new Value(components[0].getOwner(), HEALTH);
+        manager.bind(second);
+        manager.unbind(components[0]);
+        manager.notifyObservers();
+        Assertions.assertTrue(recorder.EVENTS.isEmpty());
+
+        manager.unbind(second);
+        manager.unbind(components[1]);
+        manager.notifyObservers();
+        Assertions.assertEquals(List.of("removed " + HEALTH), recorder.EVENTS);
+        Assertions.assertEquals(Set.of(components[0].getOwner(), components[1].getOwner()), recorder.REMOVED);
+    }
+
+    @Test
+    public void notifyObservers_changesCancelEachOther() {
+        EntityComponentManager manager = createManager();
+        Entity entity = manager.createEntity(0);
+        manager.bindTag(entity, ENEMY);
+        Recorder recorder = new Recorder();
+        manager.addObserver(HEALTH, recorder);
+        manager.addObserver(ENEMY, recorder);
+
+        Value health = new Value(entity, HEALTH);
+        manager.bind(health);
+        manager.unbind(health);
+        manager.unbindTag(entity, ENEMY);
+        manager.bindTag(entity, ENEMY);
+        manager.notifyObservers();
+
+        Assertions.assertTrue(recorder.EVENTS.isEmpty());
+    }
+
+    @Test
+    public void notifyObservers_allKindsOfTypes() {
+        EntityComponentManager manager = createManager();
+        Recorder recorder = new Recorder();
+        for(int type : new int[]{POSITION, ENEMY, SELECTED}) manager.addObserver(type, recorder);
+        Entity entity = manager.createEntity(0);
+
+        manager.bindStruct(entity, POSITION);
+        manager.bindTag(entity, ENEMY);
+        manager.bind(new Value(entity, SELECTED));
+        manager.notifyObservers();
+
+        Assertions.assertEquals(Set.of("added " + POSITION, "added " + ENEMY, "added " + SELECTED),
+                new HashSet<>(recorder.EVENTS));
+        Assertions.assertEquals(Set.of(entity), recorder.ADDED);
+
+        recorder.clear();
+        manager.removeEntity(entity);
+        manager.notifyObservers();
+        Assertions.assertEquals(Set.of("removed " + POSITION, "removed " + ENEMY, "removed " + SELECTED),
+                new HashSet<>(recorder.EVENTS));
+        Assertions.assertEquals(Set.of(entity), recorder.REMOVED);
+    }
+
+    @Test
+    public void notifyObservers_removedBeforeAdded() {
+        EntityComponentManager manager = createManager();
+        Entity removed = manager.createEntity(0);
+        manager.bind(new Value(removed, HEALTH));
+        Recorder recorder = new Recorder();
+        manager.addObserver(HEALTH, recorder);
+
+        manager.removeEntity(removed);
+        Entity created = manager.createEntity(0);
+        manager.bind(new Value(created, HEALTH));
+        manager.notifyObservers();
+
+        Assertions.assertEquals(List.of("removed " + HEALTH, "added " + HEALTH), recorder.EVENTS);
+        Assertions.assertEquals(Set.of(removed), recorder.REMOVED);
+        Assertions.assertEquals(Set.of(created), recorder.ADDED);
+    }
+
+    @Test
+    public void notifyObservers_batchOperations() {
+        EntityComponentManager manager = createManager();
+        Recorder recorder = new Recorder();
+        manager.addObserver(ARMOR, recorder);
+        manager.addObserver(ENEMY, recorder);
+        Prefab prefab = manager.createPrefab(
+                new Prefab.Builder(0).component(HEALTH, entity -> new Value(entity, HEALTH)));
+        Array<Entity> entities = manager.instantiate(prefab, 20);
+        manager.notifyObservers();
+        Assertions.assertTrue(recorder.EVENTS.isEmpty());
+
+        manager.bindToAll(new MaskFilter.Builder().all(HEALTH).build(), ARMOR, entity -> new Value(entity, ARMOR));
+        manager.notifyObservers();
+        Assertions.assertEquals(List.of("added " + ARMOR), recorder.EVENTS);
+        Assertions.assertEquals(20, recorder.ADDED.size());
+
+        recorder.clear();
+        manager.unbindFromAll(new MaskFilter.Builder().all(ARMOR).build(), ARMOR);
+        manager.instantiate(manager.createPrefab(new Prefab.Builder(0).tag(ENEMY)), 3);
+        manager.notifyObservers();
+        Assertions.assertEquals(Set.of("removed " + ARMOR, "added " + ENEMY), new HashSet<>(recorder.EVENTS));
+        Assertions.assertEquals(20, recorder.REMOVED.size());
+        Assertions.assertEquals(3, recorder.ADDED.size());
+        for(int i = 0; i < entities.getLength(); i++) Assertions.assertTrue(recorder.REMOVED.contains(entities.get(i)));
+    }
+
+    @Test
+    public void notifyObservers_flushedBuffers() {
+        EntityComponentManager manager = createManager();
+        Entity existing = manager.createEntity(0);
+        manager.bind(new Value(existing, HEALTH));
+        Recorder recorder = new Recorder();
+        manager.addObserver(HEALTH, recorder);
+        manager.addObserver(SELECTED, recorder);
+
+        NewEntitiesBuffer newEntities = manager.createNewEntitiesBuffer();
+        Entity first = newEntities.createEntity(0);
+        newEntities.bind(new Value(first, HEALTH));
+        newEntities.bind(new Value(first, SELECTED));
+        Entity notObserved = newEntities.createEntity(0);
+        newEntities.bindTag(notObserved, ENEMY);
+        EntityCommandBuffer commands = manager.createEntityCommandBuffer();
+        Entity second = commands.createEntity(0);
+        commands.bind(new Value(second, HEALTH));
+        commands.removeEntity(existing);
+
+        manager.flushBuffer(newEntities);
+        manager.flushBuffer(commands, exception -> Assertions.fail(exception));
+        manager.notifyObservers();
+
+        Assertions.assertEquals(Set.of(first, second), recorder.ADDED);
+        Assertions.assertEquals(Set.of(existing), recorder.REMOVED);
+        Assertions.assertTrue(recorder.EVENTS.contains("added " + SELECTED));
+    }
+
+    @Test
+    public void removeObserver() {
+        EntityComponentManager manager = createManager();
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        manager.addObserver(HEALTH, first);
+        manager.addObserver(HEALTH, second);
+        manager.bind(new Value(manager.createEntity(0), HEALTH));
+
+        Assertions.assertTrue(manager.removeObserver(HEALTH, first));
+        Assertions.assertFalse(manager.removeObserver(HEALTH, first));
+        Assertions.assertFalse(manager.removeObserver(ARMOR, second));
+        manager.notifyObservers();
+        Assertions.assertTrue(first.EVENTS.isEmpty());
+        Assertions.assertEquals(1, second.ADDED.size());
+
+        //Накопленные изменения отбрасываются, если у типа компонентов не остается наблюдателей.
+        second.clear();
+        manager.bind(new Value(manager.createEntity(0), HEALTH));
+        Assertions.assertTrue(manager.removeObserver(HEALTH, second));
+        manager.addObserver(HEALTH, second);
+        manager.notifyObservers();
+        Assertions.assertTrue(second.EVENTS.isEmpty());
+    }
+
+    @Test
+    public void notifyObservers_modificationsDuringNotification() {
+        EntityComponentManager manager = createManager();
+        Entity entity = manager.createEntity(0);
+        Recorder recorder = new Recorder();
+        manager.addObserver(ARMOR, recorder);
+        manager.addObserver(HEALTH, new ComponentObserver() {
+            @Override
+            public void onRemoved(int componentTypeID, Array<Entity> entities) {
+
+            }
+
+            @Override
+            public void onAdded(int componentTypeID, Array<Entity> entities) {
+                Assertions.assertThrows(IllegalStateException.class, manager::notifyObservers);
+                Assertions.assertThrows(IllegalStateException.class, () -> manager.addObserver(ARMOR, recorder));
+                Assertions.assertThrows(IllegalStateException.class, () -> manager.removeObserver(ARMOR, recorder));
+                for(int i = 0; i < entities.getLength(); i++) manager.bind(new Value(entities.get(i), ARMOR));
+            }
+        });
+        manager.bind(new Value(entity, HEALTH));
+
+        manager.notifyObservers();
+        Assertions.assertTrue(manager.hasComponent(entity, ARMOR));
+        Assertions.assertTrue(recorder.EVENTS.isEmpty());
+
+        manager.notifyObservers();
+        Assertions.assertEquals(Set.of(entity), recorder.ADDED);
+    }
+
+    @Test
+    public void addObserver_invalidArguments() {
+        EntityComponentManager manager = createManager();
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.addObserver(-1, new Recorder()));
+        Assertions.assertThrows(NullPointerException.class, () -> manager.addObserver(HEALTH, null));
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+
+class ConcurrentCommandBufferTest extends ManagerTest {
+
+    private static final int ORDER = 5;
+    private static final int NUMBER_THREADS = 4;
+    private static final int NUMBER_KEYS = 2000;
+
+    private static class Order extends Component {
+
+        private final int VALUE;
+
+        public Order(Entity owner, int typeID, int value) {
+            super(owner, typeID);
+            VALUE = value;
+        }
+
+        @Override
+        public void destruct() {
+
+        }
+
+    }
+
+    private static List<Integer> collectOrder(EntityComponentManager manager) {
+        List<Integer> result = new ArrayList<>();
+        manager.forEach(new MaskFilter.Builder().all(ORDER).build(),
+                (Entity entity) -> result.add(((Order) manager.getComponent(entity, ORDER)).VALUE));
+        return result;
+    }
+
+    private static void record(ConcurrentCommandBuffer buffer, int lane, long sortKey, int value) {
+        Entity entity = buffer.createEntity(lane, sortKey, 0);
+        buffer.bind(lane, sortKey, new Order(entity, ORDER, value));
+    }
+
+    private static void runOn(ExecutorService executor, Runnable task) throws Exception {
+        executor.submit(task).get(30, TimeUnit.SECONDS);
+    }
+
+    private static List<Integer> flushShuffled(long seed) throws Exception {
+        EntityComponentManager manager = createManager();
+        ConcurrentCommandBuffer buffer = manager.createConcurrentCommandBuffer(NUMBER_THREADS);
+
+        Random random = new Random(seed);
+        List<List<Integer>> keysByLane = new ArrayList<>();
+        for(int i = 0; i < NUMBER_THREADS; i++) keysByLane.add(new ArrayList<>());
+        for(int key = 0; key < NUMBER_KEYS; key++) keysByLane.get(random.nextInt(NUMBER_THREADS)).add(key);
+        for(List<Integer> keys : keysByLane) Collections.shuffle(keys, random);
+
+        ExecutorService executor = Executors.newFixedThreadPool(NUMBER_THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for(int i = 0; i < NUMBER_THREADS; i++) {
+                int lane = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for(int key : keysByLane.get(lane)) {
+                        record(buffer, lane, ConcurrentCommandBuffer.sortKey(key, 0), key);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for(Future<?> future : futures) future.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        manager.flushBuffer(buffer, exception -> Assertions.fail(exception));
+        return collectOrder(manager);
+    }
+
+    @Test
+    public void flushBuffer_shuffledKeysAcrossThreads_reproducible() throws Exception {
+        List<Integer> expected = new ArrayList<>();
+        for(int key = 0; key < NUMBER_KEYS; key++) expected.add(key);
+
+        for(long seed = 0; seed < 10; seed++) {
+            Assertions.assertEquals(expected, flushShuffled(seed), "seed = " + seed);
+        }
+    }
+
+    @Test
+    public void flushBuffer_equalKeysFromDifferentLanes_laneOrder() throws Exception {
+        for(int round = 0; round < 20; round++) {
+            EntityComponentManager manager = createManager();
+            ConcurrentCommandBuffer buffer = manager.createConcurrentCommandBuffer(NUMBER_THREADS);
+            List<ExecutorService> executors = new ArrayList<>();
+            for(int i = 0; i < NUMBER_THREADS; i++) executors.add(Executors.newSingleThreadExecutor());
+            try {
+                //Полосы заполняются в обратном порядке и каждый раз другими потоками.
+                for(int i = NUMBER_THREADS - 1; i >= 0; i--) {
+                    int lane = i;
+                    runOn(executors.get((i + round) % NUMBER_THREADS), () -> record(buffer, lane, 7L, lane * 10));
+                }
+                for(int i = 0; i < NUMBER_THREADS; i++) {
+                    int lane = i;
+                    runOn(executors.get(i), () -> record(buffer, lane, 7L, lane * 10 + 1));
+                }
+                runOn(executors.get(0), () -> record(buffer, NUMBER_THREADS - 1, 3L, -1));
+            } finally {
+                for(ExecutorService executor : executors) executor.shutdownNow();
+            }
+
+            manager.flushBuffer(buffer, exception -> Assertions.fail(exception));
+
+            List<Integer> expected = new ArrayList<>();
+            expected.add(-1);
+            for(int i = 0; i < NUMBER_THREADS; i++) {
+                expected.add(i * 10);
+                expected.add(i * 10 + 1);
+            }
+            Assertions.assertEquals(expected, collectOrder(manager), "round = " + round);
+        }
+    }
+
+    @Test
+    public void flushBuffer_afterReset_laneOrderKept() throws Exception {
+        EntityComponentManager manager = createManager();
+        ConcurrentCommandBuffer buffer = manager.createConcurrentCommandBuffer(2);
+        ExecutorService first = Executors.newSingleThreadExecutor();
+        ExecutorService second = Executors.newSingleThreadExecutor();
+        try {
+            runOn(first, () -> record(buffer, 1, 0L, 1));
+            runOn(second, () -> record(buffer, 0, 0L, 0));
+            buffer.reset();
+            Assertions.assertTrue(buffer.isEmpty());
+
+            runOn(first, () -> record(buffer, 0, 0L, 0));
+            runOn(second, () -> record(buffer, 1, 0L, 1));
+        } finally {
+            first.shutdownNow();
+            second.shutdownNow();
+        }
+
+        manager.flushBuffer(buffer, exception -> Assertions.fail(exception));
+        Assertions.assertEquals(List.of(0, 1), collectOrder(manager));
+        Assertions.assertFalse(buffer.isValid());
+        Assertions.assertThrows(IllegalStateException.class, () -> buffer.createEntity(0, 0L, 0));
+    }
+
+    @Test
+    public void createConcurrentCommandBuffer_invalidLanes() {
+        EntityComponentManager manager = createManager();
+        ConcurrentCommandBuffer buffer = manager.createConcurrentCommandBuffer(2);
+
+        Assertions.assertEquals(2, buffer.getNumberLanes());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.createConcurrentCommandBuffer(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> buffer.createEntity(2, 0L, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> buffer.createEntity(-1, 0L, 0));
+        Assertions.assertTrue(buffer.isEmpty());
+    }
+
+}
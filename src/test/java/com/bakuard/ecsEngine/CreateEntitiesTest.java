@@ -0,0 +1,174 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+class CreateEntitiesTest extends ManagerTest {
+
+    private static void checkCreated(EntityComponentManager manager, Array<Entity> entities, int entityTypeID) {
+        Set<Integer> ids = new HashSet<>();
+        for(int i = 0; i < entities.getLength(); i++) {
+            Entity entity = entities.get(i);
+            Assertions.assertTrue(ids.add(entity.getPersonalID()));
+            Assertions.assertTrue(manager.isAlive(entity));
+            Assertions.assertEquals(entityTypeID, entity.getTypeID());
+            Assertions.assertEquals(i, ((Value) manager.getComponent(entity, HEALTH)).VALUE);
+            Assertions.assertTrue(manager.hasComponent(entity, ENEMY));
+            Assertions.assertEquals(0, manager.getInt(entity, POSITION, 0));
+            Assertions.assertEquals(0, manager.getInt(entity, POSITION, 1));
+        }
+    }
+
+    @Test
+    public void createEntities_manyChunks() {
+        EntityComponentManager manager = createManager();
+        int count = Chunk.CAPACITY * 3 + 5;
+
+        Array<Entity> entities = manager.createEntities(4, count, new int[]{HEALTH, POSITION, ENEMY},
+                (entity, index) -> manager.bind(new Value(entity, HEALTH, index)));
+
+        Assertions.assertEquals(count, entities.getLength());
+        checkCreated(manager, entities, 4);
+        int[] chunks = new int[1];
+        manager.forEachChunk(new MaskFilter.Builder().all(HEALTH, POSITION, ENEMY).build(), (Chunk chunk) -> {
+            for(int i = 0; i < chunk.getLength(); i++) {
+                Assertions.assertEquals(chunk.getEntity(i), manager.getEntity(chunk.getEntity(i).getPersonalID()));
+            }
+            ++chunks[0];
+        });
+        Assertions.assertEquals(4, chunks[0]);
+    }
+
+    @Test
+    public void createEntities_appendToPartialChunk() {
+        EntityComponentManager manager = createManager();
+        int[] types = {HEALTH, POSITION, ENEMY};
+        Array<Entity> first = manager.createEntities(0, 100, types,
+                (entity, index) -> manager.bind(new Value(entity, HEALTH, index)));
+        for(int i = 0; i < first.getLength(); i++) manager.setInt(first.get(i), POSITION, 0, i + 1);
+
+        Array<Entity> second = manager.createEntities(0, Chunk.CAPACITY, types,
+                (entity, index) -> manager.bind(new Value(entity, HEALTH, index)));
+
+        checkCreated(manager, second, 0);
+        for(int i = 0; i < first.getLength(); i++) {
+            Assertions.assertEquals(i + 1, manager.getInt(first.get(i), POSITION, 0));
+        }
+    }
+
+    @Test
+    public void createEntities_reusedMemoryAndIDs() {
+        EntityComponentManager manager = createManager();
+        int[] types = {HEALTH, POSITION, ENEMY};
+        Array<Entity> old = manager.createEntities(0, 700, types,
+                (entity, index) -> manager.bind(new Value(entity, HEALTH, index)));
+        Map<Integer, Integer> oldGenerations = new HashMap<>();
+        for(int i = 0; i < old.getLength(); i++) {
+            manager.setInt(old.get(i), POSITION, 0, 42);
+            manager.setInt(old.get(i), POSITION, 1, 43);
+            oldGenerations.put(old.get(i).getPersonalID(), old.get(i).getGeneration());
+        }
+        manager.removeEntities(new MaskFilter.Builder().all(HEALTH).build());
+
+        Array<Entity> entities = manager.createEntities(0, 700, types,
+                (entity, index) -> manager.bind(new Value(entity, HEALTH, index)));
+
+        checkCreated(manager, entities, 0);
+        int reused = 0;
+        for(int i = 0; i < entities.getLength(); i++) {
+            Entity entity = entities.get(i);
+            Integer oldGeneration = oldGenerations.get(entity.getPersonalID());
+            if(oldGeneration != null) {
+                Assertions.assertTrue(entity.getGeneration() > oldGeneration);
+                ++reused;
+            }
+            Assertions.assertFalse(manager.isAlive(old.get(i)));
+        }
+        Assertions.assertTrue(reused > 0);
+    }
+
+    @Test
+    public void createEntities_zeroCount() {
+        EntityComponentManager manager = createManager();
+        Array<Entity> entities = manager.createEntities(0, 0, new int[]{HEALTH},
+                (entity, index) -> Assertions.fail("Initializer must not be called"));
+        Assertions.assertEquals(0, entities.getLength());
+    }
+
+    @Test
+    public void createEntities_invalidArguments() {
+        EntityComponentManager manager = createManager();
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.createEntities(-1, 10, new int[]{HEALTH}, (entity, index) -> {}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.createEntities(0, -1, new int[]{HEALTH}, (entity, index) -> {}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.createEntities(0, 10, new int[]{HEALTH, HEALTH}, (entity, index) -> {}));
+    }
+
+    @Test
+    public void createEntities_initializerMissesComponent() {
+        EntityComponentManager manager = createManager();
+        Array<Entity> initialized = new Array<>(Entity.class, 0);
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> manager.createEntities(0, 1000, new int[]{HEALTH, POSITION}, (entity, index) -> {
+                    if(index < 600) {
+                        manager.bind(new Value(entity, HEALTH, index));
+                        initialized.add(entity);
+                    }
+                }));
+
+        Set<Entity> alive = new HashSet<>();
+        manager.forEach(new MaskFilter.Builder().build(), alive::add);
+        Assertions.assertEquals(600, alive.size());
+        for(int i = 0; i < initialized.getLength(); i++) {
+            Assertions.assertTrue(alive.contains(initialized.get(i)));
+            Assertions.assertEquals(i, ((Value) manager.getComponent(initialized.get(i), HEALTH)).VALUE);
+        }
+    }
+
+    @Test
+    public void createEntities_newEntitiesBuffer() {
+        EntityComponentManager manager = createManager();
+        NewEntitiesBuffer buffer = manager.createNewEntitiesBuffer();
+        int count = Chunk.CAPACITY * 2 + 17;
+
+        Array<Entity> entities = buffer.createEntities(3, count, new int[]{HEALTH, POSITION, ENEMY},
+                (entity, index) -> buffer.bind(new Value(entity, HEALTH, index)));
+        for(int i = 0; i < count; i++) {
+            Assertions.assertTrue(buffer.contains(entities.get(i)));
+            Assertions.assertFalse(manager.isAlive(entities.get(i)));
+        }
+
+        manager.flushBuffer(buffer);
+        checkCreated(manager, entities, 3);
+    }
+
+    @Test
+    public void createEntities_newEntitiesBuffer_initializerMissesComponent() {
+        EntityComponentManager manager = createManager();
+        NewEntitiesBuffer buffer = manager.createNewEntitiesBuffer();
+        Array<Entity> created = new Array<>(Entity.class, 0);
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> buffer.createEntities(0, 50, new int[]{HEALTH}, (entity, index) -> {
+                    created.add(entity);
+                    if(index < 20) buffer.bind(new Value(entity, HEALTH, index));
+                }));
+
+        for(int i = 0; i < created.getLength(); i++) Assertions.assertEquals(i < 20, buffer.contains(created.get(i)));
+        manager.flushBuffer(buffer);
+        Set<Entity> alive = new HashSet<>();
+        manager.forEach(new MaskFilter.Builder().build(), alive::add);
+        Assertions.assertEquals(20, alive.size());
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class DirectStructColumnTest extends ManagerTest {
+
+    private static final int TRANSFORM = 5;
+
+    private static EntityComponentManager createDirectManager() {
+        EntityComponentManager manager = createManager();
+        manager.registerStructType(TRANSFORM,
+                new Schema.Builder().addInt("id").addLong("time").addFloat("x").addDouble("y").build(),
+                StructColumn.Storage.DIRECT);
+        return manager;
+    }
+
+    private static void write(EntityComponentManager manager, Entity entity, int value) {
+        manager.setInt(entity, TRANSFORM, 0, value);
+        manager.setLong(entity, TRANSFORM, 1, value * 10L);
+        manager.setFloat(entity, TRANSFORM, 2, value + 0.5f);
+        manager.setDouble(entity, TRANSFORM, 3, value + 0.25);
+    }
+
+    private static void check(EntityComponentManager manager, Entity entity, int value) {
+        Assertions.assertEquals(value, manager.getInt(entity, TRANSFORM, 0));
+        Assertions.assertEquals(value * 10L, manager.getLong(entity, TRANSFORM, 1));
+        Assertions.assertEquals(value + 0.5f, manager.getFloat(entity, TRANSFORM, 2));
+        Assertions.assertEquals(value + 0.25, manager.getDouble(entity, TRANSFORM, 3));
+    }
+
+    @Test
+    public void setInt_getInt_manyChunks() {
+        EntityComponentManager manager = createDirectManager();
+        Array<Entity> entities = new Array<>(Entity.class, 0);
+        for(int i = 0; i < Chunk.CAPACITY * 3 + 7; i++) {
+            Entity entity = manager.createEntity(0);
+            manager.bindStruct(entity, TRANSFORM);
+            write(manager, entity, i);
+            entities.add(entity);
+        }
+
+        for(int i = 0; i < entities.getLength(); i++) check(manager, entities.get(i), i);
+    }
+
+    @Test
+    public void removeEntity_lastRowMovedWithValues() {
+        EntityComponentManager manager = createDirectManager();
+        Array<Entity> entities = new Array<>(Entity.class, 0);
+        for(int i = 0; i < 1000; i++) {
+            Entity entity = manager.createEntity(0);
+            manager.bindStruct(entity, TRANSFORM);
+            write(manager, entity, i);
+            entities.add(entity);
+        }
+
+        for(int i = 0; i < 1000; i += 3) manager.removeEntity(entities.get(i));
+
+        for(int i = 0; i < 1000; i++) {
+            if(i % 3 == 0) Assertions.assertFalse(manager.isAlive(entities.get(i)));
+            else check(manager, entities.get(i), i);
+        }
+    }
+
+    @Test
+    public void bindTag_valuesMovedToOtherArchetype() {
+        EntityComponentManager manager = createDirectManager();
+        Array<Entity> entities = new Array<>(Entity.class, 0);
+        for(int i = 0; i < 700; i++) {
+            Entity entity = manager.createEntity(0);
+            manager.bindStruct(entity, TRANSFORM);
+            write(manager, entity, i);
+            entities.add(entity);
+        }
+
+        for(int i = 0; i < 700; i += 2) manager.bindTag(entities.get(i), ENEMY);
+        for(int i = 0; i < 700; i++) check(manager, entities.get(i), i);
+
+        for(int i = 0; i < 700; i += 2) manager.unbindTag(entities.get(i), ENEMY);
+        for(int i = 0; i < 700; i++) check(manager, entities.get(i), i);
+    }
+
+    @Test
+    public void dropEmptyArchetypes_memoryReusedAfterDrop() {
+        EntityComponentManager manager = createDirectManager();
+        for(int round = 0; round < 5; round++) {
+            Array<Entity> entities = new Array<>(Entity.class, 0);
+            for(int i = 0; i < Chunk.CAPACITY * 4; i++) {
+                Entity entity = manager.createEntity(round);
+                manager.bindStruct(entity, TRANSFORM);
+                write(manager, entity, i + round);
+                entities.add(entity);
+            }
+            for(int i = 0; i < entities.getLength(); i++) check(manager, entities.get(i), i + round);
+
+            for(int i = 0; i < entities.getLength(); i++) manager.removeEntity(entities.get(i));
+            Assertions.assertTrue(manager.dropEmptyArchetypes() > 0);
+        }
+    }
+
+    @Test
+    public void getStructColumn_directStorage() {
+        EntityComponentManager manager = createDirectManager();
+        Entity entity = manager.createEntity(0);
+        manager.bindStruct(entity, TRANSFORM);
+        write(manager, entity, 42);
+
+        int[] visited = new int[1];
+        manager.forEachChunk(new MaskFilter.Builder().all(TRANSFORM).build(), (Chunk chunk) -> {
+            StructColumn column = chunk.getStructColumn(TRANSFORM);
+            Assertions.assertEquals(StructColumn.Storage.DIRECT, column.getStorage());
+            Assertions.assertEquals(1, column.getLength());
+            Assertions.assertEquals(42, column.getInt(0, 0));
+            Assertions.assertEquals(420L, column.getLong(1, 0));
+            ++visited[0];
+        });
+        Assertions.assertEquals(1, visited[0]);
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+class EntitiesSpliteratorTest extends ManagerTest {
+
+    private static EntityComponentManager createFilledManager() {
+        EntityComponentManager manager = createManager();
+        for(int i = 0; i < Chunk.CAPACITY * 5 + 77; i++) {
+            Entity entity = manager.createEntity(i % 3);
+            manager.bind(new Value(entity, HEALTH, i));
+            if(i % 2 == 0) manager.bind(new Value(entity, ARMOR, i));
+            if(i % 5 == 0) manager.bind(new Value(entity, SELECTED, i));
+        }
+        return manager;
+    }
+
+    @Test
+    public void getEntitiesSpliterator_exactSize() {
+        EntityComponentManager manager = createFilledManager();
+        MaskFilter filter = new MaskFilter.Builder().all(ARMOR).build();
+        int expected = collect(manager, filter).size();
+
+        Spliterator<Entity> spliterator = manager.getEntitiesSpliterator(filter);
+
+        Assertions.assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        Assertions.assertEquals(expected, spliterator.getExactSizeIfKnown());
+        Spliterator<Entity> prefix = spliterator.trySplit();
+        Assertions.assertNotNull(prefix);
+        Assertions.assertEquals(expected, prefix.getExactSizeIfKnown() + spliterator.getExactSizeIfKnown());
+    }
+
+    @Test
+    public void getEntitiesSpliterator_upperBoundEstimate() {
+        EntityComponentManager manager = createFilledManager();
+        MaskFilter filter = new MaskFilter.Builder().all(ARMOR).entityTypes(1).build();
+        int expected = collect(manager, filter).size();
+
+        Spliterator<Entity> spliterator = manager.getEntitiesSpliterator(filter);
+
+        Assertions.assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+        Assertions.assertTrue(spliterator.estimateSize() >= expected);
+        List<Entity> actual = new ArrayList<>();
+        spliterator.forEachRemaining(actual::add);
+        Assertions.assertEquals(expected, actual.size());
+    }
+
+    @Test
+    public void getEntitiesSpliterator_splitCoversAllEntities() {
+        EntityComponentManager manager = createFilledManager();
+        MaskFilter filter = new MaskFilter.Builder().all(HEALTH).build();
+        List<Spliterator<Entity>> parts = new ArrayList<>();
+        parts.add(manager.getEntitiesSpliterator(filter));
+        for(int i = 0; i < parts.size(); i++) {
+            Spliterator<Entity> prefix = parts.get(i).trySplit();
+            if(prefix != null) {
+                parts.add(prefix);
+                --i;
+            }
+        }
+
+        List<Entity> actual = new ArrayList<>();
+        for(Spliterator<Entity> part : parts) {
+            while(part.tryAdvance(actual::add));
+        }
+
+        Assertions.assertTrue(parts.size() > 1);
+        Assertions.assertEquals(actual.size(), new HashSet<>(actual).size());
+        Assertions.assertEquals(new HashSet<>(collect(manager, filter)), new HashSet<>(actual));
+    }
+
+    @Test
+    public void stream_parallelReduction() {
+        EntityComponentManager manager = createFilledManager();
+        MaskFilter filter = new MaskFilter.Builder().all(SELECTED).build();
+        long expected = 0;
+        for(Entity entity : collect(manager, filter)) expected += ((Value) manager.getComponent(entity, HEALTH)).VALUE;
+
+        long actual = manager.stream(filter).parallel().
+                mapToLong(entity -> ((Value) manager.getComponent(entity, HEALTH)).VALUE).
+                sum();
+
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertEquals(collect(manager, filter).size(), manager.stream(filter).parallel().count());
+    }
+
+    @Test
+    public void handleStream_sameAsEntities() {
+        EntityComponentManager manager = createFilledManager();
+        MaskFilter filter = new MaskFilter.Builder().none(ARMOR).build();
+        Set<Long> expected = collect(manager, filter).stream().map(Entity::getHandle).collect(Collectors.toSet());
+
+        Set<Long> actual = manager.handleStream(filter).parallel().boxed().collect(Collectors.toSet());
+
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertEquals(expected.size(), manager.getHandlesSpliterator(filter).getExactSizeIfKnown());
+    }
+
+    @Test
+    public void getEntitiesSpliterator_modifiedDuringIteration() {
+        EntityComponentManager manager = createFilledManager();
+        Spliterator<Entity> spliterator = manager.getEntitiesSpliterator(new MaskFilter.Builder().build());
+        spliterator.tryAdvance(entity -> {});
+
+        manager.createEntity(0);
+
+        Assertions.assertThrows(ConcurrentModificationException.class, () -> spliterator.tryAdvance(entity -> {}));
+    }
+
+}
@@ -0,0 +1,185 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.exceptions.BatchException;
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class EntityCommandBufferTest extends ManagerTest {
+
+    @Test
+    public void flushBuffer_allOperations() {
+        EntityComponentManager manager = createManager();
+        Entity existing = manager.createEntity(0);
+        manager.bindStruct(existing, POSITION);
+        manager.bindTag(existing, ENEMY);
+        Entity removed = manager.createEntity(0);
+        EntityCommandBuffer buffer = manager.createEntityCommandBuffer();
+
+        Entity created = buffer.createEntity(5);
+        Value health = new Value(created, HEALTH);
+        Value armor = new Value(created, ARMOR);
+        Value secondArmor = new Value(created, ARMOR);
+        Value selected = new Value(created, SELECTED);
+        buffer.bind(health);
+        buffer.bind(armor, secondArmor, selected);
+        buffer.unbind(secondArmor);
+        buffer.bindStruct(created, POSITION);
+        buffer.bindTag(created, ENEMY);
+        buffer.unbindStruct(existing, POSITION);
+        buffer.unbindTag(existing, ENEMY);
+        buffer.bind(new Value(existing, HEALTH), new Value(existing, HEALTH));
+        buffer.removeEntity(removed);
+
+        Assertions.assertFalse(manager.isAlive(created));
+        Assertions.assertTrue(manager.isAlive(removed));
+        Assertions.assertTrue(manager.hasComponent(existing, ENEMY));
+
+        manager.flushBuffer(buffer, exception -> Assertions.fail(exception));
+
+        Assertions.assertTrue(manager.isAlive(created));
+        Assertions.assertEquals(5, created.getTypeID());
+        Assertions.assertSame(health, manager.getComponent(created, HEALTH));
+        Assertions.assertEquals(1, manager.getCountComponent(created, ARMOR));
+        Assertions.assertSame(armor, manager.getComponent(created, ARMOR));
+        Assertions.assertFalse(secondArmor.isBind());
+        Assertions.assertSame(selected, manager.getComponent(created, SELECTED));
+        Assertions.assertTrue(manager.hasComponent(created, POSITION));
+        Assertions.assertTrue(manager.hasComponent(created, ENEMY));
+        Assertions.assertFalse(manager.hasComponent(existing, POSITION));
+        Assertions.assertFalse(manager.hasComponent(existing, ENEMY));
+        Assertions.assertEquals(2, manager.getCountComponent(existing, HEALTH));
+        Assertions.assertFalse(manager.isAlive(removed));
+    }
+
+    @Test
+    public void flushBuffer_keepsOrderOfOperations() {
+        EntityComponentManager manager = createManager();
+        EntityCommandBuffer buffer = manager.createEntityCommandBuffer();
+        Entity entity = buffer.createEntity(0);
+        Value health = new Value(entity, HEALTH);
+        buffer.bind(health);
+        buffer.removeEntity(entity);
+        Entity other = buffer.createEntity(0);
+        buffer.bindTag(other, ENEMY);
+        buffer.unbindTag(other, ENEMY);
+        buffer.bindTag(other, ENEMY);
+
+        manager.flushBuffer(buffer, exception -> Assertions.fail(exception));
+
+        Assertions.assertFalse(manager.isAlive(entity));
+        Assertions.assertFalse(health.isBind());
+        Assertions.assertTrue(manager.hasComponent(other, ENEMY));
+    }
+
+    @Test
+    public void flushBuffer_manyOperations() {
+        EntityComponentManager manager = createManager();
+        EntityCommandBuffer buffer = manager.createEntityCommandBuffer();
+        List<Entity> entities = new ArrayList<>();
+
+        for(int i = 0; i < Chunk.CAPACITY * 20; i++) {
+            Entity entity = buffer.createEntity(i % 4);
+            buffer.bind(new Value(entity, HEALTH));
+            if(i % 2 == 0) buffer.bindStruct(entity, POSITION);
+            if(i % 3 == 0) buffer.bind(new Value(entity, ARMOR), new Value(entity, SELECTED));
+            if(i % 7 == 0) buffer.removeEntity(entity);
+            entities.add(entity);
+        }
+        manager.flushBuffer(buffer, exception -> Assertions.fail(exception));
+
+        for(int i = 0; i < entities.size(); i++) {
+            Entity entity = entities.get(i);
+            Assertions.assertEquals(i % 7 != 0, manager.isAlive(entity));
+            if(i % 7 != 0) {
+                Assertions.assertEquals(i % 4, entity.getTypeID());
+                Assertions.assertTrue(manager.hasComponent(entity, HEALTH));
+                Assertions.assertEquals(i % 2 == 0, manager.hasComponent(entity, POSITION));
+                Assertions.assertEquals(i % 3 == 0, manager.hasComponent(entity, ARMOR));
+                Assertions.assertEquals(i % 3 == 0, manager.hasComponent(entity, SELECTED));
+            }
+        }
+    }
+
+    @Test
+    public void flushBuffer_invalidOperationsPassedToHandler() {
+        EntityComponentManager manager = createManager();
+        Entity stale = manager.createEntity(0);
+        manager.removeEntity(stale);
+        Entity reused = manager.createEntity(0);
+        EntityCommandBuffer buffer = manager.createEntityCommandBuffer();
+        Entity created = buffer.createEntity(0);
+        buffer.removeEntity(stale);
+        buffer.bind(new Value(stale, HEALTH));
+        buffer.bindStruct(created, ENEMY);
+        buffer.unbindTag(created, ENEMY);
+        buffer.bindTag(created, ENEMY);
+        List<IllegalArgumentException> errors = new ArrayList<>();
+
+        manager.flushBuffer(buffer, errors::add);
+
+        Assertions.assertEquals(4, errors.size());
+        Assertions.assertTrue(manager.isAlive(reused));
+        Assertions.assertTrue(manager.isAlive(created));
+        Assertions.assertTrue(manager.hasComponent(created, ENEMY));
+    }
+
+    @Test
+    public void flushBuffer_handlerThrows() {
+        EntityComponentManager manager = createManager();
+        EntityCommandBuffer buffer = manager.createEntityCommandBuffer();
+        Entity first = buffer.createEntity(0);
+        buffer.bindStruct(first, ENEMY);
+        Entity second = buffer.createEntity(0);
+
+        Assertions.assertThrows(BatchException.class, () -> manager.flushBuffer(buffer, exception -> {
+            throw new IllegalStateException();
+        }));
+
+        Assertions.assertTrue(manager.isAlive(first));
+        Assertions.assertFalse(manager.isAlive(second));
+        Assertions.assertFalse(buffer.isValid());
+    }
+
+    @Test
+    public void isEmpty() {
+        EntityComponentManager manager = createManager();
+        EntityCommandBuffer buffer = manager.createEntityCommandBuffer();
+
+        Assertions.assertTrue(buffer.isEmpty());
+        buffer.bindTag(buffer.createEntity(0), ENEMY);
+        Assertions.assertFalse(buffer.isEmpty());
+        manager.flushBuffer(buffer, exception -> Assertions.fail(exception));
+        Assertions.assertTrue(buffer.isEmpty());
+        Assertions.assertFalse(buffer.isValid());
+        Assertions.assertThrows(IllegalStateException.class, () -> buffer.createEntity(0));
+        Assertions.assertThrows(IllegalStateException.class, () -> buffer.bindTag(manager.createEntity(0), ENEMY));
+    }
+
+    @Test
+    public void reset_discardsUnflushedOperations() {
+        EntityComponentManager manager = createManager();
+        Entity existing = manager.createEntity(0);
+        EntityCommandBuffer buffer = manager.createEntityCommandBuffer();
+        Entity created = buffer.createEntity(0);
+        buffer.bindTag(created, ENEMY);
+        buffer.removeEntity(existing);
+
+        buffer.reset();
+        manager.flushBuffer(buffer, exception -> Assertions.fail(exception));
+
+        Assertions.assertFalse(manager.isAlive(created));
+        Assertions.assertTrue(manager.isAlive(existing));
+
+        buffer.reset();
+        Entity recreated = buffer.createEntity(0);
+        buffer.bindTag(recreated, ENEMY);
+        manager.flushBuffer(buffer, exception -> Assertions.fail(exception));
+        Assertions.assertTrue(manager.hasComponent(recreated, ENEMY));
+    }
+
+}
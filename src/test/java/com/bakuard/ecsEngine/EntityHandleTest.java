@@ -0,0 +1,146 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class EntityHandleTest extends ManagerTest {
+
+    @Test
+    public void createEntityHandle_decodesEntity() {
+        EntityComponentManager manager = createManager();
+        long handle = manager.createEntityHandle(7);
+        Entity entity = manager.getEntity(handle);
+
+        Assertions.assertNotNull(entity);
+        Assertions.assertEquals(handle, entity.getHandle());
+        Assertions.assertEquals(7, Entity.getTypeID(handle));
+        Assertions.assertEquals(entity.getPersonalID(), Entity.getPersonalID(handle));
+        Assertions.assertEquals(entity.getGeneration(), Entity.getGeneration(handle));
+        Assertions.assertTrue(manager.isAlive(handle));
+    }
+
+    @Test
+    public void createEntityHandle_typeIDTooBig() {
+        EntityComponentManager manager = createManager();
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.createEntityHandle(Entity.MAX_HANDLE_TYPE_ID + 1));
+    }
+
+    @Test
+    public void removeEntity_handleIsNotAlive() {
+        EntityComponentManager manager = createManager();
+        long handle = manager.createEntityHandle(0);
+
+        manager.removeEntity(handle);
+
+        Assertions.assertFalse(manager.isAlive(handle));
+        Assertions.assertNull(manager.getEntity(handle));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.removeEntity(handle));
+    }
+
+    @Test
+    public void isAlive_personalIDReused() {
+        EntityComponentManager manager = createManager();
+        long oldHandle = manager.createEntityHandle(0);
+        manager.removeEntity(oldHandle);
+
+        long newHandle = manager.createEntityHandle(0);
+
+        Assertions.assertEquals(Entity.getPersonalID(oldHandle), Entity.getPersonalID(newHandle));
+        Assertions.assertFalse(manager.isAlive(oldHandle));
+        Assertions.assertTrue(manager.isAlive(newHandle));
+    }
+
+    @Test
+    public void isAlive_otherTypeID() {
+        EntityComponentManager manager = createManager();
+        long handle = manager.createEntityHandle(7);
+        long otherType = handle & ~(0xFFFFL << 48) | 8L << 48;
+
+        Assertions.assertEquals(8, Entity.getTypeID(otherType));
+        Assertions.assertEquals(Entity.getPersonalID(handle), Entity.getPersonalID(otherType));
+        Assertions.assertFalse(manager.isAlive(otherType));
+        Assertions.assertNull(manager.getEntity(otherType));
+        Assertions.assertTrue(manager.isAlive(handle));
+    }
+
+    @Test
+    public void isAlive_unknownHandle() {
+        EntityComponentManager manager = createManager();
+        Assertions.assertFalse(manager.isAlive(Entity.getPersonalID(12345L)));
+        Assertions.assertFalse(manager.isAlive(-1L));
+    }
+
+    @Test
+    public void isAlive_generationExhausted_idNotReused() {
+        EntityComponentManager manager = createManager();
+        long firstHandle = manager.createEntityHandle(0);
+        int personalID = Entity.getPersonalID(firstHandle);
+        manager.removeEntity(firstHandle);
+
+        int reuses = 1;
+        long handle = manager.createEntityHandle(0);
+        while(Entity.getPersonalID(handle) == personalID) {
+            Assertions.assertFalse(manager.isAlive(firstHandle));
+            manager.removeEntity(handle);
+            handle = manager.createEntityHandle(0);
+            ++reuses;
+        }
+
+        Assertions.assertEquals(0xFFFF, reuses);
+        Assertions.assertFalse(manager.isAlive(firstHandle));
+        Assertions.assertTrue(manager.isAlive(handle));
+        for(int i = 0; i < 1000; i++) {
+            Assertions.assertNotEquals(personalID, Entity.getPersonalID(manager.createEntityHandle(0)));
+        }
+    }
+
+    @Test
+    public void bind_handle() {
+        EntityComponentManager manager = createManager();
+        long handle = manager.createEntityHandle(0);
+
+        Value health = manager.bind(handle, owner -> new Value(owner, HEALTH));
+
+        Assertions.assertTrue(health.isBind());
+        Assertions.assertSame(health, manager.getComponent(handle, HEALTH));
+    }
+
+    @Test
+    public void bind_handle_deadEntity() {
+        EntityComponentManager manager = createManager();
+        long handle = manager.createEntityHandle(0);
+        manager.removeEntity(handle);
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.bind(handle, owner -> new Value(owner, HEALTH)));
+        Assertions.assertNull(manager.getComponent(handle, HEALTH));
+    }
+
+    @Test
+    public void bind_handle_componentOfOtherEntity() {
+        EntityComponentManager manager = createManager();
+        long handle = manager.createEntityHandle(0);
+        Entity other = manager.createEntity(0);
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.bind(handle, owner -> new Value(other, HEALTH)));
+        Assertions.assertFalse(manager.hasComponent(other, HEALTH));
+    }
+
+    @Test
+    public void bindTag_bindStruct_handle() {
+        EntityComponentManager manager = createManager();
+        long handle = manager.createEntityHandle(0);
+
+        manager.bindTag(handle, ENEMY);
+        manager.bindStruct(handle, POSITION);
+
+        Entity entity = manager.getEntity(handle);
+        Assertions.assertTrue(manager.hasComponent(entity, ENEMY));
+        Assertions.assertTrue(manager.hasComponent(entity, POSITION));
+        Assertions.assertEquals(0, manager.getInt(entity, POSITION, 0));
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+class EntityIDAllocatorTest extends ManagerTest {
+
+    private static final int NUMBER_THREADS = 4;
+    private static final int NUMBER_ENTITIES = 20000;
+
+    @Test
+    public void createEntity_sequential_uniqueIDs() {
+        EntityComponentManager manager = createManager();
+        Set<Integer> ids = new HashSet<>();
+        for(int i = 0; i < NUMBER_ENTITIES; i++) {
+            Assertions.assertTrue(ids.add(manager.createEntity(0).getPersonalID()));
+        }
+    }
+
+    @Test
+    public void removeEntity_idReusedWithNextGeneration() {
+        EntityComponentManager manager = createManager();
+        Entity first = manager.createEntity(0);
+        manager.removeEntity(first);
+
+        Entity second = manager.createEntity(0);
+
+        Assertions.assertEquals(first.getPersonalID(), second.getPersonalID());
+        Assertions.assertEquals(first.getGeneration() + 1, second.getGeneration());
+        Assertions.assertFalse(manager.isAlive(first));
+        Assertions.assertTrue(manager.isAlive(second));
+    }
+
+    @Test
+    public void createEntity_concurrentBuffers_uniqueIDsAndGenerations() throws Exception {
+        EntityComponentManager manager = createManager();
+        Array<NewEntitiesBuffer> buffers = new Array<>(NewEntitiesBuffer.class, 0);
+        for(int i = 0; i < NUMBER_THREADS; i++) buffers.add(manager.createNewEntitiesBuffer());
+
+        ExecutorService executor = Executors.newFixedThreadPool(NUMBER_THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Array<Entity>>> futures = new ArrayList<>();
+        List<Array<Entity>> removedLists = new ArrayList<>();
+        try {
+            for(int i = 0; i < NUMBER_THREADS; i++) {
+                NewEntitiesBuffer buffer = buffers.get(i);
+                Array<Entity> removed = new Array<>(Entity.class, 0);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    Array<Entity> alive = new Array<>(Entity.class, 0);
+                    for(int j = 0; j < NUMBER_ENTITIES; j++) {
+                        Entity entity = buffer.createEntity(0);
+                        if(j % 3 == 0) {
+                            buffer.removeEntity(entity);
+                            removed.add(entity);
+                        } else {
+                            alive.add(entity);
+                        }
+                    }
+                    return alive;
+                }));
+                removedLists.add(removed);
+            }
+            start.countDown();
+
+            Set<Integer> ids = new HashSet<>();
+            Array<Entity> all = new Array<>(Entity.class, 0);
+            for(int i = 0; i < NUMBER_THREADS; i++) {
+                Array<Entity> alive = futures.get(i).get(30, TimeUnit.SECONDS);
+                for(int j = 0; j < alive.getLength(); j++) {
+                    Assertions.assertTrue(ids.add(alive.get(j).getPersonalID()));
+                    all.add(alive.get(j));
+                }
+            }
+
+            for(int i = 0; i < NUMBER_THREADS; i++) manager.flushBuffer(buffers.get(i));
+
+            for(int i = 0; i < all.getLength(); i++) {
+                Entity entity = all.get(i);
+                Assertions.assertTrue(manager.isAlive(entity));
+                Assertions.assertTrue(manager.isAlive(entity.getHandle()));
+                Assertions.assertEquals(entity, manager.getEntity(entity.getPersonalID()));
+            }
+            for(int i = 0; i < NUMBER_THREADS; i++) {
+                Array<Entity> removed = removedLists.get(i);
+                for(int j = 0; j < removed.getLength(); j++) {
+                    Assertions.assertFalse(manager.isAlive(removed.get(j)));
+                    Assertions.assertFalse(manager.isAlive(removed.get(j).getHandle()));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Set<Integer> ids = new HashSet<>();
+        manager.forEach(new MaskFilter.Builder().build(), (Entity entity) -> ids.add(entity.getPersonalID()));
+        for(int i = 0; i < NUMBER_ENTITIES; i++) {
+            Assertions.assertTrue(ids.add(manager.createEntity(0).getPersonalID()));
+        }
+    }
+
+}
@@ -0,0 +1,260 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+class FlushBufferCoalescedTest extends ManagerTest {
+
+    private static final int[] OBJECT_TYPES = {HEALTH, ARMOR, SELECTED};
+
+    private static class Named extends Component {
+
+        private int destructs;
+
+        public Named(Entity owner, int typeID, String name) {
+            super(owner, typeID);
+            setLabel(name);
+        }
+
+        @Override
+        public void destruct() {
+            ++destructs;
+        }
+
+    }
+
+    /*
+     * Сущности и компоненты, созданные сценарием. Порядок их добавления одинаков при любом способе слияния,
+     * поэтому снимки состояния менеджеров можно сравнивать построчно.
+     */
+    private static class Fixture {
+
+        private final EntityComponentManager MANAGER;
+        private final EntityCommandBuffer BUFFER;
+        private final boolean IS_COALESCED;
+        private final List<Entity> ENTITIES;
+        private final List<Named> COMPONENTS;
+        private int errors;
+
+        private Fixture(boolean isCoalesced) {
+            MANAGER = createManager();
+            BUFFER = MANAGER.createEntityCommandBuffer();
+            IS_COALESCED = isCoalesced;
+            ENTITIES = new ArrayList<>();
+            COMPONENTS = new ArrayList<>();
+        }
+
+        private void flush() {
+            if(IS_COALESCED) MANAGER.flushBufferCoalesced(BUFFER, exception -> ++errors);
+            else MANAGER.flushBuffer(BUFFER, exception -> ++errors);
+            BUFFER.reset();
+        }
+
+        private Entity existing(int entityTypeID) {
+            Entity entity = MANAGER.createEntity(entityTypeID);
+            ENTITIES.add(entity);
+            return entity;
+        }
+
+        private Entity created(int entityTypeID) {
+            Entity entity = BUFFER.createEntity(entityTypeID);
+            ENTITIES.add(entity);
+            return entity;
+        }
+
+        private Named component(Entity owner, int typeID) {
+            Named component = new Named(owner, typeID, "c" + COMPONENTS.size());
+            COMPONENTS.add(component);
+            return component;
+        }
+
+        private Named bound(Entity owner, int typeID) {
+            Named component = component(owner, typeID);
+            MANAGER.bind(component);
+            return component;
+        }
+
+    }
+
+    private interface Scenario {
+
+        void run(Fixture fixture);
+
+    }
+
+    private static List<String> snapshot(Fixture fixture) {
+        EntityComponentManager manager = fixture.MANAGER;
+        List<String> result = new ArrayList<>();
+        result.add("errors " + fixture.errors);
+        for(int i = 0; i < fixture.ENTITIES.size(); i++) {
+            Entity entity = fixture.ENTITIES.get(i);
+            StringBuilder line = new StringBuilder("entity " + i + " alive=" + manager.isAlive(entity));
+            if(manager.isAlive(entity)) {
+                for(int type : OBJECT_TYPES) {
+                    List<String> names = new ArrayList<>();
+                    Array<Component> components = manager.getComponents(entity, type);
+                    for(int j = 0; components != null && j < components.getLength(); j++) {
+                        names.add(components.get(j).getLabel());
+                    }
+                    Collections.sort(names);
+                    line.append(" type").append(type).append('=').append(names);
+                }
+                line.append(" enemy=").append(manager.hasComponent(entity, ENEMY));
+                line.append(" position=").append(manager.hasComponent(entity, POSITION));
+                if(manager.hasComponent(entity, POSITION)) line.append(':').append(manager.getInt(entity, POSITION, 0));
+            }
+            result.add(line.toString());
+        }
+        for(Named component : fixture.COMPONENTS) {
+            result.add(component.getLabel() + " bind=" + component.isBind() + " destructs=" + component.destructs);
+        }
+        int[] alive = new int[1];
+        manager.forEach(new MaskFilter.Builder().build(), (Entity entity) -> ++alive[0]);
+        result.add("alive " + alive[0]);
+        return result;
+    }
+
+    private static List<String> run(Scenario scenario, boolean isCoalesced) {
+        Fixture fixture = new Fixture(isCoalesced);
+        scenario.run(fixture);
+        fixture.flush();
+        return snapshot(fixture);
+    }
+
+    private static void assertEquivalent(Scenario scenario) {
+        Assertions.assertEquals(run(scenario, false), run(scenario, true));
+    }
+
+    @Test
+    public void flushBufferCoalesced_createRemove() {
+        assertEquivalent(fixture -> {
+            Entity removed = fixture.created(0);
+            fixture.BUFFER.bind(fixture.component(removed, HEALTH));
+            fixture.BUFFER.bind(fixture.component(removed, SELECTED));
+            fixture.BUFFER.bindTag(removed, ENEMY);
+            fixture.BUFFER.bindStruct(removed, POSITION);
+            fixture.BUFFER.removeEntity(removed);
+
+            Entity kept = fixture.created(1);
+            fixture.BUFFER.bind(fixture.component(kept, HEALTH), fixture.component(kept, ARMOR));
+            fixture.BUFFER.bindTag(kept, ENEMY);
+
+            fixture.BUFFER.bind(fixture.component(removed, ARMOR));
+            fixture.BUFFER.removeEntity(removed);
+        });
+    }
+
+    @Test
+    public void flushBufferCoalesced_bindUnbind() {
+        assertEquivalent(fixture -> {
+            Entity entity = fixture.existing(0);
+            Named health = fixture.bound(entity, HEALTH);
+            Named selected = fixture.bound(entity, SELECTED);
+
+            Named armor = fixture.component(entity, ARMOR);
+            fixture.BUFFER.bind(armor);
+            fixture.BUFFER.unbind(armor);
+            fixture.BUFFER.unbind(health);
+            fixture.BUFFER.unbind(selected);
+            fixture.BUFFER.bind(fixture.component(entity, SELECTED));
+            fixture.BUFFER.bindTag(entity, ENEMY);
+            fixture.BUFFER.unbindTag(entity, ENEMY);
+            fixture.BUFFER.bindStruct(entity, POSITION);
+
+            Entity created = fixture.created(2);
+            Named temporary = fixture.component(created, HEALTH);
+            fixture.BUFFER.bind(temporary);
+            fixture.BUFFER.unbind(temporary);
+            fixture.BUFFER.bind(fixture.component(created, ARMOR));
+        });
+    }
+
+    @Test
+    public void flushBufferCoalesced_rebindSameType() {
+        assertEquivalent(fixture -> {
+            Entity entity = fixture.existing(0);
+            Named first = fixture.bound(entity, HEALTH);
+            Named second = fixture.bound(entity, HEALTH);
+            fixture.MANAGER.bindStruct(entity, POSITION);
+            fixture.MANAGER.setInt(entity, POSITION, 0, 42);
+
+            fixture.BUFFER.unbind(first);
+            fixture.BUFFER.bind(fixture.component(entity, HEALTH));
+            fixture.BUFFER.unbind(second);
+            fixture.BUFFER.bind(second);
+            fixture.BUFFER.unbind(first, second);
+            fixture.BUFFER.bind(first);
+            fixture.BUFFER.unbindStruct(entity, POSITION);
+            fixture.BUFFER.bindStruct(entity, POSITION);
+
+            Entity other = fixture.existing(0);
+            Named armor = fixture.bound(other, ARMOR);
+            fixture.BUFFER.unbind(armor);
+            fixture.BUFFER.bind(armor);
+        });
+    }
+
+    @Test
+    public void flushBufferCoalesced_removeExisting() {
+        assertEquivalent(fixture -> {
+            Entity entity = fixture.existing(0);
+            fixture.bound(entity, HEALTH);
+            Named selected = fixture.bound(entity, SELECTED);
+            fixture.MANAGER.bindTag(entity, ENEMY);
+
+            fixture.BUFFER.bind(fixture.component(entity, HEALTH));
+            fixture.BUFFER.bind(fixture.component(entity, ARMOR));
+            fixture.BUFFER.bind(fixture.component(entity, SELECTED));
+            fixture.BUFFER.unbind(selected);
+            fixture.BUFFER.bindStruct(entity, POSITION);
+            fixture.BUFFER.removeEntity(entity);
+            fixture.BUFFER.bind(fixture.component(entity, ARMOR));
+            fixture.BUFFER.removeEntity(entity);
+
+            Entity survivor = fixture.existing(1);
+            fixture.bound(survivor, ARMOR);
+            fixture.BUFFER.bind(fixture.component(survivor, HEALTH));
+        });
+    }
+
+    @Test
+    public void flushBufferCoalesced_invalidCommands() {
+        assertEquivalent(fixture -> {
+            Entity entity = fixture.existing(0);
+            Named health = fixture.bound(entity, HEALTH);
+
+            fixture.BUFFER.bind(health);
+            fixture.BUFFER.unbind(fixture.component(entity, ARMOR));
+            fixture.BUFFER.unbindTag(entity, ENEMY);
+            fixture.BUFFER.unbindStruct(entity, POSITION);
+            fixture.BUFFER.bindTag(entity, ENEMY);
+            fixture.BUFFER.bindTag(entity, ENEMY);
+            fixture.BUFFER.bindTag(entity, HEALTH);
+        });
+    }
+
+    @Test
+    public void flushBufferCoalesced_severalFlushes() {
+        assertEquivalent(fixture -> {
+            Entity entity = fixture.existing(0);
+            Named health = fixture.bound(entity, HEALTH);
+            for(int i = 0; i < 3; i++) {
+                Entity created = fixture.created(1);
+                fixture.BUFFER.bind(fixture.component(created, ARMOR));
+                fixture.BUFFER.unbind(health);
+                fixture.BUFFER.bindTag(entity, ENEMY);
+                if(i % 2 == 0) fixture.BUFFER.removeEntity(created);
+                fixture.flush();
+                fixture.MANAGER.bind(health);
+                fixture.MANAGER.unbindTag(entity, ENEMY);
+            }
+        });
+    }
+
+}
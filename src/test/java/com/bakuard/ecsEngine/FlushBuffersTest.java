@@ -0,0 +1,161 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+class FlushBuffersTest extends ManagerTest {
+
+    private static final int VELOCITY = 5;
+    private static final int NUMBER_BUFFERS = 4;
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    public void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    public void shutdownPool() {
+        pool.shutdownNow();
+    }
+
+    private EntityComponentManager createFilledManager() {
+        EntityComponentManager manager = createManager();
+        manager.setParallelPool(pool);
+        manager.registerStructType(VELOCITY,
+                new Schema.Builder().addFloat("dx").addDouble("dy").build(),
+                StructColumn.Storage.DIRECT);
+
+        for(int i = 0; i < 100; i++) {
+            Entity entity = manager.createEntity(0);
+            manager.bind(new Value(entity, HEALTH, -i));
+            manager.bindStruct(entity, VELOCITY);
+            manager.setFloat(entity, VELOCITY, 0, -i);
+        }
+        return manager;
+    }
+
+    //Заполняет буферы одинаково для любого менеджера созданного createFilledManager().
+    private static Array<NewEntitiesBuffer> fillBuffers(EntityComponentManager manager) {
+        Array<NewEntitiesBuffer> buffers = new Array<>(NewEntitiesBuffer.class, 0);
+        for(int b = 0; b < NUMBER_BUFFERS; b++) {
+            NewEntitiesBuffer buffer = manager.createNewEntitiesBuffer();
+            int count = Chunk.CAPACITY * (b + 1) + 37 * b;
+            for(int i = 0; i < count; i++) {
+                int value = b * 100000 + i;
+                Entity entity = buffer.createEntity(i % 3);
+                buffer.bind(new Value(entity, HEALTH, value));
+                if(i % 2 == 0) {
+                    buffer.bindStruct(entity, POSITION);
+                    buffer.setInt(entity, POSITION, 0, value);
+                    buffer.setInt(entity, POSITION, 1, -value);
+                }
+                if(i % 3 != 1) {
+                    buffer.bindStruct(entity, VELOCITY);
+                    buffer.setFloat(entity, VELOCITY, 0, value * 0.5f);
+                    buffer.setDouble(entity, VELOCITY, 1, value * 0.25);
+                }
+                if(i % 5 == 0) buffer.bindTag(entity, ENEMY);
+                if(i % 7 == 0) buffer.bind(new Value(entity, SELECTED, value));
+                if(i % 11 == 0) buffer.removeEntity(entity);
+            }
+            buffers.add(buffer);
+        }
+        return buffers;
+    }
+
+    private static List<String> snapshot(EntityComponentManager manager) {
+        List<String> result = new ArrayList<>();
+        manager.forEach(new MaskFilter.Builder().build(), (Entity entity) -> {
+            StringBuilder line = new StringBuilder();
+            Value health = (Value) manager.getComponent(entity, HEALTH);
+            line.append(entity.getHandle()).append(" health=").append(health.VALUE);
+            if(manager.hasComponent(entity, POSITION)) {
+                line.append(" position=").append(manager.getInt(entity, POSITION, 0)).
+                        append(',').append(manager.getInt(entity, POSITION, 1));
+            }
+            if(manager.hasComponent(entity, VELOCITY)) {
+                line.append(" velocity=").append(manager.getFloat(entity, VELOCITY, 0)).
+                        append(',').append(manager.getDouble(entity, VELOCITY, 1));
+            }
+            line.append(" enemy=").append(manager.hasComponent(entity, ENEMY));
+            Value selected = (Value) manager.getComponent(entity, SELECTED);
+            if(selected != null) line.append(" selected=").append(selected.VALUE);
+            result.add(line.toString());
+        });
+        return result;
+    }
+
+    @Test
+    public void flushBuffers_sameAsSequentialFlush() {
+        EntityComponentManager sequential = createFilledManager();
+        Array<NewEntitiesBuffer> sequentialBuffers = fillBuffers(sequential);
+        for(int i = 0; i < sequentialBuffers.getLength(); i++) sequential.flushBuffer(sequentialBuffers.get(i));
+
+        EntityComponentManager parallel = createFilledManager();
+        Array<NewEntitiesBuffer> parallelBuffers = fillBuffers(parallel);
+        NewEntitiesBuffer[] buffers = new NewEntitiesBuffer[parallelBuffers.getLength()];
+        for(int i = 0; i < buffers.length; i++) buffers[i] = parallelBuffers.get(i);
+        parallel.flushBuffers(buffers);
+
+        List<String> expected = snapshot(sequential);
+        Assertions.assertEquals(expected, snapshot(parallel));
+        for(int i = 0; i < buffers.length; i++) Assertions.assertFalse(buffers[i].isValid());
+    }
+
+    @Test
+    public void flushBuffers_mergedEntitiesUsable() {
+        EntityComponentManager manager = createFilledManager();
+        Array<NewEntitiesBuffer> filled = fillBuffers(manager);
+        NewEntitiesBuffer[] buffers = new NewEntitiesBuffer[filled.getLength()];
+        for(int i = 0; i < buffers.length; i++) buffers[i] = filled.get(i);
+        manager.flushBuffers(buffers);
+
+        Set<Integer> ids = new HashSet<>();
+        manager.forEach(new MaskFilter.Builder().all(VELOCITY).build(), (Entity entity) -> {
+            Assertions.assertTrue(ids.add(entity.getPersonalID()));
+            Assertions.assertSame(entity, manager.getEntity(entity.getHandle()));
+            manager.setDouble(entity, VELOCITY, 1, entity.getPersonalID());
+        });
+        manager.forEach(new MaskFilter.Builder().all(VELOCITY).build(), (Entity entity) ->
+                Assertions.assertEquals(entity.getPersonalID(), manager.getDouble(entity, VELOCITY, 1)));
+
+        manager.forEach(new MaskFilter.Builder().build(), (Entity entity) -> ids.add(entity.getPersonalID()));
+        for(int i = 0; i < 1000; i++) Assertions.assertTrue(ids.add(manager.createEntity(0).getPersonalID()));
+    }
+
+    @Test
+    public void flushBuffers_emptyBuffers() {
+        EntityComponentManager manager = createFilledManager();
+        List<String> expected = snapshot(manager);
+
+        manager.flushBuffers(manager.createNewEntitiesBuffer(), manager.createNewEntitiesBuffer());
+        manager.flushBuffers();
+
+        Assertions.assertEquals(expected, snapshot(manager));
+    }
+
+    @Test
+    public void flushBuffers_invalidBuffers() {
+        EntityComponentManager manager = createFilledManager();
+        NewEntitiesBuffer buffer = manager.createNewEntitiesBuffer();
+        NewEntitiesBuffer foreign = createFilledManager().createNewEntitiesBuffer();
+        buffer.createEntity(0);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.flushBuffers(buffer, buffer));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.flushBuffers(buffer, foreign));
+        Assertions.assertTrue(buffer.isValid());
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.utils.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Общая основа тестов EntityComponentManager. Задает типы компонентов, используемые всеми такими тестами, и
+ * создает менеджер, в котором они зарегистрированы: HEALTH и ARMOR - объектные типы (см. Value), POSITION -
+ * структурный тип с полями x и y типа int, ENEMY - тег, SELECTED - разреженный объектный тип. Дополнительные
+ * типы компонентов тесты регистрируют сами, начиная с идентификатора 5.
+ */
+abstract class ManagerTest {
+
+    static final int HEALTH = 0;
+    static final int ARMOR = 1;
+    static final int POSITION = 2;
+    static final int ENEMY = 3;
+    static final int SELECTED = 4;
+
+    static class Value extends Component {
+
+        final int VALUE;
+
+        public Value(Entity owner, int typeID) {
+            this(owner, typeID, 0);
+        }
+
+        public Value(Entity owner, int typeID, int value) {
+            super(owner, typeID);
+            VALUE = value;
+        }
+
+        @Override
+        public void destruct() {
+
+        }
+
+    }
+
+    static EntityComponentManager createManager() {
+        EntityComponentManager manager = new World.Builder().build().getEntityCompManager();
+        manager.registerStructType(POSITION, new Schema.Builder().addInt("x").addInt("y").build());
+        manager.registerTagType(ENEMY);
+        manager.registerSparseType(SELECTED);
+        return manager;
+    }
+
+    //Фильтр сущностей любого типа, имеющих компоненты всех указанных типов.
+    static EntitiesFilter all(int... componentTypeIDs) {
+        return new EntitiesFilter() {
+            @Override
+            public boolean isValidComponentTypes(Bits componentTypes) {
+                for(int componentTypeID : componentTypeIDs) {
+                    if(componentTypeID >= componentTypes.getSize() || !componentTypes.get(componentTypeID)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public boolean isValidEntityType(int entityTypeID) {
+                return true;
+            }
+        };
+    }
+
+    //Фильтр сущностей любого типа, не имеющих компонентов ни одного из указанных типов.
+    static EntitiesFilter none(int... componentTypeIDs) {
+        return new EntitiesFilter() {
+            @Override
+            public boolean isValidComponentTypes(Bits componentTypes) {
+                for(int componentTypeID : componentTypeIDs) {
+                    if(componentTypeID < componentTypes.getSize() && componentTypes.get(componentTypeID)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public boolean isValidEntityType(int entityTypeID) {
+                return true;
+            }
+        };
+    }
+
+    static List<Entity> collect(EntityComponentManager manager, EntitiesFilter filter) {
+        List<Entity> result = new ArrayList<>();
+        manager.forEach(filter, result::add);
+        return result;
+    }
+
+}
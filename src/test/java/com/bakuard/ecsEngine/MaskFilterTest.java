@@ -0,0 +1,156 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+class MaskFilterTest extends ManagerTest {
+
+    private static final int FIRST_TYPE = 5;
+    private static final int NUMBER_TYPES = 6;
+    private static final int SPARSE = 70;
+
+    //Реализация того же условия, что и у MaskFilter, через обычный EntitiesFilter.
+    private static class CallbackFilter implements EntitiesFilter {
+
+        private final MaskFilter MASK;
+
+        private CallbackFilter(MaskFilter mask) {
+            MASK = mask;
+        }
+
+        @Override
+        public boolean isValidComponentTypes(Bits componentTypes) {
+            Bits all = MASK.getAll();
+            Bits any = MASK.getAny();
+            Bits none = MASK.getNone();
+            boolean hasAny = any.isEmpty();
+            for(int i = 0; i < Math.max(all.getSize(), Math.max(any.getSize(), none.getSize())); i++) {
+                boolean present = i < componentTypes.getSize() && componentTypes.get(i);
+                if(i < all.getSize() && all.get(i) && !present) return false;
+                if(i < none.getSize() && none.get(i) && present) return false;
+                if(i < any.getSize() && any.get(i) && present) hasAny = true;
+            }
+            return hasAny;
+        }
+
+        @Override
+        public boolean isValidEntityType(int entityTypeID) {
+            return MASK.isValidEntityType(entityTypeID);
+        }
+
+    }
+
+    //Возвращает идентификаторы типов компонентов по их порядковым номерам среди типов, используемых тестом.
+    private static int[] types(int... indexes) {
+        int[] result = new int[indexes.length];
+        for(int i = 0; i < indexes.length; i++) result[i] = FIRST_TYPE + indexes[i];
+        return result;
+    }
+
+    private static Set<Entity> collectSet(EntityComponentManager manager, EntitiesFilter filter) {
+        return new HashSet<>(collect(manager, filter));
+    }
+
+    @Test
+    public void isValidComponentTypes() {
+        MaskFilter filter = new MaskFilter.Builder().all(1, 130).any(3, 4).none(64).build();
+
+        Assertions.assertTrue(filter.isValidComponentTypes(new Bits(200).setAll(1, 130, 3)));
+        Assertions.assertTrue(filter.isValidComponentTypes(new Bits(131).setAll(1, 130, 4, 65)));
+        Assertions.assertFalse(filter.isValidComponentTypes(new Bits(200).setAll(1, 3)));
+        Assertions.assertFalse(filter.isValidComponentTypes(new Bits(200).setAll(1, 130)));
+        Assertions.assertFalse(filter.isValidComponentTypes(new Bits(200).setAll(1, 130, 3, 64)));
+        Assertions.assertFalse(filter.isValidComponentTypes(new Bits(5).setAll(1, 3)));
+        Assertions.assertFalse(filter.isValidComponentTypes(new Bits()));
+
+        Bits componentTypes = new Bits(200).setAll(1, 130, 3);
+        filter.isValidComponentTypes(componentTypes);
+        Assertions.assertEquals(new Bits(200).setAll(1, 130, 3), componentTypes);
+    }
+
+    @Test
+    public void isValidComponentTypes_emptyFilter() {
+        MaskFilter filter = new MaskFilter.Builder().build();
+
+        Assertions.assertTrue(filter.isValidComponentTypes(new Bits()));
+        Assertions.assertTrue(filter.isValidComponentTypes(new Bits(100).setAll(0, 99)));
+        Assertions.assertTrue(filter.isValidEntityType(0));
+        Assertions.assertTrue(filter.isValidEntityType(1000));
+        Assertions.assertTrue(filter.isAnyEntityType());
+    }
+
+    @Test
+    public void isValidEntityType() {
+        MaskFilter filter = new MaskFilter.Builder().entityTypes(2).entityTypes(70).build();
+
+        Assertions.assertFalse(filter.isAnyEntityType());
+        Assertions.assertTrue(filter.isValidEntityType(2));
+        Assertions.assertTrue(filter.isValidEntityType(70));
+        Assertions.assertFalse(filter.isValidEntityType(3));
+        Assertions.assertFalse(filter.isValidEntityType(1000));
+    }
+
+    @Test
+    public void getters_returnCopies() {
+        MaskFilter filter = new MaskFilter.Builder().all(1).any(2).none(3).entityTypes(4).build();
+
+        filter.getAll().clear(1);
+        filter.getAny().clear(2);
+        filter.getEntityTypes().clear(4);
+
+        Assertions.assertEquals(new Bits(2).setAll(1), filter.getAll());
+        Assertions.assertEquals(new Bits(3).setAll(2), filter.getAny());
+        Assertions.assertEquals(new Bits(4).setAll(3), filter.getNone());
+        Assertions.assertEquals(new Bits(5).setAll(4), filter.getEntityTypes());
+    }
+
+    @Test
+    public void builder_negativeID() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new MaskFilter.Builder().all(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new MaskFilter.Builder().any(0, -1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new MaskFilter.Builder().none(-5));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new MaskFilter.Builder().entityTypes(-1));
+    }
+
+    @Test
+    public void forEach_sameAsCallbackFilter() {
+        EntityComponentManager manager = createManager();
+        manager.registerSparseType(SPARSE);
+        for(int mask = 0; mask < 1 << NUMBER_TYPES; mask++) {
+            for(int i = 0; i < 3; i++) {
+                Entity entity = manager.createEntity(i);
+                for(int type = 0; type < NUMBER_TYPES; type++) {
+                    if((mask & (1 << type)) != 0) manager.bind(new Value(entity, FIRST_TYPE + type));
+                }
+                if(i == 1) manager.bind(new Value(entity, SPARSE));
+            }
+        }
+
+        MaskFilter[] filters = {
+                new MaskFilter.Builder().all(types(0)).build(),
+                new MaskFilter.Builder().all(types(1, 4)).none(types(2)).build(),
+                new MaskFilter.Builder().any(types(3, 5)).none(types(0)).entityTypes(0, 2).build(),
+                new MaskFilter.Builder().all(types(2)).any(types(0, 1)).none(types(5)).entityTypes(1).build(),
+                new MaskFilter.Builder().all(types(0, 1, 2, 3, 4, 5)).build(),
+                new MaskFilter.Builder().none(types(0, 1, 2, 3, 4, 5)).build(),
+                new MaskFilter.Builder().all(SPARSE, FIRST_TYPE + 3).build(),
+                new MaskFilter.Builder().none(SPARSE).any(types(4)).build()
+        };
+        for(MaskFilter filter : filters) {
+            Set<Entity> expected = collectSet(manager, new CallbackFilter(filter));
+            Assertions.assertEquals(expected, collectSet(manager, filter), filter.toString());
+
+            Query query = manager.createQuery(filter);
+            Set<Entity> actual = new HashSet<>();
+            manager.forEach(query, actual::add);
+            Assertions.assertEquals(expected, actual, filter.toString());
+            manager.removeQuery(query);
+        }
+    }
+
+}
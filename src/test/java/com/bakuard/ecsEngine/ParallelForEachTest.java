@@ -0,0 +1,152 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ParallelForEachTest extends ManagerTest {
+
+    private static final int SOURCE = 5;
+    private static final int DEAD = 6;
+
+    private static class Source extends Component {
+
+        private final Entity SOURCE_ENTITY;
+
+        public Source(Entity owner, int typeID, Entity source) {
+            super(owner, typeID);
+            SOURCE_ENTITY = source;
+        }
+
+        @Override
+        public void destruct() {
+
+        }
+
+    }
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    public void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    public void shutdownPool() {
+        pool.shutdownNow();
+    }
+
+    private EntityComponentManager createManager(int numberEntities) {
+        EntityComponentManager manager = createManager();
+        manager.setParallelPool(pool);
+        manager.registerTagType(DEAD);
+        for(int i = 0; i < numberEntities; i++) {
+            Entity entity = manager.createEntity(i % 2);
+            if(i % 5 != 0) manager.bind(new Value(entity, HEALTH, i));
+        }
+        return manager;
+    }
+
+    @Test
+    public void parallelForEach_eachEntityVisitedOnce() {
+        EntityComponentManager manager = createManager(Chunk.CAPACITY * 10 + 3);
+        MaskFilter filter = new MaskFilter.Builder().all(HEALTH).entityTypes(1).build();
+        Set<Entity> visited = ConcurrentHashMap.newKeySet();
+        AtomicInteger calls = new AtomicInteger();
+
+        manager.parallelForEach(filter, (entity, buffer) -> {
+            visited.add(entity);
+            calls.incrementAndGet();
+        }, exception -> Assertions.fail(exception));
+
+        List<Entity> expected = collect(manager, filter);
+        Assertions.assertEquals(expected.size(), calls.get());
+        Assertions.assertEquals(Set.copyOf(expected), visited);
+    }
+
+    @Test
+    public void parallelForEach_noEntities() {
+        EntityComponentManager manager = createManager(0);
+        AtomicInteger calls = new AtomicInteger();
+
+        manager.parallelForEach(new MaskFilter.Builder().build(),
+                (entity, buffer) -> calls.incrementAndGet(),
+                exception -> Assertions.fail(exception));
+
+        Assertions.assertEquals(0, calls.get());
+    }
+
+    @Test
+    public void parallelForEach_structuralChangesDeferred() {
+        EntityComponentManager manager = createManager(Chunk.CAPACITY * 6);
+        List<Entity> all = collect(manager, new MaskFilter.Builder().build());
+        List<Value> healths = new ArrayList<>();
+        for(Entity entity : all) healths.add((Value) manager.getComponent(entity, HEALTH));
+
+        manager.parallelForEach(new MaskFilter.Builder().all(HEALTH).build(), (entity, buffer) -> {
+            Value health = (Value) manager.getComponent(entity, HEALTH);
+            if(health.VALUE % 3 == 0) buffer.removeEntity(entity);
+            else buffer.bindTag(entity, DEAD);
+            Assertions.assertTrue(manager.isAlive(entity));
+            Assertions.assertFalse(manager.hasComponent(entity, DEAD));
+        }, exception -> Assertions.fail(exception));
+
+        for(int i = 0; i < all.size(); i++) {
+            Entity entity = all.get(i);
+            Value health = healths.get(i);
+            if(health == null) {
+                Assertions.assertTrue(manager.isAlive(entity));
+                Assertions.assertFalse(manager.hasComponent(entity, DEAD));
+            } else if(health.VALUE % 3 == 0) {
+                Assertions.assertFalse(manager.isAlive(entity));
+            } else {
+                Assertions.assertSame(health, manager.getComponent(entity, HEALTH));
+                Assertions.assertTrue(manager.hasComponent(entity, DEAD));
+            }
+        }
+    }
+
+    @Test
+    public void parallelForEach_buffersFlushedInChunkOrder() {
+        EntityComponentManager manager = createManager(Chunk.CAPACITY * 12 + 100);
+        MaskFilter filter = new MaskFilter.Builder().all(HEALTH).build();
+        List<Entity> expected = collect(manager, filter);
+
+        manager.parallelForEach(filter, (entity, buffer) -> {
+            Entity created = buffer.createEntity(2);
+            buffer.bind(new Source(created, SOURCE, entity));
+        }, exception -> Assertions.fail(exception));
+
+        List<Entity> actual = new ArrayList<>();
+        manager.forEach(new MaskFilter.Builder().all(SOURCE).build(),
+                (Entity entity) -> actual.add(((Source) manager.getComponent(entity, SOURCE)).SOURCE_ENTITY));
+        Assertions.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void parallelForEach_managerModified_throwsAndDiscardsBuffers() {
+        EntityComponentManager manager = createManager(Chunk.CAPACITY * 3);
+        int before = collect(manager, new MaskFilter.Builder().build()).size();
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> manager.parallelForEach(new MaskFilter.Builder().build(), (entity, buffer) -> {
+                    buffer.createEntity(3);
+                    manager.createEntity(3);
+                }, exception -> Assertions.fail(exception)));
+
+        Assertions.assertEquals(before, collect(manager, new MaskFilter.Builder().build()).size());
+        Assertions.assertTrue(collect(manager, new MaskFilter.Builder().entityTypes(3).build()).isEmpty());
+        manager.createEntity(3);
+    }
+
+}
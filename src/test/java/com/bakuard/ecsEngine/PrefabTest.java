@@ -0,0 +1,152 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+class PrefabTest extends ManagerTest {
+
+    private static final int ORC = 7;
+
+    private static Prefab.Builder orc() {
+        return new Prefab.Builder(ORC).
+                component(HEALTH, entity -> new Value(entity, HEALTH, 100)).
+                component(ARMOR, entity -> new Value(entity, ARMOR, 5)).
+                struct(POSITION).
+                tag(ENEMY);
+    }
+
+    private static void checkOrc(EntityComponentManager manager, Entity entity) {
+        Assertions.assertTrue(manager.isAlive(entity));
+        Assertions.assertEquals(ORC, entity.getTypeID());
+        Value health = (Value) manager.getComponent(entity, HEALTH);
+        Assertions.assertEquals(100, health.VALUE);
+        Assertions.assertTrue(health.isBind());
+        Assertions.assertSame(entity, health.getOwner());
+        Assertions.assertEquals(5, ((Value) manager.getComponent(entity, ARMOR)).VALUE);
+        Assertions.assertTrue(manager.hasComponent(entity, ENEMY));
+        Assertions.assertTrue(manager.hasComponent(entity, POSITION));
+    }
+
+    @Test
+    public void instantiate_manyEntities() {
+        EntityComponentManager manager = createManager();
+        Prefab prefab = manager.createPrefab(orc().initializer((entity, index) -> {
+            manager.setInt(entity, POSITION, 0, index);
+            manager.setInt(entity, POSITION, 1, -index);
+        }));
+
+        Array<Entity> entities = manager.instantiate(prefab, Chunk.CAPACITY * 2 + 3);
+
+        Assertions.assertEquals(Chunk.CAPACITY * 2 + 3, entities.getLength());
+        Set<Entity> unique = new HashSet<>();
+        for(int i = 0; i < entities.getLength(); i++) {
+            Entity entity = entities.get(i);
+            Assertions.assertTrue(unique.add(entity));
+            checkOrc(manager, entity);
+            Assertions.assertEquals(i, manager.getInt(entity, POSITION, 0));
+            Assertions.assertEquals(-i, manager.getInt(entity, POSITION, 1));
+        }
+    }
+
+    @Test
+    public void instantiate_sameArchetypeAsManualBinding() {
+        EntityComponentManager manager = createManager();
+        Prefab prefab = manager.createPrefab(orc());
+        Entity manual = manager.createEntity(ORC);
+        manager.bind(new Value(manual, HEALTH, 100), new Value(manual, ARMOR, 5));
+        manager.bindStruct(manual, POSITION);
+        manager.bindTag(manual, ENEMY);
+
+        manager.instantiate(prefab, 10);
+
+        int[] chunks = new int[1];
+        manager.forEachChunk(new MaskFilter.Builder().all(HEALTH, ARMOR, POSITION, ENEMY).build(), (Chunk chunk) -> {
+            Assertions.assertEquals(11, chunk.getLength());
+            ++chunks[0];
+        });
+        Assertions.assertEquals(1, chunks[0]);
+    }
+
+    @Test
+    public void instantiate_afterDropEmptyArchetypes() {
+        EntityComponentManager manager = createManager();
+        Prefab prefab = manager.createPrefab(orc());
+        Array<Entity> old = manager.instantiate(prefab, 5);
+        for(int i = 0; i < old.getLength(); i++) manager.removeEntity(old.get(i));
+        manager.dropEmptyArchetypes();
+
+        Array<Entity> entities = manager.instantiate(prefab, 5);
+
+        for(int i = 0; i < entities.getLength(); i++) checkOrc(manager, entities.get(i));
+        int[] count = new int[1];
+        manager.forEach(new MaskFilter.Builder().all(ENEMY).build(), (Entity entity) -> ++count[0]);
+        Assertions.assertEquals(5, count[0]);
+    }
+
+    @Test
+    public void instantiate_invalidComponent_entityRemoved() {
+        EntityComponentManager manager = createManager();
+        Array<Entity> created = new Array<>(Entity.class, 0);
+        Prefab prefab = manager.createPrefab(new Prefab.Builder(0).component(HEALTH, entity -> {
+            created.add(entity);
+            return new Value(created.getLength() == 3 ? created.get(0) : entity, HEALTH, 0);
+        }));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.instantiate(prefab, 5));
+
+        Assertions.assertEquals(3, created.getLength());
+        Assertions.assertTrue(manager.isAlive(created.get(0)));
+        Assertions.assertTrue(manager.isAlive(created.get(1)));
+        Assertions.assertFalse(manager.isAlive(created.get(2)));
+    }
+
+    @Test
+    public void instantiate_invalidArguments() {
+        EntityComponentManager manager = createManager();
+        Prefab prefab = manager.createPrefab(orc());
+        Prefab foreign = createManager().createPrefab(orc());
+
+        Assertions.assertEquals(0, manager.instantiate(prefab, 0).getLength());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.instantiate(prefab, -1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.instantiate(foreign, 1));
+    }
+
+    @Test
+    public void createPrefab_invalidComponentTypes() {
+        EntityComponentManager manager = createManager();
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Prefab.Builder(-1));
+        Assertions.assertThrows(NullPointerException.class, () -> new Prefab.Builder(0).component(HEALTH, null));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.createPrefab(new Prefab.Builder(0).component(POSITION, entity -> null)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.createPrefab(new Prefab.Builder(0).struct(ENEMY)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.createPrefab(new Prefab.Builder(0).tag(HEALTH)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.createPrefab(new Prefab.Builder(0).component(SELECTED, entity -> null)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.createPrefab(new Prefab.Builder(0).tag(ENEMY).tag(ENEMY)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.createPrefab(new Prefab.Builder(0).component(-1, entity -> null)));
+    }
+
+    @Test
+    public void getComponentTypes_copy() {
+        EntityComponentManager manager = createManager();
+        Prefab prefab = manager.createPrefab(orc());
+
+        prefab.getComponentTypes().clear(HEALTH);
+
+        Assertions.assertEquals(ORC, prefab.getEntityTypeID());
+        Bits componentTypes = prefab.getComponentTypes();
+        for(int type : new int[]{HEALTH, ARMOR, POSITION, ENEMY}) Assertions.assertTrue(componentTypes.get(type));
+        Assertions.assertEquals(4, componentTypes.cardinality());
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+class QueryCursorTest extends ManagerTest {
+
+    private static EntityComponentManager createFilledManager() {
+        EntityComponentManager manager = createManager();
+        for(int i = 0; i < Chunk.CAPACITY * 3 + 21; i++) {
+            Entity entity = manager.createEntity(i % 2);
+            if(i % 4 != 0) manager.bind(new Value(entity, HEALTH));
+            if(i % 3 == 0) manager.bind(new Value(entity, ARMOR));
+            if(i % 5 == 0) manager.bind(new Value(entity, SELECTED));
+        }
+        return manager;
+    }
+
+    private static List<Entity> collect(QueryCursor cursor) {
+        List<Entity> result = new ArrayList<>();
+        while(cursor.advance()) {
+            Entity entity = cursor.entity();
+            Assertions.assertEquals(entity, cursor.chunk().getEntity(cursor.index()));
+            result.add(entity);
+        }
+        return result;
+    }
+
+    @Test
+    public void advance_sameAsForEach() {
+        EntityComponentManager manager = createFilledManager();
+        QueryCursor cursor = manager.createCursor();
+        EntitiesFilter[] filters = {
+                new MaskFilter.Builder().build(),
+                new MaskFilter.Builder().all(HEALTH).none(ARMOR).build(),
+                new MaskFilter.Builder().all(SELECTED).entityTypes(1).build(),
+                new MaskFilter.Builder().all(HEALTH).entityTypes(7).build()
+        };
+
+        for(EntitiesFilter filter : filters) {
+            List<Entity> expected = collect(manager, filter);
+            List<Entity> actual = collect(cursor.reset(filter));
+            Assertions.assertEquals(expected.size(), actual.size());
+            Assertions.assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+            Assertions.assertFalse(cursor.advance());
+        }
+    }
+
+    @Test
+    public void advance_query() {
+        EntityComponentManager manager = createFilledManager();
+        MaskFilter filter = new MaskFilter.Builder().all(ARMOR).build();
+        Query query = manager.createQuery(filter);
+        QueryCursor cursor = manager.createCursor();
+
+        List<Entity> actual = collect(cursor.reset(query));
+
+        Assertions.assertEquals(new HashSet<>(collect(manager, filter)), new HashSet<>(actual));
+        manager.removeQuery(query);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> cursor.reset(query));
+    }
+
+    @Test
+    public void reset_restartsIteration() {
+        EntityComponentManager manager = createFilledManager();
+        MaskFilter filter = new MaskFilter.Builder().all(HEALTH).build();
+        QueryCursor cursor = manager.createCursor();
+        cursor.reset(filter);
+        for(int i = 0; i < 10; i++) cursor.advance();
+
+        List<Entity> actual = collect(cursor.reset(filter));
+
+        Assertions.assertEquals(collect(manager, filter).size(), actual.size());
+    }
+
+    @Test
+    public void cursor_invalidState() {
+        EntityComponentManager manager = createFilledManager();
+        QueryCursor cursor = manager.createCursor();
+
+        Assertions.assertThrows(IllegalStateException.class, cursor::advance);
+        Assertions.assertThrows(NullPointerException.class, () -> cursor.reset((EntitiesFilter) null));
+        cursor.reset(new MaskFilter.Builder().build());
+        Assertions.assertThrows(NoSuchElementException.class, cursor::entity);
+        Assertions.assertThrows(NoSuchElementException.class, cursor::index);
+        Assertions.assertThrows(NoSuchElementException.class, cursor::chunk);
+
+        while(cursor.advance());
+        Assertions.assertThrows(NoSuchElementException.class, cursor::entity);
+    }
+
+    @Test
+    public void advance_modifiedAfterReset() {
+        EntityComponentManager manager = createFilledManager();
+        QueryCursor cursor = manager.createCursor();
+        cursor.reset(new MaskFilter.Builder().build());
+        cursor.advance();
+
+        manager.createEntity(0);
+
+        Assertions.assertThrows(ConcurrentModificationException.class, cursor::advance);
+        cursor.reset(new MaskFilter.Builder().build());
+        Assertions.assertTrue(cursor.advance());
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+class QueryTest extends ManagerTest {
+
+    private static final int WEAPON = 5;
+
+    //Фильтр "имеет HEALTH, не имеет WEAPON и тип сущности 0".
+    private static class UnarmedFilter implements EntitiesFilter {
+
+        @Override
+        public boolean isValidComponentTypes(Bits componentTypes) {
+            return all(HEALTH).isValidComponentTypes(componentTypes)
+                    && none(WEAPON).isValidComponentTypes(componentTypes);
+        }
+
+        @Override
+        public boolean isValidEntityType(int entityTypeID) {
+            return entityTypeID == 0;
+        }
+
+    }
+
+    //Фильтр "имеет HEALTH и тип сущности 0", подсчитывающий кол-во своих вызовов.
+    private static class CountingFilter implements EntitiesFilter {
+
+        private int componentTypesCalls;
+        private int entityTypeCalls;
+
+        @Override
+        public boolean isValidComponentTypes(Bits componentTypes) {
+            ++componentTypesCalls;
+            return componentTypes.getSize() > HEALTH && componentTypes.get(HEALTH);
+        }
+
+        @Override
+        public boolean isValidEntityType(int entityTypeID) {
+            ++entityTypeCalls;
+            return entityTypeID == 0;
+        }
+
+    }
+
+    /*
+     * Менеджер без разреженных типов компонентов: только в этом случае запрос проверяет фильтр один раз для
+     * каждого архетипа, а не для каждой сущности.
+     */
+    private static EntityComponentManager createDenseManager() {
+        return new World.Builder().build().getEntityCompManager();
+    }
+
+    private static Entity createEntity(EntityComponentManager manager, int entityTypeID, int... types) {
+        Entity entity = manager.createEntity(entityTypeID);
+        for(int type : types) manager.bind(new Value(entity, type));
+        return entity;
+    }
+
+    private static Set<Entity> collectSet(EntityComponentManager manager, Query query) {
+        Set<Entity> result = new HashSet<>();
+        manager.forEach(query, result::add);
+        return result;
+    }
+
+    private static Set<Entity> collectSet(EntityComponentManager manager, EntitiesFilter filter) {
+        return new HashSet<>(collect(manager, filter));
+    }
+
+    @Test
+    public void forEach_sameAsFilter() {
+        EntityComponentManager manager = createDenseManager();
+        for(int i = 0; i < 300; i++) createEntity(manager, i % 2, HEALTH);
+        UnarmedFilter filter = new UnarmedFilter();
+        Query query = manager.createQuery(filter);
+
+        for(int i = 0; i < 300; i++) {
+            if(i % 3 == 0) createEntity(manager, i % 2, HEALTH, ARMOR);
+            if(i % 5 == 0) createEntity(manager, i % 2, HEALTH, WEAPON);
+            if(i % 7 == 0) createEntity(manager, i % 2, ARMOR);
+        }
+
+        Set<Entity> expected = collectSet(manager, filter);
+        Assertions.assertFalse(expected.isEmpty());
+        Assertions.assertEquals(expected, collectSet(manager, query));
+        Assertions.assertEquals(2, query.getNumberArchetypes());
+    }
+
+    @Test
+    public void forEach_filterCheckedOncePerArchetypeAndEntityType() {
+        EntityComponentManager manager = createDenseManager();
+        CountingFilter filter = new CountingFilter();
+        Query query = manager.createQuery(filter);
+        for(int i = 0; i < 100; i++) createEntity(manager, i % 3, HEALTH);
+
+        collectSet(manager, query);
+        int componentTypesCalls = filter.componentTypesCalls;
+        int entityTypeCalls = filter.entityTypeCalls;
+        for(int i = 0; i < 10; i++) Assertions.assertEquals(34, collectSet(manager, query).size());
+
+        Assertions.assertEquals(componentTypesCalls, filter.componentTypesCalls);
+        Assertions.assertEquals(entityTypeCalls, filter.entityTypeCalls);
+        Assertions.assertTrue(entityTypeCalls <= 3);
+
+        createEntity(manager, 0, HEALTH, ARMOR);
+        Assertions.assertTrue(filter.componentTypesCalls > componentTypesCalls);
+        Assertions.assertEquals(35, collectSet(manager, query).size());
+    }
+
+    @Test
+    public void forEachChunk_query() {
+        EntityComponentManager manager = createDenseManager();
+        Query query = manager.createQuery(all(ARMOR));
+        for(int i = 0; i < Chunk.CAPACITY + 10; i++) createEntity(manager, 0, HEALTH, ARMOR);
+        createEntity(manager, 0, HEALTH);
+
+        int[] entities = new int[1];
+        manager.forEachChunk(query, (Chunk chunk) -> {
+            Assertions.assertTrue(chunk.containsComponentType(ARMOR));
+            entities[0] += chunk.getLength();
+        });
+        Assertions.assertEquals(Chunk.CAPACITY + 10, entities[0]);
+    }
+
+    @Test
+    public void dropEmptyArchetypes_removedFromQuery() {
+        EntityComponentManager manager = createDenseManager();
+        Query query = manager.createQuery(all(HEALTH));
+        Entity entity = createEntity(manager, 0, HEALTH);
+        manager.bind(new Value(entity, ARMOR));
+        Assertions.assertEquals(2, query.getNumberArchetypes());
+
+        manager.dropEmptyArchetypes();
+
+        Assertions.assertEquals(1, query.getNumberArchetypes());
+        Assertions.assertEquals(Set.of(entity), collectSet(manager, query));
+    }
+
+    @Test
+    public void removeQuery_queryInvalid() {
+        EntityComponentManager manager = createDenseManager();
+        EntityComponentManager other = createDenseManager();
+        Query query = manager.createQuery(all(HEALTH));
+        createEntity(manager, 0, HEALTH);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> other.removeQuery(query));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> other.forEach(query, (Entity entity) -> {}));
+        manager.removeQuery(query);
+
+        Assertions.assertFalse(query.isValid());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.removeQuery(query));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.forEach(query, (Entity entity) -> {}));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.forEachChunk(query, (Chunk chunk) -> {}));
+        Assertions.assertThrows(NullPointerException.class, () -> manager.createQuery(null));
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+class RemoveEntitiesTest extends ManagerTest {
+
+    private static class Health extends Component {
+
+        private int destructs;
+
+        public Health(Entity owner, int typeID) {
+            super(owner, typeID);
+        }
+
+        @Override
+        public void destruct() {
+            ++destructs;
+        }
+
+    }
+
+    private static Array<Entity> create(EntityComponentManager manager, int entityTypeID, int count,
+                                        Array<Health> healths, int... types) {
+        return manager.createEntities(entityTypeID, count, types, (entity, index) -> {
+            Health health = new Health(entity, HEALTH);
+            manager.bind(health);
+            healths.add(health);
+        });
+    }
+
+    private static Set<Entity> collectSet(EntityComponentManager manager, EntitiesFilter filter) {
+        return new HashSet<>(collect(manager, filter));
+    }
+
+    @Test
+    public void removeEntities_wholeArchetypes() {
+        EntityComponentManager manager = createManager();
+        Array<Health> healths = new Array<>(Health.class, 0);
+        Array<Entity> enemies = create(manager, 0, Chunk.CAPACITY * 2 + 10, healths, HEALTH, ENEMY);
+        Array<Entity> positioned = create(manager, 1, 300, healths, HEALTH, POSITION);
+        Entity survivor = manager.createEntity(0);
+        manager.bindTag(survivor, ENEMY);
+
+        int expected = enemies.getLength() + positioned.getLength();
+        Assertions.assertEquals(expected, manager.removeEntities(new MaskFilter.Builder().all(HEALTH).build()));
+
+        for(int i = 0; i < enemies.getLength(); i++) {
+            Assertions.assertFalse(manager.isAlive(enemies.get(i)));
+            Assertions.assertFalse(manager.isAlive(enemies.get(i).getHandle()));
+            Assertions.assertNull(manager.getEntity(enemies.get(i).getPersonalID()));
+        }
+        for(int i = 0; i < positioned.getLength(); i++) Assertions.assertFalse(manager.isAlive(positioned.get(i)));
+        for(int i = 0; i < healths.getLength(); i++) {
+            Assertions.assertEquals(1, healths.get(i).destructs);
+            Assertions.assertFalse(healths.get(i).isBind());
+        }
+        Assertions.assertTrue(manager.isAlive(survivor));
+        Assertions.assertTrue(manager.isAlive(survivor.getHandle()));
+        Assertions.assertEquals(Set.of(survivor), collectSet(manager, new MaskFilter.Builder().build()));
+    }
+
+    @Test
+    public void removeEntities_partOfArchetype() {
+        EntityComponentManager manager = createManager();
+        Array<Health> healths = new Array<>(Health.class, 0);
+        Array<Entity> first = create(manager, 0, 500, healths, HEALTH, ENEMY);
+        Array<Entity> second = create(manager, 1, 500, healths, HEALTH, ENEMY);
+
+        MaskFilter filter = new MaskFilter.Builder().all(HEALTH).entityTypes(1).build();
+        Assertions.assertEquals(500, manager.removeEntities(filter));
+
+        for(int i = 0; i < 500; i++) {
+            Assertions.assertTrue(manager.isAlive(first.get(i)));
+            Assertions.assertFalse(manager.isAlive(second.get(i)));
+            Assertions.assertEquals(0, healths.get(i).destructs);
+            Assertions.assertEquals(1, healths.get(500 + i).destructs);
+        }
+        Assertions.assertEquals(500, collectSet(manager, new MaskFilter.Builder().all(HEALTH, ENEMY).build()).size());
+    }
+
+    @Test
+    public void removeEntities_noMatches() {
+        EntityComponentManager manager = createManager();
+        create(manager, 0, 100, new Array<>(Health.class, 0), HEALTH);
+
+        Assertions.assertEquals(0, manager.removeEntities(new MaskFilter.Builder().all(ENEMY).build()));
+        Assertions.assertEquals(100, collectSet(manager, new MaskFilter.Builder().build()).size());
+    }
+
+    @Test
+    public void removeEntities_idsReusedWithNextGeneration() {
+        EntityComponentManager manager = createManager();
+        Array<Entity> removed = create(manager, 0, 5000, new Array<>(Health.class, 0), HEALTH);
+        Map<Integer, Entity> removedByID = new HashMap<>();
+        for(int i = 0; i < removed.getLength(); i++) removedByID.put(removed.get(i).getPersonalID(), removed.get(i));
+        Entity survivor = manager.createEntity(1);
+        manager.removeEntities(new MaskFilter.Builder().all(HEALTH).build());
+
+        Set<Integer> ids = new HashSet<>();
+        ids.add(survivor.getPersonalID());
+        int reused = 0;
+        for(int i = 0; i < 5000; i++) {
+            Entity entity = manager.createEntity(2);
+            Assertions.assertTrue(ids.add(entity.getPersonalID()));
+            Assertions.assertTrue(manager.isAlive(entity));
+            Entity old = removedByID.get(entity.getPersonalID());
+            if(old != null) {
+                Assertions.assertTrue(entity.getGeneration() > old.getGeneration());
+                Assertions.assertFalse(manager.isAlive(old));
+                ++reused;
+            }
+        }
+        Assertions.assertTrue(reused > 0);
+        Assertions.assertTrue(manager.isAlive(survivor));
+    }
+
+    @Test
+    public void removeEntities_repeatedCalls_reusedIDsSurvive() {
+        EntityComponentManager manager = createManager();
+        create(manager, 0, 1000, new Array<>(Health.class, 0), HEALTH);
+        manager.removeEntities(new MaskFilter.Builder().all(HEALTH).build());
+
+        Array<Entity> reused = create(manager, 1, 1000, new Array<>(Health.class, 0), HEALTH, ENEMY);
+        Array<Entity> removed = create(manager, 2, 500, new Array<>(Health.class, 0), HEALTH, POSITION);
+        Assertions.assertEquals(500, manager.removeEntities(new MaskFilter.Builder().all(POSITION).build()));
+
+        for(int i = 0; i < reused.getLength(); i++) {
+            Assertions.assertTrue(manager.isAlive(reused.get(i)));
+            Assertions.assertTrue(manager.isAlive(reused.get(i).getHandle()));
+        }
+        for(int i = 0; i < removed.getLength(); i++) Assertions.assertFalse(manager.isAlive(removed.get(i)));
+        Assertions.assertEquals(1000, manager.removeEntities(new MaskFilter.Builder().all(ENEMY).build()));
+        Assertions.assertTrue(collect(manager, new MaskFilter.Builder().build()).isEmpty());
+    }
+
+    @Test
+    public void removeEntities_newEntitiesBufferAfterRemove_uniqueIDs() {
+        EntityComponentManager manager = createManager();
+        create(manager, 0, 3000, new Array<>(Health.class, 0), HEALTH);
+        manager.removeEntities(new MaskFilter.Builder().build());
+
+        NewEntitiesBuffer buffer = manager.createNewEntitiesBuffer();
+        Set<Integer> ids = new HashSet<>();
+        for(int i = 0; i < 3000; i++) Assertions.assertTrue(ids.add(buffer.createEntity(0).getPersonalID()));
+        for(int i = 0; i < 3000; i++) Assertions.assertTrue(ids.add(manager.createEntity(0).getPersonalID()));
+        manager.flushBuffer(buffer);
+        Assertions.assertEquals(6000, collectSet(manager, new MaskFilter.Builder().build()).size());
+    }
+
+}
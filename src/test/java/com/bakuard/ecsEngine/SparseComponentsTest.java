@@ -0,0 +1,180 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+class SparseComponentsTest extends ManagerTest {
+
+    private static final int POISONED = 5;
+
+    private static class Counter extends Component {
+
+        private int destructs;
+
+        public Counter(Entity owner, int typeID) {
+            super(owner, typeID);
+        }
+
+        @Override
+        public void destruct() {
+            ++destructs;
+        }
+
+    }
+
+    private static Set<Entity> collectSet(EntityComponentManager manager, EntitiesFilter filter) {
+        return new HashSet<>(collect(manager, filter));
+    }
+
+    @Test
+    public void bind_unbind_archetypeNotChanged() {
+        EntityComponentManager manager = createManager();
+        Entity entity = manager.createEntity(0);
+        manager.bind(new Counter(entity, HEALTH));
+        Counter selected = new Counter(entity, SELECTED);
+
+        manager.bind(selected);
+        Assertions.assertTrue(manager.hasComponent(entity, SELECTED));
+        Assertions.assertSame(selected, manager.getComponent(entity, SELECTED));
+
+        manager.unbind(selected);
+        Assertions.assertFalse(manager.hasComponent(entity, SELECTED));
+        Assertions.assertNull(manager.getComponent(entity, SELECTED));
+        Assertions.assertTrue(manager.hasComponent(entity, HEALTH));
+    }
+
+    @Test
+    public void forEach_filterWithSparseType() {
+        EntityComponentManager manager = createManager();
+        Set<Entity> expected = new HashSet<>();
+        for(int i = 0; i < 1000; i++) {
+            Entity entity = manager.createEntity(0);
+            manager.bind(new Counter(entity, HEALTH));
+            if(i % 3 == 0) {
+                manager.bind(new Counter(entity, SELECTED));
+                expected.add(entity);
+            }
+        }
+
+        Assertions.assertEquals(expected, collectSet(manager, new MaskFilter.Builder().all(HEALTH, SELECTED).build()));
+        Assertions.assertEquals(1000 - expected.size(),
+                collectSet(manager, new MaskFilter.Builder().all(HEALTH).none(SELECTED).build()).size());
+    }
+
+    @Test
+    public void forEach_filterWithoutSparseType() {
+        EntityComponentManager manager = createManager();
+        Set<Entity> expected = new HashSet<>();
+        for(int i = 0; i < 1000; i++) {
+            Entity entity = manager.createEntity(0);
+            if(i % 2 == 0) {
+                manager.bind(new Counter(entity, HEALTH));
+                expected.add(entity);
+            }
+            if(i % 3 == 0) manager.bind(new Counter(entity, SELECTED));
+        }
+
+        MaskFilter filter = new MaskFilter.Builder().all(HEALTH).build();
+        Assertions.assertEquals(expected, collectSet(manager, filter));
+
+        Spliterator<Entity> spliterator = manager.getEntitiesSpliterator(filter);
+        Assertions.assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+        Assertions.assertEquals(expected.size(), spliterator.estimateSize());
+        Assertions.assertEquals(expected, manager.stream(filter).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void getEntitiesSpliterator_filterWithSparseType_notSized() {
+        EntityComponentManager manager = createManager();
+        Entity entity = manager.createEntity(0);
+        manager.bind(new Counter(entity, SELECTED));
+        manager.createEntity(0);
+
+        MaskFilter filter = new MaskFilter.Builder().all(SELECTED).build();
+        Assertions.assertFalse(manager.getEntitiesSpliterator(filter).hasCharacteristics(Spliterator.SIZED));
+        Assertions.assertEquals(Set.of(entity), manager.stream(filter).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void removeEntities_filterWithoutSparseType_sparseComponentsDestructed() {
+        EntityComponentManager manager = createManager();
+        Array<Counter> selected = new Array<>(Counter.class, 0);
+        Array<Entity> entities = new Array<>(Entity.class, 0);
+        for(int i = 0; i < 700; i++) {
+            Entity entity = manager.createEntity(0);
+            manager.bind(new Counter(entity, HEALTH));
+            Counter component = new Counter(entity, SELECTED);
+            manager.bind(component);
+            selected.add(component);
+            entities.add(entity);
+        }
+        Entity survivor = manager.createEntity(1);
+        manager.bind(new Counter(survivor, SELECTED));
+
+        Assertions.assertEquals(700, manager.removeEntities(new MaskFilter.Builder().all(HEALTH).build()));
+
+        for(int i = 0; i < 700; i++) {
+            Assertions.assertFalse(manager.isAlive(entities.get(i)));
+            Assertions.assertEquals(1, selected.get(i).destructs);
+            Assertions.assertFalse(selected.get(i).isBind());
+        }
+        Assertions.assertTrue(manager.hasComponent(survivor, SELECTED));
+        Assertions.assertEquals(Set.of(survivor), collectSet(manager, new MaskFilter.Builder().all(SELECTED).build()));
+    }
+
+    @Test
+    public void removeEntities_filterWithSparseType() {
+        EntityComponentManager manager = createManager();
+        Set<Entity> expected = new HashSet<>();
+        for(int i = 0; i < 700; i++) {
+            Entity entity = manager.createEntity(0);
+            manager.bind(new Counter(entity, HEALTH));
+            if(i % 2 == 0) manager.bind(new Counter(entity, SELECTED));
+            else expected.add(entity);
+        }
+
+        Assertions.assertEquals(350, manager.removeEntities(new MaskFilter.Builder().all(SELECTED).build()));
+        Assertions.assertEquals(expected, collectSet(manager, new MaskFilter.Builder().build()));
+    }
+
+    @Test
+    public void bindToAll_filterWithoutSparseType_sparseComponentsKept() {
+        EntityComponentManager manager = createManager();
+        manager.registerTagType(POISONED);
+        Array<Entity> entities = new Array<>(Entity.class, 0);
+        for(int i = 0; i < 600; i++) {
+            Entity entity = manager.createEntity(0);
+            manager.bind(new Counter(entity, HEALTH));
+            if(i % 4 == 0) manager.bind(new Counter(entity, SELECTED));
+            entities.add(entity);
+        }
+
+        Assertions.assertEquals(600, manager.bindToAll(new MaskFilter.Builder().all(HEALTH).build(), POISONED, null));
+        for(int i = 0; i < 600; i++) {
+            Assertions.assertTrue(manager.hasComponent(entities.get(i), POISONED));
+            Assertions.assertEquals(i % 4 == 0, manager.hasComponent(entities.get(i), SELECTED));
+        }
+
+        Assertions.assertEquals(150, manager.unbindFromAll(new MaskFilter.Builder().all(SELECTED).build(), POISONED));
+        for(int i = 0; i < 600; i++) {
+            Assertions.assertEquals(i % 4 != 0, manager.hasComponent(entities.get(i), POISONED));
+        }
+    }
+
+    @Test
+    public void registerSparseType_bulkBindRejected() {
+        EntityComponentManager manager = createManager();
+        manager.createEntity(0);
+        MaskFilter filter = new MaskFilter.Builder().build();
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.bindToAll(filter, SELECTED, entity -> new Counter(entity, SELECTED)));
+    }
+
+}
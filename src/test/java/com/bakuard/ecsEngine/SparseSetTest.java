@@ -0,0 +1,111 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+class SparseSetTest {
+
+    @Test
+    public void put_get_uniqueKey() {
+        SparseSet<String> set = new SparseSet<>();
+        for(int i = 0; i < 100000; i++) Assertions.assertNull(set.put(i, "Cat #" + i));
+
+        for(int i = 0; i < 100000; i++) Assertions.assertEquals("Cat #" + i, set.get(i));
+        Assertions.assertEquals(100000, set.getSize());
+        Assertions.assertNull(set.get(100000));
+        Assertions.assertNull(set.get(-1));
+    }
+
+    @Test
+    public void put_get_duplicateKey() {
+        SparseSet<String> set = new SparseSet<>();
+        Assertions.assertNull(set.put(500, "Cat#0"));
+        for(int i = 1; i < 1000; i++) Assertions.assertEquals("Cat#" + (i - 1), set.put(500, "Cat#" + i));
+
+        Assertions.assertEquals("Cat#999", set.get(500));
+        Assertions.assertEquals(1, set.getSize());
+    }
+
+    @Test
+    public void put_negativeKey() {
+        SparseSet<String> set = new SparseSet<>();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> set.put(-1, "a"));
+    }
+
+    @Test
+    public void remove_existsKey() {
+        SparseSet<String> set = new SparseSet<>();
+        for(int i = 0; i < 1000; i++) set.put(i, "Cat #" + i);
+
+        for(int i = 0; i < 1000; i += 2) Assertions.assertEquals("Cat #" + i, set.remove(i));
+
+        Assertions.assertEquals(500, set.getSize());
+        for(int i = 0; i < 1000; i++) {
+            if(i % 2 == 0) {
+                Assertions.assertFalse(set.contains(i));
+                Assertions.assertNull(set.get(i));
+            } else {
+                Assertions.assertTrue(set.contains(i));
+                Assertions.assertEquals("Cat #" + i, set.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void remove_notExistsKey() {
+        SparseSet<String> set = new SparseSet<>();
+        set.put(10, "a");
+
+        Assertions.assertNull(set.remove(11));
+        Assertions.assertNull(set.remove(100000));
+        Assertions.assertNull(set.remove(-5));
+        Assertions.assertEquals(1, set.getSize());
+    }
+
+    @Test
+    public void getKey_getValue() {
+        SparseSet<String> set = new SparseSet<>();
+        Random random = new Random(100);
+        HashMap<Integer, String> expected = new HashMap<>();
+        for(int i = 0; i < 10000; i++) {
+            int key = random.nextInt(50000);
+            if(random.nextInt(3) == 0) {
+                set.remove(key);
+                expected.remove(key);
+            } else {
+                set.put(key, "Value #" + i);
+                expected.put(key, "Value #" + i);
+            }
+        }
+
+        Assertions.assertEquals(expected.size(), set.getSize());
+        HashSet<Integer> keys = new HashSet<>();
+        for(int i = 0; i < set.getSize(); i++) {
+            Assertions.assertEquals(expected.get(set.getKey(i)), set.getValue(i));
+            keys.add(set.getKey(i));
+        }
+        Assertions.assertEquals(expected.keySet(), keys);
+
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> set.getKey(set.getSize()));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> set.getValue(-1));
+    }
+
+    @Test
+    public void clear() {
+        SparseSet<String> set = new SparseSet<>();
+        for(int i = 0; i < 1000; i++) set.put(i, "Cat #" + i);
+
+        set.clear();
+
+        Assertions.assertTrue(set.isEmpty());
+        for(int i = 0; i < 1000; i++) Assertions.assertFalse(set.contains(i));
+        Assertions.assertNull(set.put(5, "a"));
+        Assertions.assertEquals("a", set.get(5));
+    }
+
+}
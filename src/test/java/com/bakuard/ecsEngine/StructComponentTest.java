@@ -0,0 +1,195 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class StructComponentTest extends ManagerTest {
+
+    private static final int TRANSFORM = 5;
+    private static final int VELOCITY = 6;
+
+    private static EntityComponentManager createTransformManager() {
+        EntityComponentManager manager = createManager();
+        manager.registerStructType(TRANSFORM,
+                new Schema.Builder().addInt("id").addLong("time").addFloat("x").addDouble("y").build());
+        manager.registerStructType(VELOCITY, new Schema.Builder().addFloat("dx").addFloat("dy").build());
+        return manager;
+    }
+
+    private static void write(EntityComponentManager manager, Entity entity, int value) {
+        manager.setInt(entity, TRANSFORM, 0, value);
+        manager.setLong(entity, TRANSFORM, 1, value * 10L);
+        manager.setFloat(entity, TRANSFORM, 2, value + 0.5f);
+        manager.setDouble(entity, TRANSFORM, 3, value + 0.25);
+    }
+
+    private static void check(EntityComponentManager manager, Entity entity, int value) {
+        Assertions.assertEquals(value, manager.getInt(entity, TRANSFORM, 0));
+        Assertions.assertEquals(value * 10L, manager.getLong(entity, TRANSFORM, 1));
+        Assertions.assertEquals(value + 0.5f, manager.getFloat(entity, TRANSFORM, 2));
+        Assertions.assertEquals(value + 0.25, manager.getDouble(entity, TRANSFORM, 3));
+    }
+
+    private static void checkZero(EntityComponentManager manager, Entity entity) {
+        Assertions.assertEquals(0, manager.getInt(entity, TRANSFORM, 0));
+        Assertions.assertEquals(0L, manager.getLong(entity, TRANSFORM, 1));
+        Assertions.assertEquals(0f, manager.getFloat(entity, TRANSFORM, 2));
+        Assertions.assertEquals(0D, manager.getDouble(entity, TRANSFORM, 3));
+    }
+
+    @Test
+    public void bindStruct_fieldsZero() {
+        EntityComponentManager manager = createTransformManager();
+        Entity entity = manager.createEntity(0);
+
+        manager.bindStruct(entity, TRANSFORM);
+
+        Assertions.assertTrue(manager.hasComponent(entity, TRANSFORM));
+        checkZero(manager, entity);
+    }
+
+    @Test
+    public void setInt_getInt_valuesKeptWhenEntityMoved() {
+        EntityComponentManager manager = createTransformManager();
+        Array<Entity> entities = new Array<>(Entity.class, 0);
+        for(int i = 0; i < 300; i++) {
+            Entity entity = manager.createEntity(0);
+            manager.bindStruct(entity, TRANSFORM);
+            write(manager, entity, i);
+            entities.add(entity);
+        }
+
+        for(int i = 0; i < 300; i += 2) manager.bind(new Value(entities.get(i), HEALTH));
+        for(int i = 0; i < 300; i += 3) manager.bindStruct(entities.get(i), VELOCITY);
+        for(int i = 0; i < 300; i += 6) manager.unbindStruct(entities.get(i), VELOCITY);
+
+        for(int i = 0; i < 300; i++) {
+            check(manager, entities.get(i), i);
+            Assertions.assertEquals(i % 2 == 0, manager.hasComponent(entities.get(i), HEALTH));
+            Assertions.assertEquals(i % 3 == 0 && i % 6 != 0, manager.hasComponent(entities.get(i), VELOCITY));
+        }
+    }
+
+    @Test
+    public void unbindStruct_rebindResetsFields() {
+        EntityComponentManager manager = createTransformManager();
+        Entity entity = manager.createEntity(0);
+        manager.bindStruct(entity, TRANSFORM);
+        write(manager, entity, 7);
+
+        manager.unbindStruct(entity, TRANSFORM);
+        Assertions.assertFalse(manager.hasComponent(entity, TRANSFORM));
+        manager.bindStruct(entity, TRANSFORM);
+
+        checkZero(manager, entity);
+    }
+
+    @Test
+    public void forEachChunk_columnsShareEntityIndex() {
+        EntityComponentManager manager = createTransformManager();
+        for(int i = 0; i < 1000; i++) {
+            Entity entity = manager.createEntity(0);
+            manager.bindStruct(entity, TRANSFORM);
+            manager.bindStruct(entity, VELOCITY);
+            write(manager, entity, entity.getPersonalID());
+            manager.setFloat(entity, VELOCITY, 0, 1f);
+            manager.setFloat(entity, VELOCITY, 1, -1f);
+        }
+
+        manager.forEachChunk(all(TRANSFORM, VELOCITY), (Chunk chunk) -> {
+            StructColumn position = chunk.getStructColumn(TRANSFORM);
+            StructColumn velocity = chunk.getStructColumn(VELOCITY);
+            Assertions.assertEquals(chunk.getLength(), position.getLength());
+            for(int i = 0; i < chunk.getLength(); i++) {
+                position.setFloat(2, i, position.getFloat(2, i) + velocity.getFloat(0, i));
+                position.setDouble(3, i, position.getDouble(3, i) + velocity.getFloat(1, i));
+            }
+        });
+
+        manager.forEach(all(TRANSFORM), (Entity entity) -> {
+            int id = entity.getPersonalID();
+            Assertions.assertEquals(id, manager.getInt(entity, TRANSFORM, 0));
+            Assertions.assertEquals(id + 1.5f, manager.getFloat(entity, TRANSFORM, 2));
+            Assertions.assertEquals(id - 0.75, manager.getDouble(entity, TRANSFORM, 3));
+        });
+    }
+
+    @Test
+    public void bindStruct_buffers() {
+        EntityComponentManager manager = createTransformManager();
+        Entity existing = manager.createEntity(0);
+
+        EntityCommandBuffer commands = manager.createEntityCommandBuffer();
+        commands.bindStruct(existing, TRANSFORM);
+        NewEntitiesBuffer buffer = manager.createNewEntitiesBuffer();
+        Entity created = buffer.createEntity(1);
+        buffer.bindStruct(created, TRANSFORM);
+        buffer.setInt(created, TRANSFORM, 0, 5);
+        buffer.setDouble(created, TRANSFORM, 3, 5.25);
+        Assertions.assertEquals(5, buffer.getInt(created, TRANSFORM, 0));
+
+        manager.flushBuffer(commands, exception -> Assertions.fail(exception));
+        manager.flushBuffer(buffer);
+
+        checkZero(manager, existing);
+        Assertions.assertEquals(5, manager.getInt(created, TRANSFORM, 0));
+        Assertions.assertEquals(5.25, manager.getDouble(created, TRANSFORM, 3));
+    }
+
+    @Test
+    public void bindStruct_flushedBuffer() {
+        EntityComponentManager manager = createTransformManager();
+        NewEntitiesBuffer buffer = manager.createNewEntitiesBuffer();
+        Entity created = buffer.createEntity(1);
+        buffer.bindStruct(created, TRANSFORM);
+        manager.flushBuffer(buffer);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> buffer.bindStruct(created, VELOCITY));
+        Assertions.assertThrows(IllegalStateException.class, () -> buffer.unbindStruct(created, TRANSFORM));
+        Assertions.assertThrows(IllegalStateException.class, () -> buffer.getInt(created, TRANSFORM, 0));
+        Assertions.assertThrows(IllegalStateException.class, () -> buffer.setInt(created, TRANSFORM, 0, 1));
+        Assertions.assertThrows(IllegalStateException.class, () -> buffer.getLong(created, TRANSFORM, 1));
+        Assertions.assertThrows(IllegalStateException.class, () -> buffer.setLong(created, TRANSFORM, 1, 1L));
+        Assertions.assertThrows(IllegalStateException.class, () -> buffer.getFloat(created, TRANSFORM, 2));
+        Assertions.assertThrows(IllegalStateException.class, () -> buffer.setFloat(created, TRANSFORM, 2, 1f));
+        Assertions.assertThrows(IllegalStateException.class, () -> buffer.getDouble(created, TRANSFORM, 3));
+        Assertions.assertThrows(IllegalStateException.class, () -> buffer.setDouble(created, TRANSFORM, 3, 1.0));
+        Assertions.assertEquals(0, manager.getInt(created, TRANSFORM, 0));
+    }
+
+    @Test
+    public void structType_invalidUse() {
+        EntityComponentManager manager = createTransformManager();
+        Entity entity = manager.createEntity(0);
+        manager.bindStruct(entity, TRANSFORM);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.bindStruct(entity, TRANSFORM));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.bindStruct(entity, HEALTH));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.unbindStruct(entity, VELOCITY));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.getInt(entity, VELOCITY, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.getInt(entity, TRANSFORM, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.setFloat(entity, TRANSFORM, 3, 1f));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.registerStructType(TRANSFORM, new Schema.Builder().addInt("x").build()));
+        Assertions.assertThrows(NullPointerException.class, () -> manager.registerStructType(HEALTH, null));
+
+        manager.removeEntity(entity);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.getInt(entity, TRANSFORM, 0));
+    }
+
+    @Test
+    public void schema_fields() {
+        Schema schema = new Schema.Builder().addInt("id").addLong("time").addFloat("x").addDouble("y").build();
+
+        Assertions.assertEquals(4, schema.getNumberFields());
+        Assertions.assertEquals(Schema.FieldType.LONG, schema.getFieldType(1));
+        Assertions.assertEquals("x", schema.getFieldName(2));
+        Assertions.assertEquals(3, schema.getFieldIndex("y"));
+        Assertions.assertEquals(-1, schema.getFieldIndex("z"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Schema.Builder().addInt("x").addFloat("x"));
+        Assertions.assertThrows(NullPointerException.class, () -> new Schema.Builder().addInt(null));
+    }
+
+}
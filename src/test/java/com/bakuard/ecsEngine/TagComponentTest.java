@@ -0,0 +1,121 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import com.bakuard.ecsEngine.core.utils.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+class TagComponentTest extends ManagerTest {
+
+    private static final int STUNNED = 5;
+
+    private static EntityComponentManager createTagManager() {
+        EntityComponentManager manager = createManager();
+        manager.registerTagType(STUNNED);
+        return manager;
+    }
+
+    private static Set<Entity> collectSet(EntityComponentManager manager, EntitiesFilter filter) {
+        return new HashSet<>(collect(manager, filter));
+    }
+
+    @Test
+    public void bindTag_unbindTag() {
+        EntityComponentManager manager = createTagManager();
+        Entity entity = manager.createEntity(0);
+        Value health = new Value(entity, HEALTH);
+        manager.bind(health);
+
+        manager.bindTag(entity, ENEMY);
+        Assertions.assertTrue(manager.hasComponent(entity, ENEMY));
+        Assertions.assertNull(manager.getComponent(entity, ENEMY));
+        Assertions.assertSame(health, manager.getComponent(entity, HEALTH));
+
+        manager.unbindTag(entity, ENEMY);
+        Assertions.assertFalse(manager.hasComponent(entity, ENEMY));
+        Assertions.assertSame(health, manager.getComponent(entity, HEALTH));
+    }
+
+    @Test
+    public void bindTag_filters() {
+        EntityComponentManager manager = createTagManager();
+        Set<Entity> enemies = new HashSet<>();
+        Set<Entity> stunnedEnemies = new HashSet<>();
+        for(int i = 0; i < 1000; i++) {
+            Entity entity = manager.createEntity(0);
+            if(i % 2 == 0) {
+                manager.bindTag(entity, ENEMY);
+                enemies.add(entity);
+            }
+            if(i % 3 == 0) {
+                manager.bindTag(entity, STUNNED);
+                if(i % 2 == 0) stunnedEnemies.add(entity);
+            }
+        }
+
+        Assertions.assertEquals(enemies, collectSet(manager, all(ENEMY)));
+        Assertions.assertEquals(stunnedEnemies, collectSet(manager, all(ENEMY, STUNNED)));
+        Set<Entity> notEnemies = collectSet(manager, none(ENEMY));
+        Assertions.assertEquals(500, notEnemies.size());
+        for(Entity entity : notEnemies) Assertions.assertFalse(enemies.contains(entity));
+    }
+
+    @Test
+    public void bindTag_noColumnInChunk() {
+        EntityComponentManager manager = createTagManager();
+        for(int i = 0; i < 10; i++) manager.bindTag(manager.createEntity(0), ENEMY);
+
+        manager.forEachChunk(all(ENEMY), (Chunk chunk) -> {
+            Assertions.assertTrue(chunk.containsComponentType(ENEMY));
+            Assertions.assertNull(chunk.getComponent(ENEMY, 0));
+            Assertions.assertNull(chunk.getStructColumn(ENEMY));
+        });
+    }
+
+    @Test
+    public void bindTag_buffers() {
+        EntityComponentManager manager = createTagManager();
+        Entity existing = manager.createEntity(0);
+        manager.bindTag(existing, STUNNED);
+
+        EntityCommandBuffer commands = manager.createEntityCommandBuffer();
+        commands.bindTag(existing, ENEMY);
+        commands.unbindTag(existing, STUNNED);
+        NewEntitiesBuffer buffer = manager.createNewEntitiesBuffer();
+        Entity created = buffer.createEntity(0);
+        buffer.bindTag(created, ENEMY);
+        buffer.bindTag(created, STUNNED);
+        buffer.unbindTag(created, STUNNED);
+
+        manager.flushBuffer(commands, exception -> Assertions.fail(exception));
+        manager.flushBuffer(buffer);
+
+        Assertions.assertTrue(manager.hasComponent(existing, ENEMY));
+        Assertions.assertFalse(manager.hasComponent(existing, STUNNED));
+        Assertions.assertTrue(manager.hasComponent(created, ENEMY));
+        Assertions.assertFalse(manager.hasComponent(created, STUNNED));
+    }
+
+    @Test
+    public void bindTag_invalidUse() {
+        EntityComponentManager manager = createTagManager();
+        Entity entity = manager.createEntity(0);
+        manager.bindTag(entity, ENEMY);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.bindTag(entity, ENEMY));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.bindTag(entity, HEALTH));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.unbindTag(entity, STUNNED));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.bind(new Value(entity, ENEMY)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.registerTagType(ENEMY));
+
+        NewEntitiesBuffer buffer = manager.createNewEntitiesBuffer();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> buffer.bindTag(entity, STUNNED));
+
+        manager.removeEntity(entity);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.unbindTag(entity, ENEMY));
+    }
+
+}
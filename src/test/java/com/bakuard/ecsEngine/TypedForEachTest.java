@@ -0,0 +1,100 @@
+package com.bakuard.ecsEngine;
+
+import com.bakuard.ecsEngine.core.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Map;
+
+class TypedForEachTest extends ManagerTest {
+
+    private static final int WEAPON = 5;
+
+    private static EntityComponentManager createFilledManager() {
+        EntityComponentManager manager = createManager();
+        for(int i = 0; i < Chunk.CAPACITY * 2 + 50; i++) {
+            Entity entity = manager.createEntity(i % 2);
+            if(i % 2 == 0) manager.bind(new Value(entity, HEALTH, i));
+            if(i % 3 == 0) manager.bind(new Value(entity, ARMOR, -i));
+            if(i % 5 == 0) manager.bind(new Value(entity, WEAPON, i * 10));
+            if(i % 7 == 0) manager.bind(new Value(entity, SELECTED, i * 100));
+            if(i % 11 == 0) manager.bindTag(entity, ENEMY);
+        }
+        return manager;
+    }
+
+    //Ожидаемые компоненты typeA, typeB, typeC сущностей удовлетворяющих фильтру, полученные через getComponent().
+    private static Map<Entity, String> expected(EntityComponentManager manager, EntitiesFilter filter, int... types) {
+        Map<Entity, String> result = new HashMap<>();
+        manager.forEach(filter, (Entity entity) -> {
+            StringBuilder line = new StringBuilder();
+            for(int type : types) {
+                Value value = (Value) manager.getComponent(entity, type);
+                if(value == null) return;
+                line.append(value.VALUE).append(' ');
+            }
+            result.put(entity, line.toString());
+        });
+        return result;
+    }
+
+    @Test
+    public void forEach_oneType() {
+        EntityComponentManager manager = createFilledManager();
+        EntitiesFilter filter = new MaskFilter.Builder().none(ENEMY).build();
+        Map<Entity, String> actual = new HashMap<>();
+
+        manager.<Value>forEach(filter, HEALTH, (entity, a) -> actual.put(entity, a.VALUE + " "));
+
+        Assertions.assertEquals(expected(manager, filter, HEALTH), actual);
+    }
+
+    @Test
+    public void forEach_twoTypes() {
+        EntityComponentManager manager = createFilledManager();
+        EntitiesFilter filter = new MaskFilter.Builder().entityTypes(0).build();
+        Map<Entity, String> actual = new HashMap<>();
+
+        manager.<Value, Value>forEach(filter, HEALTH, ARMOR,
+                (entity, a, b) -> actual.put(entity, a.VALUE + " " + b.VALUE + " "));
+
+        Assertions.assertFalse(actual.isEmpty());
+        Assertions.assertEquals(expected(manager, filter, HEALTH, ARMOR), actual);
+    }
+
+    @Test
+    public void forEach_threeTypesWithSparse() {
+        EntityComponentManager manager = createFilledManager();
+        EntitiesFilter filter = new MaskFilter.Builder().build();
+        Map<Entity, String> actual = new HashMap<>();
+
+        manager.<Value, Value, Value>forEach(filter, ARMOR, SELECTED, WEAPON,
+                (entity, a, b, c) -> actual.put(entity, a.VALUE + " " + b.VALUE + " " + c.VALUE + " "));
+
+        Assertions.assertFalse(actual.isEmpty());
+        Assertions.assertEquals(expected(manager, filter, ARMOR, SELECTED, WEAPON), actual);
+    }
+
+    @Test
+    public void forEach_invalidTypes() {
+        EntityComponentManager manager = createFilledManager();
+        EntitiesFilter filter = new MaskFilter.Builder().build();
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.forEach(filter, POSITION, (entity, a) -> {}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> manager.forEach(filter, HEALTH, ENEMY, (entity, a, b) -> {}));
+    }
+
+    @Test
+    public void forEach_modifiedDuringIteration() {
+        EntityComponentManager manager = createFilledManager();
+
+        Assertions.assertThrows(ConcurrentModificationException.class,
+                () -> manager.forEach(new MaskFilter.Builder().build(), HEALTH,
+                        (entity, a) -> manager.createEntity(0)));
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.bakuard.ecsEngine.core;
+
+import com.bakuard.ecsEngine.core.utils.Bits;
+import com.bakuard.ecsEngine.core.utils.IntArray;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.IdentityHashMap;
+
+class ArchetypesTest {
+
+    private static final int NUMBER_TYPES = 6;
+
+    private static class Marker extends Component {
+
+        public Marker(Entity owner, int typeID) {
+            super(owner, typeID);
+        }
+
+        @Override
+        public void destruct() {
+
+        }
+
+    }
+
+    private static Archetypes createArchetypes() {
+        return new Archetypes(new ComponentTypes(), new ChunkPool(), new TickCounter());
+    }
+
+    private static Bits mask(int... componentTypeIDs) {
+        Bits mask = new Bits(NUMBER_TYPES);
+        for(int componentTypeID : componentTypeIDs) mask.set(componentTypeID);
+        return mask;
+    }
+
+    @Test
+    public void getWith_cachesEdgeInBothDirections() {
+        Archetypes archetypes = createArchetypes();
+        Archetype empty = archetypes.getEmpty();
+
+        Archetype withHealth = archetypes.getWith(empty, 3);
+
+        Assertions.assertTrue(withHealth.containsComponentType(3));
+        Assertions.assertSame(withHealth, empty.getAddEdge(3));
+        Assertions.assertSame(empty, withHealth.getRemoveEdge(3));
+        Assertions.assertSame(withHealth, archetypes.getWith(empty, 3));
+        Assertions.assertSame(empty, archetypes.getWithout(withHealth, 3));
+        Assertions.assertEquals(2, archetypes.getLength());
+    }
+
+    @Test
+    public void getWithout_cachesEdgeInBothDirections() {
+        Archetypes archetypes = createArchetypes();
+        Archetype full = archetypes.get(mask(1, 2, 5));
+
+        Archetype withoutTwo = archetypes.getWithout(full, 2);
+
+        Assertions.assertTrue(withoutTwo.containsComponentTypes(mask(1, 5)));
+        Assertions.assertSame(withoutTwo, full.getRemoveEdge(2));
+        Assertions.assertSame(full, withoutTwo.getAddEdge(2));
+        Assertions.assertSame(full, archetypes.getWith(withoutTwo, 2));
+        Assertions.assertNull(full.getAddEdge(2));
+        Assertions.assertNull(withoutTwo.getRemoveEdge(2));
+    }
+
+    @Test
+    public void getWith_differentPathsLeadToSameArchetype() {
+        Archetypes archetypes = createArchetypes();
+        IdentityHashMap<Archetype, Boolean> unique = new IdentityHashMap<>();
+
+        //Обходит все подмножества типов компонентов, добавляя типы в разном порядке.
+        for(int subset = 0; subset < (1 << NUMBER_TYPES); subset++) {
+            Archetype ascending = archetypes.getEmpty();
+            Archetype descending = archetypes.getEmpty();
+            for(int type = 0; type < NUMBER_TYPES; type++) {
+                if((subset & (1 << type)) != 0) ascending = archetypes.getWith(ascending, type);
+                int reversed = NUMBER_TYPES - type - 1;
+                if((subset & (1 << reversed)) != 0) descending = archetypes.getWith(descending, reversed);
+            }
+            Assertions.assertSame(ascending, descending);
+            unique.put(ascending, true);
+        }
+
+        Assertions.assertEquals(1 << NUMBER_TYPES, unique.size());
+        Assertions.assertEquals(1 << NUMBER_TYPES, archetypes.getLength());
+        for(int i = 1; i < archetypes.getLength(); i++) {
+            Assertions.assertTrue(archetypes.get(i - 1).compareTo(archetypes.get(i)) < 0);
+        }
+    }
+
+    @Test
+    public void dropEmpty_clearsEdgesToDroppedArchetypes() {
+        Archetypes archetypes = createArchetypes();
+        Archetype empty = archetypes.getEmpty();
+        Archetype withOne = archetypes.getWith(empty, 1);
+        Archetype withOneTwo = archetypes.getWith(withOne, 2);
+        withOne.addEntity(new IntArray(0), new Entity(0, 0, 0));
+
+        int removed = archetypes.dropEmpty();
+
+        Assertions.assertEquals(1, removed);
+        Assertions.assertEquals(2, archetypes.getLength());
+        Assertions.assertNull(withOne.getAddEdge(2));
+        Assertions.assertNull(withOne.getRemoveEdge(1));
+        Assertions.assertNull(empty.getAddEdge(1));
+        Archetype recreated = archetypes.getWith(withOne, 2);
+        Assertions.assertNotSame(withOneTwo, recreated);
+        Assertions.assertTrue(recreated.containsComponentTypes(mask(1, 2)));
+        Assertions.assertSame(withOne, archetypes.getWithout(recreated, 2));
+        Assertions.assertSame(withOne, archetypes.getWith(empty, 1));
+    }
+
+    @Test
+    public void newEntitiesBuffer_usesSameEdges() {
+        EntityComponentManager manager = new World.Builder().build().getEntityCompManager();
+        NewEntitiesBuffer buffer = manager.createNewEntitiesBuffer();
+        Entity first = buffer.createEntity(0);
+        Entity second = buffer.createEntity(0);
+
+        buffer.bind(new Marker(first, 2));
+        Archetype withTwo = buffer.ARCHETYPES.getEmpty().getAddEdge(2);
+        Marker marker = new Marker(second, 4);
+        buffer.bind(new Marker(second, 2), marker);
+        buffer.unbind(marker);
+
+        Assertions.assertNotNull(withTwo);
+        Assertions.assertSame(buffer.ARCHETYPES.getEmpty(), withTwo.getRemoveEdge(2));
+        Assertions.assertSame(withTwo, withTwo.getAddEdge(4).getRemoveEdge(4));
+        Assertions.assertEquals(3, buffer.ARCHETYPES.getLength());
+    }
+
+    @Test
+    public void freeAll_keepsEdges() {
+        EntityComponentManager manager = new World.Builder().build().getEntityCompManager();
+        NewEntitiesBuffer buffer = manager.createNewEntitiesBuffer();
+        Entity first = buffer.createEntity(0);
+        buffer.bind(new Marker(first, 2));
+        Archetype withTwo = buffer.ARCHETYPES.getEmpty().getAddEdge(2);
+
+        manager.flushBuffer(buffer);
+        buffer.reset();
+
+        Assertions.assertNotNull(withTwo);
+        Assertions.assertEquals(0, withTwo.getLength());
+        Assertions.assertSame(withTwo, buffer.ARCHETYPES.getEmpty().getAddEdge(2));
+        Assertions.assertSame(buffer.ARCHETYPES.getEmpty(), withTwo.getRemoveEdge(2));
+        Entity second = buffer.createEntity(0);
+        buffer.bind(new Marker(second, 2));
+        Assertions.assertEquals(1, withTwo.getLength());
+        Assertions.assertEquals(2, buffer.ARCHETYPES.getLength());
+    }
+
+}